@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.benchmark;
+
+import com.illposed.osc.utility.OSCPatternAddressSelector;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures matching message addresses
+ * against typical {@link OSCPatternAddressSelector} patterns.
+ * Each operation matches one address out of a mix
+ * of matching and non-matching ones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddressSelectorBenchmark {
+
+	private static final String[] ADDRESSES = {
+		"/synth/1/freq",
+		"/synth/12/amp",
+		"/mixer/channel/3/volume",
+		"/mixer/channel/10/pan",
+		"/sampler/4/freq",
+		"/transport/play",
+		"/fx/reverb/room/size",
+		"/synth/1/env/attack"
+	};
+
+	@Param({
+		"/synth/1/freq",
+		"/synth/*/freq",
+		"/mixer/channel/[1-8]/volume",
+		"/{synth,sampler}/?/freq",
+		"//freq"
+	})
+	private String pattern;
+
+	private OSCPatternAddressSelector selector;
+	private int next;
+
+	@Setup
+	public void setUp() {
+
+		selector = new OSCPatternAddressSelector(pattern);
+		next = 0;
+	}
+
+	@Benchmark
+	public boolean matches() {
+
+		final String address = ADDRESSES[next];
+		next = (next + 1) % ADDRESSES.length;
+		return selector.matches(address);
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.benchmark;
+
+import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCPacket;
+import com.illposed.osc.utility.OSCByteArrayToJavaConverter;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures decoding packets of different shapes
+ * with an {@link OSCByteArrayToJavaConverter}, without dispatching them.
+ * See {@link PacketPoolBenchmark} for the whole receive path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+
+	/** How deep bundles are nested in each other. */
+	private static final int BUNDLE_DEPTH = 8;
+
+	private byte[] messageBytes;
+	private byte[] stringsBytes;
+	private byte[] blobBytes;
+	private byte[] deepBundleBytes;
+	private OSCByteArrayToJavaConverter converter;
+
+	@Setup
+	public void setUp() {
+
+		final OSCMessage message = new OSCMessage("/synth/1/freq");
+		message.addInt(1000);
+		message.addFloat(440.0f);
+		message.addFloat(0.5f);
+		messageBytes = message.getByteArray();
+
+		final OSCMessage strings = new OSCMessage("/track/title");
+		strings.addArgument("Lorem ipsum dolor sit amet");
+		strings.addArgument("consectetur");
+		strings.addArgument("adipiscing elit");
+		strings.addArgument("sed do eiusmod tempor incididunt");
+		stringsBytes = strings.getByteArray();
+
+		final OSCMessage blob = new OSCMessage("/sample/data");
+		blob.addArgument(new byte[1024]);
+		blobBytes = blob.getByteArray();
+
+		OSCBundle bundle = new OSCBundle(new Date(1000000L));
+		bundle.addPacket(message);
+		for (int di = 1; di < BUNDLE_DEPTH; di++) {
+			final OSCBundle outer = new OSCBundle(new Date(1000000L));
+			outer.addPacket(message);
+			outer.addPacket(bundle);
+			bundle = outer;
+		}
+		deepBundleBytes = bundle.getByteArray();
+
+		converter = new OSCByteArrayToJavaConverter();
+	}
+
+	@Benchmark
+	public OSCPacket decodeMessage() {
+		return converter.convert(messageBytes, messageBytes.length);
+	}
+
+	@Benchmark
+	public OSCPacket decodeStrings() {
+		return converter.convert(stringsBytes, stringsBytes.length);
+	}
+
+	@Benchmark
+	public OSCPacket decodeBlob() {
+		return converter.convert(blobBytes, blobBytes.length);
+	}
+
+	@Benchmark
+	public OSCPacket decodeDeepBundle() {
+		return converter.convert(deepBundleBytes, deepBundleBytes.length);
+	}
+}
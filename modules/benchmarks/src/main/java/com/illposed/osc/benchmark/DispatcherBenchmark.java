@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.benchmark;
+
+import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCListener;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.utility.OSCPacketDispatcher;
+import com.illposed.osc.utility.OSCPatternAddressSelector;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures dispatching already decoded packets
+ * with an {@link OSCPacketDispatcher}, depending on the number of listeners,
+ * each registered for the messages of one track.
+ * Without the match cache, each message is matched against all the selectors;
+ * with it, only the first message of each address is.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatcherBenchmark {
+
+	@Param({"10", "100", "1000", "10000"})
+	private int listeners;
+
+	@Param({"false", "true"})
+	private boolean caching;
+
+	private OSCPacketDispatcher dispatcher;
+	private OSCMessage message;
+	private OSCBundle bundle;
+
+	@Setup
+	public void setUp(final Blackhole blackhole) {
+
+		dispatcher = new OSCPacketDispatcher();
+		dispatcher.setMatchCacheEnabled(caching);
+		final OSCListener listener = new OSCListener() {
+			@Override
+			public void acceptMessage(final Date time, final OSCMessage message) {
+				blackhole.consume(message);
+			}
+		};
+		for (int li = 0; li < listeners; li++) {
+			dispatcher.addListener(new OSCPatternAddressSelector("/track/" + li + "/*"), listener);
+		}
+
+		message = new OSCMessage("/track/" + (listeners / 2) + "/volume");
+		message.addFloat(0.5f);
+		bundle = new OSCBundle(new Date(1000000L));
+		for (int mi = 0; mi < 4; mi++) {
+			final OSCMessage bundled = new OSCMessage("/track/" + mi + "/pan");
+			bundled.addFloat(0.0f);
+			bundle.addPacket(bundled);
+		}
+	}
+
+	@Benchmark
+	public void dispatchMessage() {
+		dispatcher.dispatchPacket(message);
+	}
+
+	@Benchmark
+	public void dispatchBundle() {
+		dispatcher.dispatchPacket(bundle);
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.benchmark;
+
+import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCMessageTemplate;
+import com.illposed.osc.utility.OSCJavaToByteArrayConverter;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encoding packets, the way they are usually sent:
+ * creating them anew, filling them, and converting them to bytes
+ * with an {@link OSCJavaToByteArrayConverter}.
+ * Pre-encoded {@link OSCMessageTemplate}s are measured for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodeBenchmark {
+
+	private static final int BUNDLE_SIZE = 8;
+
+	private byte[] blob;
+	private OSCMessageTemplate template;
+	private int counter;
+
+	@Setup
+	public void setUp() {
+
+		blob = new byte[1024];
+		template = new OSCMessageTemplate("/synth/1/freq", "iff");
+		counter = 0;
+	}
+
+	private OSCMessage createMessage() {
+
+		final OSCMessage message = new OSCMessage("/synth/1/freq");
+		message.addInt(counter++);
+		message.addFloat(440.0f);
+		message.addFloat(0.5f);
+		return message;
+	}
+
+	@Benchmark
+	public byte[] encodeMessage() {
+		return createMessage().getByteArray();
+	}
+
+	@Benchmark
+	public OSCMessageTemplate encodeMessageTemplate() {
+
+		template.setInt(0, counter++);
+		template.setFloat(1, 440.0f);
+		template.setFloat(2, 0.5f);
+		// the setters patch the encoding the ports send
+		return template;
+	}
+
+	@Benchmark
+	public byte[] encodeStrings() {
+
+		final OSCMessage message = new OSCMessage("/track/title");
+		message.addArgument("Lorem ipsum dolor sit amet");
+		message.addArgument("consectetur");
+		message.addArgument("adipiscing elit");
+		message.addArgument("sed do eiusmod tempor incididunt");
+		return message.getByteArray();
+	}
+
+	@Benchmark
+	public byte[] encodeBlob() {
+
+		final OSCMessage message = new OSCMessage("/sample/data");
+		message.addArgument(blob);
+		return message.getByteArray();
+	}
+
+	@Benchmark
+	public byte[] encodeBundle() {
+
+		final OSCBundle bundle = new OSCBundle(new Date(1000000L));
+		for (int mi = 0; mi < BUNDLE_SIZE; mi++) {
+			bundle.addPacket(createMessage());
+		}
+		return bundle.getByteArray();
+	}
+}
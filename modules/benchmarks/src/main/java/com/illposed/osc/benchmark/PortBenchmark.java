@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.benchmark;
+
+import com.illposed.osc.OSCListener;
+import com.illposed.osc.OSCLoopbackPortIn;
+import com.illposed.osc.OSCLoopbackPortOut;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCPortIn;
+import com.illposed.osc.OSCPortOut;
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures sending messages end-to-end, from a sending port
+ * to the listener of a receiving port in the same JVM,
+ * over UDP on the local host, and over the in-process loopback transport.
+ * The <code>*Latency</code> benchmarks wait for each message to arrive,
+ * so their sampled times show the distribution of one-way latencies;
+ * {@link #udpSend()} measures only the sending side.
+ * Each waited for message carries a sequence number,
+ * so a message arriving late is not mistaken for the one waited for.
+ * As UDP may drop packets, waiting for one gives up after
+ * {@link #TIMEOUT_NANOS}, and counts it as lost,
+ * which is reported as the secondary result <code>lost</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortBenchmark {
+
+	private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+	private static final String ADDRESS = "/synth/1/freq";
+
+	/**
+	 * Remembers the highest sequence number received.
+	 */
+	private static class SequenceListener implements OSCListener {
+
+		private final AtomicLong highestReceived = new AtomicLong(-1);
+
+		@Override
+		public void acceptMessage(final Date time, final OSCMessage message) {
+			highestReceived.accumulateAndGet(message.getLong(0), Math::max);
+		}
+
+		public long getHighestReceived() {
+			return highestReceived.get();
+		}
+	}
+
+	/**
+	 * Counts the messages given up on, per measurement iteration.
+	 * JMH reports its public fields as secondary results.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Losses {
+
+		/** The number of messages that did not arrive in time. */
+		public long lost;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			lost = 0;
+		}
+	}
+
+	private OSCPortIn udpReceiver;
+	private OSCPortOut udpSender;
+	private SequenceListener udpListener;
+	private OSCLoopbackPortIn loopbackReceiver;
+	private OSCLoopbackPortOut loopbackSender;
+	private SequenceListener loopbackListener;
+	private OSCMessage message;
+	private OSCMessage sequenced;
+	private long sequence;
+
+	@Setup
+	public void setUp() throws IOException {
+
+		final DatagramSocket socket = new DatagramSocket(0);
+		udpReceiver = new OSCPortIn(socket);
+		udpListener = new SequenceListener();
+		udpReceiver.addListener(ADDRESS, udpListener);
+		udpReceiver.startListening();
+		udpSender = new OSCPortOut(InetAddress.getLocalHost(), socket.getLocalPort());
+
+		loopbackReceiver = new OSCLoopbackPortIn();
+		loopbackListener = new SequenceListener();
+		loopbackReceiver.addListener(ADDRESS, loopbackListener);
+		loopbackReceiver.startListening();
+		loopbackSender = new OSCLoopbackPortOut(loopbackReceiver);
+
+		message = new OSCMessage(ADDRESS);
+		message.addInt(1000);
+		message.addFloat(440.0f);
+		message.addFloat(0.5f);
+		sequenced = new OSCMessage();
+		sequence = 0;
+	}
+
+	@TearDown
+	public void tearDown() {
+
+		udpReceiver.stopListening();
+		udpReceiver.close();
+		udpSender.close();
+		loopbackReceiver.close();
+	}
+
+	/**
+	 * Fills the message to be waited for with the next sequence number.
+	 * @return the sequence number of the message
+	 */
+	private long nextSequenced() {
+
+		sequence++;
+		sequenced.reset();
+		sequenced.setAddress(ADDRESS);
+		sequenced.addLong(sequence);
+		sequenced.addFloat(440.0f);
+		sequenced.addFloat(0.5f);
+		return sequence;
+	}
+
+	private static boolean waitFor(final SequenceListener listener, final long expected) {
+
+		final long deadline = System.nanoTime() + TIMEOUT_NANOS;
+		while (listener.getHighestReceived() < expected) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			Thread.yield();
+		}
+		return true;
+	}
+
+	@Benchmark
+	public void udpLatency(final Losses losses) throws IOException {
+
+		final long expected = nextSequenced();
+		udpSender.send(sequenced);
+		if (!waitFor(udpListener, expected)) {
+			losses.lost++;
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public void udpSend() throws IOException {
+		udpSender.send(message);
+	}
+
+	@Benchmark
+	public void loopbackLatency(final Losses losses) {
+
+		final long expected = nextSequenced();
+		loopbackSender.send(sequenced);
+		if (!waitFor(loopbackListener, expected)) {
+			losses.lost++;
+		}
+	}
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The common part of {@link OSCImmutableMessage} and {@link OSCImmutableBundle}.
+ *
+ * The packet is encoded once, on construction.
+ * Two immutable packets are equal if they are of the same type,
+ * use the same character set, and are encoded to the same bytes.
+ */
+abstract class AbstractOSCImmutablePacket implements OSCPacket {
+
+	private final Charset charset;
+	private final byte[] byteArray;
+	private final int hash;
+
+	/**
+	 * Takes over the encoded form of a packet.
+	 * @param encoder a newly created, mutable version of this packet,
+	 *   which is not used anymore afterwards
+	 */
+	protected AbstractOSCImmutablePacket(final OSCPacket encoder) {
+
+		this.charset = encoder.getCharset();
+		this.byteArray = encoder.getByteArray();
+		this.hash = Arrays.hashCode(byteArray);
+	}
+
+	@Override
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Not supported, as this packet is immutable.
+	 * Set the character set on the builder instead.
+	 * @param charset ignored
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public void setCharset(Charset charset) {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " can not be modified");
+	}
+
+	/**
+	 * Returns a copy of the encoded packet,
+	 * so no user can change what the other users of the packet see.
+	 * @return a new array, holding the encoded packet
+	 * @see #getByteBuffer()
+	 */
+	@Override
+	public byte[] getByteArray() {
+		return byteArray.clone();
+	}
+
+	/**
+	 * Returns the encoded packet without copying it.
+	 * @return a read-only view of the encoded packet
+	 */
+	public ByteBuffer getByteBuffer() {
+		return ByteBuffer.wrap(byteArray).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Returns the encoded packet without copying it,
+	 * for the ports of this package.
+	 * @return the encoded packet, which must not be modified
+	 */
+	protected byte[] getEncodedBytes() {
+		return byteArray;
+	}
+
+	/**
+	 * Returns the encoded form of any packet that is about to be sent,
+	 * without copying it, if the packet is immutable or a template.
+	 * @param packet to be sent
+	 * @return the encoded packet, which must not be modified
+	 */
+	protected static byte[] encodedBytes(final OSCPacket packet) {
+
+		byte[] bytes;
+		if (packet instanceof AbstractOSCImmutablePacket) {
+			bytes = ((AbstractOSCImmutablePacket) packet).getEncodedBytes();
+		} else if (packet instanceof OSCMessageTemplate) {
+			bytes = ((OSCMessageTemplate) packet).getEncodedBytes();
+		} else {
+			bytes = packet.getByteArray();
+		}
+		return bytes;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+
+		boolean equal = (this == other);
+		if (!equal && (other instanceof AbstractOSCImmutablePacket)) {
+			final AbstractOSCImmutablePacket otherPacket = (AbstractOSCImmutablePacket) other;
+			equal = (hash == otherPacket.hash)
+					&& getClass().equals(otherPacket.getClass())
+					&& charset.equals(otherPacket.charset)
+					&& Arrays.equals(byteArray, otherPacket.byteArray);
+		}
+		return equal;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	/**
+	 * Returns an immutable version of an argument.
+	 * Blobs, arrays, time-tags and collections are copied,
+	 * except for collections frozen before, if all their elements are immutable.
+	 * @param argument as given by the user
+	 * @return the argument itself, if it is immutable, or a copy
+	 */
+	protected static Object freeze(final Object argument) {
+
+		Object frozen;
+		if (argument instanceof Collection) {
+			frozen = isMutable(argument) ? new FrozenList((Collection<?>) argument) : argument;
+		} else if (argument instanceof OSCPackedArray) {
+			frozen = ((OSCPackedArray) argument).copy();
+		} else if (argument instanceof Date) {
+			frozen = ((Date) argument).clone();
+		} else if ((argument != null) && argument.getClass().isArray()) {
+			final int length = Array.getLength(argument);
+			frozen = Array.newInstance(argument.getClass().getComponentType(), length);
+			System.arraycopy(argument, 0, frozen, 0, length);
+		} else {
+			frozen = argument;
+		}
+		return frozen;
+	}
+
+	/**
+	 * Checks whether an argument would be copied by {@link #freeze(Object)}.
+	 * @param argument a frozen argument
+	 * @return <code>true</code> if the argument is mutable
+	 */
+	protected static boolean isMutable(final Object argument) {
+
+		boolean mutable;
+		if (argument instanceof FrozenList) {
+			mutable = ((FrozenList) argument).hasMutableElements();
+		} else {
+			mutable = (argument instanceof Collection)
+					|| (argument instanceof OSCPackedArray)
+					|| (argument instanceof Date)
+					|| ((argument != null) && argument.getClass().isArray());
+		}
+		return mutable;
+	}
+
+	/**
+	 * An unmodifiable list of frozen elements.
+	 * Unlike other collections, it is not copied when frozen again,
+	 * unless it contains mutable elements,
+	 * so returning it from a message does not allocate.
+	 */
+	private static final class FrozenList extends AbstractList<Object> implements RandomAccess {
+
+		private final List<Object> elements;
+		private final boolean mutableElements;
+
+		FrozenList(final Collection<?> elements) {
+
+			this.elements = new ArrayList<Object>(elements.size());
+			boolean mutable = false;
+			for (final Object element : elements) {
+				final Object frozen = freeze(element);
+				this.elements.add(frozen);
+				mutable |= isMutable(frozen);
+			}
+			this.mutableElements = mutable;
+		}
+
+		/**
+		 * Indicates whether any of the elements would be copied by {@link #freeze(Object)}.
+		 * @return <code>true</code> if at least one element is mutable
+		 */
+		public boolean hasMutableElements() {
+			return mutableElements;
+		}
+
+		@Override
+		public Object get(final int index) {
+			return elements.get(index);
+		}
+
+		@Override
+		public int size() {
+			return elements.size();
+		}
+	}
+}
@@ -27,10 +27,22 @@ abstract class AbstractOSCPacket implements OSCPacket {
 	/** Used to encode message addresses and string parameters. */
 	private Charset charset;
 	private byte[] byteArray;
+	/**
+	 * Incremented each time {@link #byteArray} is (re-)computed,
+	 * which allows containing bundles to detect changes cheaply.
+	 */
+	private long version;
+	/** Whether this packet may not be recycled by an {@link OSCPacketPool}. */
+	private boolean retained;
+	/** Whether this packet currently resides in an {@link OSCPacketPool}. */
+	private boolean pooled;
 
 	public AbstractOSCPacket() {
 		this.charset = Charset.defaultCharset();
 		this.byteArray = null;
+		this.version = 0;
+		this.retained = false;
+		this.pooled = false;
 	}
 
 	@Override
@@ -41,6 +53,7 @@ abstract class AbstractOSCPacket implements OSCPacket {
 	@Override
 	public void setCharset(Charset charset) {
 		this.charset = charset;
+		contentChanged();
 	}
 
 	/**
@@ -65,11 +78,105 @@ abstract class AbstractOSCPacket implements OSCPacket {
 	public byte[] getByteArray() {
 		if (byteArray == null) {
 			byteArray = computeByteArray();
+			version++;
+		} else if (isByteArrayStale()) {
+			final byte[] updated = updateByteArray(byteArray);
+			if (updated != byteArray) {
+				byteArray = updated;
+				version++;
+			}
 		}
 		return byteArray;
 	}
 
+	/**
+	 * Indicates whether the cached byte array is outdated,
+	 * even though {@link #contentChanged()} was not called.
+	 * This is the case for packets that contain other packets,
+	 * which may have changed by themselves.
+	 * @return <code>true</code> if {@link #updateByteArray(byte[])}
+	 *   has to be called before the cached byte array may be used
+	 */
+	protected boolean isByteArrayStale() {
+		return false;
+	}
+
+	/**
+	 * Brings an outdated byte array representation up to date.
+	 * The default implementation re-encodes the whole packet;
+	 * sub-classes may override this to only re-encode the changed parts.
+	 * @param staleByteArray the outdated representation of this packet,
+	 *   which must not be modified, as it may still be in use elsewhere
+	 * @return the up to date representation of this packet,
+	 *   or <code>staleByteArray</code> if it is still valid
+	 */
+	protected byte[] updateByteArray(byte[] staleByteArray) {
+		return computeByteArray();
+	}
+
+	/**
+	 * Returns a number that changes whenever the byte array representation
+	 * of this packet changes.
+	 * This brings the cached byte array up to date, if necessary.
+	 * @return the version of the current byte array representation
+	 */
+	protected long getVersion() {
+
+		getByteArray();
+		return version;
+	}
+
 	protected void contentChanged() {
 		byteArray = null;
 	}
+
+	/**
+	 * Resets this packet to the state of a newly created one,
+	 * while keeping already allocated storage for reuse.
+	 */
+	public void reset() {
+		charset = Charset.defaultCharset();
+		retained = false;
+		contentChanged();
+	}
+
+	/**
+	 * Prevents this packet from being recycled.
+	 * Packets handed to listeners by a port that uses an {@link OSCPacketPool}
+	 * are only valid during the listener call, as they get reused afterwards.
+	 * Call this method within the listener call,
+	 * if you need to keep the packet beyond that.
+	 * Retaining a bundle also retains all the packets it contains.
+	 */
+	public void retain() {
+		retained = true;
+	}
+
+	/**
+	 * Whether this packet is excluded from being recycled.
+	 * @return <code>true</code> if {@link #retain()} was called
+	 *   since the last {@link #reset()}
+	 */
+	public boolean isRetained() {
+		return retained;
+	}
+
+	/**
+	 * Whether this packet currently sits in an {@link OSCPacketPool}.
+	 * @return <code>true</code> if this packet was recycled,
+	 *   and not yet obtained again
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	boolean isPooled() {
+		return pooled;
+	}
+
+	/**
+	 * Marks this packet as being in, or taken from, an {@link OSCPacketPool}.
+	 * @param pooled whether the packet is now in the pool
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	void setPooled(final boolean pooled) {
+		this.pooled = pooled;
+	}
 }
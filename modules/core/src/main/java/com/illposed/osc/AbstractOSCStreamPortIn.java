@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.AbstractOSCStreamFramer;
+import com.illposed.osc.utility.OSCFrameHandler;
+import com.illposed.osc.utility.OSCPacketDispatcher;
+import com.illposed.osc.utility.OSCParseException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Listens for OSC packets sent over stream connections,
+ * accepted on a server socket channel.
+ * This is the base of {@link OSCTCPPortIn},
+ * and of ports using other kinds of stream sockets.
+ *
+ * Each connection is served by its own thread,
+ * reading from a blocking channel,
+ * but listeners are never called concurrently,
+ * just as with {@link OSCPortIn}.
+ * Packets are decoded right out of the receive buffer,
+ * without copying them first.
+ * The error handler may be called from multiple threads at once.
+ */
+public abstract class AbstractOSCStreamPortIn extends OSCReceiver implements Runnable {
+
+	private final ServerSocketChannel serverChannel;
+	/** Supplies the framers of the individual connections. */
+	private final AbstractOSCStreamFramer framer;
+	/** state for listening */
+	private final AtomicBoolean listening;
+	private final List<Session> sessions;
+
+	/**
+	 * Create a port that accepts connections on the specified channel.
+	 * @param serverChannel the bound, blocking channel to accept connections on
+	 * @param framer how packets are framed on the connections;
+	 *   each connection uses its own {@link AbstractOSCStreamFramer#newFramer()}
+	 */
+	protected AbstractOSCStreamPortIn(ServerSocketChannel serverChannel, AbstractOSCStreamFramer framer) {
+
+		this.serverChannel = serverChannel;
+		this.framer = framer;
+		this.listening = new AtomicBoolean(false);
+		this.sessions = new ArrayList<Session>();
+	}
+
+	/**
+	 * Returns the channel connections are accepted on.
+	 * @return the server channel of this port
+	 */
+	protected ServerSocketChannel getServerChannel() {
+		return serverChannel;
+	}
+
+	/**
+	 * Returns the address of the sender connected through a channel,
+	 * to be passed to the error handler with parse errors.
+	 * @param channel a newly accepted connection
+	 * @return the address of the connected sender,
+	 *   or <code>null</code>, if it is unknown or unnamed
+	 */
+	protected abstract SocketAddress getRemoteAddress(SocketChannel channel);
+
+	/**
+	 * Run the loop that accepts connections until
+	 * {@link #isListening()} becomes false.
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+
+		while (listening.get()) {
+			try {
+				serve(serverChannel.accept());
+			} catch (IOException ex) {
+				// if we closed the channel while accepting,
+				// the exception is expected/normal, so we hide it
+				if (listening.get() && serverChannel.isOpen()) {
+					getErrorHandler().handleReceiveError(ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Starts a thread reading the packets sent over a new connection.
+	 * @param channel the newly accepted connection
+	 */
+	private void serve(final SocketChannel channel) {
+
+		final Session session = new Session(channel);
+		synchronized (sessions) {
+			sessions.add(session);
+		}
+		final Thread thread = new Thread(session);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void closeSession(final Session session) {
+
+		synchronized (sessions) {
+			sessions.remove(session);
+		}
+		session.close();
+	}
+
+	/**
+	 * Start accepting connections and listening for incoming OSCPackets.
+	 */
+	public void startListening() {
+		listening.set(true);
+		final Thread thread = new Thread(this);
+		// The JVM exits when the only threads running are all daemon threads.
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stop listening for incoming OSCPackets.
+	 * Like with {@link OSCPortIn}, this takes effect after the next
+	 * connection or packet arrives, or when this port is closed.
+	 */
+	public void stopListening() {
+		listening.set(false);
+	}
+
+	/**
+	 * Am I listening for packets?
+	 * @return true if this port is in listening mode
+	 */
+	public boolean isListening() {
+		return listening.get();
+	}
+
+	/**
+	 * Returns the number of currently open connections.
+	 * @return the number of connected senders
+	 */
+	public int getConnectionCount() {
+
+		synchronized (sessions) {
+			return sessions.size();
+		}
+	}
+
+	/**
+	 * Stops listening, and closes the server channel and all connections.
+	 * @throws IOException if closing the server channel fails
+	 */
+	public void close() throws IOException {
+
+		listening.set(false);
+		serverChannel.close();
+		final List<Session> openSessions = new ArrayList<Session>();
+		synchronized (sessions) {
+			openSessions.addAll(sessions);
+			sessions.clear();
+		}
+		for (final Session session : openSessions) {
+			session.close();
+		}
+	}
+
+	/**
+	 * Reads the packets sent over a single connection.
+	 */
+	private final class Session implements Runnable, OSCFrameHandler {
+
+		private final SocketChannel channel;
+		private final SocketAddress remoteAddress;
+		private final AbstractOSCStreamFramer sessionFramer;
+
+		Session(final SocketChannel channel) {
+
+			this.channel = channel;
+			this.remoteAddress = getRemoteAddress(channel);
+			this.sessionFramer = framer.newFramer();
+		}
+
+		@Override
+		public void run() {
+
+			try {
+				boolean open = true;
+				while (open && listening.get()) {
+					// the packets are handled as they are completed
+					open = (sessionFramer.read(channel, this) >= 0);
+				}
+			} catch (IOException ex) {
+				// if we closed the channel ourselves, the exception is expected
+				if (listening.get() && channel.isOpen()) {
+					getErrorHandler().handleReceiveError(ex);
+				}
+			} finally {
+				closeSession(this);
+			}
+		}
+
+		@Override
+		public boolean handleFrame(byte[] bytes, int offset, int length) {
+
+			try {
+				final OSCPacket oscPacket = getConverter().convert(bytes, offset, length);
+				final OSCPacketDispatcher dispatcher = getDispatcher();
+				synchronized (dispatcher) {
+					dispatch(oscPacket, remoteAddress);
+				}
+			} catch (OSCParseException ex) {
+				// the frame boundaries are still intact, so we go on
+				getErrorHandler().handleParseError(ex, remoteAddress);
+			}
+			return channel.isOpen();
+		}
+
+		private void close() {
+
+			try {
+				channel.close();
+			} catch (IOException ex) {
+				getErrorHandler().handleReceiveError(ex);
+			}
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.AbstractOSCStreamFramer;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Sends OSC packets over a stream connection.
+ * This is the base of {@link OSCTCPPortOut},
+ * and of ports using other kinds of stream sockets.
+ *
+ * Packets of any size are delivered completely and in order,
+ * or sending fails with an exception.
+ * Immutable packets are written without copying them first.
+ *
+ * This class is thread-safe.
+ */
+public abstract class AbstractOSCStreamPortOut {
+
+	private final OutputStream output;
+	private final AbstractOSCStreamFramer framer;
+
+	/**
+	 * Create a port that sends over an already connected stream.
+	 * @param output of the connection to send over
+	 * @param framer how packets are framed on the connection
+	 */
+	protected AbstractOSCStreamPortOut(OutputStream output, AbstractOSCStreamFramer framer) {
+
+		this.output = output;
+		this.framer = framer;
+	}
+
+	/**
+	 * Send an OSC packet (message or bundle) over the connection.
+	 * @param aPacket the bundle or message to send
+	 * @throws IOException if a socket I/O error occurs
+	 */
+	public void send(OSCPacket aPacket) throws IOException {
+
+		final byte[] byteArray = AbstractOSCImmutablePacket.encodedBytes(aPacket);
+		synchronized (framer) {
+			framer.writeFrame(output, byteArray, 0, byteArray.length);
+		}
+	}
+
+	/**
+	 * Close the connection and free-up resources.
+	 * @throws IOException if closing the connection fails
+	 */
+	public abstract void close() throws IOException;
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+/**
+ * Validates OSC <i>Address Patterns</i>,
+ * for all the classes creating messages.
+ */
+final class OSCAddresses {
+
+	private OSCAddresses() {
+		// utility class
+	}
+
+	/**
+	 * Throws an exception if the given address is invalid.
+	 * @param address to be checked for validity
+	 * @throws IllegalArgumentException if the address is not valid,
+	 *   see {@link #isValid(String)}
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	static void check(final String address) {
+		if (!isValid(address)) {
+			throw new IllegalArgumentException("Not a valid OSC address: " + address);
+		}
+	}
+
+	/**
+	 * Checks whether a given string is a valid OSC <i>Address Pattern</i>.
+	 * @param address to be checked for validity
+	 * @return true if the supplied string constitutes a valid OSC address
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	static boolean isValid(final String address) {
+
+		boolean valid = (address != null) && !address.isEmpty() && (address.charAt(0) == '/');
+		// NOTE We check char by char instead of using a regular expression,
+		//   as this is done for every received message.
+		char previous = 0;
+		for (int ci = 0; valid && (ci < address.length()); ci++) {
+			final char current = address.charAt(ci);
+			switch (current) {
+				// The invalid characters are:
+				// ' ', '#', '*', ',', '?', '[', ']', '{', '}'
+				case ' ' :
+				case '#' :
+				case '*' :
+				case ',' :
+				case '?' :
+				case '[' :
+				case ']' :
+				case '{' :
+				case '}' :
+					valid = false;
+					break;
+				case '/' :
+					// no empty parts
+					valid = (previous != '/');
+					break;
+				default:
+					break;
+			}
+			previous = current;
+		}
+		return valid;
+	}
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCJavaToByteArrayConverter;
+import com.illposed.osc.utility.OSCSignature;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A compact list of OSC message arguments.
+ *
+ * Numeric arguments of the types <code>'i'</code>, <code>'f'</code>,
+ * <code>'h'</code> and <code>'d'</code>, as well as
+ * unsigned integers (<code>'u'</code>), colors (<code>'r'</code>)
+ * and MIDI messages (<code>'m'</code>), are stored unboxed, as raw bits in a
+ * <code>long[]</code>. All other arguments are stored as objects in
+ * a parallel <code>Object[]</code>.
+ * A third, parallel <code>byte[]</code> holds the OSC type tag
+ * of each unboxed argument, or {@link #OBJECT} for object arguments.
+ * Java objects are only created for numeric arguments if they are requested,
+ * see {@link #asList()}.
+ */
+final class OSCArguments {
+
+	/**
+	 * The type marker of an argument that is stored as a Java object.
+	 */
+	private static final byte OBJECT = 0;
+	private static final int INITIAL_CAPACITY = 4;
+	/** The number of argument shapes whose signatures are cached. */
+	private static final int SHAPES_CACHED = 256;
+	private static final OSCShapeCache SHAPES = new OSCShapeCache(SHAPES_CACHED);
+
+	private byte[] types;
+	/** Raw bits of unboxed arguments; lazily allocated. */
+	private long[] primitives;
+	/** Object arguments; lazily allocated. */
+	private Object[] objects;
+	private int size;
+	/** Cached result of {@link #asList()}. */
+	private List<Object> materialized;
+	/** Cached result of {@link #getSignature(OSCJavaToByteArrayConverter)}. */
+	private OSCSignature signature;
+
+	OSCArguments() {
+
+		this.types = new byte[INITIAL_CAPACITY];
+		this.primitives = null;
+		this.objects = null;
+		this.size = 0;
+		this.materialized = null;
+		this.signature = null;
+	}
+
+	/**
+	 * Returns the number of arguments.
+	 * @return the number of arguments
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Removes all arguments, but keeps the allocated storage for reuse.
+	 */
+	public void clear() {
+
+		if (objects != null) {
+			Arrays.fill(objects, 0, size, null);
+		}
+		size = 0;
+		materialized = null;
+		signature = null;
+	}
+
+	private void ensureCapacity(final int minCapacity) {
+
+		if (minCapacity > types.length) {
+			final int newCapacity = Math.max(minCapacity, types.length * 2);
+			types = Arrays.copyOf(types, newCapacity);
+			if (primitives != null) {
+				primitives = Arrays.copyOf(primitives, newCapacity);
+			}
+			if (objects != null) {
+				objects = Arrays.copyOf(objects, newCapacity);
+			}
+		}
+	}
+
+	/**
+	 * Adds an unboxed argument.
+	 * @param type the OSC type tag of the argument, one of
+	 *   <code>'i'</code>, <code>'f'</code>, <code>'h'</code>, <code>'d'</code>,
+	 *   <code>'u'</code>, <code>'r'</code> or <code>'m'</code>
+	 * @param bits the raw bits of the argument: the value itself for integers,
+	 *   as by {@link Float#floatToRawIntBits(float)} for <code>'f'</code>,
+	 *   as by {@link Double#doubleToRawLongBits(double)} for <code>'d'</code>,
+	 *   and the unsigned 32 bit encoded form for <code>'u'</code>,
+	 *   <code>'r'</code> and <code>'m'</code>
+	 */
+	public void addPrimitive(final char type, final long bits) {
+
+		ensureCapacity(size + 1);
+		if (primitives == null) {
+			primitives = new long[types.length];
+		}
+		types[size] = (byte) type;
+		primitives[size] = bits;
+		size++;
+		materialized = null;
+		signature = null;
+	}
+
+	/**
+	 * Adds an argument, unboxing it if it is of a numeric type
+	 * that is stored as raw bits.
+	 * @param argument the argument to add
+	 */
+	public void add(final Object argument) {
+
+		if (argument instanceof Integer) {
+			addPrimitive('i', (Integer) argument);
+		} else if (argument instanceof Float) {
+			addPrimitive('f', Float.floatToRawIntBits((Float) argument));
+		} else if (argument instanceof Long) {
+			addPrimitive('h', (Long) argument);
+		} else if (argument instanceof Double) {
+			addPrimitive('d', Double.doubleToRawLongBits((Double) argument));
+		} else if (argument instanceof OSCUnsigned) {
+			addPrimitive('u', ((OSCUnsigned) argument).longValue());
+		} else if (argument instanceof OSCColor) {
+			addPrimitive('r', ((OSCColor) argument).toRGBA() & OSCUnsigned.MAX_VALUE);
+		} else if (argument instanceof OSCMidiMessage) {
+			addPrimitive('m', ((OSCMidiMessage) argument).toInt() & OSCUnsigned.MAX_VALUE);
+		} else {
+			ensureCapacity(size + 1);
+			if (objects == null) {
+				objects = new Object[types.length];
+			}
+			types[size] = OBJECT;
+			objects[size] = argument;
+			size++;
+			materialized = null;
+			signature = null;
+		}
+	}
+
+	/**
+	 * Returns whether an argument is stored unboxed.
+	 * @param index of the argument
+	 * @return <code>true</code> if the argument is stored as raw bits
+	 */
+	private boolean isPrimitive(final int index) {
+
+		if ((index < 0) || (index >= size)) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return types[index] != OBJECT;
+	}
+
+	/**
+	 * Returns a numeric object argument.
+	 * @param index of the argument
+	 * @return the argument, if it is a number
+	 */
+	private Number getNumberObject(final int index) {
+
+		final Object argument = objects[index];
+		if (!(argument instanceof Number)) {
+			throw new IllegalArgumentException("Argument " + index + " is not numeric: "
+					+ argument);
+		}
+		return (Number) argument;
+	}
+
+	public int getInt(final int index) {
+
+		int value;
+		if (isPrimitive(index)) {
+			value = isIntegral(types[index]) ? (int) primitives[index] : (int) getDouble(index);
+		} else {
+			value = getNumberObject(index).intValue();
+		}
+		return value;
+	}
+
+	public long getLong(final int index) {
+
+		long value;
+		if (isPrimitive(index)) {
+			value = isIntegral(types[index]) ? primitives[index] : (long) getDouble(index);
+		} else {
+			value = getNumberObject(index).longValue();
+		}
+		return value;
+	}
+
+	public float getFloat(final int index) {
+
+		float value;
+		if (isPrimitive(index)) {
+			final long bits = primitives[index];
+			// convert each type directly, as rounding a long
+			// to double and then to float may round twice
+			switch (types[index]) {
+				case 'f' :
+					value = Float.intBitsToFloat((int) bits);
+					break;
+				case 'd' :
+					value = (float) Double.longBitsToDouble(bits);
+					break;
+				default:
+					value = bits;
+					break;
+			}
+		} else {
+			value = getNumberObject(index).floatValue();
+		}
+		return value;
+	}
+
+	public double getDouble(final int index) {
+
+		double value;
+		if (isPrimitive(index)) {
+			final long bits = primitives[index];
+			switch (types[index]) {
+				case 'f' :
+					value = Float.intBitsToFloat((int) bits);
+					break;
+				case 'd' :
+					value = Double.longBitsToDouble(bits);
+					break;
+				default:
+					value = bits;
+					break;
+			}
+		} else {
+			value = getNumberObject(index).doubleValue();
+		}
+		return value;
+	}
+
+	/**
+	 * Returns an argument as a Java object,
+	 * boxing it if it is stored unboxed.
+	 * @param index of the argument
+	 * @return the argument
+	 */
+	public Object get(final int index) {
+
+		Object argument;
+		if (isPrimitive(index)) {
+			final long bits = primitives[index];
+			switch (types[index]) {
+				case 'i' :
+					argument = (int) bits;
+					break;
+				case 'f' :
+					argument = Float.intBitsToFloat((int) bits);
+					break;
+				case 'h' :
+					argument = bits;
+					break;
+				case 'u' :
+					argument = OSCUnsigned.valueOf(bits);
+					break;
+				case 'r' :
+					argument = OSCColor.valueOf((int) bits);
+					break;
+				case 'm' :
+					argument = OSCMidiMessage.valueOf((int) bits);
+					break;
+				default:
+					argument = Double.longBitsToDouble(bits);
+					break;
+			}
+		} else {
+			argument = objects[index];
+		}
+		return argument;
+	}
+
+	/**
+	 * Indicates whether an unboxed argument type is stored
+	 * as its integer value.
+	 * @param type the OSC type tag of an unboxed argument
+	 * @return <code>false</code> for the floating point types
+	 */
+	private static boolean isIntegral(final byte type) {
+		return (type != 'f') && (type != 'd');
+	}
+
+	/**
+	 * Returns all arguments as Java objects.
+	 * The list is created on the first call after a modification,
+	 * and cached until the next one.
+	 * @return an unmodifiable list of all arguments
+	 */
+	public List<Object> asList() {
+
+		if (materialized == null) {
+			final List<Object> arguments = new ArrayList<Object>(size);
+			for (int ai = 0; ai < size; ai++) {
+				arguments.add(get(ai));
+			}
+			materialized = Collections.unmodifiableList(arguments);
+		}
+		return materialized;
+	}
+
+	/**
+	 * Returns the OSC type tags of all arguments.
+	 * The signature is determined on the first call after a modification,
+	 * and cached until the next one.
+	 * Messages of the same shape share their signature,
+	 * see {@link OSCShapeCache}.
+	 * @param stream supplies the type tags of object arguments
+	 * @return the shared signature of the arguments
+	 */
+	public OSCSignature getSignature(final OSCJavaToByteArrayConverter stream) {
+
+		if (signature == null) {
+			signature = SHAPES.signatureOf(types, objects, size, stream);
+		}
+		return signature;
+	}
+
+	/**
+	 * Writes the values of all arguments.
+	 * @param stream where to write the argument values to
+	 */
+	public void writeValues(final OSCJavaToByteArrayConverter stream) {
+
+		for (int ai = 0; ai < size; ai++) {
+			switch (types[ai]) {
+				case OBJECT :
+					stream.write(objects[ai]);
+					break;
+				case 'i' :
+				case 'f' :
+				case 'u' :
+				case 'r' :
+				case 'm' :
+					stream.write((int) primitives[ai]);
+					break;
+				default:
+					stream.write(primitives[ai]);
+					break;
+			}
+		}
+	}
+}
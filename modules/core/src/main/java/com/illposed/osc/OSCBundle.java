@@ -13,7 +13,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -43,8 +42,24 @@ public class OSCBundle extends AbstractOSCPacket {
 	 */
 	public static final Date TIMESTAMP_IMMEDIATE = new Date(0);
 
+	/**
+	 * Version of packets that do not report their versions,
+	 * which thus always have to be checked for changes.
+	 */
+	private static final long UNKNOWN_VERSION = -1;
+	/** Version of immutable packets, which never change. */
+	private static final long IMMUTABLE_VERSION = 0;
+
 	private Date timestamp;
-	private List<OSCPacket> packets;
+	private final List<OSCPacket> packets;
+	/** The unmodifiable view of {@link #packets}, created only once. */
+	private final List<OSCPacket> packetList;
+	/** Version of each contained packet within the cached byte array. */
+	private long[] packetVersions;
+	/** Position of each contained packet within the cached byte array. */
+	private int[] packetOffsets;
+	/** Encoded length of each contained packet within the cached byte array. */
+	private int[] packetLengths;
 
 	/**
 	 * Create a new empty OSCBundle with a timestamp of immediately.
@@ -79,17 +94,31 @@ public class OSCBundle extends AbstractOSCPacket {
 	public OSCBundle(Collection<OSCPacket> packets, Date timestamp) {
 
 		if (null == packets) {
-			this.packets = new LinkedList<OSCPacket>();
+			this.packets = new ArrayList<OSCPacket>();
 		} else {
 			this.packets = new ArrayList<OSCPacket>(packets);
 		}
-		this.timestamp = clone(timestamp);
+		this.packetList = Collections.unmodifiableList(this.packets);
+		this.timestamp = copyTimestamp(timestamp);
+		this.packetVersions = null;
+		this.packetOffsets = null;
+		this.packetLengths = null;
 	}
 
 	private static Date clone(final Date toBeCloned) {
 		return (toBeCloned == null) ? toBeCloned : (Date) toBeCloned.clone();
 	}
 
+	/**
+	 * Copies a timestamp to be kept by this bundle.
+	 * {@link #TIMESTAMP_IMMEDIATE} is kept as is, like in {@link #reset()},
+	 * so decoding bundles to be executed immediately creates no objects.
+	 */
+	@SuppressWarnings("PMD.CompareObjectsWithEquals")
+	private static Date copyTimestamp(final Date timestamp) {
+		return (timestamp == TIMESTAMP_IMMEDIATE) ? timestamp : clone(timestamp);
+	}
+
 	/**
 	 * Return the time the bundle will execute.
 	 * @return a Date
@@ -103,7 +132,8 @@ public class OSCBundle extends AbstractOSCPacket {
 	 * @param timestamp Date
 	 */
 	public void setTimestamp(Date timestamp) {
-		this.timestamp = clone(timestamp);
+		this.timestamp = copyTimestamp(timestamp);
+		contentChanged();
 	}
 
 	/**
@@ -115,12 +145,23 @@ public class OSCBundle extends AbstractOSCPacket {
 		contentChanged();
 	}
 
+	/**
+	 * Removes all packets and sets the timestamp to immediately,
+	 * keeping the allocated storage for reuse.
+	 */
+	@Override
+	public void reset() {
+		packets.clear();
+		timestamp = TIMESTAMP_IMMEDIATE;
+		super.reset();
+	}
+
 	/**
 	 * Get the packets contained in this bundle.
 	 * @return the packets contained in this bundle.
 	 */
 	public List<OSCPacket> getPackets() {
-		return Collections.unmodifiableList(packets);
+		return packetList;
 	}
 
 	/**
@@ -148,13 +189,125 @@ public class OSCBundle extends AbstractOSCPacket {
 
 	@Override
 	protected byte[] computeByteArray(OSCJavaToByteArrayConverter stream) {
+
+		final int numPackets = packets.size();
+		final long[] versions = new long[numPackets];
+		final int[] lengths = new int[numPackets];
 		stream.write("#bundle");
 		computeTimeTagByteArray(stream);
+		int packetsLength = 0;
 		byte[] packetBytes;
-		for (final OSCPacket pkg : packets) {
-			packetBytes = pkg.getByteArray();
+		for (int pi = 0; pi < numPackets; pi++) {
+			final OSCPacket pkg = packets.get(pi);
+			packetBytes = AbstractOSCImmutablePacket.encodedBytes(pkg);
+			versions[pi] = versionOf(pkg);
+			lengths[pi] = packetBytes.length;
 			stream.write(packetBytes);
+			packetsLength += 4 + align(packetBytes.length);
+		}
+		final byte[] bytes = stream.toByteArray();
+
+		// record where each packet ended up, for incremental updates
+		final int[] offsets = new int[numPackets];
+		int offset = bytes.length - packetsLength;
+		for (int pi = 0; pi < numPackets; pi++) {
+			offsets[pi] = offset + 4;
+			offset += 4 + align(lengths[pi]);
+		}
+		packetVersions = versions;
+		packetOffsets = offsets;
+		packetLengths = lengths;
+
+		return bytes;
+	}
+
+	private static int align(final int length) {
+		return (length + 3) & ~3;
+	}
+
+	/**
+	 * Returns the version of a contained packet.
+	 * @param packet one of the packets in this bundle
+	 * @return the version of the packets current byte array representation,
+	 *   or {@link #UNKNOWN_VERSION}
+	 */
+	private static long versionOf(final OSCPacket packet) {
+
+		long packetVersion;
+		if (packet instanceof AbstractOSCPacket) {
+			packetVersion = ((AbstractOSCPacket) packet).getVersion();
+		} else if (packet instanceof OSCMessageTemplate) {
+			packetVersion = ((OSCMessageTemplate) packet).getVersion();
+		} else if (packet instanceof AbstractOSCImmutablePacket) {
+			packetVersion = IMMUTABLE_VERSION;
+		} else {
+			packetVersion = UNKNOWN_VERSION;
+		}
+		return packetVersion;
+	}
+
+	private boolean isPacketChanged(final int index, final long packetVersion) {
+		return (packetVersion == UNKNOWN_VERSION) || (packetVersion != packetVersions[index]);
+	}
+
+	/**
+	 * Checks whether any of the contained packets changed
+	 * since the cached byte array was computed.
+	 * Nested bundles are checked recursively,
+	 * so a change deep within the tree invalidates exactly
+	 * the bundles on the path to the changed packet.
+	 */
+	@Override
+	protected boolean isByteArrayStale() {
+
+		boolean stale = false;
+		for (int pi = 0; !stale && (pi < packets.size()); pi++) {
+			stale = isPacketChanged(pi, versionOf(packets.get(pi)));
+		}
+		return stale;
+	}
+
+	/**
+	 * Copies the new representations of the changed packets
+	 * into a copy of the stale byte array,
+	 * leaving the unchanged packets and the header as they are.
+	 * Only if the length of a changed packet differs,
+	 * the whole bundle is re-assembled.
+	 */
+	@Override
+	protected byte[] updateByteArray(byte[] staleByteArray) {
+
+		byte[] updated = staleByteArray;
+		boolean resized = false;
+		for (int pi = 0; !resized && (pi < packets.size()); pi++) {
+			final OSCPacket pkg = packets.get(pi);
+			final long packetVersion = versionOf(pkg);
+			if (isPacketChanged(pi, packetVersion)) {
+				final byte[] packetBytes = AbstractOSCImmutablePacket.encodedBytes(pkg);
+				resized = (packetBytes.length != packetLengths[pi]);
+				if (!resized && ((packetVersion != UNKNOWN_VERSION)
+						|| !regionEquals(updated, packetOffsets[pi], packetBytes)))
+				{
+					if (updated == staleByteArray) {
+						updated = staleByteArray.clone();
+					}
+					System.arraycopy(packetBytes, 0, updated, packetOffsets[pi], packetBytes.length);
+					packetVersions[pi] = packetVersion;
+				}
+			}
+		}
+		if (resized) {
+			updated = super.updateByteArray(staleByteArray);
+		}
+		return updated;
+	}
+
+	private static boolean regionEquals(final byte[] bytes, final int offset, final byte[] region) {
+
+		boolean equal = true;
+		for (int bi = 0; equal && (bi < region.length); bi++) {
+			equal = (bytes[offset + bi] == region[bi]);
 		}
-		return stream.toByteArray();
+		return equal;
 	}
 }
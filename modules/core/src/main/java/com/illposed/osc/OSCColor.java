@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+/**
+ * An OSC 1.0 optional argument type (<code>'r'</code>).
+ * A 32 bit RGBA color, with 8 bits per component,
+ * red in the most significant byte.
+ * Messages store colors unboxed, see {@link OSCMessage#addColor(int)};
+ * instances of this class are only created when requested.
+ */
+public final class OSCColor {
+
+	private final int rgba;
+
+	private OSCColor(final int rgba) {
+		this.rgba = rgba;
+	}
+
+	/**
+	 * Returns a color given by its components.
+	 * @param red in the range [0, 255]
+	 * @param green in the range [0, 255]
+	 * @param blue in the range [0, 255]
+	 * @param alpha in the range [0, 255], where 255 is opaque
+	 * @return the color
+	 */
+	public static OSCColor valueOf(int red, int green, int blue, int alpha) {
+		return new OSCColor(toRGBA(red, green, blue, alpha));
+	}
+
+	/**
+	 * Returns a color given in its encoded form.
+	 * @param rgba the components, red in the most significant byte
+	 * @return the color
+	 */
+	public static OSCColor valueOf(int rgba) {
+		return new OSCColor(rgba);
+	}
+
+	/**
+	 * Packs color components into a single integer,
+	 * without creating an object.
+	 * @param red in the range [0, 255]
+	 * @param green in the range [0, 255]
+	 * @param blue in the range [0, 255]
+	 * @param alpha in the range [0, 255], where 255 is opaque
+	 * @return the components, red in the most significant byte
+	 */
+	public static int toRGBA(int red, int green, int blue, int alpha) {
+
+		checkComponent(red);
+		checkComponent(green);
+		checkComponent(blue);
+		checkComponent(alpha);
+		return (red << 24) | (green << 16) | (blue << 8) | alpha;
+	}
+
+	private static void checkComponent(final int component) {
+
+		if ((component & ~0xFF) != 0) {
+			throw new IllegalArgumentException(
+					"Color components have to be in the range [0, 255], is: " + component);
+		}
+	}
+
+	public int getRed() {
+		return rgba >>> 24;
+	}
+
+	public int getGreen() {
+		return (rgba >>> 16) & 0xFF;
+	}
+
+	public int getBlue() {
+		return (rgba >>> 8) & 0xFF;
+	}
+
+	public int getAlpha() {
+		return rgba & 0xFF;
+	}
+
+	/**
+	 * Returns this color in its encoded form.
+	 * @return the components, red in the most significant byte
+	 */
+	public int toRGBA() {
+		return rgba;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return (other instanceof OSCColor) && (rgba == ((OSCColor) other).rgba);
+	}
+
+	@Override
+	public int hashCode() {
+		return rgba;
+	}
+
+	@Override
+	public String toString() {
+		return "rgba(" + getRed() + ", " + getGreen() + ", " + getBlue() + ", " + getAlpha() + ")";
+	}
+}
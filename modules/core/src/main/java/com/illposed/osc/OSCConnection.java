@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A client connected to an {@link OSCTCPServer}.
+ *
+ * Listeners may find out which connection the message they are handed
+ * came from, with {@link #current()}:
+ * <blockquote><pre>{@code
+ * server.addListener("/touch/*", new OSCListener() {
+ * 	public void acceptMessage(Date time, OSCMessage message) {
+ * 		SocketAddress tablet = OSCConnection.current().getRemoteAddress();
+ * 		...
+ * 	}
+ * });
+ * }</pre></blockquote>
+ */
+public final class OSCConnection {
+
+	private final long identifier;
+	private final SocketChannel channel;
+	private final SocketAddress remoteAddress;
+	/** The number of open connections of the server. */
+	private final AtomicInteger openConnections;
+	/** Counted by the thread serving this connection. */
+	private final AtomicLong packetCount;
+	private final AtomicBoolean closed;
+
+	OSCConnection(
+			final long identifier,
+			final SocketChannel channel,
+			final AtomicInteger openConnections,
+			final AtomicLong packetCount)
+	{
+		this.identifier = identifier;
+		this.channel = channel;
+		this.remoteAddress = channel.socket().getRemoteSocketAddress();
+		this.openConnections = openConnections;
+		this.packetCount = packetCount;
+		this.closed = new AtomicBoolean(false);
+	}
+
+	/**
+	 * Returns the connection the packet being dispatched
+	 * on the current thread came from.
+	 * @return the source of the message handed to the calling listener,
+	 *   or <code>null</code> if not called from within a listener
+	 *   of an {@link OSCTCPServer}
+	 */
+	public static OSCConnection current() {
+		return OSCTCPReactor.getCurrentConnection();
+	}
+
+	/**
+	 * Returns a number identifying this connection,
+	 * unique within its server.
+	 * @return the sequence number of this connection
+	 */
+	public long getId() {
+		return identifier;
+	}
+
+	/**
+	 * Returns the address of the connected client.
+	 * @return the remote address of this connection
+	 */
+	public SocketAddress getRemoteAddress() {
+		return remoteAddress;
+	}
+
+	/**
+	 * Returns the number of packets received over this connection.
+	 * @return the number of packets dispatched, including malformed ones
+	 */
+	public long getPacketCount() {
+		return packetCount.get();
+	}
+
+	/**
+	 * Indicates whether this connection is still open.
+	 * @return <code>true</code> if the client is still connected
+	 */
+	public boolean isOpen() {
+		return !closed.get();
+	}
+
+	/**
+	 * Closes this connection, and removes it from its server.
+	 * Closing an already closed connection has no effect.
+	 * May be called from any thread, including from within a listener.
+	 * @throws IOException if closing the socket fails
+	 */
+	public void close() throws IOException {
+
+		if (closed.compareAndSet(false, true)) {
+			try {
+				channel.close();
+			} finally {
+				openConnections.decrementAndGet();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "OSCConnection#" + identifier + " " + remoteAddress;
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCByteArrayToJavaConverter;
+import com.illposed.osc.utility.OSCParseException;
+import java.net.DatagramPacket;
+
+/**
+ * Handles the datagrams received by an {@link OSCPortIn}:
+ * drops truncated ones, decodes the others and dispatches them,
+ * while keeping the statistics of the port up to date.
+ */
+final class OSCDatagramHandler {
+
+	private final OSCPortIn port;
+	/** Decodes the datagrams, and hands them to the listeners. */
+	private final OSCReceiver receiver;
+	private final OSCByteArrayToJavaConverter converter;
+	private final OSCReceiveStatistics statistics;
+	/** Datagrams longer than this did not fit into the receive buffer. */
+	private final int maxPacketSize;
+
+	OSCDatagramHandler(
+			final OSCPortIn port,
+			final OSCReceiver receiver,
+			final int maxPacketSize)
+	{
+		this.port = port;
+		this.receiver = receiver;
+		this.converter = receiver.getConverter();
+		this.statistics = port.getStatistics();
+		this.maxPacketSize = maxPacketSize;
+	}
+
+	/**
+	 * Handles a single received datagram.
+	 * @param packet holds the datagram, in a buffer
+	 *   one byte larger than the maximum packet size
+	 */
+	public void handle(final DatagramPacket packet) {
+
+		final boolean truncated = (packet.getLength() > maxPacketSize);
+		final OSCReceiveObserver observer = port.getReceiveObserver();
+		if (observer != null) {
+			observer.datagramReceived(packet.getSocketAddress(), packet.getLength(), truncated);
+		}
+		if (truncated) {
+			dropTruncated(packet);
+		} else {
+			final boolean timing = port.isTimingEnabled();
+			final long receivedNanos = timing ? System.nanoTime() : 0L;
+			statistics.packetReceived(packet.getLength());
+			final OSCPacket oscPacket = decode(packet);
+			if (oscPacket != null) {
+				// a failing listener is reported, and does not end the receive loop
+				receiver.dispatch(oscPacket, packet.getSocketAddress());
+				if (timing) {
+					statistics.packetDispatched(System.nanoTime() - receivedNanos);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reports a datagram that did not fit into the receive buffer.
+	 * The rest of the datagram was discarded by the socket,
+	 * so decoding what we got would only yield garbage.
+	 */
+	private void dropTruncated(final DatagramPacket packet) {
+
+		statistics.packetTruncated();
+		receiver.getErrorHandler().handleParseError(new OSCParseException(
+				"Packet larger than the maximum of " + maxPacketSize + " bytes",
+				maxPacketSize), packet.getSocketAddress());
+	}
+
+	/**
+	 * Decodes a received datagram, reporting it if it is malformed.
+	 * @return the decoded packet, or <code>null</code>, if it is malformed
+	 */
+	private OSCPacket decode(final DatagramPacket packet) {
+
+		OSCPacket oscPacket;
+		try {
+			oscPacket = converter.convert(packet.getData(), packet.getLength());
+		} catch (OSCParseException ex) {
+			statistics.parseFailed();
+			receiver.getErrorHandler().handleParseError(ex, packet.getSocketAddress());
+			oscPacket = null;
+		}
+		return oscPacket;
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Send statistics of an {@link OSCPortOut},
+ * or of a single destination of an {@link OSCFanOutPort}.
+ * All counters are updated atomically, so they may be read
+ * from any thread, while the port is sending.
+ * To read them through JMX, see {@link OSCManagement}.
+ * Only the ports of this package create and update statistics.
+ */
+public final class OSCDestinationStatistics implements OSCDestinationStatisticsMBean {
+
+	private final AtomicLong packetsSent;
+	private final AtomicLong bytesSent;
+	private final AtomicLong sendErrors;
+	private final AtomicReference<IOException> lastError;
+
+	OSCDestinationStatistics() {
+
+		this.packetsSent = new AtomicLong();
+		this.bytesSent = new AtomicLong();
+		this.sendErrors = new AtomicLong();
+		this.lastError = new AtomicReference<IOException>();
+	}
+
+	/**
+	 * Counts a packet handed to the network stack.
+	 * @param numBytes size of the packet
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	void packetSent(final int numBytes) {
+		packetsSent.incrementAndGet();
+		bytesSent.addAndGet(numBytes);
+	}
+
+	/**
+	 * Counts a packet that failed to be sent.
+	 * @param error why sending failed
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	void sendFailed(final IOException error) {
+		sendErrors.incrementAndGet();
+		lastError.set(error);
+	}
+
+	/**
+	 * Returns the number of packets successfully handed to the network stack.
+	 * @return number of packets sent to this destination
+	 */
+	@Override
+	public long getPacketsSent() {
+		return packetsSent.get();
+	}
+
+	/**
+	 * Returns the number of bytes successfully handed to the network stack.
+	 * @return number of bytes sent to this destination
+	 */
+	@Override
+	public long getBytesSent() {
+		return bytesSent.get();
+	}
+
+	/**
+	 * Returns the number of packets that failed to be sent.
+	 * @return number of failed send attempts to this destination
+	 */
+	@Override
+	public long getSendErrors() {
+		return sendErrors.get();
+	}
+
+	/**
+	 * Returns the most recent error that occurred
+	 * while sending to this destination.
+	 * @return the last send error, or <code>null</code>, if there was none yet
+	 */
+	public IOException getLastError() {
+		return lastError.get();
+	}
+
+	@Override
+	public String getLastErrorMessage() {
+
+		final IOException error = lastError.get();
+		return (error == null) ? null : error.toString();
+	}
+
+	/**
+	 * Returns the current values of all the counters, by name,
+	 * for exporting them to a monitoring system.
+	 * @return a snapshot of the counters, in a fixed order
+	 */
+	public Map<String, Long> getSnapshot() {
+
+		return Collections.unmodifiableMap(putCounters(new LinkedHashMap<String, Long>()));
+	}
+
+	private Map<String, Long> putCounters(final Map<String, Long> snapshot) {
+
+		snapshot.put("packetsSent", getPacketsSent());
+		snapshot.put("bytesSent", getBytesSent());
+		snapshot.put("sendErrors", getSendErrors());
+		return snapshot;
+	}
+
+	@Override
+	public String toString() {
+		return "packets: " + getPacketsSent()
+				+ ", bytes: " + getBytesSent()
+				+ ", errors: " + getSendErrors();
+	}
+}
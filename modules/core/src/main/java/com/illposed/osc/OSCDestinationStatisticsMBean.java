@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+/**
+ * The JMX management interface of {@link OSCDestinationStatistics}.
+ *
+ * @see OSCManagement#register(OSCPortOut, String)
+ */
+public interface OSCDestinationStatisticsMBean {
+
+	/**
+	 * Returns the number of packets successfully handed to the network stack.
+	 * @return number of packets sent
+	 */
+	long getPacketsSent();
+
+	/**
+	 * Returns the number of bytes successfully handed to the network stack.
+	 * @return number of bytes sent
+	 */
+	long getBytesSent();
+
+	/**
+	 * Returns the number of packets that failed to be sent.
+	 * @return number of failed send attempts
+	 */
+	long getSendErrors();
+
+	/**
+	 * Describes the most recent error that occurred while sending.
+	 * @return the last send error, or <code>null</code>, if there was none yet
+	 */
+	String getLastErrorMessage();
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCParseException;
+import java.io.IOException;
+import java.net.SocketAddress;
+
+/**
+ * Gets informed about problems encountered by an {@link OSCPortIn}
+ * while receiving packets.
+ * The port keeps listening after reporting a problem.
+ * Handlers are called from the thread receiving the packets,
+ * so they should return quickly;
+ * a peer sending malformed data may cause a call for each of its packets.
+ *
+ * @see OSCRateLimitedErrorHandler
+ */
+public interface OSCErrorHandler {
+
+	/**
+	 * Handles a received packet that could not be decoded.
+	 * @param exception describes what is wrong with the packet, and where
+	 * @param sender where the packet came from;
+	 *   may be <code>null</code>, if unknown
+	 */
+	void handleParseError(OSCParseException exception, SocketAddress sender);
+
+	/**
+	 * Handles a failure to receive a packet.
+	 * @param exception the failure reported by the socket
+	 */
+	void handleReceiveError(IOException exception);
+}
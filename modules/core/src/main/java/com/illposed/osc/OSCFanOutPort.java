@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * OSCFanOutPort sends each OSC packet to a whole set of destinations,
+ * using a single socket.
+ *
+ * The packet is only encoded once per {@link #send(OSCPacket)},
+ * and the same bytes are then handed to the socket for each destination.
+ * Destinations may be added and removed at any time, also while sending.
+ * A failure to send to one destination does not prevent the packet
+ * from being sent to the others; instead, the failure is recorded
+ * in the {@link OSCDestinationStatistics} of that destination.
+ *
+ * An example:<br>
+ * <blockquote><pre>{@code
+ * OSCFanOutPort sender = new OSCFanOutPort();
+ * sender.addDestination(InetAddress.getByName("10.0.0.11"), 57110);
+ * sender.addDestination(InetAddress.getByName("10.0.0.12"), 57110);
+ * sender.send(new OSCMessage("/cue/go"));
+ * }</pre></blockquote>
+ */
+public class OSCFanOutPort extends OSCPort {
+
+	/**
+	 * Sending is much more frequent than changing the destinations,
+	 * so we use a copy-on-write list, which allows to iterate
+	 * without locking.
+	 */
+	private final List<Destination> destinations;
+	/**
+	 * Guards all changes to the destinations,
+	 * which keeps concurrent adds from adding the same destination twice.
+	 */
+	private final Object destinationsLock;
+
+	/**
+	 * Create a fan-out port that sends from the given socket.
+	 * @param socket the DatagramSocket to send from
+	 */
+	public OSCFanOutPort(DatagramSocket socket) {
+		super(socket, socket.getLocalPort());
+
+		this.destinations = new CopyOnWriteArrayList<Destination>();
+		this.destinationsLock = new Object();
+	}
+
+	/**
+	 * Create a fan-out port that sends from an arbitrary local port.
+	 * @throws SocketException when failing to create a (UDP) out socket
+	 */
+	public OSCFanOutPort() throws SocketException {
+		this(new DatagramSocket());
+	}
+
+	/**
+	 * Adds a destination, if it is not yet part of the destination set.
+	 * @param address the destination to send all future packets to
+	 * @return <code>true</code> if the destination was added,
+	 *   <code>false</code> if it was already present
+	 */
+	public boolean addDestination(SocketAddress address) {
+
+		if (address == null) {
+			throw new IllegalArgumentException("The destination address may not be null");
+		}
+		boolean added;
+		synchronized (destinationsLock) {
+			added = (findDestination(address) == null);
+			if (added) {
+				destinations.add(new Destination(address));
+			}
+		}
+		return added;
+	}
+
+	/**
+	 * Adds a destination, if it is not yet part of the destination set.
+	 * @param address the UDP address to send to
+	 * @param port the UDP port to send to
+	 * @return <code>true</code> if the destination was added,
+	 *   <code>false</code> if it was already present
+	 */
+	public boolean addDestination(InetAddress address, int port) {
+		return addDestination(new InetSocketAddress(address, port));
+	}
+
+	/**
+	 * Removes a destination from the destination set.
+	 * Its statistics are discarded.
+	 * @param address the destination to no longer send to
+	 * @return <code>true</code> if the destination was removed,
+	 *   <code>false</code> if it was not present
+	 */
+	public boolean removeDestination(SocketAddress address) {
+
+		boolean removed;
+		synchronized (destinationsLock) {
+			final Destination destination = findDestination(address);
+			removed = (destination != null) && destinations.remove(destination);
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes all destinations.
+	 */
+	public void clearDestinations() {
+
+		synchronized (destinationsLock) {
+			destinations.clear();
+		}
+	}
+
+	/**
+	 * Returns a snapshot of the current destinations.
+	 * @return the addresses packets are currently sent to
+	 */
+	public List<SocketAddress> getDestinations() {
+
+		final List<SocketAddress> addresses = new ArrayList<SocketAddress>(destinations.size());
+		for (final Destination destination : destinations) {
+			addresses.add(destination.getAddress());
+		}
+		return Collections.unmodifiableList(addresses);
+	}
+
+	/**
+	 * Returns the send statistics of a single destination.
+	 * @param address the destination of interest
+	 * @return the statistics of the destination,
+	 *   or <code>null</code>, if it is not part of the destination set
+	 */
+	public OSCDestinationStatistics getStatistics(SocketAddress address) {
+
+		final Destination destination = findDestination(address);
+		return (destination == null) ? null : destination.getStatistics();
+	}
+
+	private Destination findDestination(final SocketAddress address) {
+
+		Destination found = null;
+		final Iterator<Destination> candidates = destinations.iterator();
+		while ((found == null) && candidates.hasNext()) {
+			final Destination candidate = candidates.next();
+			if (candidate.getAddress().equals(address)) {
+				found = candidate;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Send an OSC packet (message or bundle) to all current destinations.
+	 * The packet is encoded only once.
+	 * Errors are not thrown, but recorded per destination,
+	 * see {@link #getStatistics(SocketAddress)}.
+	 * @param aPacket the bundle or message to send
+	 * @return the number of destinations the packet was successfully sent to
+	 */
+	public int send(OSCPacket aPacket) {
+
+		final byte[] byteArray = AbstractOSCImmutablePacket.encodedBytes(aPacket);
+		final DatagramPacket packet = new DatagramPacket(byteArray, byteArray.length);
+		final DatagramSocket socket = getSocket();
+		int numSent = 0;
+		for (final Destination destination : destinations) {
+			try {
+				packet.setSocketAddress(destination.getAddress());
+				socket.send(packet);
+				destination.getStatistics().packetSent(byteArray.length);
+				numSent++;
+			} catch (IOException ex) {
+				destination.getStatistics().sendFailed(ex);
+			}
+		}
+		return numSent;
+	}
+
+	/**
+	 * A single destination, together with its statistics.
+	 */
+	private static final class Destination {
+
+		private final SocketAddress address;
+		private final OSCDestinationStatistics statistics;
+
+		Destination(final SocketAddress address) {
+
+			this.address = address;
+			this.statistics = new OSCDestinationStatistics();
+		}
+
+		public SocketAddress getAddress() {
+			return address;
+		}
+
+		public OSCDestinationStatistics getStatistics() {
+			return statistics;
+		}
+	}
+}
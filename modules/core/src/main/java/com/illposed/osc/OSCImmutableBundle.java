@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * An immutable OSC bundle,
+ * made up of {@link OSCImmutableMessage}s and other immutable bundles.
+ *
+ * Like {@link OSCImmutableMessage}, instances of this class may be shared
+ * between threads without copying or locking, and may be used as keys in maps.
+ * The encoded byte array and the hash code are computed once,
+ * on construction.
+ * As the contained packets are immutable as well,
+ * they are shared instead of copied.
+ *
+ * Bundles are created with an {@link OSCImmutableBundleBuilder}:
+ * <blockquote><pre>{@code
+ * OSCImmutableBundle chord = OSCImmutableBundle.builder()
+ * 		.setTimestamp(when)
+ * 		.addPacket(noteOn1)
+ * 		.addPacket(noteOn2)
+ * 		.build();
+ * }</pre></blockquote>
+ *
+ * {@link #getByteArray()} returns a copy of the encoded bundle,
+ * so no user can change what the other users of the bundle see.
+ */
+public final class OSCImmutableBundle extends AbstractOSCImmutablePacket {
+
+	private final long timestamp;
+	/** Immutable packets, never modified after construction. */
+	private final List<OSCPacket> packets;
+	private final List<OSCPacket> packetList;
+
+	/**
+	 * Creates and encodes a bundle.
+	 * @param timestamp the time to execute the bundle, in milliseconds
+	 *   since the epoch
+	 * @param packets immutable packets, never modified afterwards
+	 * @param charset used to encode the bundle header
+	 */
+	OSCImmutableBundle(
+			final long timestamp,
+			final List<OSCPacket> packets,
+			final Charset charset)
+	{
+		super(encode(timestamp, packets, charset));
+
+		this.timestamp = timestamp;
+		this.packets = packets;
+		this.packetList = Collections.unmodifiableList(packets);
+	}
+
+	private static OSCBundle encode(
+			final long timestamp,
+			final List<OSCPacket> packets,
+			final Charset charset)
+	{
+		final OSCBundle encoder = new OSCBundle(packets, new Date(timestamp));
+		encoder.setCharset(charset);
+		return encoder;
+	}
+
+	/**
+	 * Creates a builder for an empty bundle with a timestamp of immediately.
+	 * @return a new builder
+	 */
+	public static OSCImmutableBundleBuilder builder() {
+		return new OSCImmutableBundleBuilder();
+	}
+
+	/**
+	 * Creates an immutable copy of a bundle,
+	 * converting all the packets it contains.
+	 * @param bundle to be copied, containing only messages and bundles
+	 * @return an immutable bundle with the same timestamp, packets
+	 *   and character set
+	 */
+	public static OSCImmutableBundle copyOf(OSCBundle bundle) {
+
+		final OSCImmutableBundleBuilder builder = builder()
+				.setTimestamp(bundle.getTimestamp())
+				.setCharset(bundle.getCharset());
+		for (final OSCPacket packet : bundle.getPackets()) {
+			builder.addPacket(packet);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Creates a builder that is initialized with the content of this bundle.
+	 * The builder shares the packets of this bundle, until it is modified.
+	 * @return a builder to create modified copies of this bundle
+	 */
+	public OSCImmutableBundleBuilder toBuilder() {
+		return new OSCImmutableBundleBuilder(timestamp, packets, getCharset());
+	}
+
+	/**
+	 * Return the time the bundle will execute.
+	 * @return a copy of the timestamp
+	 */
+	public Date getTimestamp() {
+		return new Date(timestamp);
+	}
+
+	/**
+	 * Get the packets contained in this bundle.
+	 * @return an unmodifiable list of the packets,
+	 *   each either an {@link OSCImmutableMessage}
+	 *   or an {@link OSCImmutableBundle}
+	 */
+	public List<OSCPacket> getPackets() {
+		return packetList;
+	}
+
+	@Override
+	public String toString() {
+		return "#bundle " + getTimestamp() + " " + packetList;
+	}
+}
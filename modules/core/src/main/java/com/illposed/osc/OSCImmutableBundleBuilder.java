@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Collects the timestamp and packets of an {@link OSCImmutableBundle}.
+ * A builder may be used to create multiple bundles;
+ * each call to {@link #build()} creates a new bundle
+ * with the current content of the builder.
+ * Builders are not thread-safe.
+ */
+public final class OSCImmutableBundleBuilder {
+
+	private long timestamp;
+	private List<OSCPacket> packets;
+	/**
+	 * Whether {@link #packets} is in use by a bundle,
+	 * and therefore has to be copied before it gets modified.
+	 */
+	private boolean shared;
+	private Charset charset;
+
+	/**
+	 * Creates a builder for an empty bundle with a timestamp of immediately.
+	 */
+	public OSCImmutableBundleBuilder() {
+		this(OSCBundle.TIMESTAMP_IMMEDIATE.getTime(),
+				Collections.<OSCPacket>emptyList(),
+				Charset.defaultCharset());
+	}
+
+	/**
+	 * Creates a builder that shares the packets of a bundle.
+	 * @param timestamp the time to execute the bundle, in milliseconds
+	 *   since the epoch
+	 * @param packets the immutable packets of the bundle
+	 * @param charset used to encode the bundle header
+	 */
+	OSCImmutableBundleBuilder(
+			final long timestamp,
+			final List<OSCPacket> packets,
+			final Charset charset)
+	{
+		this.timestamp = timestamp;
+		this.packets = packets;
+		this.shared = true;
+		this.charset = charset;
+	}
+
+	/**
+	 * Sets the time the bundles to build will execute.
+	 * @param newTimestamp the time to execute the bundle,
+	 *   or <code>null</code> for immediately
+	 * @return this builder
+	 */
+	public OSCImmutableBundleBuilder setTimestamp(Date newTimestamp) {
+
+		this.timestamp = (newTimestamp == null)
+				? OSCBundle.TIMESTAMP_IMMEDIATE.getTime()
+				: newTimestamp.getTime();
+		return this;
+	}
+
+	/**
+	 * Sets the character set used to encode the bundle header.
+	 * The contained packets keep their own character sets.
+	 * @param newCharset used to encode the bundle
+	 * @return this builder
+	 */
+	public OSCImmutableBundleBuilder setCharset(Charset newCharset) {
+		this.charset = newCharset;
+		return this;
+	}
+
+	/**
+	 * Adds a packet.
+	 * Immutable packets are added as they are,
+	 * while {@link OSCMessage}s and {@link OSCBundle}s are copied.
+	 * @param packet to be added to the bundle
+	 * @return this builder
+	 * @throws IllegalArgumentException if the packet is of an other type
+	 */
+	public OSCImmutableBundleBuilder addPacket(OSCPacket packet) {
+
+		OSCPacket immutablePacket;
+		if (packet instanceof AbstractOSCImmutablePacket) {
+			immutablePacket = packet;
+		} else if (packet instanceof OSCMessage) {
+			immutablePacket = OSCImmutableMessage.copyOf((OSCMessage) packet);
+		} else if (packet instanceof OSCBundle) {
+			immutablePacket = OSCImmutableBundle.copyOf((OSCBundle) packet);
+		} else {
+			throw new IllegalArgumentException("Can not make packets of type "
+					+ packet.getClass().getName() + " immutable");
+		}
+
+		if (shared) {
+			final List<OSCPacket> copiedPackets
+					= new ArrayList<OSCPacket>(Math.max(4, packets.size() * 2));
+			copiedPackets.addAll(packets);
+			packets = copiedPackets;
+			shared = false;
+		}
+		packets.add(immutablePacket);
+		return this;
+	}
+
+	/**
+	 * Removes all packets, keeping the timestamp.
+	 * @return this builder
+	 */
+	public OSCImmutableBundleBuilder clearPackets() {
+
+		packets = Collections.emptyList();
+		shared = true;
+		return this;
+	}
+
+	/**
+	 * Creates a bundle with the current content of this builder.
+	 * The packet list is handed over to the bundle without copying it;
+	 * it is only copied when this builder is modified afterwards.
+	 * @return a new, immutable bundle
+	 */
+	public OSCImmutableBundle build() {
+
+		shared = true;
+		return new OSCImmutableBundle(timestamp, packets, charset);
+	}
+}
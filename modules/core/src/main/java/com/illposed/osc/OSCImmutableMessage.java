@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable, simple (non-bundle) OSC message.
+ *
+ * Unlike {@link OSCMessage}, instances of this class may be shared between
+ * threads without copying or locking, and may be used as keys in maps.
+ * The encoded byte array, the hash code and the argument list
+ * are computed once, on construction.
+ *
+ * Messages are created with an {@link OSCImmutableMessageBuilder}:
+ * <blockquote><pre>{@code
+ * OSCImmutableMessage nSet = OSCImmutableMessage.builder("/n_set")
+ * 		.addInt(1000)
+ * 		.addFloat(440.0f)
+ * 		.build();
+ * }</pre></blockquote>
+ * Messages created from the same builder, or from a message and a builder
+ * obtained through {@link #toBuilder()}, share their argument lists
+ * until one of them is extended.
+ *
+ * Mutable arguments (blobs, time-tags and arrays) are copied when added
+ * to the builder, and again when they are returned by
+ * {@link #getArgument(int)} or {@link #getArguments()}.
+ * Likewise, {@link #getByteArray()} returns a copy of the encoded message,
+ * so no user can change what the other users of the message see.
+ */
+public final class OSCImmutableMessage extends AbstractOSCImmutablePacket {
+
+	private final String address;
+	/** Frozen arguments, never modified after construction. */
+	private final List<Object> arguments;
+	private final List<Object> argumentList;
+	private final boolean mutableArguments;
+
+	/**
+	 * Creates and encodes a message.
+	 * @param address the valid recipient of the message
+	 * @param arguments frozen arguments, never modified afterwards
+	 * @param charset used to encode the address and string arguments
+	 */
+	OSCImmutableMessage(
+			final String address,
+			final List<Object> arguments,
+			final Charset charset)
+	{
+		super(encode(address, arguments, charset));
+
+		this.address = address;
+		this.arguments = arguments;
+		this.argumentList = Collections.unmodifiableList(arguments);
+		this.mutableArguments = containsMutable(arguments);
+	}
+
+	private static OSCMessage encode(
+			final String address,
+			final List<Object> arguments,
+			final Charset charset)
+	{
+		final OSCMessage encoder = new OSCMessage(address, arguments);
+		encoder.setCharset(charset);
+		return encoder;
+	}
+
+	/**
+	 * Creates a builder for a message with the given address.
+	 * @param address the recipient of the message
+	 * @return a new builder, with no arguments
+	 */
+	public static OSCImmutableMessageBuilder builder(String address) {
+		return new OSCImmutableMessageBuilder().setAddress(address);
+	}
+
+	/**
+	 * Creates an immutable copy of a message.
+	 * @param message to be copied
+	 * @return an immutable message with the same address, arguments
+	 *   and character set
+	 */
+	public static OSCImmutableMessage copyOf(OSCMessage message) {
+		return builder(message.getAddress())
+				.addArguments(message.getArguments())
+				.setCharset(message.getCharset())
+				.build();
+	}
+
+	/**
+	 * Creates a builder that is initialized with the content of this message.
+	 * The builder shares the arguments of this message, until it is modified.
+	 * @return a builder to create modified copies of this message
+	 */
+	public OSCImmutableMessageBuilder toBuilder() {
+		return new OSCImmutableMessageBuilder(address, arguments, getCharset());
+	}
+
+	/**
+	 * Creates a mutable copy of this message.
+	 * Mutable arguments are copied,
+	 * so changing the copy leaves this message unchanged.
+	 * @return a new message with the same address, arguments
+	 *   and character set
+	 */
+	public OSCMessage toMessage() {
+
+		final OSCMessage message = new OSCMessage(address, getArguments());
+		message.setCharset(getCharset());
+		return message;
+	}
+
+	/**
+	 * Returns a message with the same arguments as this one,
+	 * but a different address.
+	 * The argument list is shared between the two messages.
+	 * @param newAddress the recipient of the new message
+	 * @return a message to the given address
+	 */
+	public OSCImmutableMessage withAddress(String newAddress) {
+		return toBuilder().setAddress(newAddress).build();
+	}
+
+	/**
+	 * The receiver of this message.
+	 * @return the receiver of this OSC Message
+	 */
+	public String getAddress() {
+		return address;
+	}
+
+	/**
+	 * The number of arguments of this message.
+	 * @return the number of arguments
+	 */
+	public int getArgumentCount() {
+		return arguments.size();
+	}
+
+	/**
+	 * Returns a single argument.
+	 * @param index of the argument
+	 * @return the argument at the given index,
+	 *   or a copy of it, if it is mutable
+	 */
+	public Object getArgument(int index) {
+		return freeze(arguments.get(index));
+	}
+
+	/**
+	 * The arguments of this message.
+	 * @return an unmodifiable list of the arguments of this message,
+	 *   holding copies of the mutable ones
+	 */
+	public List<Object> getArguments() {
+
+		List<Object> result = argumentList;
+		if (mutableArguments) {
+			final List<Object> copiedArguments = new ArrayList<Object>(arguments.size());
+			for (final Object argument : arguments) {
+				copiedArguments.add(freeze(argument));
+			}
+			result = Collections.unmodifiableList(copiedArguments);
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return address + " " + argumentList;
+	}
+
+	/**
+	 * Checks whether any of the arguments would be copied by
+	 * {@link #freeze(Object)}.
+	 * @param frozenArguments the arguments of a message
+	 * @return <code>true</code> if at least one argument is mutable
+	 */
+	private static boolean containsMutable(final List<Object> frozenArguments) {
+
+		boolean mutable = false;
+		for (final Object argument : frozenArguments) {
+			mutable |= isMutable(argument);
+		}
+		return mutable;
+	}
+}
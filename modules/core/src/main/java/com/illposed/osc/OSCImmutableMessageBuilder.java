@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the address and arguments of an {@link OSCImmutableMessage}.
+ * A builder may be used to create multiple messages;
+ * each call to {@link #build()} creates a new message
+ * with the current content of the builder.
+ * Builders are not thread-safe.
+ */
+public final class OSCImmutableMessageBuilder {
+
+	private String address;
+	private List<Object> arguments;
+	/**
+	 * Whether {@link #arguments} is in use by a message,
+	 * and therefore has to be copied before it gets modified.
+	 */
+	private boolean shared;
+	private Charset charset;
+
+	/**
+	 * Creates an empty builder.
+	 * An address has to be set before a message can be built.
+	 */
+	public OSCImmutableMessageBuilder() {
+		this(null, Collections.<Object>emptyList(), Charset.defaultCharset());
+	}
+
+	/**
+	 * Creates a builder that shares the arguments of a message.
+	 * @param address the recipient of the message
+	 * @param arguments the frozen arguments of the message
+	 * @param charset used to encode the message
+	 */
+	OSCImmutableMessageBuilder(
+			final String address,
+			final List<Object> arguments,
+			final Charset charset)
+	{
+		this.address = address;
+		this.arguments = arguments;
+		this.shared = true;
+		this.charset = charset;
+	}
+
+	/**
+	 * Sets the address of the messages to build.
+	 * @param newAddress the recipient of the message
+	 * @return this builder
+	 */
+	public OSCImmutableMessageBuilder setAddress(String newAddress) {
+
+		OSCAddresses.check(newAddress);
+		this.address = newAddress;
+		return this;
+	}
+
+	/**
+	 * Sets the character set used to encode the address and string arguments.
+	 * @param newCharset used to encode the message
+	 * @return this builder
+	 */
+	public OSCImmutableMessageBuilder setCharset(Charset newCharset) {
+		this.charset = newCharset;
+		return this;
+	}
+
+	private void ensureWritable(final int minCapacity) {
+
+		if (shared) {
+			final List<Object> copiedArguments
+					= new ArrayList<Object>(Math.max(minCapacity, arguments.size() * 2));
+			copiedArguments.addAll(arguments);
+			arguments = copiedArguments;
+			shared = false;
+		}
+	}
+
+	/**
+	 * Adds an argument.
+	 * Blobs, time-tags and arrays are copied.
+	 * @param argument a Float, Double, String, Character, Integer, Long,
+	 *   Boolean, null or an array of these
+	 * @return this builder
+	 */
+	public OSCImmutableMessageBuilder addArgument(Object argument) {
+
+		ensureWritable(arguments.size() + 1);
+		arguments.add(AbstractOSCImmutablePacket.freeze(argument));
+		return this;
+	}
+
+	/**
+	 * Adds multiple arguments.
+	 * @param moreArguments to be added, in order
+	 * @return this builder
+	 * @see #addArgument(Object)
+	 */
+	public OSCImmutableMessageBuilder addArguments(Collection<Object> moreArguments) {
+
+		ensureWritable(arguments.size() + moreArguments.size());
+		for (final Object argument : moreArguments) {
+			addArgument(argument);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds a 32 bit integer argument (OSC type <code>'i'</code>).
+	 * @param argument the value to add
+	 * @return this builder
+	 */
+	public OSCImmutableMessageBuilder addInt(int argument) {
+		return addArgument(argument);
+	}
+
+	/**
+	 * Adds a 32 bit floating point argument (OSC type <code>'f'</code>).
+	 * @param argument the value to add
+	 * @return this builder
+	 */
+	public OSCImmutableMessageBuilder addFloat(float argument) {
+		return addArgument(argument);
+	}
+
+	/**
+	 * Adds a 64 bit integer argument (OSC type <code>'h'</code>).
+	 * @param argument the value to add
+	 * @return this builder
+	 */
+	public OSCImmutableMessageBuilder addLong(long argument) {
+		return addArgument(argument);
+	}
+
+	/**
+	 * Adds a 64 bit floating point argument (OSC type <code>'d'</code>).
+	 * @param argument the value to add
+	 * @return this builder
+	 */
+	public OSCImmutableMessageBuilder addDouble(double argument) {
+		return addArgument(argument);
+	}
+
+	/**
+	 * Removes all arguments, keeping the address.
+	 * @return this builder
+	 */
+	public OSCImmutableMessageBuilder clearArguments() {
+
+		arguments = Collections.emptyList();
+		shared = true;
+		return this;
+	}
+
+	/**
+	 * Creates a message with the current content of this builder.
+	 * The argument list is handed over to the message without copying it;
+	 * it is only copied when this builder is modified afterwards.
+	 * @return a new, immutable message
+	 */
+	public OSCImmutableMessage build() {
+
+		if (address == null) {
+			throw new IllegalStateException("No address set");
+		}
+		shared = true;
+		return new OSCImmutableMessage(address, arguments, charset);
+	}
+}
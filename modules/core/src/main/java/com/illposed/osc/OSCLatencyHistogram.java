@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records a distribution of non-negative values, usually latencies,
+ * with a bounded relative error, the way HdrHistogram does.
+ * The unit of the values is up to the user;
+ * the ports use nano-seconds, see {@link OSCReceiveStatistics}.
+ * Values below {@link #SUB_BUCKET_COUNT} are counted exactly.
+ * Above that, each power of two range is split into
+ * <code>SUB_BUCKET_COUNT / 2</code> equally sized buckets,
+ * so a reported value is less than 1.6% above the recorded one.
+ * Recording is safe to do concurrently with reading,
+ * while reads taken during recording may be slightly inconsistent.
+ */
+public final class OSCLatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 7;
+	/**
+	 * Number of buckets in the first, exact range.
+	 */
+	public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+	private static final int MAX_EXPONENT = Long.SIZE - SUB_BUCKET_BITS;
+
+	private final AtomicLongArray counts;
+	private final AtomicLong totalCount;
+	private final AtomicLong totalValue;
+	private final AtomicLong maxValue;
+
+	public OSCLatencyHistogram() {
+
+		this.counts = new AtomicLongArray(indexOf(Long.MAX_VALUE) + 1);
+		this.totalCount = new AtomicLong();
+		this.totalValue = new AtomicLong();
+		this.maxValue = new AtomicLong();
+	}
+
+	/**
+	 * Returns the bucket a value is counted in.
+	 * @param value a non-negative value
+	 * @return the index of the bucket
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	static int indexOf(final long value) {
+
+		int index;
+		if (value < SUB_BUCKET_COUNT) {
+			index = (int) value;
+		} else {
+			final int exponent = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+			final int subBucket = (int) (value >>> exponent);
+			index = SUB_BUCKET_COUNT + ((exponent - 1) * SUB_BUCKET_HALF_COUNT)
+					+ (subBucket - SUB_BUCKET_HALF_COUNT);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the smallest value counted in a bucket.
+	 * @param index of the bucket
+	 * @return the lower bound (inclusive) of the bucket,
+	 *   or {@link Long#MAX_VALUE} past the last bucket
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	static long lowestValueAt(final int index) {
+
+		long lowest;
+		if (index < SUB_BUCKET_COUNT) {
+			lowest = index;
+		} else {
+			final int exponent = ((index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT) + 1;
+			final long subBucket = ((index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT)
+					+ SUB_BUCKET_HALF_COUNT;
+			lowest = (exponent >= MAX_EXPONENT) ? Long.MAX_VALUE : (subBucket << exponent);
+		}
+		return lowest;
+	}
+
+	/**
+	 * Returns the largest value counted in a bucket.
+	 * @param index of the bucket
+	 * @return the upper bound (inclusive) of the bucket
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	static long highestValueAt(final int index) {
+
+		final long nextLowest = lowestValueAt(index + 1);
+		return (nextLowest == Long.MAX_VALUE) ? Long.MAX_VALUE : (nextLowest - 1);
+	}
+
+	/**
+	 * Records one value.
+	 * @param value to record; negative values are recorded as 0
+	 */
+	public void record(long value) {
+
+		final long clamped = Math.max(0L, value);
+		counts.incrementAndGet(indexOf(clamped));
+		totalCount.incrementAndGet();
+		totalValue.addAndGet(clamped);
+		long max = maxValue.get();
+		while ((clamped > max) && !maxValue.compareAndSet(max, clamped)) {
+			max = maxValue.get();
+		}
+	}
+
+	/**
+	 * Returns how many values were recorded.
+	 * @return number of recorded values
+	 */
+	public long getCount() {
+		return totalCount.get();
+	}
+
+	/**
+	 * Returns the largest value recorded, exactly.
+	 * @return the maximum, or 0 if nothing was recorded
+	 */
+	public long getMax() {
+		return maxValue.get();
+	}
+
+	/**
+	 * Returns the average of all the recorded values, exactly.
+	 * @return the mean, or 0 if nothing was recorded
+	 */
+	public double getMean() {
+
+		final long count = totalCount.get();
+		return (count == 0) ? 0.0 : ((double) totalValue.get() / count);
+	}
+
+	/**
+	 * Returns the value that the given percentage of recorded values
+	 * are smaller than or equal to,
+	 * rounded up to the largest value of its bucket.
+	 * @param percentile between 0.0 and 100.0
+	 * @return the value at the percentile, or 0 if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+
+		final double clamped = Math.min(Math.max(percentile, 0.0), 100.0);
+		final long rank = Math.max(1L, (long) Math.ceil((clamped / 100.0) * totalCount.get()));
+		// nothing recorded yet leaves max at 0
+		final long max = getMax();
+		long value = max;
+		long seen = 0;
+		for (int bi = 0; (seen < rank) && (bi < counts.length()); bi++) {
+			seen += counts.get(bi);
+			if (seen >= rank) {
+				value = Math.min(highestValueAt(bi), max);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Discards all recorded values.
+	 * Values recorded concurrently may be partially discarded.
+	 */
+	public void reset() {
+
+		for (int bi = 0; bi < counts.length(); bi++) {
+			counts.set(bi, 0L);
+		}
+		totalCount.set(0L);
+		totalValue.set(0L);
+		maxValue.set(0L);
+	}
+}
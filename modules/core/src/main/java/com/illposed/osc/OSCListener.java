@@ -23,6 +23,9 @@ public interface OSCListener {
 	 * @param time     The time this message is to be executed.
 	 *   <code>null</code> means: process immediately
 	 * @param message  The message to process.
+	 *   If the message was received by a port that uses an
+	 *   {@link OSCPacketPool}, it is only valid during this call,
+	 *   unless {@link OSCMessage#retain()} is called on it.
 	 */
 	void acceptMessage(Date time, OSCMessage message);
 }
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCParseException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * OSCLoopbackPortIn receives OSC packets sent by
+ * {@link OSCLoopbackPortOut}s within the same JVM, without any sockets.
+ *
+ * Sent packets are put on a lock-free queue,
+ * either encoded, or as they are,
+ * and handed to the listeners in the order they were sent.
+ * They are dispatched either from a thread of this port,
+ * after calling {@link #startListening()},
+ * or from whichever thread calls {@link #dispatchPending()};
+ * the latter makes tests deterministic,
+ * and allows to measure the dispatching in isolation.
+ * Either way, listeners are never called concurrently,
+ * just as with {@link OSCPortIn}.
+ * Listeners should be added before sending packets.
+ * Validation and the packet pool only apply to packets sent encoded,
+ * and the error handler is passed no sender address with parse errors.
+ * Exceptions thrown by listeners are reported to the error handler as well.
+ *
+ * An example:<br>
+ * <blockquote><pre>{@code
+ * receiver = new OSCLoopbackPortIn();
+ * receiver.addListener("/message/receiving", listener);
+ * sender = new OSCLoopbackPortOut(receiver);
+ * sender.send(new OSCMessage("/message/receiving"));
+ * receiver.dispatchPending();
+ * }</pre></blockquote>
+ */
+public class OSCLoopbackPortIn extends OSCReceiver implements Runnable, OSCLoopbackPortInMBean {
+
+	/**
+	 * How long the listening thread sleeps at most, while the queue is empty.
+	 * It is woken up by senders anyway; this merely bounds the delay
+	 * of noticing {@link #stopListening()}.
+	 */
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	/** Where packets come from, as far as the error handler is concerned. */
+	private static final String SOURCE = "the loopback port";
+
+	/** Holds packets, and encoded packets as <code>byte[]</code>. */
+	private final Queue<Object> queue;
+	/** state for listening */
+	private final AtomicBoolean listening;
+	/** The thread dispatching packets, while it is waiting for more. */
+	private final AtomicReference<Thread> waitingThread;
+
+	/**
+	 * Create a port that packets can be sent to within this JVM.
+	 */
+	public OSCLoopbackPortIn() {
+
+		this.queue = new ConcurrentLinkedQueue<Object>();
+		this.listening = new AtomicBoolean(false);
+		this.waitingThread = new AtomicReference<Thread>();
+	}
+
+	/**
+	 * Queues a packet, or its encoded form, for dispatching.
+	 * @param packet either an {@link OSCPacket}, or a <code>byte[]</code>
+	 */
+	protected void enqueue(final Object packet) {
+
+		queue.add(packet);
+		final Thread waiting = waitingThread.get();
+		if (waiting != null) {
+			LockSupport.unpark(waiting);
+		}
+	}
+
+	/**
+	 * Returns the number of packets sent, but not yet dispatched.
+	 * @return the number of queued packets
+	 */
+	@Override
+	public int getPendingCount() {
+		return queue.size();
+	}
+
+	/**
+	 * Dispatches all the packets queued so far, on the calling thread.
+	 * This should not be used while listening.
+	 * @return the number of packets taken off the queue,
+	 *   including the ones that could not be decoded
+	 */
+	public int dispatchPending() {
+
+		int numDispatched = 0;
+		Object packet = queue.poll();
+		while (packet != null) {
+			dispatchQueued(packet);
+			numDispatched++;
+			packet = queue.poll();
+		}
+		return numDispatched;
+	}
+
+	private void dispatchQueued(final Object packet) {
+
+		if (packet instanceof OSCPacket) {
+			// handed over as it was sent, so it must not end up in the pool
+			deliver((OSCPacket) packet, SOURCE);
+		} else {
+			final OSCPacket oscPacket = decode((byte[]) packet);
+			if (oscPacket != null) {
+				dispatch(oscPacket, SOURCE);
+			}
+		}
+	}
+
+	/**
+	 * Decodes a queued packet, reporting it if it is malformed.
+	 * @return the decoded packet, or <code>null</code>, if it is malformed
+	 */
+	private OSCPacket decode(final byte[] bytes) {
+
+		OSCPacket oscPacket;
+		try {
+			oscPacket = getConverter().convert(bytes, bytes.length);
+		} catch (OSCParseException ex) {
+			getErrorHandler().handleParseError(ex, null);
+			oscPacket = null;
+		}
+		return oscPacket;
+	}
+
+	/**
+	 * Run the loop that dispatches queued packets until
+	 * {@link #isListening()} becomes false.
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+
+		final Thread current = Thread.currentThread();
+		while (listening.get()) {
+			if (dispatchPending() == 0) {
+				waitingThread.set(current);
+				// a packet may have been queued before we were ready to be woken up
+				if (queue.isEmpty() && listening.get()) {
+					LockSupport.parkNanos(this, MAX_PARK_NANOS);
+				}
+				waitingThread.set(null);
+			}
+		}
+	}
+
+	/**
+	 * Start dispatching incoming OSCPackets on a thread of this port.
+	 */
+	public void startListening() {
+		listening.set(true);
+		final Thread thread = new Thread(this);
+		// The JVM exits when the only threads running are all daemon threads.
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stop dispatching incoming OSCPackets.
+	 * Packets sent in the mean time are kept,
+	 * see {@link #dispatchPending()}.
+	 */
+	public void stopListening() {
+
+		listening.set(false);
+		final Thread waiting = waitingThread.get();
+		if (waiting != null) {
+			LockSupport.unpark(waiting);
+		}
+	}
+
+	/**
+	 * Am I listening for packets?
+	 * @return true if this port is in listening mode
+	 */
+	@Override
+	public boolean isListening() {
+		return listening.get();
+	}
+
+	/**
+	 * Stops listening, and discards all the packets not yet dispatched.
+	 */
+	public void close() {
+		stopListening();
+		queue.clear();
+	}
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+/**
+ * The JMX management interface of {@link OSCLoopbackPortIn}.
+ *
+ * @see OSCManagement#register(OSCLoopbackPortIn, String)
+ */
+public interface OSCLoopbackPortInMBean {
+
+	/**
+	 * Returns the number of packets sent, but not yet dispatched.
+	 * This takes time linear to the number of queued packets.
+	 * @return the depth of the queue
+	 */
+	int getPendingCount();
+
+	/**
+	 * Am I listening for packets?
+	 * @return true if this port is in listening mode
+	 */
+	boolean isListening();
+}
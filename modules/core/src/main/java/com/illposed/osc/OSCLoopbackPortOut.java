@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCPacketDispatcher;
+
+/**
+ * OSCLoopbackPortOut sends OSC packets to an {@link OSCLoopbackPortIn}
+ * within the same JVM, without any sockets.
+ *
+ * By default, packets are encoded when sent, and decoded when received,
+ * just like with a real network in between, which exercises the whole stack.
+ * Alternatively, packets may be handed over as they are,
+ * skipping encoding and decoding entirely;
+ * in that case, the listeners get the very {@link OSCMessage}s that were sent,
+ * so these must not be changed after sending them.
+ * {@link OSCImmutableMessage}s and {@link OSCImmutableBundle}s
+ * are safe to send like that; as listeners only accept {@link OSCMessage}s,
+ * they get a copy of each immutable message.
+ * Packets of any other kind, like {@link OSCMessageTemplate}s,
+ * or bundles containing such, are always sent encoded,
+ * see {@link OSCPacketDispatcher#isDispatchable(OSCPacket)}.
+ * Only immutable packets are queued without copying their encoding,
+ * so a packet may be changed right after sending it encoded.
+ *
+ * An example:<br>
+ * <blockquote><pre>{@code
+ * receiver = new OSCLoopbackPortIn();
+ * receiver.addListener("/message/receiving", listener);
+ * receiver.startListening();
+ * sender = new OSCLoopbackPortOut(receiver, false);
+ * sender.send(OSCImmutableMessage.builder("/message/receiving").build());
+ * }</pre></blockquote>
+ *
+ * This class is thread-safe.
+ */
+public class OSCLoopbackPortOut {
+
+	private final OSCLoopbackPortIn receiver;
+	private final boolean encoding;
+
+	/**
+	 * Create a port that sends to the given receiver.
+	 * @param receiver to hand the sent packets to
+	 * @param encoding <code>true</code> to send packets encoded,
+	 *   <code>false</code> to hand over the packet objects themselves
+	 */
+	public OSCLoopbackPortOut(OSCLoopbackPortIn receiver, boolean encoding) {
+
+		this.receiver = receiver;
+		this.encoding = encoding;
+	}
+
+	/**
+	 * Create a port that sends encoded packets to the given receiver.
+	 * @param receiver to hand the sent packets to
+	 */
+	public OSCLoopbackPortOut(OSCLoopbackPortIn receiver) {
+		this(receiver, true);
+	}
+
+	/**
+	 * Indicates whether packets are encoded when sent.
+	 * @return <code>true</code> if packets are encoded and decoded,
+	 *   <code>false</code> if the packet objects themselves are handed over
+	 */
+	public boolean isEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * Send an OSC packet (message or bundle) to the receiver.
+	 * This never blocks.
+	 * @param aPacket the bundle or message to send
+	 */
+	public void send(OSCPacket aPacket) {
+
+		if (encoding || !OSCPacketDispatcher.isDispatchable(aPacket)) {
+			final byte[] bytes = AbstractOSCImmutablePacket.encodedBytes(aPacket);
+			// the encoding of a mutable packet, like a template, may be patched
+			// in place while it waits to be received, so queue a copy of it
+			receiver.enqueue((aPacket instanceof AbstractOSCImmutablePacket) ? bytes : bytes.clone());
+		} else {
+			receiver.enqueue(aPacket);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registers the statistics of ports as MBeans
+ * with the platform MBean server,
+ * so they can be watched with JConsole or VisualVM,
+ * or scraped by any JMX capable monitoring system.
+ * Each port is registered under the domain {@link #DOMAIN},
+ * with its type and a name chosen by the application,
+ * for example <code>com.illposed.osc:type=OSCPortIn,name="synth"</code>.
+ * Register each port only once, and unregister it when closing it,
+ * so its statistics may be garbage collected.
+ *
+ * An example:<br>
+ * <blockquote><pre>{@code
+ * receiver = new OSCPortIn(7770);
+ * ObjectName name = OSCManagement.register(receiver, "synth");
+ * ...
+ * receiver.close();
+ * OSCManagement.unregister(name);
+ * }</pre></blockquote>
+ */
+public final class OSCManagement {
+
+	/** The JMX domain all ports are registered under. */
+	public static final String DOMAIN = "com.illposed.osc";
+
+	private OSCManagement() {
+		// utility class
+	}
+
+	private static ObjectName register(final Object mbean, final String type, final String name)
+			throws JMException
+	{
+		final ObjectName objectName
+				= new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		return server.registerMBean(mbean, objectName).getObjectName();
+	}
+
+	/**
+	 * Registers the receive statistics of a port,
+	 * and {@link OSCPortIn#setTimingEnabled(boolean) enables timing}
+	 * of its dispatching and listener calls.
+	 * @param port whose {@link OSCPortIn#getStatistics() statistics}
+	 *   to register
+	 * @param name identifies the port, unique among all registered
+	 *   {@link OSCPortIn}s
+	 * @return the name the statistics were registered under
+	 * @throws JMException if the name is already in use,
+	 *   or registering failed for another reason
+	 */
+	public static ObjectName register(OSCPortIn port, String name) throws JMException {
+
+		final ObjectName objectName = register(port.getStatistics(), "OSCPortIn", name);
+		port.setTimingEnabled(true);
+		return objectName;
+	}
+
+	/**
+	 * Registers the send statistics of a port.
+	 * @param port whose {@link OSCPortOut#getStatistics() statistics}
+	 *   to register
+	 * @param name identifies the port, unique among all registered
+	 *   {@link OSCPortOut}s
+	 * @return the name the statistics were registered under
+	 * @throws JMException if the name is already in use,
+	 *   or registering failed for another reason
+	 */
+	public static ObjectName register(OSCPortOut port, String name) throws JMException {
+		return register(port.getStatistics(), "OSCPortOut", name);
+	}
+
+	/**
+	 * Registers a loopback port, which exposes the depth of its queue.
+	 * @param port to register
+	 * @param name identifies the port, unique among all registered
+	 *   {@link OSCLoopbackPortIn}s
+	 * @return the name the port was registered under
+	 * @throws JMException if the name is already in use,
+	 *   or registering failed for another reason
+	 */
+	public static ObjectName register(OSCLoopbackPortIn port, String name) throws JMException {
+		return register(port, "OSCLoopbackPortIn", name);
+	}
+
+	/**
+	 * Unregisters a port registered before.
+	 * @param name as returned when registering the port
+	 * @throws JMException if nothing is registered under this name
+	 */
+	public static void unregister(ObjectName name) throws JMException {
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+	}
+}
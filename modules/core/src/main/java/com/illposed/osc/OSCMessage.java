@@ -9,12 +9,8 @@
 package com.illposed.osc;
 
 import com.illposed.osc.utility.OSCJavaToByteArrayConverter;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.regex.Pattern;
 
 /**
  * An simple (non-bundle) OSC message.
@@ -23,20 +19,18 @@ import java.util.regex.Pattern;
  * an <i>Address Pattern</i> (the receiver of the message)
  * and <i>Arguments</i> (the content of the message).
  *
+ * Numeric arguments may be added and read without boxing them,
+ * using the primitive-typed methods like {@link #addFloat(float)}
+ * and {@link #getFloat(int)}.
+ * Such arguments are stored unboxed,
+ * and only converted to Java objects when {@link #getArguments()} is called.
+ *
  * @author Chandrasekhar Ramakrishnan
  */
 public class OSCMessage extends AbstractOSCPacket {
 
-	/**
-	 * Java regular expression pattern matching a single invalid character.
-	 * The invalid characters are:
-	 * ' ', '#', '*', ',', '?', '[', ']', '{', '}'
-	 */
-	private static final Pattern ILLEGAL_ADDRESS_CHAR
-			= Pattern.compile("[ \\#\\*\\,\\?\\[\\]\\{\\}]");
-
 	private String address;
-	private List<Object> arguments;
+	private final OSCArguments arguments;
 
 	/**
 	 * Creates an empty OSC Message.
@@ -63,12 +57,17 @@ public class OSCMessage extends AbstractOSCPacket {
 	 */
 	public OSCMessage(String address, Collection<Object> arguments) {
 
-		checkAddress(address);
+		// NOTE We explicitly allow <code>null</code> here,
+		//   because we want to allow to set the address in a lazy fashion.
+		if (address != null) {
+			OSCAddresses.check(address);
+		}
 		this.address = address;
-		if (arguments == null) {
-			this.arguments = new LinkedList<Object>();
-		} else {
-			this.arguments = new ArrayList<Object>(arguments);
+		this.arguments = new OSCArguments();
+		if (arguments != null) {
+			for (final Object argument : arguments) {
+				this.arguments.add(argument);
+			}
 		}
 	}
 
@@ -85,14 +84,29 @@ public class OSCMessage extends AbstractOSCPacket {
 	 * @param address the receiver of the message
 	 */
 	public void setAddress(String address) {
-		checkAddress(address);
+		if (address != null) {
+			OSCAddresses.check(address);
+		}
 		this.address = address;
 		contentChanged();
 	}
 
+	/**
+	 * Removes the address and all arguments,
+	 * keeping the allocated argument storage for reuse.
+	 */
+	@Override
+	public void reset() {
+		address = null;
+		arguments.clear();
+		super.reset();
+	}
+
 	/**
 	 * Add an argument to the list of arguments.
-	 * @param argument a Float, Double, String, Character, Integer, Long, Boolean, null
+	 * @param argument a Float, Double, String, Character, Integer, Long, Boolean, null,
+	 *   or one of the other types supported by
+	 *   {@link com.illposed.osc.utility.OSCArgumentHandlers},
 	 *   or an array of these
 	 */
 	public void addArgument(Object argument) {
@@ -101,54 +115,169 @@ public class OSCMessage extends AbstractOSCPacket {
 	}
 
 	/**
-	 * The arguments of this message.
-	 * @return the arguments to this message
+	 * Add a 32 bit integer argument (OSC type <code>'i'</code>),
+	 * without boxing it.
+	 * @param argument the value to add
 	 */
-	public List<Object> getArguments() {
-		return Collections.unmodifiableList(arguments);
+	public void addInt(int argument) {
+		arguments.addPrimitive('i', argument);
+		contentChanged();
 	}
 
 	/**
-	 * Convert the address into a byte array.
-	 * Used internally only.
-	 * @param stream where to write the address to
+	 * Add a 32 bit floating point argument (OSC type <code>'f'</code>),
+	 * without boxing it.
+	 * @param argument the value to add
 	 */
-	private void computeAddressByteArray(OSCJavaToByteArrayConverter stream) {
-		stream.write(address);
+	public void addFloat(float argument) {
+		arguments.addPrimitive('f', Float.floatToRawIntBits(argument));
+		contentChanged();
 	}
 
 	/**
-	 * Convert the arguments into a byte array.
-	 * Used internally only.
-	 * @param stream where to write the arguments to
+	 * Add a 64 bit integer argument (OSC type <code>'h'</code>),
+	 * without boxing it.
+	 * @param argument the value to add
 	 */
-	private void computeArgumentsByteArray(OSCJavaToByteArrayConverter stream) {
-		stream.write(',');
-		stream.writeTypes(arguments);
-		for (final Object argument : arguments) {
-			stream.write(argument);
-		}
+	public void addLong(long argument) {
+		arguments.addPrimitive('h', argument);
+		contentChanged();
 	}
 
-	@Override
-	protected byte[] computeByteArray(OSCJavaToByteArrayConverter stream) {
-		computeAddressByteArray(stream);
-		computeArgumentsByteArray(stream);
-		return stream.toByteArray();
+	/**
+	 * Add a 64 bit floating point argument (OSC type <code>'d'</code>),
+	 * without boxing it.
+	 * @param argument the value to add
+	 */
+	public void addDouble(double argument) {
+		arguments.addPrimitive('d', Double.doubleToRawLongBits(argument));
+		contentChanged();
 	}
 
 	/**
-	 * Throws an exception if the given address is invalid.
-	 * We explicitly allow <code>null</code> here,
-	 * because we want to allow to set the address in a lazy fashion.
-	 * @param address to be checked for validity
+	 * Add an unsigned 32 bit integer argument (OSC type <code>'u'</code>),
+	 * without boxing it.
+	 * It is returned as an {@link OSCUnsigned} by {@link #getArgument(int)},
+	 * and as its value by {@link #getLong(int)}.
+	 * @param argument the value to add, in the range [0, 2^32)
+	 * @throws IllegalArgumentException if the value is out of range
 	 */
-	private static void checkAddress(String address) {
-		// NOTE We explicitly allow <code>null</code> here,
-		//   because we want to allow to set in a lazy fashion.
-		if ((address != null) && !isValidAddress(address)) {
-			throw new IllegalArgumentException("Not a valid OSC address: " + address);
+	public void addUnsigned(long argument) {
+
+		if ((argument & ~OSCUnsigned.MAX_VALUE) != 0) {
+			throw new IllegalArgumentException(
+					"Unsigned 32 bit integers have to be in the range [0, 2^32), is: " + argument);
 		}
+		arguments.addPrimitive('u', argument);
+		contentChanged();
+	}
+
+	/**
+	 * Add an RGBA color argument (OSC type <code>'r'</code>),
+	 * without creating an object.
+	 * It is returned as an {@link OSCColor} by {@link #getArgument(int)},
+	 * and in its encoded form by {@link #getInt(int)}.
+	 * @param rgba the color components, red in the most significant byte,
+	 *   see {@link OSCColor#toRGBA(int, int, int, int)}
+	 */
+	public void addColor(int rgba) {
+		arguments.addPrimitive('r', rgba & OSCUnsigned.MAX_VALUE);
+		contentChanged();
+	}
+
+	/**
+	 * Add a MIDI message argument (OSC type <code>'m'</code>),
+	 * without creating an object.
+	 * It is returned as an {@link OSCMidiMessage} by {@link #getArgument(int)},
+	 * and in its encoded form by {@link #getInt(int)}.
+	 * @param message the bytes of the MIDI message,
+	 *   the port ID in the most significant one,
+	 *   see {@link OSCMidiMessage#toInt(int, int, int, int)}
+	 */
+	public void addMidiMessage(int message) {
+		arguments.addPrimitive('m', message & OSCUnsigned.MAX_VALUE);
+		contentChanged();
+	}
+
+	/**
+	 * The number of arguments of this message.
+	 * @return the number of arguments
+	 */
+	public int getArgumentCount() {
+		return arguments.getSize();
+	}
+
+	/**
+	 * Returns a single argument.
+	 * Numeric arguments are boxed; prefer the primitive-typed getters,
+	 * like {@link #getFloat(int)}, for these.
+	 * @param index of the argument
+	 * @return the argument at the given index
+	 */
+	public Object getArgument(int index) {
+		return arguments.get(index);
+	}
+
+	/**
+	 * Returns a numeric argument as a 32 bit integer,
+	 * converting it like {@link Number#intValue()} if it has a different type.
+	 * Colors and MIDI messages are returned in their encoded form.
+	 * @param index of the argument
+	 * @return the value of the argument
+	 * @throws IllegalArgumentException if the argument is not numeric
+	 */
+	public int getInt(int index) {
+		return arguments.getInt(index);
+	}
+
+	/**
+	 * Returns a numeric argument as a 32 bit floating point value,
+	 * converting it like {@link Number#floatValue()} if it has a different type.
+	 * @param index of the argument
+	 * @return the value of the argument
+	 * @throws IllegalArgumentException if the argument is not numeric
+	 */
+	public float getFloat(int index) {
+		return arguments.getFloat(index);
+	}
+
+	/**
+	 * Returns a numeric argument as a 64 bit integer,
+	 * converting it like {@link Number#longValue()} if it has a different type.
+	 * @param index of the argument
+	 * @return the value of the argument
+	 * @throws IllegalArgumentException if the argument is not numeric
+	 */
+	public long getLong(int index) {
+		return arguments.getLong(index);
+	}
+
+	/**
+	 * Returns a numeric argument as a 64 bit floating point value,
+	 * converting it like {@link Number#doubleValue()} if it has a different type.
+	 * @param index of the argument
+	 * @return the value of the argument
+	 * @throws IllegalArgumentException if the argument is not numeric
+	 */
+	public double getDouble(int index) {
+		return arguments.getDouble(index);
+	}
+
+	/**
+	 * The arguments of this message.
+	 * Numeric arguments are boxed on the first call after a modification.
+	 * @return the arguments to this message
+	 */
+	public List<Object> getArguments() {
+		return arguments.asList();
+	}
+
+	@Override
+	protected byte[] computeByteArray(OSCJavaToByteArrayConverter stream) {
+		stream.write(address);
+		stream.write(arguments.getSignature(stream));
+		arguments.writeValues(stream);
+		return stream.toByteArray();
 	}
 
 	/**
@@ -157,10 +286,6 @@ public class OSCMessage extends AbstractOSCPacket {
 	 * @return true if the supplied string constitutes a valid OSC address
 	 */
 	public static boolean isValidAddress(String address) {
-		return (address != null)
-				&& !address.isEmpty()
-				&& address.charAt(0) == '/'
-				&& !address.contains("//")
-				&& !ILLEGAL_ADDRESS_CHAR.matcher(address).find();
+		return OSCAddresses.isValid(address);
 	}
 }
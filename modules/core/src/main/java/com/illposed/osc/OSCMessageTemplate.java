@@ -0,0 +1,368 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCJavaToByteArrayConverter;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pre-encoded OSC message with a fixed address and type signature,
+ * of which only the argument values change.
+ *
+ * The address and the type tags are encoded only once,
+ * when the template is created.
+ * The byte offset of each argument within the encoded message is recorded,
+ * and setting an argument value writes it directly into the encoded bytes.
+ * Sending the template therefore requires no encoding work at all.
+ *
+ * Only fixed-width argument types are supported:
+ * <ul>
+ * <li><code>'i'</code>: 32 bit integer, see {@link #setInt(int, int)}</li>
+ * <li><code>'f'</code>: 32 bit float, see {@link #setFloat(int, float)}</li>
+ * <li><code>'h'</code>: 64 bit integer, see {@link #setLong(int, long)}</li>
+ * <li><code>'d'</code>: 64 bit float, see {@link #setDouble(int, double)}</li>
+ * <li><code>'c'</code>: ASCII character, see {@link #setChar(int, char)}</li>
+ * <li><code>'u'</code>: unsigned 32 bit integer,
+ *   see {@link #setUnsigned(int, long)}</li>
+ * <li><code>'r'</code>: RGBA color, see {@link #setColor(int, int)}</li>
+ * <li><code>'m'</code>: MIDI message, see {@link #setMidiMessage(int, int)}</li>
+ * <li><code>'T'</code>, <code>'F'</code>, <code>'N'</code>, <code>'I'</code>:
+ *   constant, data-less arguments</li>
+ * </ul>
+ * All values are initialized to zero.
+ *
+ * An example:<br>
+ * <blockquote><pre>{@code
+ * OSCMessageTemplate nSet = new OSCMessageTemplate("/n_set", "iif");
+ * nSet.setInt(0, 1000);
+ * nSet.setInt(1, 2);
+ * for (float freq = 220f; freq < 880f; freq += 1f) {
+ * 	nSet.setFloat(2, freq);
+ * 	sender.send(nSet);
+ * }
+ * }</pre></blockquote>
+ *
+ * Like {@link OSCMessage}, this class is not thread-safe.
+ * The ports send the internal buffer without copying it,
+ * and so does {@link #getBuffer()};
+ * {@link #getByteArray()} returns a copy of it.
+ */
+public class OSCMessageTemplate implements OSCPacket {
+
+	/** The supported type tags. */
+	private static final String TYPES = "ifcurmhdTFNI";
+	/** The number of bytes an argument of each of the {@link #TYPES} occupies. */
+	private static final int[] ARGUMENT_SIZES = {4, 4, 4, 4, 4, 4, 8, 8, 0, 0, 0, 0};
+	/** A Java object encoded with each of the {@link #TYPES}. */
+	private static final Object[] TYPE_PLACEHOLDERS = {
+		0,
+		0.0f,
+		' ',
+		OSCUnsigned.valueOf(0L),
+		OSCColor.valueOf(0),
+		OSCMidiMessage.valueOf(0),
+		0L,
+		0.0,
+		Boolean.TRUE,
+		Boolean.FALSE,
+		null,
+		OSCImpulse.INSTANCE
+	};
+
+	private final String address;
+	private final char[] types;
+	/**
+	 * Offset of each argument, relative to the start of the argument data.
+	 */
+	private final int[] argumentOffsets;
+	/** Used to encode the message address. */
+	private Charset charset;
+	private byte[] bytes;
+	private ByteBuffer buffer;
+	/** Where the argument data starts in {@link #bytes}. */
+	private int argumentsStart;
+	/**
+	 * Incremented with each modification of {@link #bytes},
+	 * which allows containing bundles to detect changes cheaply.
+	 */
+	private long version;
+
+	/**
+	 * Creates a template with the given address and type tags,
+	 * using the systems default character set to encode the address.
+	 * @param address the recipient of the message
+	 * @param typeTags the OSC type tags of the arguments, for example
+	 *   <code>"iif"</code>; the leading <code>','</code> is optional
+	 */
+	public OSCMessageTemplate(String address, String typeTags) {
+		this(address, typeTags, Charset.defaultCharset());
+	}
+
+	/**
+	 * Creates a template with the given address and type tags.
+	 * @param address the recipient of the message
+	 * @param typeTags the OSC type tags of the arguments, for example
+	 *   <code>"iif"</code>; the leading <code>','</code> is optional
+	 * @param charset used to encode the message address
+	 */
+	public OSCMessageTemplate(String address, String typeTags, Charset charset) {
+
+		OSCAddresses.check(address);
+		this.address = address;
+		final String pureTypeTags = ((!typeTags.isEmpty()) && (typeTags.charAt(0) == ','))
+				? typeTags.substring(1) : typeTags;
+		this.types = pureTypeTags.toCharArray();
+		this.argumentOffsets = new int[types.length];
+		int argumentOffset = 0;
+		for (int ai = 0; ai < types.length; ai++) {
+			argumentOffsets[ai] = argumentOffset;
+			argumentOffset += argumentSize(types[ai]);
+		}
+		this.charset = charset;
+		encode(new byte[argumentOffset]);
+	}
+
+	/**
+	 * Returns the number of bytes an argument of the given type occupies.
+	 * @param type OSC type tag of the argument
+	 * @return the encoded size of the argument, in bytes
+	 */
+	private static int argumentSize(final char type) {
+
+		final int typeIndex = TYPES.indexOf(type);
+		if (typeIndex < 0) {
+			throw new IllegalArgumentException("Not a fixed-width OSC type: '" + type + "'");
+		}
+		return ARGUMENT_SIZES[typeIndex];
+	}
+
+	/**
+	 * Encodes address and type tags, and appends the given argument data.
+	 * @param argumentData the already encoded arguments
+	 */
+	private void encode(final byte[] argumentData) {
+
+		final OSCJavaToByteArrayConverter stream = new OSCJavaToByteArrayConverter();
+		stream.setCharset(charset);
+		stream.write(address);
+		stream.write(',');
+		final List<Object> typePlaceholders = new ArrayList<Object>(types.length);
+		for (final char type : types) {
+			// the types were checked on construction
+			typePlaceholders.add(TYPE_PLACEHOLDERS[TYPES.indexOf(type)]);
+		}
+		stream.writeTypes(typePlaceholders);
+		final byte[] header = stream.toByteArray();
+
+		bytes = new byte[header.length + argumentData.length];
+		System.arraycopy(header, 0, bytes, 0, header.length);
+		System.arraycopy(argumentData, 0, bytes, header.length, argumentData.length);
+		buffer = ByteBuffer.wrap(bytes);
+		argumentsStart = header.length;
+	}
+
+	/**
+	 * The receiver of this message.
+	 * @return the receiver of this OSC Message
+	 */
+	public String getAddress() {
+		return address;
+	}
+
+	/**
+	 * Returns the number of arguments of this message.
+	 * @return the number of arguments, including data-less ones
+	 */
+	public int getArgumentCount() {
+		return types.length;
+	}
+
+	/**
+	 * Returns the OSC type tag of an argument.
+	 * @param index of the argument
+	 * @return the type tag of the argument, for example <code>'f'</code>
+	 */
+	public char getArgumentType(int index) {
+		return types[index];
+	}
+
+	/**
+	 * Returns the absolute byte offset of an argument value
+	 * and checks that it has the expected type.
+	 * @param index of the argument
+	 * @param expectedType the type tag the argument is expected to have
+	 * @return the position of the argument in the encoded message
+	 */
+	private int offsetOf(final int index, final char expectedType) {
+
+		if (types[index] != expectedType) {
+			throw new IllegalArgumentException("Argument " + index + " has type '"
+					+ types[index] + "', not '" + expectedType + "'");
+		}
+		return argumentsStart + argumentOffsets[index];
+	}
+
+	/**
+	 * Sets the value of an <code>'i'</code> argument.
+	 * @param index of the argument
+	 * @param value the new value
+	 */
+	public void setInt(int index, int value) {
+
+		buffer.putInt(offsetOf(index, 'i'), value);
+		version++;
+	}
+
+	/**
+	 * Sets the value of an <code>'f'</code> argument.
+	 * @param index of the argument
+	 * @param value the new value
+	 */
+	public void setFloat(int index, float value) {
+
+		buffer.putFloat(offsetOf(index, 'f'), value);
+		version++;
+	}
+
+	/**
+	 * Sets the value of an <code>'h'</code> argument.
+	 * @param index of the argument
+	 * @param value the new value
+	 */
+	public void setLong(int index, long value) {
+
+		buffer.putLong(offsetOf(index, 'h'), value);
+		version++;
+	}
+
+	/**
+	 * Sets the value of a <code>'d'</code> argument.
+	 * @param index of the argument
+	 * @param value the new value
+	 */
+	public void setDouble(int index, double value) {
+
+		buffer.putDouble(offsetOf(index, 'd'), value);
+		version++;
+	}
+
+	/**
+	 * Sets the value of a <code>'c'</code> argument.
+	 * @param index of the argument
+	 * @param value the new value, which has to be an ASCII character
+	 */
+	public void setChar(int index, char value) {
+
+		buffer.put(offsetOf(index, 'c'), (byte) value);
+		version++;
+	}
+
+	/**
+	 * Sets the value of a <code>'u'</code> argument.
+	 * @param index of the argument
+	 * @param value the new value, in the range [0, 2^32)
+	 */
+	public void setUnsigned(int index, long value) {
+
+		if ((value & ~OSCUnsigned.MAX_VALUE) != 0) {
+			throw new IllegalArgumentException(
+					"Unsigned 32 bit integers have to be in the range [0, 2^32), is: " + value);
+		}
+		buffer.putInt(offsetOf(index, 'u'), (int) value);
+		version++;
+	}
+
+	/**
+	 * Sets the value of an <code>'r'</code> argument.
+	 * @param index of the argument
+	 * @param rgba the new color, red in the most significant byte,
+	 *   see {@link OSCColor#toRGBA(int, int, int, int)}
+	 */
+	public void setColor(int index, int rgba) {
+
+		buffer.putInt(offsetOf(index, 'r'), rgba);
+		version++;
+	}
+
+	/**
+	 * Sets the value of an <code>'m'</code> argument.
+	 * @param index of the argument
+	 * @param message the new MIDI message, the port ID in the most significant byte,
+	 *   see {@link OSCMidiMessage#toInt(int, int, int, int)}
+	 */
+	public void setMidiMessage(int index, int message) {
+
+		buffer.putInt(offsetOf(index, 'm'), message);
+		version++;
+	}
+
+	/**
+	 * Returns the encoded message, ready to be sent.
+	 * The returned buffer shares its content with this template,
+	 * but has its own position and limit,
+	 * which span the whole message.
+	 * @return the encoded message
+	 */
+	public ByteBuffer getBuffer() {
+		return buffer.duplicate();
+	}
+
+	@Override
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Sets the character set used to encode the address.
+	 * This re-encodes the address, but keeps the current argument values.
+	 * @param charset used to encode the message address
+	 */
+	@Override
+	public void setCharset(Charset charset) {
+
+		this.charset = charset;
+		final byte[] argumentData = new byte[bytes.length - argumentsStart];
+		System.arraycopy(bytes, argumentsStart, argumentData, 0, argumentData.length);
+		encode(argumentData);
+		version++;
+	}
+
+	/**
+	 * Returns a copy of the encoded message,
+	 * which does not change with the setters.
+	 * @return a new array, holding the encoded message
+	 * @see #getBuffer()
+	 */
+	@Override
+	public byte[] getByteArray() {
+		return bytes.clone();
+	}
+
+	/**
+	 * Returns the encoded message without copying it,
+	 * for the ports of this package.
+	 * @return the internal buffer, which changes with each call to a setter
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	byte[] getEncodedBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Returns a number that changes whenever the encoded message changes.
+	 * @return the version of the current encoded message
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	long getVersion() {
+		return version;
+	}
+}
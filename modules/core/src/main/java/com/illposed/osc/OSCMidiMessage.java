@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+/**
+ * An OSC 1.0 optional argument type (<code>'m'</code>).
+ * A 4 byte MIDI message; from the most to the least significant byte:
+ * port ID, status byte, data 1, data 2.
+ * Messages store MIDI messages unboxed,
+ * see {@link OSCMessage#addMidiMessage(int)};
+ * instances of this class are only created when requested.
+ */
+public final class OSCMidiMessage {
+
+	private final int message;
+
+	private OSCMidiMessage(final int message) {
+		this.message = message;
+	}
+
+	/**
+	 * Returns a MIDI message given by its bytes.
+	 * @param portId in the range [0, 255]
+	 * @param status in the range [0, 255], for example <code>0x90</code>
+	 *   for "note on" on channel 1
+	 * @param data1 in the range [0, 255]
+	 * @param data2 in the range [0, 255]
+	 * @return the MIDI message
+	 */
+	public static OSCMidiMessage valueOf(int portId, int status, int data1, int data2) {
+		return new OSCMidiMessage(toInt(portId, status, data1, data2));
+	}
+
+	/**
+	 * Returns a MIDI message given in its encoded form.
+	 * @param message the bytes, the port ID in the most significant one
+	 * @return the MIDI message
+	 */
+	public static OSCMidiMessage valueOf(int message) {
+		return new OSCMidiMessage(message);
+	}
+
+	/**
+	 * Packs the bytes of a MIDI message into a single integer,
+	 * without creating an object.
+	 * @param portId in the range [0, 255]
+	 * @param status in the range [0, 255]
+	 * @param data1 in the range [0, 255]
+	 * @param data2 in the range [0, 255]
+	 * @return the bytes, the port ID in the most significant one
+	 */
+	public static int toInt(int portId, int status, int data1, int data2) {
+
+		checkByte(portId);
+		checkByte(status);
+		checkByte(data1);
+		checkByte(data2);
+		return (portId << 24) | (status << 16) | (data1 << 8) | data2;
+	}
+
+	private static void checkByte(final int value) {
+
+		if ((value & ~0xFF) != 0) {
+			throw new IllegalArgumentException(
+					"MIDI message bytes have to be in the range [0, 255], is: " + value);
+		}
+	}
+
+	public int getPortId() {
+		return message >>> 24;
+	}
+
+	public int getStatus() {
+		return (message >>> 16) & 0xFF;
+	}
+
+	public int getData1() {
+		return (message >>> 8) & 0xFF;
+	}
+
+	public int getData2() {
+		return message & 0xFF;
+	}
+
+	/**
+	 * Returns this MIDI message in its encoded form.
+	 * @return the bytes, the port ID in the most significant one
+	 */
+	public int toInt() {
+		return message;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return (other instanceof OSCMidiMessage) && (message == ((OSCMidiMessage) other).message);
+	}
+
+	@Override
+	public int hashCode() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("midi(%02X %02X %02X %02X)",
+				getPortId(), getStatus(), getData1(), getData2());
+	}
+}
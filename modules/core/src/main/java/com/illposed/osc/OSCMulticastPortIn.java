@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+
+/**
+ * OSCMulticastPortIn listens for OSC messages sent to one or more
+ * UDP multicast groups.
+ *
+ * This allows a sender to reach all receivers with a single datagram,
+ * instead of one copy per receiver.
+ * Listeners are registered just like with a plain {@link OSCPortIn}.
+ *
+ * An example:<br>
+ * <blockquote><pre>{@code
+ * receiver = new OSCMulticastPortIn(OSCPort.DEFAULT_SC_OSC_PORT);
+ * receiver.joinGroup(InetAddress.getByName("239.0.0.1"));
+ * receiver.addListener("/cue/go", listener);
+ * receiver.startListening();
+ * }</pre></blockquote>
+ */
+public class OSCMulticastPortIn extends OSCPortIn {
+
+	private final MulticastSocket multicastSocket;
+
+	/**
+	 * Create a multicast OSC port that listens using a specified socket.
+	 * @param socket MulticastSocket to listen on.
+	 */
+	public OSCMulticastPortIn(MulticastSocket socket) {
+		super(socket);
+
+		this.multicastSocket = socket;
+	}
+
+	/**
+	 * Create a multicast OSC port that listens on the specified port.
+	 * No group is joined yet, see {@link #joinGroup(InetAddress)}.
+	 * @param port UDP port to listen on.
+	 * @throws IOException if the port number is invalid,
+	 *   or there is already a socket listening on it
+	 */
+	public OSCMulticastPortIn(int port) throws IOException {
+		this(new MulticastSocket(port));
+	}
+
+	/**
+	 * Returns the multicast socket associated with this port.
+	 * @return this ports socket
+	 */
+	protected MulticastSocket getMulticastSocket() {
+		return multicastSocket;
+	}
+
+	/**
+	 * Join a multicast group on the default network interface,
+	 * see {@link #setNetworkInterface(NetworkInterface)}.
+	 * @param group the multicast address to join
+	 * @throws IOException if there is an error joining,
+	 *   or the address is not a multicast address
+	 */
+	public void joinGroup(InetAddress group) throws IOException {
+		joinGroup(group, null);
+	}
+
+	/**
+	 * Join a multicast group on a specific network interface.
+	 * @param group the multicast address to join
+	 * @param networkInterface the interface to receive multicast packets on,
+	 *   or <code>null</code>, to use the default interface
+	 * @throws IOException if there is an error joining,
+	 *   or the address is not a multicast address
+	 */
+	public void joinGroup(InetAddress group, NetworkInterface networkInterface)
+			throws IOException
+	{
+		multicastSocket.joinGroup(new InetSocketAddress(group, getPort()), networkInterface);
+	}
+
+	/**
+	 * Leave a multicast group previously joined on the default network interface.
+	 * @param group the multicast address to leave
+	 * @throws IOException if there is an error leaving,
+	 *   or the address is not a multicast address
+	 */
+	public void leaveGroup(InetAddress group) throws IOException {
+		leaveGroup(group, null);
+	}
+
+	/**
+	 * Leave a multicast group previously joined on a specific network interface.
+	 * @param group the multicast address to leave
+	 * @param networkInterface the interface the group was joined on,
+	 *   or <code>null</code>, for the default interface
+	 * @throws IOException if there is an error leaving,
+	 *   or the address is not a multicast address
+	 */
+	public void leaveGroup(InetAddress group, NetworkInterface networkInterface)
+			throws IOException
+	{
+		multicastSocket.leaveGroup(new InetSocketAddress(group, getPort()), networkInterface);
+	}
+
+	/**
+	 * Sets the network interface used for group joins
+	 * that do not specify one explicitly.
+	 * @param networkInterface the interface to use by default
+	 * @throws SocketException if there is an error in the underlying protocol
+	 */
+	public void setNetworkInterface(NetworkInterface networkInterface) throws SocketException {
+		multicastSocket.setNetworkInterface(networkInterface);
+	}
+}
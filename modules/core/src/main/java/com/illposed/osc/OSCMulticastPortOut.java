@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+
+/**
+ * OSCMulticastPortOut sends OSC packets to a UDP multicast group.
+ *
+ * Each packet is sent as a single datagram,
+ * which the network delivers to all members of the group.
+ * The sending side does not need to join the group.
+ *
+ * An example:<br>
+ * <blockquote><pre>{@code
+ * sender = new OSCMulticastPortOut(InetAddress.getByName("239.0.0.1"), 57110);
+ * sender.setTimeToLive(2);
+ * sender.send(new OSCMessage("/cue/go"));
+ * }</pre></blockquote>
+ */
+public class OSCMulticastPortOut extends OSCPortOut {
+
+	private final MulticastSocket multicastSocket;
+
+	/**
+	 * Create a multicast OSC port that sends to group:port using a specified socket.
+	 * @param group the multicast address to send to
+	 * @param port the UDP port to send to
+	 * @param socket the MulticastSocket to send from
+	 * @throws IllegalArgumentException if group is not a multicast address
+	 */
+	public OSCMulticastPortOut(InetAddress group, int port, MulticastSocket socket) {
+		super(checkMulticast(group), port, socket);
+
+		this.multicastSocket = socket;
+	}
+
+	/**
+	 * Create a multicast OSC port that sends to group:port.
+	 * @param group the multicast address to send to
+	 * @param port the UDP port to send to
+	 * @throws IOException when failing to create a (UDP) multicast socket
+	 * @throws IllegalArgumentException if group is not a multicast address,
+	 *   in which case no socket is created
+	 */
+	public OSCMulticastPortOut(InetAddress group, int port) throws IOException {
+		// the group is checked before the socket is opened, so it can not leak
+		this(checkMulticast(group), port, new MulticastSocket());
+	}
+
+	/**
+	 * Makes sure an address is a multicast address.
+	 * @param group the address to check
+	 * @return the checked address
+	 * @throws IllegalArgumentException if group is not a multicast address
+	 */
+	private static InetAddress checkMulticast(InetAddress group) {
+
+		if (!group.isMulticastAddress()) {
+			throw new IllegalArgumentException("Not a multicast address: " + group);
+		}
+		return group;
+	}
+
+	/**
+	 * Returns the multicast socket associated with this port.
+	 * @return this ports socket
+	 */
+	protected MulticastSocket getMulticastSocket() {
+		return multicastSocket;
+	}
+
+	/**
+	 * Sets the number of router hops the sent packets may pass.
+	 * The default of <code>1</code> keeps packets in the local network.
+	 * @param ttl the time-to-live, in the range <code>[0, 255]</code>
+	 * @throws IOException if there is an error setting the value
+	 */
+	public void setTimeToLive(int ttl) throws IOException {
+		multicastSocket.setTimeToLive(ttl);
+	}
+
+	/**
+	 * Returns the number of router hops the sent packets may pass.
+	 * @return the time-to-live of sent packets
+	 * @throws IOException if there is an error reading the value
+	 */
+	public int getTimeToLive() throws IOException {
+		return multicastSocket.getTimeToLive();
+	}
+
+	/**
+	 * Selects the network interface outgoing packets are sent on.
+	 * @param networkInterface the interface to send on
+	 * @throws SocketException if there is an error in the underlying protocol
+	 */
+	public void setNetworkInterface(NetworkInterface networkInterface) throws SocketException {
+		multicastSocket.setNetworkInterface(networkInterface);
+	}
+
+	/**
+	 * Returns the network interface outgoing packets are sent on.
+	 * @return the interface used for sending
+	 * @throws SocketException if there is an error in the underlying protocol
+	 */
+	public NetworkInterface getNetworkInterface() throws SocketException {
+		return multicastSocket.getNetworkInterface();
+	}
+
+	/**
+	 * Whether packets sent by this port are looped back to receivers
+	 * on the local host.
+	 * This is only a hint to the underlying system.
+	 *
+	 * The flag of {@link MulticastSocket#setLoopbackMode(boolean)} is inverted,
+	 * it means "loopback disabled"; this method takes the natural meaning.
+	 * <code>MulticastSocket.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, enabled)</code>
+	 * replaces the deprecated call on Java 9 and later,
+	 * which this library does not require.
+	 * @param enabled <code>true</code> to deliver sent packets locally too
+	 * @throws SocketException if there is an error in the underlying protocol
+	 */
+	@SuppressWarnings("deprecation")
+	public void setLoopbackEnabled(boolean enabled) throws SocketException {
+		multicastSocket.setLoopbackMode(!enabled);
+	}
+
+	/**
+	 * Whether packets sent by this port are looped back to receivers
+	 * on the local host.
+	 * Like with {@link #setLoopbackEnabled(boolean)},
+	 * the inverted flag of {@link MulticastSocket#getLoopbackMode()}
+	 * is turned into its natural meaning.
+	 * @return <code>true</code> if sent packets are delivered locally too
+	 * @throws SocketException if there is an error in the underlying protocol
+	 */
+	@SuppressWarnings("deprecation")
+	public boolean isLoopbackEnabled() throws SocketException {
+		return !multicastSocket.getLoopbackMode();
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.util.Arrays;
+
+/**
+ * An array of numbers, sent compactly as a single blob argument.
+ *
+ * Primitive arrays (<code>int[]</code>, <code>float[]</code>,
+ * <code>long[]</code> and <code>double[]</code>) added to a message
+ * are sent as OSC arrays, which costs one type tag per element.
+ * Wrapped in this class, they are instead sent as a blob (<code>'b'</code>),
+ * starting with a header that names the element type
+ * like the type tags of an OSC array would, as a zero terminated string
+ * (for example <code>"[f]"</code>),
+ * followed by the elements in big-endian order.
+ * A 512 channel DMX universe, for example, is sent like this:
+ * <blockquote><pre>{@code
+ * OSCMessage msg = new OSCMessage("/dmx/universe/1");
+ * msg.addArgument(OSCPackedArray.wrap(channels)); // an int[]
+ * }</pre></blockquote>
+ *
+ * Any OSC implementation receives such an argument as a blob.
+ * Receivers using this library get the primitive array instead,
+ * if they enabled it with
+ * {@link com.illposed.osc.utility.OSCByteArrayToJavaConverter#setDecodingPrimitiveArrays(boolean)}.
+ *
+ * The wrapped array is not copied,
+ * so it must not be modified while the message is in use.
+ */
+public final class OSCPackedArray {
+
+	/** Size of the header naming the element type, for example <code>"[i]"</code>. */
+	public static final int HEADER_SIZE = 4;
+
+	private final Object array;
+	private final char type;
+	private final int numElements;
+
+	private OSCPackedArray(final Object array, final char type, final int numElements) {
+
+		this.array = array;
+		this.type = type;
+		this.numElements = numElements;
+	}
+
+	/**
+	 * Wraps an array of 32 bit integers, to be sent as a blob.
+	 * @param array to be wrapped without copying it
+	 * @return the packed representation of the array
+	 */
+	public static OSCPackedArray wrap(int[] array) {
+		return new OSCPackedArray(array, 'i', array.length);
+	}
+
+	/**
+	 * Wraps an array of 32 bit floating point numbers, to be sent as a blob.
+	 * @param array to be wrapped without copying it
+	 * @return the packed representation of the array
+	 */
+	public static OSCPackedArray wrap(float[] array) {
+		return new OSCPackedArray(array, 'f', array.length);
+	}
+
+	/**
+	 * Wraps an array of 64 bit integers, to be sent as a blob.
+	 * @param array to be wrapped without copying it
+	 * @return the packed representation of the array
+	 */
+	public static OSCPackedArray wrap(long[] array) {
+		return new OSCPackedArray(array, 'h', array.length);
+	}
+
+	/**
+	 * Wraps an array of 64 bit floating point numbers, to be sent as a blob.
+	 * @param array to be wrapped without copying it
+	 * @return the packed representation of the array
+	 */
+	public static OSCPackedArray wrap(double[] array) {
+		return new OSCPackedArray(array, 'd', array.length);
+	}
+
+	/**
+	 * Returns the wrapped array.
+	 * @return either an <code>int[]</code>, <code>float[]</code>,
+	 *   <code>long[]</code> or <code>double[]</code>
+	 */
+	public Object getArray() {
+		return array;
+	}
+
+	/**
+	 * Returns the OSC type tag of the elements.
+	 * @return <code>'i'</code>, <code>'f'</code>, <code>'h'</code>
+	 *   or <code>'d'</code>
+	 */
+	public char getElementType() {
+		return type;
+	}
+
+	/**
+	 * Returns the number of elements.
+	 * @return the length of the wrapped array
+	 */
+	public int length() {
+		return numElements;
+	}
+
+	/**
+	 * Returns the size of the blob data, including the header.
+	 * @return the number of bytes this array is encoded to
+	 */
+	public int getEncodedLength() {
+		return HEADER_SIZE + (numElements * ((type == 'i') || (type == 'f') ? 4 : 8));
+	}
+
+	/**
+	 * Creates a copy, wrapping a copy of the array.
+	 * @return an independent copy of this packed array
+	 */
+	public OSCPackedArray copy() {
+
+		Object arrayCopy;
+		switch (type) {
+			case 'i' :
+				arrayCopy = ((int[]) array).clone();
+				break;
+			case 'f' :
+				arrayCopy = ((float[]) array).clone();
+				break;
+			case 'h' :
+				arrayCopy = ((long[]) array).clone();
+				break;
+			default:
+				arrayCopy = ((double[]) array).clone();
+				break;
+		}
+		return new OSCPackedArray(arrayCopy, type, numElements);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+
+		boolean equal = (this == other);
+		if (!equal && (other instanceof OSCPackedArray)) {
+			// deepEquals compares primitive arrays by content
+			equal = Arrays.deepEquals(
+					new Object[] {array},
+					new Object[] {((OSCPackedArray) other).array});
+		}
+		return equal;
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.deepHashCode(new Object[] {array});
+	}
+
+	@Override
+	public String toString() {
+		return "packed" + Arrays.deepToString(new Object[] {array});
+	}
+}
@@ -19,6 +19,10 @@ import java.nio.charset.Charset;
  * <li>{@link OSCMessage}: simple OSC messages
  * <li>{@link OSCBundle}: OSC messages with timestamps
  *   and/or made up of multiple messages
+ * <li>{@link OSCImmutableMessage} and {@link OSCImmutableBundle}:
+ *   thread-safe, immutable versions of the above
+ * <li>{@link OSCMessageTemplate}: pre-encoded messages
+ *   with fixed-width arguments
  * </ul>
  */
 public interface OSCPacket {
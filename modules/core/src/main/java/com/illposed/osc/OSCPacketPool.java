@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pool of reusable {@link OSCMessage} and {@link OSCBundle} instances,
+ * used to avoid creating new objects for each received packet.
+ *
+ * Each thread has its own pool, so obtaining and recycling packets
+ * requires no synchronization.
+ * Packets should be recycled on the same thread they were obtained on;
+ * if not, they simply end up in the pool of the recycling thread.
+ *
+ * The lifecycle of pooled packets is:
+ * <ol>
+ * <li>the decoder obtains a packet with {@link #obtainMessage()}
+ *   or {@link #obtainBundle()}, and fills it</li>
+ * <li>the packet is dispatched to the listeners,
+ *   which may call {@link OSCMessage#retain()} to keep it</li>
+ * <li>the port calls {@link #recycle(OSCPacket)},
+ *   which resets the packet and makes it available again,
+ *   unless it was retained</li>
+ * </ol>
+ * Listeners must therefore not keep references to received packets,
+ * nor to the lists returned by {@link OSCMessage#getArguments()}
+ * or {@link OSCBundle#getPackets()}, beyond their listener call,
+ * unless they retained the packet.
+ *
+ * @see com.illposed.osc.utility.OSCByteArrayToJavaConverter#setPacketPool(OSCPacketPool)
+ * @see OSCPortIn#setPacketPool(OSCPacketPool)
+ */
+public class OSCPacketPool {
+
+	/**
+	 * The default maximum number of messages (and bundles)
+	 * kept per thread.
+	 */
+	public static final int DEFAULT_MAX_POOLED = 64;
+
+	private final int maxPooled;
+	private final ThreadLocal<FreeLists> freeLists;
+
+	/**
+	 * Creates a pool that keeps up to {@link #DEFAULT_MAX_POOLED}
+	 * messages and bundles per thread.
+	 */
+	public OSCPacketPool() {
+		this(DEFAULT_MAX_POOLED);
+	}
+
+	/**
+	 * Creates a pool that keeps up to the given number of
+	 * messages and bundles per thread.
+	 * @param maxPooled maximum number of free messages,
+	 *   and also of free bundles, kept per thread
+	 */
+	public OSCPacketPool(int maxPooled) {
+
+		this.maxPooled = maxPooled;
+		this.freeLists = new ThreadLocal<FreeLists>() {
+			@Override
+			protected FreeLists initialValue() {
+				return new FreeLists(OSCPacketPool.this.maxPooled);
+			}
+		};
+	}
+
+	private static <P extends AbstractOSCPacket> P take(final List<P> free) {
+
+		final P packet = free.remove(free.size() - 1);
+		packet.setPooled(false);
+		return packet;
+	}
+
+	/**
+	 * Returns an empty message,
+	 * either a recycled one, or a new one if none is available.
+	 * @return an empty message, owned by the caller
+	 */
+	public OSCMessage obtainMessage() {
+
+		final List<OSCMessage> free = freeLists.get().getMessages();
+		return free.isEmpty() ? new OSCMessage() : take(free);
+	}
+
+	/**
+	 * Returns an empty bundle with a timestamp of immediately,
+	 * either a recycled one, or a new one if none is available.
+	 * @return an empty bundle, owned by the caller
+	 */
+	public OSCBundle obtainBundle() {
+
+		final List<OSCBundle> free = freeLists.get().getBundles();
+		return free.isEmpty() ? new OSCBundle() : take(free);
+	}
+
+	/**
+	 * Returns a packet to the pool, so it may be reused.
+	 * Bundles are recycled together with all the packets they contain.
+	 * Retained packets (including all packets within a retained bundle),
+	 * packets already in the pool and packets of other types are ignored.
+	 * @param packet the packet to be reused
+	 */
+	public void recycle(OSCPacket packet) {
+
+		if (isRecyclable(packet)) {
+			final FreeLists free = freeLists.get();
+			if (packet instanceof OSCBundle) {
+				final OSCBundle bundle = (OSCBundle) packet;
+				final List<OSCPacket> packets = bundle.getPackets();
+				for (int pi = 0; pi < packets.size(); pi++) {
+					recycle(packets.get(pi));
+				}
+				bundle.reset();
+				free.offer(free.getBundles(), bundle);
+			} else if (packet instanceof OSCMessage) {
+				final OSCMessage message = (OSCMessage) packet;
+				message.reset();
+				free.offer(free.getMessages(), message);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of free packets available to the current thread.
+	 * @return the number of free messages and bundles
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	int getFreeCount() {
+
+		final FreeLists free = freeLists.get();
+		return free.getMessages().size() + free.getBundles().size();
+	}
+
+	private static boolean isRecyclable(final OSCPacket packet) {
+
+		return (packet instanceof AbstractOSCPacket)
+				&& !((AbstractOSCPacket) packet).isRetained()
+				&& !((AbstractOSCPacket) packet).isPooled();
+	}
+
+
+	/**
+	 * The free packets of a single thread.
+	 */
+	private static final class FreeLists {
+
+		private final int maxPooled;
+		private final List<OSCMessage> messages;
+		private final List<OSCBundle> bundles;
+
+		FreeLists(final int maxPooled) {
+
+			this.maxPooled = maxPooled;
+			this.messages = new ArrayList<OSCMessage>();
+			this.bundles = new ArrayList<OSCBundle>();
+		}
+
+		public List<OSCMessage> getMessages() {
+			return messages;
+		}
+
+		public List<OSCBundle> getBundles() {
+			return bundles;
+		}
+
+		/**
+		 * Makes a reset packet available again, unless its free list is full.
+		 * @param free one of the lists of this object
+		 * @param packet to be added to <code>free</code>
+		 */
+		public <P extends AbstractOSCPacket> void offer(final List<P> free, final P packet) {
+
+			if (free.size() < maxPooled) {
+				packet.setPooled(true);
+				free.add(packet);
+			}
+		}
+	}
+}
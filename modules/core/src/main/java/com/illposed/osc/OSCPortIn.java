@@ -8,14 +8,17 @@
 
 package com.illposed.osc;
 
-import com.illposed.osc.utility.OSCByteArrayToJavaConverter;
-import com.illposed.osc.utility.OSCPacketDispatcher;
-import com.illposed.osc.utility.OSCPatternAddressSelector;
+import com.illposed.osc.utility.OSCDecodeObserver;
+import com.illposed.osc.utility.OSCDispatchObserver;
+import com.illposed.osc.utility.OSCStringCache;
 import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.SocketException;
 import java.nio.charset.Charset;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * OSCPortIn is the class that listens for OSC messages.
@@ -45,12 +48,26 @@ public class OSCPortIn extends OSCPort implements Runnable {
 	 * Buffers were 1500 bytes in size, but were
 	 * increased to 1536, as this is a common MTU.
 	 */
-	private static final int BUFFER_SIZE = 1536;
+	public static final int DEFAULT_MAX_PACKET_SIZE = 1536;
+	/**
+	 * The largest possible size of a UDP datagram.
+	 */
+	public static final int MAX_PACKET_SIZE = 65535;
 
 	/** state for listening */
 	private boolean listening;
-	private final OSCByteArrayToJavaConverter converter;
-	private final OSCPacketDispatcher dispatcher;
+	/**
+	 * Holds the settings shared with the other kinds of receiving ports,
+	 * and hands the packets to the listeners.
+	 */
+	private final OSCReceiver receiver;
+	private int maxPacketSize;
+	private final OSCReceiveStatistics statistics;
+	/** Records the listener times, and informs {@link #dispatchObserver}. */
+	private final OSCDispatchObserver timingObserver;
+	private final AtomicBoolean timingEnabled;
+	private final AtomicReference<OSCReceiveObserver> receiveObserver;
+	private final AtomicReference<OSCDispatchObserver> dispatchObserver;
 
 	/**
 	 * Create an OSCPort that listens using a specified socket.
@@ -59,8 +76,41 @@ public class OSCPortIn extends OSCPort implements Runnable {
 	public OSCPortIn(DatagramSocket socket) {
 		super(socket, socket.getLocalPort());
 
-		this.converter = new OSCByteArrayToJavaConverter();
-		this.dispatcher = new OSCPacketDispatcher();
+		this.receiver = new OSCReceiver();
+		this.maxPacketSize = DEFAULT_MAX_PACKET_SIZE;
+		this.statistics = new OSCReceiveStatistics();
+		this.timingEnabled = new AtomicBoolean(false);
+		this.receiveObserver = new AtomicReference<OSCReceiveObserver>();
+		this.dispatchObserver = new AtomicReference<OSCDispatchObserver>();
+		this.timingObserver = new OSCDispatchObserver() {
+			@Override
+			public Object messageAccepting(
+					OSCListener listener,
+					Date time,
+					OSCMessage message)
+			{
+				final OSCDispatchObserver observer = dispatchObserver.get();
+				return (observer == null) ? null
+						: observer.messageAccepting(listener, time, message);
+			}
+
+			@Override
+			public void messageAccepted(
+					Object token,
+					OSCListener listener,
+					Date time,
+					OSCMessage message,
+					long durationNanos)
+			{
+				statistics.listenerCalled(durationNanos);
+				// if the observer was replaced during the call,
+				// the new one gets the token of the old one
+				final OSCDispatchObserver observer = dispatchObserver.get();
+				if (observer != null) {
+					observer.messageAccepted(token, listener, time, message, durationNanos);
+				}
+			}
+		};
 	}
 
 	/**
@@ -86,7 +136,7 @@ public class OSCPortIn extends OSCPort implements Runnable {
 	public OSCPortIn(int port, Charset charset) throws SocketException {
 		this(port);
 
-		this.converter.setCharset(charset);
+		receiver.getConverter().setCharset(charset);
 	}
 
 	/**
@@ -96,29 +146,43 @@ public class OSCPortIn extends OSCPort implements Runnable {
 	 */
 	@Override
 	public void run() {
-		final byte[] buffer = new byte[BUFFER_SIZE];
-		final DatagramPacket packet = new DatagramPacket(buffer, BUFFER_SIZE);
+		// one byte extra, so we notice when a packet does not fit
+		final byte[] buffer = new byte[maxPacketSize + 1];
+		final DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
 		final DatagramSocket socket = getSocket();
+		final OSCDatagramHandler handler
+				= new OSCDatagramHandler(this, receiver, maxPacketSize);
 		while (listening) {
 			try {
-				try {
-					socket.receive(packet);
-				} catch (SocketException ex) {
-					if (listening) {
-						throw ex;
-					} else {
-						// if we closed the socket while receiving data,
-						// the exception is expected/normal, so we hide it
-						continue;
-					}
+				if (receive(socket, packet)) {
+					handler.handle(packet);
 				}
-				final OSCPacket oscPacket = converter.convert(buffer,
-						packet.getLength());
-				dispatcher.dispatchPacket(oscPacket);
 			} catch (IOException ex) {
-				ex.printStackTrace(); // XXX This may not be a good idea, as this could easily lead to a never ending series of exceptions thrown (due to the non-exited while loop), and because the user of the lib may want to handle this case himself
+				receiver.getErrorHandler().handleReceiveError(ex);
+			}
+		}
+	}
+
+	/**
+	 * Waits for the next datagram.
+	 * @return <code>false</code> if the socket was closed
+	 *   by {@link #stopListening()} in the meantime
+	 */
+	private boolean receive(final DatagramSocket socket, final DatagramPacket packet)
+			throws IOException
+	{
+		boolean received = false;
+		try {
+			socket.receive(packet);
+			received = true;
+		} catch (SocketException ex) {
+			// if we closed the socket while receiving data,
+			// the exception is expected/normal, so we hide it
+			if (listening) {
+				throw ex;
 			}
 		}
+		return received;
 	}
 
 	/**
@@ -147,17 +211,272 @@ public class OSCPortIn extends OSCPort implements Runnable {
 		return listening;
 	}
 
+	/**
+	 * Returns the size of the largest packet this port is able to receive.
+	 * @return the maximum packet size in bytes
+	 */
+	public int getMaxPacketSize() {
+		return maxPacketSize;
+	}
+
+	/**
+	 * Sets the size of the largest packet this port is able to receive.
+	 * Larger packets are counted in the {@link #getStatistics() statistics},
+	 * reported to the error handler, and dropped.
+	 * The default of {@link #DEFAULT_MAX_PACKET_SIZE} fits a typical MTU;
+	 * on networks with jumbo frames, or for large bundles
+	 * sent over the loopback interface, it should be increased.
+	 * This should be set before calling {@link #startListening()}.
+	 * @param maxPacketSize in bytes, at most {@link #MAX_PACKET_SIZE}
+	 */
+	public void setMaxPacketSize(int maxPacketSize) {
+
+		if ((maxPacketSize < 1) || (maxPacketSize > MAX_PACKET_SIZE)) {
+			throw new IllegalArgumentException("The maximum packet size has to be between 1 and "
+					+ MAX_PACKET_SIZE + " bytes, not " + maxPacketSize);
+		}
+		this.maxPacketSize = maxPacketSize;
+	}
+
+	/**
+	 * Returns the size of the buffer the operating system
+	 * keeps received packets in, until they are read by this port.
+	 * @return the <code>SO_RCVBUF</code> size of the socket in bytes
+	 * @throws SocketException if the socket option can not be read
+	 */
+	public int getReceiveBufferSize() throws SocketException {
+		return getSocket().getReceiveBufferSize();
+	}
+
+	/**
+	 * Sets the size of the buffer the operating system
+	 * keeps received packets in, until they are read by this port.
+	 * A larger buffer helps to not lose packets during bursts,
+	 * or while a listener takes long.
+	 * The operating system may adjust or limit the size;
+	 * check {@link #getReceiveBufferSize()} for the actual value.
+	 * @param size the requested <code>SO_RCVBUF</code> size in bytes
+	 * @throws SocketException if the socket option can not be set
+	 */
+	public void setReceiveBufferSize(int size) throws SocketException {
+		getSocket().setReceiveBufferSize(size);
+	}
+
+	/**
+	 * Returns the receive statistics of this port,
+	 * including a histogram of the sizes of the packets received,
+	 * and, if {@link #isTimingEnabled() enabled},
+	 * histograms of the dispatch and listener times.
+	 * @return the live statistics of this port
+	 * @see OSCManagement#register(OSCPortIn, String)
+	 */
+	public OSCReceiveStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Indicates whether dispatching packets and calling listeners is timed
+	 * for the {@link #getStatistics() statistics}.
+	 * @return <code>true</code> if the dispatch and listener times
+	 *   are recorded
+	 */
+	public boolean isTimingEnabled() {
+		return timingEnabled.get();
+	}
+
+	/**
+	 * Sets whether dispatching packets and calling listeners is timed
+	 * for the {@link #getStatistics() statistics}.
+	 * This is disabled by default, as it reads the clock twice per packet,
+	 * and twice per listener call;
+	 * {@link OSCManagement#register(OSCPortIn, String)} enables it.
+	 * This may be changed at any time, even while listening.
+	 * @param timingEnabled <code>true</code> to record the dispatch
+	 *   and listener times
+	 */
+	public void setTimingEnabled(boolean timingEnabled) {
+
+		this.timingEnabled.set(timingEnabled);
+		updateDispatchObserver();
+	}
+
+	/**
+	 * Makes the dispatcher time listener calls only if somebody needs it.
+	 */
+	private void updateDispatchObserver() {
+		receiver.getDispatcher().setDispatchObserver(
+				timingEnabled.get() ? timingObserver : dispatchObserver.get());
+	}
+
+	/**
+	 * Returns the observer informed about each datagram received.
+	 * @return the observer, or <code>null</code> if there is none
+	 */
+	public OSCReceiveObserver getReceiveObserver() {
+		return receiveObserver.get();
+	}
+
+	/**
+	 * Sets an observer to be informed about each datagram received,
+	 * before it is decoded.
+	 * This may be changed at any time, even while listening.
+	 * @param receiveObserver the new observer,
+	 *   or <code>null</code> to remove the current one
+	 */
+	public void setReceiveObserver(OSCReceiveObserver receiveObserver) {
+		this.receiveObserver.set(receiveObserver);
+	}
+
+	/**
+	 * Returns the observer informed about each packet decoded.
+	 * @return the observer, or <code>null</code> if there is none
+	 */
+	public OSCDecodeObserver getDecodeObserver() {
+		return receiver.getConverter().getDecodeObserver();
+	}
+
+	/**
+	 * Sets an observer to be informed before and after each packet decoded,
+	 * and how long decoding took.
+	 * Without an observer, decoding is not timed.
+	 * This may be changed at any time, even while listening.
+	 * @param decodeObserver the new observer,
+	 *   or <code>null</code> to remove the current one
+	 * @see com.illposed.osc.utility.OSCByteArrayToJavaConverter#setDecodeObserver(OSCDecodeObserver)
+	 */
+	public void setDecodeObserver(OSCDecodeObserver decodeObserver) {
+		receiver.getConverter().setDecodeObserver(decodeObserver);
+	}
+
+	/**
+	 * Returns the observer informed about each listener call.
+	 * @return the observer, or <code>null</code> if there is none
+	 */
+	public OSCDispatchObserver getDispatchObserver() {
+		return dispatchObserver.get();
+	}
+
+	/**
+	 * Sets an observer to be informed about each listener call,
+	 * and how long it took.
+	 * If {@link #isTimingEnabled() timing} is enabled as well,
+	 * listener calls are timed only once for both.
+	 * This may be changed at any time, even while listening;
+	 * an observer replaced during a listener call may then get a token
+	 * it did not return itself.
+	 * @param dispatchObserver the new observer,
+	 *   or <code>null</code> to remove the current one
+	 */
+	public void setDispatchObserver(OSCDispatchObserver dispatchObserver) {
+
+		this.dispatchObserver.set(dispatchObserver);
+		updateDispatchObserver();
+	}
+
+	/**
+	 * Returns the handler informed about packets that could not be received
+	 * or decoded.
+	 * @return the error handler used by this port
+	 */
+	public OSCErrorHandler getErrorHandler() {
+		return receiver.getErrorHandler();
+	}
+
+	/**
+	 * Sets the handler informed about packets that could not be received
+	 * or decoded.
+	 * By default, an {@link OSCRateLimitedErrorHandler}
+	 * prints a limited number of errors to {@link System#err}.
+	 * This should be set before calling {@link #startListening()}.
+	 * @param errorHandler to be informed about errors; must not be null
+	 */
+	public void setErrorHandler(OSCErrorHandler errorHandler) {
+		receiver.setErrorHandler(errorHandler);
+	}
+
+	/**
+	 * Indicates whether received packets are checked strictly
+	 * against the specification.
+	 * @return <code>true</code> if this port rejects packets
+	 *   that do not strictly follow the specification
+	 */
+	public boolean isValidating() {
+		return receiver.isValidating();
+	}
+
+	/**
+	 * Sets whether received packets are checked strictly
+	 * against the specification;
+	 * see {@link com.illposed.osc.utility.OSCPacketParser#setValidating(boolean)}
+	 * for details.
+	 * Rejected packets are reported to the error handler.
+	 * This should be set before calling {@link #startListening()}.
+	 * @param validating <code>true</code> to reject packets
+	 *   that do not strictly follow the specification
+	 */
+	public void setValidating(boolean validating) {
+		receiver.setValidating(validating);
+	}
+
+	/**
+	 * Returns the pool received packets are taken from.
+	 * @return the pool used by this port,
+	 *   or <code>null</code>, if new packets are created for each one received
+	 */
+	public OSCPacketPool getPacketPool() {
+		return receiver.getPacketPool();
+	}
+
+	/**
+	 * Enables or disables reusing packet objects for received packets.
+	 * When a pool is set, the messages handed to the listeners
+	 * are only valid during the listener call,
+	 * unless the listener calls {@link OSCMessage#retain()};
+	 * see {@link OSCPacketPool} for details.
+	 * This should be set before calling {@link #startListening()}.
+	 * @param packetPool to be used to obtain and recycle packet instances,
+	 *   or <code>null</code>, to create new packets for each one received
+	 */
+	public void setPacketPool(OSCPacketPool packetPool) {
+		receiver.setPacketPool(packetPool);
+	}
+
+	/**
+	 * Returns the cache received message addresses are looked up in.
+	 * @return the address cache used by this port,
+	 *   or <code>null</code>, if each address is decoded anew
+	 */
+	public OSCStringCache getAddressCache() {
+		return receiver.getAddressCache();
+	}
+
+	/**
+	 * Enables or disables caching of received message addresses,
+	 * and of the listeners matching them.
+	 * With a cache set, repeatedly received addresses are decoded only once,
+	 * and the listeners' selectors are asked only once per address.
+	 * This requires all selectors to always give the same answer
+	 * for the same address, which is the case for the built-in ones.
+	 * This should be set before calling {@link #startListening()}.
+	 * @param addressCache to be used to look up received addresses,
+	 *   or <code>null</code>, to decode and match each address anew
+	 */
+	public void setAddressCache(OSCStringCache addressCache) {
+		receiver.setAddressCache(addressCache);
+	}
+
 	/**
 	 * Registers a listener that will be notified of incoming messages,
 	 * if their address matches the given pattern.
 	 *
 	 * @param addressSelector either a fixed address like "/sc/mixer/volume",
 	 *   or a selector pattern (a mix between wildcards and regex)
-	 *   like "/??/mixer/*", see {@link OSCPatternAddressSelector} for details
+	 *   like "/??/mixer/*", see {@link com.illposed.osc.utility.OSCPatternAddressSelector}
+	 *   for details
 	 * @param listener will be notified of incoming packets, if they match
 	 */
 	public void addListener(String addressSelector, OSCListener listener) {
-		this.addListener(new OSCPatternAddressSelector(addressSelector), listener);
+		receiver.addListener(addressSelector, listener);
 	}
 
 	/**
@@ -167,6 +486,6 @@ public class OSCPortIn extends OSCPort implements Runnable {
 	 * @param listener will be notified of incoming packets, if they match
 	 */
 	public void addListener(AddressSelector addressSelector, OSCListener listener) {
-		dispatcher.addListener(addressSelector, listener);
+		receiver.addListener(addressSelector, listener);
 	}
 }
@@ -41,6 +41,7 @@ import java.net.UnknownHostException;
 public class OSCPortOut extends OSCPort {
 
 	private InetAddress address;
+	private final OSCDestinationStatistics statistics;
 
 	/**
 	 * Create an OSCPort that sends to address:port using a specified socket.
@@ -51,6 +52,7 @@ public class OSCPortOut extends OSCPort {
 	public OSCPortOut(InetAddress address, int port, DatagramSocket socket) {
 		super(socket, port);
 		this.address = address;
+		this.statistics = new OSCDestinationStatistics();
 	}
 
 	/**
@@ -83,15 +85,51 @@ public class OSCPortOut extends OSCPort {
 		this(InetAddress.getLocalHost(), DEFAULT_SC_OSC_PORT);
 	}
 
+	/**
+	 * Enables or disables sending to broadcast addresses
+	 * (<code>SO_BROADCAST</code>).
+	 * This is required if the address we send to is a broadcast address,
+	 * for example <code>255.255.255.255</code>.
+	 * @param broadcast whether to allow sending broadcast datagrams
+	 * @throws SocketException if there is an error in the underlying protocol
+	 */
+	public void setBroadcast(boolean broadcast) throws SocketException {
+		getSocket().setBroadcast(broadcast);
+	}
+
+	/**
+	 * Whether sending to broadcast addresses is enabled.
+	 * @return <code>true</code> if <code>SO_BROADCAST</code> is enabled
+	 * @throws SocketException if there is an error in the underlying protocol
+	 */
+	public boolean isBroadcast() throws SocketException {
+		return getSocket().getBroadcast();
+	}
+
+	/**
+	 * Returns the send statistics of this port.
+	 * @return the live statistics of this port
+	 * @see OSCManagement#register(OSCPortOut, String)
+	 */
+	public OSCDestinationStatistics getStatistics() {
+		return statistics;
+	}
+
 	/**
 	 * Send an OSC packet (message or bundle) to the receiver we are bound to.
 	 * @param aPacket the bundle or message to send
 	 * @throws IOException if a (UDP) socket I/O error occurs
 	 */
 	public void send(OSCPacket aPacket) throws IOException {
-		final byte[] byteArray = aPacket.getByteArray();
+		final byte[] byteArray = AbstractOSCImmutablePacket.encodedBytes(aPacket);
 		final DatagramPacket packet =
 				new DatagramPacket(byteArray, byteArray.length, address, getPort());
-		getSocket().send(packet);
+		try {
+			getSocket().send(packet);
+		} catch (IOException ex) {
+			statistics.sendFailed(ex);
+			throw ex;
+		}
+		statistics.packetSent(byteArray.length);
 	}
 }
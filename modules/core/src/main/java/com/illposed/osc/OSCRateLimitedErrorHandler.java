@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCParseException;
+import java.io.IOException;
+import java.net.SocketAddress;
+
+/**
+ * Passes on only a limited number of errors per time interval,
+ * and counts the ones it suppresses.
+ *
+ * This keeps a peer that sends malformed packets in quick succession
+ * from flooding the logs, and from keeping the receiving thread
+ * busy with reporting.
+ * Without a delegate, errors are printed to {@link System#err};
+ * this is what {@link OSCPortIn} does by default.
+ *
+ * This class is thread-safe.
+ */
+public class OSCRateLimitedErrorHandler implements OSCErrorHandler {
+
+	/** Default number of errors reported per interval. */
+	public static final int DEFAULT_MAX_REPORTS = 10;
+	/** Default length of the interval, in milliseconds. */
+	public static final long DEFAULT_INTERVAL = 10000L;
+
+	private final OSCErrorHandler delegate;
+	private final int maxReports;
+	private final long intervalNanos;
+	/** Guards all the counters below. */
+	private final Object lock;
+	private long intervalStart;
+	private int reportsInInterval;
+	private long suppressedInInterval;
+	private long errorCount;
+	private long suppressedCount;
+
+	/**
+	 * Creates a handler printing up to {@link #DEFAULT_MAX_REPORTS} errors
+	 * per {@link #DEFAULT_INTERVAL} milliseconds to {@link System#err}.
+	 */
+	public OSCRateLimitedErrorHandler() {
+		this(null, DEFAULT_MAX_REPORTS, DEFAULT_INTERVAL);
+	}
+
+	/**
+	 * Creates a handler passing on a limited number of errors.
+	 * @param delegate to pass the errors on to,
+	 *   or <code>null</code>, to print them to {@link System#err}
+	 * @param maxReports how many errors to pass on per interval
+	 * @param intervalMillis length of the interval, in milliseconds
+	 */
+	public OSCRateLimitedErrorHandler(
+			OSCErrorHandler delegate,
+			int maxReports,
+			long intervalMillis)
+	{
+		this.delegate = delegate;
+		this.maxReports = maxReports;
+		this.intervalNanos = intervalMillis * 1000000L;
+		this.lock = new Object();
+		this.intervalStart = System.nanoTime();
+		this.reportsInInterval = 0;
+		this.suppressedInInterval = 0;
+		this.errorCount = 0;
+		this.suppressedCount = 0;
+	}
+
+	/**
+	 * Returns the number of errors this handler was informed about.
+	 * @return the total number of errors, reported and suppressed
+	 */
+	public long getErrorCount() {
+
+		synchronized (lock) {
+			return errorCount;
+		}
+	}
+
+	/**
+	 * Returns the number of errors this handler did not pass on.
+	 * @return the total number of suppressed errors
+	 */
+	public long getSuppressedCount() {
+
+		synchronized (lock) {
+			return suppressedCount;
+		}
+	}
+
+	/**
+	 * Counts an error, and decides whether to pass it on.
+	 * @return <code>true</code> if the error should be reported
+	 */
+	private boolean admit() {
+
+		boolean admitted;
+		synchronized (lock) {
+			errorCount++;
+			final long now = System.nanoTime();
+			if ((now - intervalStart) >= intervalNanos) {
+				if ((suppressedInInterval > 0) && (delegate == null)) {
+					System.err.println("OSC: " + suppressedInInterval
+							+ " further errors were not reported");
+				}
+				intervalStart = now;
+				reportsInInterval = 0;
+				suppressedInInterval = 0;
+			}
+			admitted = (reportsInInterval < maxReports);
+			if (admitted) {
+				reportsInInterval++;
+			} else {
+				suppressedInInterval++;
+				suppressedCount++;
+			}
+		}
+		return admitted;
+	}
+
+	@Override
+	public void handleParseError(OSCParseException exception, SocketAddress sender) {
+
+		if (admit()) {
+			if (delegate == null) {
+				System.err.println("OSC: Failed to decode a packet received from " + sender
+						+ ": " + exception.getMessage());
+			} else {
+				delegate.handleParseError(exception, sender);
+			}
+		}
+	}
+
+	@Override
+	public void handleReceiveError(IOException exception) {
+
+		if (admit()) {
+			if (delegate == null) {
+				exception.printStackTrace();
+			} else {
+				delegate.handleReceiveError(exception);
+			}
+		}
+	}
+}
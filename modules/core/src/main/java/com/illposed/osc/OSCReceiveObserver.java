@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.net.SocketAddress;
+
+/**
+ * Gets informed by an {@link OSCPortIn} about each datagram it receives,
+ * before it is decoded.
+ * It is called from the receiving thread, so it should return quickly.
+ *
+ * @see OSCPortIn#setReceiveObserver(OSCReceiveObserver)
+ */
+public interface OSCReceiveObserver {
+
+	/**
+	 * Called after a datagram was received.
+	 * @param sender where the datagram came from
+	 * @param numBytes size of the datagram,
+	 *   or of its part that fit into the receive buffer, if truncated
+	 * @param truncated whether the datagram was larger than
+	 *   {@link OSCPortIn#getMaxPacketSize()}, and is dropped
+	 */
+	void datagramReceived(SocketAddress sender, int numBytes, boolean truncated);
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Receive statistics of an {@link OSCPortIn}.
+ * Besides counting packets, this keeps a histogram of their sizes,
+ * which helps choosing a fitting {@link OSCPortIn#setMaxPacketSize(int)}.
+ * The histogram has a bucket for each power of two,
+ * from {@link #MIN_BUCKET_SIZE} up to 64 KB;
+ * each packet is counted in the smallest bucket it fits into.
+ * If {@link OSCPortIn#setTimingEnabled(boolean) enabled},
+ * it also records how long dispatching takes,
+ * both per packet, from having received it until all its messages
+ * were handled, and per listener call, in nano-seconds.
+ * All counters are updated atomically, so they may be read
+ * from any thread, while the port is receiving.
+ * To read them through JMX, see {@link OSCManagement}.
+ * Only the ports of this package create and update statistics.
+ */
+public final class OSCReceiveStatistics implements OSCReceiveStatisticsMBean {
+
+	/**
+	 * The upper bound of the smallest bucket of the size histogram.
+	 */
+	public static final int MIN_BUCKET_SIZE = 64;
+	private static final int MIN_BUCKET_BITS = 6;
+	/**
+	 * The number of buckets of the size histogram.
+	 */
+	public static final int NUM_BUCKETS = 11;
+	/**
+	 * The percentiles reported for the dispatch and listener times,
+	 * see {@link #getPercentiles()}.
+	 */
+	private static final double[] REPORTED_PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+	private final AtomicLong packetsReceived;
+	private final AtomicLong bytesReceived;
+	private final AtomicLong packetsTruncated;
+	private final AtomicLong parseErrors;
+	private final AtomicLongArray sizeHistogram;
+	private final OSCLatencyHistogram dispatchTimes;
+	private final OSCLatencyHistogram listenerTimes;
+
+	OSCReceiveStatistics() {
+
+		this.packetsReceived = new AtomicLong();
+		this.bytesReceived = new AtomicLong();
+		this.packetsTruncated = new AtomicLong();
+		this.parseErrors = new AtomicLong();
+		this.sizeHistogram = new AtomicLongArray(NUM_BUCKETS);
+		this.dispatchTimes = new OSCLatencyHistogram();
+		this.listenerTimes = new OSCLatencyHistogram();
+	}
+
+	/**
+	 * Returns the percentiles reported for the dispatch and listener times,
+	 * see {@link #getDispatchTimePercentiles()}.
+	 * @return a copy of the percentiles, in ascending order
+	 */
+	public static double[] getPercentiles() {
+		return REPORTED_PERCENTILES.clone();
+	}
+
+	/**
+	 * Returns the histogram bucket a packet of the given size is counted in.
+	 * @param numBytes size of a packet
+	 * @return index of the smallest bucket the packet fits into
+	 */
+	// the suppression is repeated on the recording methods below
+	@SuppressWarnings({"PMD.DefaultPackage", "PMD.AvoidDuplicateLiterals"})
+	static int bucketOf(final int numBytes) {
+
+		int bucket = 0;
+		if (numBytes > MIN_BUCKET_SIZE) {
+			final int bits = Integer.SIZE - Integer.numberOfLeadingZeros(numBytes - 1);
+			bucket = Math.min(bits - MIN_BUCKET_BITS, NUM_BUCKETS - 1);
+		}
+		return bucket;
+	}
+
+	/**
+	 * Counts a packet received completely.
+	 * @param numBytes size of the packet
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	void packetReceived(final int numBytes) {
+		packetsReceived.incrementAndGet();
+		bytesReceived.addAndGet(numBytes);
+		sizeHistogram.incrementAndGet(bucketOf(numBytes));
+	}
+
+	/**
+	 * Counts a packet dropped for not fitting into the receive buffer.
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	void packetTruncated() {
+		packetsTruncated.incrementAndGet();
+		sizeHistogram.incrementAndGet(NUM_BUCKETS - 1);
+	}
+
+	/**
+	 * Counts a packet dropped for being malformed.
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	void parseFailed() {
+		parseErrors.incrementAndGet();
+	}
+
+	/**
+	 * Records the time it took to decode and dispatch a packet.
+	 * @param durationNanos from receiving the packet until all listeners returned
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	void packetDispatched(final long durationNanos) {
+		dispatchTimes.record(durationNanos);
+	}
+
+	/**
+	 * Records the time a single listener call took.
+	 * @param durationNanos the duration of the call
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	void listenerCalled(final long durationNanos) {
+		listenerTimes.record(durationNanos);
+	}
+
+	private static long[] percentiles(final OSCLatencyHistogram histogram) {
+
+		final long[] values = new long[REPORTED_PERCENTILES.length + 1];
+		for (int pi = 0; pi < REPORTED_PERCENTILES.length; pi++) {
+			values[pi] = histogram.getValueAtPercentile(REPORTED_PERCENTILES[pi]);
+		}
+		values[REPORTED_PERCENTILES.length] = histogram.getMax();
+		return values;
+	}
+
+	/**
+	 * Returns the number of packets received completely,
+	 * including the ones that could not be decoded.
+	 * @return number of packets not truncated
+	 */
+	@Override
+	public long getPacketsReceived() {
+		return packetsReceived.get();
+	}
+
+	/**
+	 * Returns the number of bytes of all the packets received completely.
+	 * @return number of bytes received
+	 */
+	@Override
+	public long getBytesReceived() {
+		return bytesReceived.get();
+	}
+
+	/**
+	 * Returns the number of packets dropped,
+	 * because they were larger than the maximum packet size of the port.
+	 * These are counted in the largest bucket of the size histogram,
+	 * as their actual size is unknown.
+	 * @return number of packets that did not fit into the receive buffer
+	 */
+	@Override
+	public long getPacketsTruncated() {
+		return packetsTruncated.get();
+	}
+
+	/**
+	 * Returns the number of packets dropped,
+	 * because they could not be decoded.
+	 * @return number of malformed packets received
+	 */
+	@Override
+	public long getParseErrors() {
+		return parseErrors.get();
+	}
+
+	/**
+	 * Returns the largest packet size counted in a histogram bucket.
+	 * @param bucket index of the bucket, <code>0 &lt;= bucket &lt; NUM_BUCKETS</code>
+	 * @return the upper bound (inclusive) of the bucket, in bytes
+	 */
+	public static int getBucketSize(int bucket) {
+		return MIN_BUCKET_SIZE << bucket;
+	}
+
+	@Override
+	public long getPacketsDropped() {
+		return getPacketsTruncated() + getParseErrors();
+	}
+
+	/**
+	 * Returns the times it took to dispatch each packet,
+	 * from having received it until all its messages were handled,
+	 * including decoding it.
+	 * @return the live histogram of dispatch times, in nano-seconds
+	 */
+	public OSCLatencyHistogram getDispatchTimes() {
+		return dispatchTimes;
+	}
+
+	/**
+	 * Returns the times each listener call took.
+	 * @return the live histogram of listener times, in nano-seconds
+	 */
+	public OSCLatencyHistogram getListenerTimes() {
+		return listenerTimes;
+	}
+
+	@Override
+	public long[] getDispatchTimePercentiles() {
+		return percentiles(dispatchTimes);
+	}
+
+	@Override
+	public double getDispatchTimeMean() {
+		return dispatchTimes.getMean();
+	}
+
+	@Override
+	public long getListenerCalls() {
+		return listenerTimes.getCount();
+	}
+
+	@Override
+	public long[] getListenerTimePercentiles() {
+		return percentiles(listenerTimes);
+	}
+
+	@Override
+	public double getListenerTimeMean() {
+		return listenerTimes.getMean();
+	}
+
+	/**
+	 * Returns the current values of all the metrics, by name,
+	 * for exporting them to a monitoring system.
+	 * Times are in nano-seconds, and the percentiles of a time
+	 * are named after it, like <code>dispatchTimeP99.9</code>.
+	 * @return a snapshot of the metrics, in a fixed order
+	 */
+	public Map<String, Long> getSnapshot() {
+
+		return Collections.unmodifiableMap(putMetrics(new LinkedHashMap<String, Long>()));
+	}
+
+	private Map<String, Long> putMetrics(final Map<String, Long> snapshot) {
+
+		snapshot.put("packetsReceived", getPacketsReceived());
+		snapshot.put("bytesReceived", getBytesReceived());
+		snapshot.put("packetsTruncated", getPacketsTruncated());
+		snapshot.put("parseErrors", getParseErrors());
+		snapshot.put("packetsDropped", getPacketsDropped());
+		putTimes(snapshot, "dispatchTime", dispatchTimes);
+		snapshot.put("listenerCalls", getListenerCalls());
+		putTimes(snapshot, "listenerTime", listenerTimes);
+		return snapshot;
+	}
+
+	private static void putTimes(
+			final Map<String, Long> snapshot,
+			final String name,
+			final OSCLatencyHistogram histogram)
+	{
+		final long[] values = percentiles(histogram);
+		for (int pi = 0; pi < REPORTED_PERCENTILES.length; pi++) {
+			final String percentile
+					= String.valueOf(REPORTED_PERCENTILES[pi]).replaceFirst("\\.0$", "");
+			snapshot.put(name + 'P' + percentile, values[pi]);
+		}
+		snapshot.put(name + "Max", values[REPORTED_PERCENTILES.length]);
+	}
+
+	/**
+	 * Returns the number of packets counted in each histogram bucket.
+	 * @return a snapshot of the size histogram,
+	 *   with {@link #NUM_BUCKETS} entries
+	 * @see #getBucketSize(int)
+	 */
+	@Override
+	public long[] getSizeHistogram() {
+
+		final long[] histogram = new long[NUM_BUCKETS];
+		for (int bi = 0; bi < NUM_BUCKETS; bi++) {
+			histogram[bi] = sizeHistogram.get(bi);
+		}
+		return histogram;
+	}
+
+	@Override
+	public String toString() {
+
+		final StringBuilder info = new StringBuilder(256);
+		info.append("packets: ").append(getPacketsReceived())
+				.append(", bytes: ").append(getBytesReceived())
+				.append(", truncated: ").append(getPacketsTruncated())
+				.append(", malformed: ").append(getParseErrors())
+				.append(", sizes:");
+		final long[] histogram = getSizeHistogram();
+		for (int bi = 0; bi < NUM_BUCKETS; bi++) {
+			if (histogram[bi] != 0) {
+				info.append(" <=").append(getBucketSize(bi)).append(": ").append(histogram[bi]);
+			}
+		}
+		return info.toString();
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+/**
+ * The JMX management interface of {@link OSCReceiveStatistics}.
+ * Times are in nano-seconds.
+ *
+ * @see OSCManagement#register(OSCPortIn, String)
+ */
+public interface OSCReceiveStatisticsMBean {
+
+	/**
+	 * Returns the number of packets received completely,
+	 * including the ones that could not be decoded.
+	 * @return number of packets not truncated
+	 */
+	long getPacketsReceived();
+
+	/**
+	 * Returns the number of bytes of all the packets received completely.
+	 * @return number of bytes received
+	 */
+	long getBytesReceived();
+
+	/**
+	 * Returns the number of packets dropped,
+	 * because they were larger than the maximum packet size of the port.
+	 * @return number of packets that did not fit into the receive buffer
+	 */
+	long getPacketsTruncated();
+
+	/**
+	 * Returns the number of packets dropped,
+	 * because they could not be decoded.
+	 * @return number of malformed packets received
+	 */
+	long getParseErrors();
+
+	/**
+	 * Returns the number of packets dropped for any reason.
+	 * @return number of packets truncated or malformed
+	 */
+	long getPacketsDropped();
+
+	/**
+	 * Returns the number of packets counted in each size histogram bucket.
+	 * @return a snapshot of the size histogram
+	 * @see OSCReceiveStatistics#getBucketSize(int)
+	 */
+	long[] getSizeHistogram();
+
+	/**
+	 * Returns the percentiles of the times it took to dispatch each packet,
+	 * from having received it until all its messages were handled.
+	 * @return the values at {@link OSCReceiveStatistics#getPercentiles()},
+	 *   followed by the maximum
+	 */
+	long[] getDispatchTimePercentiles();
+
+	/**
+	 * Returns the average time it took to dispatch a packet.
+	 * @return the mean dispatch time
+	 */
+	double getDispatchTimeMean();
+
+	/**
+	 * Returns the number of times a listener was called,
+	 * while timing was enabled.
+	 * @return number of messages handed to listeners
+	 */
+	long getListenerCalls();
+
+	/**
+	 * Returns the percentiles of the times the listener calls took.
+	 * @return the values at {@link OSCReceiveStatistics#getPercentiles()},
+	 *   followed by the maximum
+	 */
+	long[] getListenerTimePercentiles();
+
+	/**
+	 * Returns the average time a listener call took.
+	 * @return the mean listener time
+	 */
+	double getListenerTimeMean();
+}
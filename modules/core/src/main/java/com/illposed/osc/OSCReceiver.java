@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCByteArrayToJavaConverter;
+import com.illposed.osc.utility.OSCPacketDispatcher;
+import com.illposed.osc.utility.OSCPatternAddressSelector;
+import com.illposed.osc.utility.OSCStringCache;
+import java.io.IOException;
+
+/**
+ * The settings shared by the ports that receive packets,
+ * like {@link OSCTCPPortIn}, {@link OSCTCPServer} and {@link OSCLoopbackPortIn}.
+ * {@link OSCPortIn}, which already extends {@link OSCPort},
+ * delegates to an instance of this class instead.
+ *
+ * Each receiver decodes packets with its own converter,
+ * and hands them to the listeners registered with it through its own dispatcher.
+ * All the settings should be made before packets are received.
+ */
+public class OSCReceiver {
+
+	private final OSCByteArrayToJavaConverter converter;
+	private final OSCPacketDispatcher dispatcher;
+	private OSCErrorHandler errorHandler;
+
+	protected OSCReceiver() {
+
+		this.converter = new OSCByteArrayToJavaConverter();
+		this.dispatcher = new OSCPacketDispatcher();
+		this.errorHandler = new OSCRateLimitedErrorHandler();
+	}
+
+	/**
+	 * Returns the converter received packets are decoded with.
+	 * @return the converter of this receiver
+	 */
+	protected OSCByteArrayToJavaConverter getConverter() {
+		return converter;
+	}
+
+	/**
+	 * Returns the dispatcher decoded packets are handed to the listeners with.
+	 * @return the dispatcher of this receiver
+	 */
+	protected OSCPacketDispatcher getDispatcher() {
+		return dispatcher;
+	}
+
+	/**
+	 * Returns a dispatched packet to the pool, if one is used.
+	 * @param packet decoded by {@link #getConverter()},
+	 *   and no longer used after this call
+	 */
+	protected void recycle(final OSCPacket packet) {
+
+		final OSCPacketPool packetPool = converter.getPacketPool();
+		if (packetPool != null) {
+			packetPool.recycle(packet);
+		}
+	}
+
+	/**
+	 * Hands a decoded packet to the listeners, and recycles it afterwards.
+	 * @param packet decoded by {@link #getConverter()}
+	 * @param source where the packet came from, used in the error report
+	 * @see #deliver(OSCPacket, Object)
+	 */
+	protected void dispatch(final OSCPacket packet, final Object source) {
+
+		deliver(packet, source);
+		recycle(packet);
+	}
+
+	/**
+	 * Hands a packet to the listeners, without recycling it.
+	 * A listener throwing an exception is reported to the error handler,
+	 * instead of taking down the thread receiving the packets.
+	 * @param packet a message or bundle
+	 * @param source where the packet came from, used in the error report
+	 */
+	@SuppressWarnings("PMD.AvoidCatchingGenericException")
+	protected void deliver(final OSCPacket packet, final Object source) {
+
+		try {
+			dispatcher.dispatchPacket(packet);
+		} catch (RuntimeException ex) {
+			// listeners are user code; whatever they throw,
+			// the other packets and clients still have to be served
+			errorHandler.handleReceiveError(new IOException(
+					"A listener failed on a packet from " + source, ex));
+		}
+	}
+
+	/**
+	 * Returns the handler informed about packets that could not be received
+	 * or decoded.
+	 * @return the error handler used by this receiver
+	 */
+	public OSCErrorHandler getErrorHandler() {
+		return errorHandler;
+	}
+
+	/**
+	 * Sets the handler informed about packets that could not be received
+	 * or decoded.
+	 * By default, an {@link OSCRateLimitedErrorHandler}
+	 * prints a limited number of errors to {@link System#err}.
+	 * @param errorHandler to be informed about errors; must not be null
+	 */
+	public void setErrorHandler(OSCErrorHandler errorHandler) {
+
+		if (errorHandler == null) {
+			throw new IllegalArgumentException("The error handler may not be null");
+		}
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Indicates whether received packets are checked strictly
+	 * against the specification.
+	 * @return <code>true</code> if this receiver rejects packets
+	 *   that do not strictly follow the specification
+	 */
+	public boolean isValidating() {
+		return converter.isValidating();
+	}
+
+	/**
+	 * Sets whether received packets are checked strictly
+	 * against the specification, see {@link OSCPortIn#setValidating(boolean)}.
+	 * @param validating <code>true</code> to reject packets
+	 *   that do not strictly follow the specification
+	 */
+	public void setValidating(boolean validating) {
+		converter.setValidating(validating);
+	}
+
+	/**
+	 * Returns the pool received packets are taken from.
+	 * @return the pool used by this receiver,
+	 *   or <code>null</code>, if new packets are created for each one received
+	 */
+	public OSCPacketPool getPacketPool() {
+		return converter.getPacketPool();
+	}
+
+	/**
+	 * Enables or disables reusing packet objects for received packets,
+	 * see {@link OSCPortIn#setPacketPool(OSCPacketPool)}.
+	 * @param packetPool to be used to obtain and recycle packet instances,
+	 *   or <code>null</code>, to create new packets for each one received
+	 */
+	public void setPacketPool(OSCPacketPool packetPool) {
+		converter.setPacketPool(packetPool);
+	}
+
+	/**
+	 * Returns the cache received message addresses are looked up in.
+	 * @return the address cache used by this receiver,
+	 *   or <code>null</code>, if each address is decoded anew
+	 */
+	public OSCStringCache getAddressCache() {
+		return converter.getAddressCache();
+	}
+
+	/**
+	 * Enables or disables caching of received message addresses,
+	 * and of the listeners matching them,
+	 * see {@link OSCPortIn#setAddressCache(OSCStringCache)}.
+	 * @param addressCache to be used to look up received addresses,
+	 *   or <code>null</code>, to decode and match each address anew
+	 */
+	public void setAddressCache(OSCStringCache addressCache) {
+		converter.setAddressCache(addressCache);
+		dispatcher.setMatchCacheEnabled(addressCache != null);
+	}
+
+	/**
+	 * Registers a listener that will be notified of incoming messages,
+	 * if their address matches the given pattern.
+	 *
+	 * @param addressSelector either a fixed address like "/sc/mixer/volume",
+	 *   or a selector pattern (a mix between wildcards and regex)
+	 *   like "/??/mixer/*", see {@link OSCPatternAddressSelector} for details
+	 * @param listener will be notified of incoming packets, if they match
+	 */
+	public void addListener(String addressSelector, OSCListener listener) {
+		this.addListener(new OSCPatternAddressSelector(addressSelector), listener);
+	}
+
+	/**
+	 * Registers a listener that will be notified of incoming messages,
+	 * if their address matches the given selector.
+	 * @param addressSelector a custom address selector
+	 * @param listener will be notified of incoming packets, if they match
+	 */
+	public void addListener(AddressSelector addressSelector, OSCListener listener) {
+
+		synchronized (dispatcher) {
+			dispatcher.addListener(addressSelector, listener);
+		}
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCArgumentHandlers;
+import com.illposed.osc.utility.OSCJavaToByteArrayConverter;
+import com.illposed.osc.utility.OSCSignature;
+import com.illposed.osc.utility.OSCSignatureBuilder;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded cache of the signatures of {@link OSCArguments},
+ * keyed by the shape of the arguments:
+ * the type tag of each unboxed argument,
+ * and the class of each argument stored as an object.
+ *
+ * Applications usually send messages of only few distinct shapes.
+ * With this cache, the type tags of a shape are determined only once;
+ * afterwards, a message of the same shape finds its signature
+ * by hashing and comparing the shape,
+ * without looking up a handler for each argument,
+ * and without creating any objects.
+ *
+ * Shapes containing an argument whose type tag depends on its value,
+ * like a {@link Boolean}, a collection or a primitive array,
+ * are not cached.
+ * Registering or unregistering an argument handler
+ * makes all cached signatures stale.
+ * The cache is direct-mapped: a shape replaces the one
+ * it collides with, so it never grows,
+ * and it does not keep the argument classes from being unloaded.
+ *
+ * This class is thread-safe.
+ */
+final class OSCShapeCache {
+
+	/** Marks the type of arguments stored as objects, as in {@link OSCArguments}. */
+	private static final byte OBJECT = 0;
+
+	/** The cached shapes; a power of two in size. */
+	private final AtomicReferenceArray<Shape> table;
+
+	/**
+	 * Creates a cache with room for the given number of shapes.
+	 * @param numSlots the number of slots, rounded up to a power of two
+	 */
+	OSCShapeCache(final int numSlots) {
+		this.table = new AtomicReferenceArray<Shape>(
+				Integer.highestOneBit(Math.max(numSlots, 1) * 2 - 1));
+	}
+
+	/**
+	 * Returns the signature of some arguments.
+	 * @param types the OSC type tag of each unboxed argument,
+	 *   or {@link #OBJECT} for arguments stored as objects
+	 * @param objects the arguments stored as objects, at the same indices,
+	 *   or <code>null</code> if there are none
+	 * @param size the number of arguments
+	 * @param stream supplies the type tags of object arguments
+	 * @return the shared signature of the arguments
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	OSCSignature signatureOf(
+			final byte[] types,
+			final Object[] objects,
+			final int size,
+			final OSCJavaToByteArrayConverter stream)
+	{
+		final int handlersVersion = OSCArgumentHandlers.getDefault().getVersion();
+		final int hash = hash(types, objects, size);
+		final int slot = hash & (table.length() - 1);
+		final Shape cached = table.get(slot);
+		OSCSignature signature;
+		if ((cached != null) && (cached.handlersVersion == handlersVersion)
+				&& cached.matches(types, objects, size, hash))
+		{
+			signature = cached.signature;
+		} else {
+			signature = build(types, objects, size, stream);
+			if (isCacheable(types, objects, size, stream)) {
+				table.set(slot, new Shape(types, objects, size, hash, handlersVersion, signature));
+			}
+		}
+		return signature;
+	}
+
+	private static int hash(final byte[] types, final Object[] objects, final int size) {
+
+		int hash = 1;
+		for (int ai = 0; ai < size; ai++) {
+			hash = (31 * hash) + (((types[ai] == OBJECT) && (objects[ai] != null))
+					? System.identityHashCode(objects[ai].getClass())
+					: types[ai]);
+		}
+		// spread the bits, as the slot index uses only the lowest ones
+		return hash ^ (hash >>> 16);
+	}
+
+	private static OSCSignature build(
+			final byte[] types,
+			final Object[] objects,
+			final int size,
+			final OSCJavaToByteArrayConverter stream)
+	{
+		final OSCSignatureBuilder builder = new OSCSignatureBuilder(size);
+		for (int ai = 0; ai < size; ai++) {
+			if (types[ai] == OBJECT) {
+				stream.appendArgumentType(builder, objects[ai]);
+			} else {
+				builder.add((char) types[ai]);
+			}
+		}
+		return builder.build();
+	}
+
+	private static boolean isCacheable(
+			final byte[] types,
+			final Object[] objects,
+			final int size,
+			final OSCJavaToByteArrayConverter stream)
+	{
+		boolean cacheable = true;
+		for (int ai = 0; cacheable && (ai < size); ai++) {
+			cacheable = (types[ai] != OBJECT) || stream.isTypeTagOfClass(objects[ai]);
+		}
+		return cacheable;
+	}
+
+	/**
+	 * The shape of some arguments, together with their signature.
+	 */
+	private static final class Shape {
+
+		private final byte[] types;
+		/** The class of each argument stored as an object, if not null. */
+		private final WeakReference<?>[] classes;
+		private final int hash;
+		/** The version of the argument handlers the signature was built with. */
+		private final int handlersVersion;
+		private final OSCSignature signature;
+
+		Shape(
+				final byte[] types,
+				final Object[] objects,
+				final int size,
+				final int hash,
+				final int handlersVersion,
+				final OSCSignature signature)
+		{
+			this.types = Arrays.copyOf(types, size);
+			this.classes = new WeakReference<?>[size];
+			for (int ai = 0; ai < size; ai++) {
+				if ((types[ai] == OBJECT) && (objects[ai] != null)) {
+					classes[ai] = weakClassOf(objects[ai]);
+				}
+			}
+			this.hash = hash;
+			this.handlersVersion = handlersVersion;
+			this.signature = signature;
+		}
+
+		private static WeakReference<?> weakClassOf(final Object argument) {
+			return new WeakReference<Class<?>>(argument.getClass());
+		}
+
+		private boolean matches(final byte[] otherTypes, final Object[] objects, final int size, final int otherHash) {
+
+			boolean matches = (hash == otherHash) && (types.length == size);
+			for (int ai = 0; matches && (ai < size); ai++) {
+				matches = (types[ai] == otherTypes[ai]);
+				if (matches && (types[ai] == OBJECT)) {
+					final Object argument = objects[ai];
+					matches = (argument == null)
+							? (classes[ai] == null)
+							: ((classes[ai] != null) && (classes[ai].get() == argument.getClass()));
+				}
+			}
+			return matches;
+		}
+	}
+}
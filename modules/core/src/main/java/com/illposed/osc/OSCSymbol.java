@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+/**
+ * An OSC 1.0 optional argument type (<code>'S'</code>).
+ * A symbol is encoded like a string,
+ * but marked as a name or identifier,
+ * for example of a SuperCollider synth definition.
+ * Use like this:
+ * <blockquote><pre>{@code
+ * OSCMessage msg = new OSCMessage("/my/address");
+ * msg.addArgument(new OSCSymbol("sine"));
+ * }</pre></blockquote>
+ */
+public final class OSCSymbol {
+
+	private final String name;
+
+	/**
+	 * Creates a symbol.
+	 * @param name the text of the symbol
+	 */
+	public OSCSymbol(String name) {
+
+		if (name == null) {
+			throw new IllegalArgumentException("The name of a symbol may not be null");
+		}
+		this.name = name;
+	}
+
+	/**
+	 * Returns the text of this symbol.
+	 * @return the name this symbol was created with
+	 */
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return (other instanceof OSCSymbol) && name.equals(((OSCSymbol) other).name);
+	}
+
+	@Override
+	public int hashCode() {
+		return name.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
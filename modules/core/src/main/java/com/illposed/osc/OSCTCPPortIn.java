@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.AbstractOSCStreamFramer;
+import com.illposed.osc.utility.OSCLengthPrefixFramer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+
+/**
+ * OSCTCPPortIn listens for OSC packets sent over TCP connections.
+ *
+ * Unlike with UDP, packets of any size arrive completely and in order,
+ * and none are lost without notice.
+ * As TCP is a stream, the packets need to be framed;
+ * by default, each is preceded by its size (OSC 1.0),
+ * see {@link OSCLengthPrefixFramer};
+ * for SLIP framing (OSC 1.1), use a
+ * {@link com.illposed.osc.utility.OSCSlipFramer}.
+ *
+ * Each connection is served by its own thread,
+ * but listeners are never called concurrently,
+ * just as with {@link OSCPortIn}.
+ * Packets are decoded right out of the receive buffer,
+ * without copying them first.
+ * All the settings should be made before calling {@link #startListening()}.
+ *
+ * An example:<br>
+ * <blockquote><pre>{@code
+ * receiver = new OSCTCPPortIn(OSCPort.DEFAULT_SC_OSC_PORT, new OSCSlipFramer());
+ * receiver.addListener("/message/receiving", listener);
+ * receiver.startListening();
+ * }</pre></blockquote>
+ */
+public class OSCTCPPortIn extends AbstractOSCStreamPortIn {
+
+	/**
+	 * Create a port that accepts connections on the specified server channel.
+	 * @param serverChannel the bound, blocking channel to accept connections on
+	 * @param framer how packets are framed on the connections;
+	 *   each connection uses its own {@link AbstractOSCStreamFramer#newFramer()}
+	 */
+	public OSCTCPPortIn(ServerSocketChannel serverChannel, AbstractOSCStreamFramer framer) {
+		super(serverChannel, framer);
+	}
+
+	/**
+	 * Create a port that accepts connections on the specified port,
+	 * and reads packets framed in the given way.
+	 * @param port TCP port to listen on
+	 * @param framer how packets are framed on the connections
+	 * @throws IOException if the port number is invalid,
+	 *   or there is already a socket listening on it
+	 */
+	public OSCTCPPortIn(int port, AbstractOSCStreamFramer framer) throws IOException {
+		this(bind(port), framer);
+	}
+
+	/**
+	 * Create a port that accepts connections on the specified port,
+	 * and reads packets preceded by their size (OSC 1.0).
+	 * @param port TCP port to listen on
+	 * @throws IOException if the port number is invalid,
+	 *   or there is already a socket listening on it
+	 */
+	public OSCTCPPortIn(int port) throws IOException {
+		this(port, new OSCLengthPrefixFramer());
+	}
+
+	/**
+	 * Create a port that accepts connections on the specified port,
+	 * and decodes strings with a specific character set.
+	 * @param port TCP port to listen on
+	 * @param framer how packets are framed on the connections
+	 * @param charset how to decode strings read from incoming packages.
+	 *   This includes message addresses and string parameters.
+	 * @throws IOException if the port number is invalid,
+	 *   or there is already a socket listening on it
+	 */
+	public OSCTCPPortIn(int port, AbstractOSCStreamFramer framer, Charset charset) throws IOException {
+		this(port, framer);
+
+		getConverter().setCharset(charset);
+	}
+
+	/**
+	 * Opens a server channel listening on the specified port,
+	 * without leaking it if binding fails.
+	 * @param port TCP port to listen on
+	 * @return the bound server channel
+	 * @throws IOException if the port number is invalid,
+	 *   or there is already a socket listening on it
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	static ServerSocketChannel bind(final int port) throws IOException {
+
+		final ServerSocketChannel serverChannel = ServerSocketChannel.open();
+		try {
+			serverChannel.socket().bind(new InetSocketAddress(port));
+		} catch (IOException ex) {
+			serverChannel.close();
+			throw ex;
+		}
+		return serverChannel;
+	}
+
+	/**
+	 * Returns the port number connections are accepted on.
+	 * @return this ports number
+	 */
+	public int getPort() {
+		return getServerChannel().socket().getLocalPort();
+	}
+
+	@Override
+	protected SocketAddress getRemoteAddress(final SocketChannel channel) {
+		return channel.socket().getRemoteSocketAddress();
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.AbstractOSCStreamFramer;
+import com.illposed.osc.utility.OSCLengthPrefixFramer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * OSCTCPPortOut sends OSC packets over a TCP connection.
+ *
+ * Packets of any size are delivered completely and in order,
+ * or sending fails with an exception.
+ * By default, each packet is preceded by its size (OSC 1.0),
+ * see {@link OSCLengthPrefixFramer};
+ * the receiver has to use the same framing.
+ *
+ * An example:<br>
+ * <blockquote><pre>{@code
+ * OSCTCPPortOut sender = new OSCTCPPortOut(InetAddress.getLocalHost(), 57110);
+ * sender.send(new OSCMessage("/cue/go"));
+ * sender.close();
+ * }</pre></blockquote>
+ *
+ * This class is thread-safe.
+ */
+public class OSCTCPPortOut extends AbstractOSCStreamPortOut {
+
+	private final Socket socket;
+
+	/**
+	 * Create a port that sends over an already connected socket.
+	 * @param socket the connected socket to send over
+	 * @param framer how packets are framed on the connection
+	 * @throws IOException if the output stream of the socket is not available
+	 */
+	public OSCTCPPortOut(Socket socket, AbstractOSCStreamFramer framer) throws IOException {
+		super(socket.getOutputStream(), framer);
+
+		this.socket = socket;
+	}
+
+	/**
+	 * Connect to address:port, and send packets framed in the given way.
+	 * Nagle's algorithm is disabled (<code>TCP_NODELAY</code>),
+	 * as each packet is written in one go anyway.
+	 * @param address the address to connect to
+	 * @param port the TCP port to connect to
+	 * @param framer how packets are framed on the connection
+	 * @throws IOException if the connection can not be established
+	 */
+	public OSCTCPPortOut(InetAddress address, int port, AbstractOSCStreamFramer framer)
+			throws IOException
+	{
+		this(createSocket(address, port), framer);
+	}
+
+	/**
+	 * Connect to address:port, and send packets preceded by their size (OSC 1.0).
+	 * @param address the address to connect to
+	 * @param port the TCP port to connect to
+	 * @throws IOException if the connection can not be established
+	 */
+	public OSCTCPPortOut(InetAddress address, int port) throws IOException {
+		this(address, port, new OSCLengthPrefixFramer());
+	}
+
+	private static Socket createSocket(final InetAddress address, final int port)
+			throws IOException
+	{
+		final Socket socket = new Socket(address, port);
+		try {
+			socket.setTcpNoDelay(true);
+		} catch (IOException ex) {
+			socket.close();
+			throw ex;
+		}
+		return socket;
+	}
+
+	/**
+	 * Returns the socket associated with this port.
+	 * @return this ports socket
+	 */
+	protected Socket getSocket() {
+		return socket;
+	}
+
+	/**
+	 * Close the connection and free-up resources.
+	 * @throws IOException if closing the socket fails
+	 */
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+}
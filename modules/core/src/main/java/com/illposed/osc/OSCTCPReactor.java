@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.AbstractOSCStreamFramer;
+import com.illposed.osc.utility.OSCFrameHandler;
+import com.illposed.osc.utility.OSCParseException;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves the connections of an {@link OSCTCPServer} assigned to it,
+ * with a single thread.
+ */
+final class OSCTCPReactor implements Runnable, OSCFrameHandler {
+
+	/** The connection of the packet being dispatched on each thread. */
+	private static final ThreadLocal<OSCConnection> DISPATCHING = new ThreadLocal<OSCConnection>();
+
+	private final OSCTCPServer server;
+	/** Supplies the framers of the individual connections. */
+	private final AbstractOSCStreamFramer framer;
+	/** The number of open connections of the server. */
+	private final AtomicInteger openConnections;
+	private final Selector selector;
+	/** Connections assigned, but not yet registered with the selector. */
+	private final Queue<Session> pending;
+	/** The connection currently read from. */
+	private Session session;
+	/** Whether the thread of this reactor still serves its connections. */
+	private final AtomicBoolean alive;
+
+	OSCTCPReactor(
+			final OSCTCPServer server,
+			final AbstractOSCStreamFramer framer,
+			final AtomicInteger openConnections)
+			throws IOException
+	{
+		this.server = server;
+		this.framer = framer;
+		this.openConnections = openConnections;
+		this.selector = Selector.open();
+		this.pending = new ConcurrentLinkedQueue<Session>();
+		this.session = null;
+		this.alive = new AtomicBoolean(true);
+	}
+
+	/**
+	 * Returns the connection the packet being dispatched
+	 * on the current thread came from.
+	 * @return the connection, or <code>null</code>,
+	 *   if not called from within a listener
+	 */
+	public static OSCConnection getCurrentConnection() {
+		return DISPATCHING.get();
+	}
+
+	/**
+	 * Indicates whether the thread of this reactor still serves its connections.
+	 * @return <code>false</code> once the reactor exited
+	 */
+	public boolean isAlive() {
+		return alive.get();
+	}
+
+	/**
+	 * Hands a newly accepted connection to this reactor.
+	 * May be called from any thread.
+	 * @param channel the non-blocking channel of the connection
+	 * @param identifier unique within the server
+	 */
+	public void assign(final SocketChannel channel, final long identifier) {
+
+		final AtomicLong packetCount = new AtomicLong();
+		openConnections.incrementAndGet();
+		final OSCConnection connection
+				= new OSCConnection(identifier, channel, openConnections, packetCount);
+		pending.add(new Session(connection, channel, framer.newFramer(), packetCount));
+		selector.wakeup();
+		if (!alive.get()) {
+			// the reactor exited meanwhile, and will not pick it up anymore
+			closePending();
+		}
+	}
+
+	@Override
+	public void run() {
+
+		try {
+			while (server.isRunning()) {
+				selector.select();
+				registerPending();
+				readSelected();
+			}
+		} catch (ClosedSelectorException ex) {
+			// only this reactor closes its selector, after leaving the loop
+			server.getErrorHandler().handleReceiveError(
+					new IOException("The selector was closed while in use", ex));
+		} catch (IOException ex) {
+			if (server.isRunning()) {
+				server.getErrorHandler().handleReceiveError(ex);
+			}
+		} finally {
+			alive.set(false);
+			closeAll();
+		}
+	}
+
+	private void registerPending() {
+
+		Session newSession = pending.poll();
+		while (newSession != null) {
+			try {
+				newSession.channel.register(selector, SelectionKey.OP_READ, newSession);
+			} catch (ClosedChannelException ex) {
+				disconnected(newSession);
+			}
+			newSession = pending.poll();
+		}
+	}
+
+	private void readSelected() {
+
+		final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+		while (keys.hasNext()) {
+			final SelectionKey key = keys.next();
+			keys.remove();
+			read((Session) key.attachment());
+		}
+	}
+
+	private void read(final Session readSession) {
+
+		session = readSession;
+		try {
+			final int numRead = readSession.framer.read(readSession.channel, this);
+			if (numRead < 0) {
+				disconnected(readSession);
+			}
+		} catch (IOException ex) {
+			// the stream is broken or corrupt; give up on this client only,
+			// unless it was closed on purpose, e.g. by a listener
+			if (readSession.connection.isOpen()) {
+				server.getErrorHandler().handleReceiveError(ex);
+			}
+			disconnected(readSession);
+		} finally {
+			session = null;
+		}
+	}
+
+	@Override
+	public boolean handleFrame(byte[] bytes, int offset, int length) {
+
+		final OSCConnection connection = session.connection;
+		// a listener may have closed the connection while handling an earlier frame
+		if (connection.isOpen()) {
+			// only ever written by the one thread serving this connection
+			session.packetCount.lazySet(session.packetCount.get() + 1);
+			try {
+				final OSCPacket oscPacket = server.getConverter().convert(bytes, offset, length);
+				DISPATCHING.set(connection);
+				server.dispatch(oscPacket, connection);
+			} catch (OSCParseException ex) {
+				server.getErrorHandler().handleParseError(ex, connection.getRemoteAddress());
+			} finally {
+				DISPATCHING.remove();
+			}
+		}
+		// stop framing the rest of what was read, once closed
+		return connection.isOpen();
+	}
+
+	private void disconnected(final Session closedSession) {
+
+		try {
+			closedSession.connection.close();
+		} catch (IOException ex) {
+			server.getErrorHandler().handleReceiveError(ex);
+		}
+	}
+
+	private void closeAll() {
+
+		for (final SelectionKey key : selector.keys()) {
+			disconnected((Session) key.attachment());
+		}
+		try {
+			selector.close();
+		} catch (IOException ex) {
+			server.getErrorHandler().handleReceiveError(ex);
+		}
+		closePending();
+	}
+
+	private void closePending() {
+
+		Session newSession = pending.poll();
+		while (newSession != null) {
+			disconnected(newSession);
+			newSession = pending.poll();
+		}
+	}
+
+	/**
+	 * Makes the thread of this reactor notice that the server was stopped.
+	 */
+	public void stop() {
+		selector.wakeup();
+	}
+
+	/**
+	 * The state of a connection only this reactor needs.
+	 */
+	private static final class Session {
+
+		private final OSCConnection connection;
+		private final SocketChannel channel;
+		private final AbstractOSCStreamFramer framer;
+		private final AtomicLong packetCount;
+
+		Session(
+				final OSCConnection connection,
+				final SocketChannel channel,
+				final AbstractOSCStreamFramer framer,
+				final AtomicLong packetCount)
+		{
+			this.connection = connection;
+			this.channel = channel;
+			this.framer = framer;
+			this.packetCount = packetCount;
+		}
+	}
+}
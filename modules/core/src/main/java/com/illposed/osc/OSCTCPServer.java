@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.AbstractOSCStreamFramer;
+import com.illposed.osc.utility.OSCLengthPrefixFramer;
+import java.io.IOException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OSCTCPServer accepts any number of TCP connections on a single port,
+ * and dispatches the OSC packets received over all of them
+ * to the same set of listeners.
+ *
+ * Connections are served by a small, fixed number of selector threads,
+ * each one multiplexing its share of the connections with non-blocking I/O,
+ * so thousands of mostly idle clients need no more than a handful of threads.
+ * Packets are framed like with {@link OSCTCPPortIn},
+ * and decoded in place from the buffer of their connection.
+ * Listeners may ask for the connection a message came from,
+ * with {@link OSCConnection#current()}.
+ *
+ * Unlike with {@link OSCPortIn}, listeners are called concurrently,
+ * from all the selector threads,
+ * so they have to be thread-safe.
+ * Messages of a single connection are always dispatched in order,
+ * from the same thread.
+ * Listeners, and all the other settings,
+ * have to be set up before calling {@link #start()}.
+ * The error handler is called from all the selector threads at once.
+ *
+ * An example:<br>
+ * <blockquote><pre>{@code
+ * server = new OSCTCPServer(8000, new OSCSlipFramer(), 4);
+ * server.addListener("/touch/*", listener);
+ * server.start();
+ * }</pre></blockquote>
+ */
+public class OSCTCPServer extends OSCReceiver {
+
+	/**
+	 * The default number of selector threads.
+	 */
+	public static final int DEFAULT_SELECTOR_THREADS
+			= Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	private final ServerSocketChannel serverChannel;
+	private final AbstractOSCStreamFramer framer;
+	private final int numSelectorThreads;
+	private final List<OSCTCPReactor> reactors;
+	private final AtomicLong connectionIds;
+	private final AtomicInteger connectionCount;
+	private final AtomicBoolean running;
+
+	/**
+	 * Create a server accepting connections on the specified port.
+	 * @param port TCP port to listen on
+	 * @param framer how packets are framed on the connections;
+	 *   each connection uses its own {@link AbstractOSCStreamFramer#newFramer()}
+	 * @param numSelectorThreads how many threads serve the connections
+	 * @throws IOException if the port number is invalid,
+	 *   or there is already a socket listening on it
+	 */
+	public OSCTCPServer(int port, AbstractOSCStreamFramer framer, int numSelectorThreads)
+			throws IOException
+	{
+		if (numSelectorThreads <= 0) {
+			throw new IllegalArgumentException("At least one selector thread is required, not "
+					+ numSelectorThreads);
+		}
+		this.serverChannel = OSCTCPPortIn.bind(port);
+		this.framer = framer;
+		this.numSelectorThreads = numSelectorThreads;
+		this.reactors = new ArrayList<OSCTCPReactor>(numSelectorThreads);
+		this.connectionIds = new AtomicLong();
+		this.connectionCount = new AtomicInteger();
+		this.running = new AtomicBoolean(false);
+	}
+
+	/**
+	 * Create a server accepting connections on the specified port,
+	 * reading packets preceded by their size (OSC 1.0),
+	 * with {@link #DEFAULT_SELECTOR_THREADS} threads.
+	 * @param port TCP port to listen on
+	 * @throws IOException if the port number is invalid,
+	 *   or there is already a socket listening on it
+	 */
+	public OSCTCPServer(int port) throws IOException {
+		this(port, new OSCLengthPrefixFramer(), DEFAULT_SELECTOR_THREADS);
+	}
+
+	/**
+	 * Returns the port number connections are accepted on.
+	 * @return this servers port number
+	 */
+	public int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	/**
+	 * Returns the number of currently connected clients.
+	 * @return the number of open connections
+	 */
+	public int getConnectionCount() {
+		return connectionCount.get();
+	}
+
+	/**
+	 * Indicates whether this server accepts connections.
+	 * @return <code>true</code> after {@link #start()},
+	 *   until {@link #stop()}
+	 */
+	public boolean isRunning() {
+		return running.get();
+	}
+
+	/**
+	 * Starts accepting connections, and serving them.
+	 * @throws IOException if the selectors can not be opened
+	 */
+	public void start() throws IOException {
+
+		synchronized (reactors) {
+			if (!running.get()) {
+				if (!serverChannel.isOpen()) {
+					throw new IllegalStateException("The server was stopped, and can not be restarted");
+				}
+				for (int ri = 0; ri < numSelectorThreads; ri++) {
+					addReactor();
+				}
+				running.set(true);
+				for (int ri = 0; ri < reactors.size(); ri++) {
+					startDaemon(reactors.get(ri), "OSCTCPServer-selector-" + ri);
+				}
+				startDaemon(new Runnable() {
+					@Override
+					public void run() {
+						accept();
+					}
+				}, "OSCTCPServer-acceptor");
+			}
+		}
+	}
+
+	private void addReactor() throws IOException {
+		reactors.add(new OSCTCPReactor(this, framer, connectionCount));
+	}
+
+	private static void startDaemon(final Runnable runnable, final String name) {
+
+		final Thread thread = new Thread(runnable, name);
+		// The JVM exits when the only threads running are all daemon threads.
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Accepts connections until the server is stopped,
+	 * assigning them to the reactors that are still alive in turn.
+	 */
+	private void accept() {
+
+		int nextReactor = 0;
+		while (running.get()) {
+			final SocketChannel channel = acceptChannel();
+			if (channel != null) {
+				nextReactor = assign(channel, nextReactor);
+			}
+		}
+	}
+
+	/**
+	 * Waits for the next client to connect.
+	 * @return the non-blocking channel of the new connection,
+	 *   or <code>null</code>, if none could be accepted
+	 */
+	private SocketChannel acceptChannel() {
+
+		SocketChannel channel = null;
+		try {
+			channel = serverChannel.accept();
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+		} catch (IOException ex) {
+			// if we closed the channel while accepting,
+			// the exception is expected/normal, so we hide it
+			if (serverChannel.isOpen()) {
+				getErrorHandler().handleReceiveError(ex);
+			}
+			discard(channel);
+			channel = null;
+		}
+		return channel;
+	}
+
+	/**
+	 * Assigns a new connection to the next reactor that is still alive.
+	 * @param channel of the new connection
+	 * @param firstReactor the index of the reactor to try first
+	 * @return the index of the reactor to try first with the next connection
+	 */
+	private int assign(final SocketChannel channel, final int firstReactor) {
+
+		int nextReactor = firstReactor;
+		OSCTCPReactor reactor = null;
+		for (int ri = 0; (reactor == null) && (ri < reactors.size()); ri++) {
+			final OSCTCPReactor candidate = reactors.get(nextReactor);
+			nextReactor = (nextReactor + 1) % reactors.size();
+			if (candidate.isAlive()) {
+				reactor = candidate;
+			}
+		}
+		if (reactor == null) {
+			getErrorHandler().handleReceiveError(new IOException(
+					"No selector thread left to serve " + channel));
+			discard(channel);
+		} else {
+			reactor.assign(channel, connectionIds.incrementAndGet());
+		}
+		return nextReactor;
+	}
+
+	private void discard(final SocketChannel channel) {
+
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException ex) {
+				getErrorHandler().handleReceiveError(ex);
+			}
+		}
+	}
+
+	/**
+	 * Stops accepting connections, and closes all the open ones.
+	 * A stopped server can not be started again.
+	 * @throws IOException if closing the server socket fails
+	 */
+	public void stop() throws IOException {
+
+		synchronized (reactors) {
+			running.set(false);
+			serverChannel.close();
+			for (final OSCTCPReactor reactor : reactors) {
+				reactor.stop();
+			}
+		}
+	}
+
+	/**
+	 * Registers a listener that will be notified of incoming messages,
+	 * if their address matches the given selector.
+	 * The listener has to be thread-safe.
+	 * @param addressSelector a custom address selector
+	 * @param listener will be notified of incoming packets, if they match
+	 */
+	@Override
+	public void addListener(AddressSelector addressSelector, OSCListener listener) {
+
+		if (running.get()) {
+			throw new IllegalStateException("Listeners have to be added before starting");
+		}
+		super.addListener(addressSelector, listener);
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+/**
+ * An OSC 1.1 argument type (<code>'u'</code>).
+ * A 32 bit unsigned integer, in the range [0, 2^32).
+ * Messages store these unboxed, see {@link OSCMessage#addUnsigned(long)};
+ * instances of this class are only created when requested.
+ */
+public final class OSCUnsigned extends Number {
+
+	/** The largest value an unsigned 32 bit integer can hold. */
+	public static final long MAX_VALUE = 0xFFFFFFFFL;
+
+	private static final long serialVersionUID = 1L;
+
+	private final long value;
+
+	private OSCUnsigned(final long value) {
+		this.value = value;
+	}
+
+	/**
+	 * Returns an unsigned integer.
+	 * @param value in the range [0, {@link #MAX_VALUE}]
+	 * @return the unsigned integer
+	 * @throws IllegalArgumentException if the value is out of range
+	 */
+	public static OSCUnsigned valueOf(long value) {
+
+		if ((value & ~MAX_VALUE) != 0) {
+			throw new IllegalArgumentException(
+					"Unsigned 32 bit integers have to be in the range [0, 2^32), is: " + value);
+		}
+		return new OSCUnsigned(value);
+	}
+
+	/**
+	 * Returns an unsigned integer given by its raw bits.
+	 * @param bits the 32 bits of the value, interpreted as unsigned
+	 * @return the unsigned integer
+	 */
+	public static OSCUnsigned fromBits(int bits) {
+		return new OSCUnsigned(bits & MAX_VALUE);
+	}
+
+	/**
+	 * Returns the raw 32 bits of this value.
+	 * Note that values above {@link Integer#MAX_VALUE} are negative here.
+	 * @return the value, cast to an <code>int</code>
+	 */
+	@Override
+	public int intValue() {
+		return (int) value;
+	}
+
+	@Override
+	public long longValue() {
+		return value;
+	}
+
+	@Override
+	public float floatValue() {
+		return value;
+	}
+
+	@Override
+	public double doubleValue() {
+		return value;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return (other instanceof OSCUnsigned) && (value == ((OSCUnsigned) other).value);
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) value;
+	}
+
+	@Override
+	public String toString() {
+		return Long.toString(value);
+	}
+}
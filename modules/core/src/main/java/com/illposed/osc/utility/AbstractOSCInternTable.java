@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded table interning values by the raw bytes they are decoded from,
+ * as used by {@link OSCStringCache} and {@link OSCSignatureCache}.
+ *
+ * It is an open-addressing hash table with linear probing,
+ * kept at most half full.
+ * Once it holds its maximum number of values,
+ * each newly added value evicts one cached before, in turn;
+ * so a peer sending ever changing data can neither exhaust our memory,
+ * nor keep the values in actual use out of the table for good.
+ *
+ * Looking up a cached value creates no objects.
+ * This class is thread-safe.
+ * @param <V> the type of the interned values
+ */
+abstract class AbstractOSCInternTable<V> {
+
+	private final int maxSize;
+	/** Open-addressing hash table, with linear probing. */
+	private final AtomicReferenceArray<V> table;
+	/** Guards all modifications of the table. */
+	private final Object lock;
+	/** The number of cached values; guarded by <code>lock</code>. */
+	private int count;
+	/** Where to look for the next value to evict; guarded by <code>lock</code>. */
+	private int evictSlot;
+
+	/**
+	 * Creates a table holding up to the given number of values.
+	 * @param maxSize the maximum number of values to cache
+	 */
+	AbstractOSCInternTable(final int maxSize) {
+
+		this.maxSize = maxSize;
+		// keep the table at most half full, and its size a power of two
+		this.table = new AtomicReferenceArray<V>(
+				Integer.highestOneBit(Math.max(maxSize, 1) * 2 - 1) << 1);
+		this.lock = new Object();
+		this.count = 0;
+		this.evictSlot = 0;
+	}
+
+	/**
+	 * Calculates the hash code of raw bytes, as used by this table.
+	 * @param bytes containing the data
+	 * @param offset where the data starts in <code>bytes</code>
+	 * @param length number of bytes of the data
+	 * @return the hash code to look up and add the data with
+	 */
+	public static int hash(final byte[] bytes, final int offset, final int length) {
+
+		int hash = 1;
+		for (int bi = offset; bi < (offset + length); bi++) {
+			hash = (31 * hash) + bytes[bi];
+		}
+		// spread the bits, as the table index uses only the lowest ones
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Indicates whether a cached value was decoded from the given bytes.
+	 * @param value a cached value
+	 * @param bytes containing the data
+	 * @param offset where the data starts in <code>bytes</code>
+	 * @param length number of bytes of the data
+	 * @param hash of the data, see {@link #hash(byte[], int, int)}
+	 * @return <code>true</code> if the value represents the data
+	 */
+	protected abstract boolean matches(V value, byte[] bytes, int offset, int length, int hash);
+
+	/**
+	 * Returns the hash code of the data a cached value was decoded from.
+	 * @param value a cached value
+	 * @return the hash the value was added with,
+	 *   see {@link #hash(byte[], int, int)}
+	 */
+	protected abstract int hashOf(V value);
+
+	/**
+	 * Returns the maximum number of values this table holds.
+	 * @return the maximum number of cached values
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns the number of values currently cached.
+	 * @return the number of cached values
+	 */
+	public int size() {
+
+		synchronized (lock) {
+			return count;
+		}
+	}
+
+	/**
+	 * Looks up the value decoded from the given bytes.
+	 * @param bytes containing the data
+	 * @param offset where the data starts in <code>bytes</code>
+	 * @param length number of bytes of the data
+	 * @param hash of the data, see {@link #hash(byte[], int, int)}
+	 * @return the cached value, or <code>null</code>, if there is none
+	 */
+	public V get(final byte[] bytes, final int offset, final int length, final int hash) {
+
+		final int mask = table.length() - 1;
+		V value = null;
+		boolean empty = false;
+		// check the value read, as an eviction may move it meanwhile;
+		// missing it then only costs decoding it again
+		for (int probe = 0; (value == null) && !empty && (probe <= mask); probe++) {
+			final V cached = table.get((hash + probe) & mask);
+			if (cached == null) {
+				empty = true;
+			} else if (matches(cached, bytes, offset, length, hash)) {
+				value = cached;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Caches a value decoded from the given bytes.
+	 * It is created outside the lock;
+	 * a concurrent add of the same data may make it superfluous,
+	 * which does no harm.
+	 * @param bytes containing the data
+	 * @param offset where the data starts in <code>bytes</code>
+	 * @param length number of bytes of the data
+	 * @param hash of the data, see {@link #hash(byte[], int, int)}
+	 * @param created the value decoded from the data
+	 * @return the value cached for the data by an other thread in the meantime,
+	 *   or else <code>created</code>
+	 */
+	public V add(
+			final byte[] bytes,
+			final int offset,
+			final int length,
+			final int hash,
+			final V created)
+	{
+		V value = created;
+		synchronized (lock) {
+			// look again, as an other thread may have added it in the meantime
+			final V cached = table.get(find(bytes, offset, length, hash));
+			if (cached == null) {
+				if (maxSize > 0) {
+					if (count >= maxSize) {
+						evict();
+					}
+					// evicting may have moved entries, so look up the free slot again
+					table.set(find(bytes, offset, length, hash), created);
+					count++;
+				}
+			} else {
+				value = cached;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Removes all cached values.
+	 */
+	public void clear() {
+
+		synchronized (lock) {
+			for (int slot = 0; slot < table.length(); slot++) {
+				table.set(slot, null);
+			}
+			count = 0;
+			evictSlot = 0;
+		}
+	}
+
+	/**
+	 * Looks up the slot of the value decoded from the given bytes,
+	 * while holding the lock.
+	 * As the table is at most half full, there always is an empty slot.
+	 * @return the slot holding the value, or else the empty slot
+	 *   it would be added to
+	 */
+	private int find(final byte[] bytes, final int offset, final int length, final int hash) {
+
+		final int mask = table.length() - 1;
+		int slot = hash & mask;
+		V cached = table.get(slot);
+		while ((cached != null) && !matches(cached, bytes, offset, length, hash)) {
+			slot = (slot + 1) & mask;
+			cached = table.get(slot);
+		}
+		return slot;
+	}
+
+	/**
+	 * Removes the next cached value in turn, while holding the lock.
+	 * The values following it in its probe sequence are moved back,
+	 * so they remain reachable without leaving tombstones behind.
+	 */
+	private void evict() {
+
+		final int mask = table.length() - 1;
+		while (table.get(evictSlot) == null) {
+			evictSlot = (evictSlot + 1) & mask;
+		}
+		int free = evictSlot;
+		table.set(free, null);
+		count--;
+		int slot = (free + 1) & mask;
+		V moved = table.get(slot);
+		while (moved != null) {
+			final int home = hashOf(moved) & mask;
+			// move the value back, unless its home lies cyclically in (free, slot]
+			final boolean reachable = (free <= slot)
+					? ((free < home) && (home <= slot))
+					: ((free < home) || (home <= slot));
+			if (!reachable) {
+				table.set(free, moved);
+				table.set(slot, null);
+				free = slot;
+			}
+			slot = (slot + 1) & mask;
+			moved = table.get(slot);
+		}
+		evictSlot = (evictSlot + 1) & mask;
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Marks the boundaries of OSC packets sent over a stream,
+ * like a TCP connection, which has none on its own.
+ *
+ * Reading is incremental: each call to one of the <code>read</code> methods
+ * reads whatever the stream has available into an internal buffer,
+ * hands all the packets completed by that to an {@link OSCFrameHandler},
+ * and keeps the rest for the next call.
+ * The handler may ask to stop, in which case the packets
+ * following the one it just handled are not framed.
+ * A single read may thus complete any number of packets,
+ * or none at all.
+ * Packets are handed out in place, as a region of the internal buffer,
+ * so they are never copied.
+ *
+ * A framer keeps the state of a single stream,
+ * so each stream needs its own one, see {@link #newFramer()}.
+ * Reading is not thread-safe, and neither is writing.
+ */
+public abstract class AbstractOSCStreamFramer {
+
+	/** The largest packet accepted by default, in bytes. */
+	public static final int DEFAULT_MAX_FRAME_SIZE = 1 << 20;
+	private static final int INITIAL_BUFFER_SIZE = 4096;
+
+	private final int maxFrameSize;
+	private byte[] buffer;
+	/** Wraps {@link #buffer}, to read from channels. */
+	private ByteBuffer channelBuffer;
+	/** Where the first byte not yet consumed is. */
+	private int start;
+	/** Where the data read ends; exclusive. */
+	private int end;
+	/** Notes whether the handler asks to stop. */
+	private final OSCFrameStopTracker tracker;
+
+	/**
+	 * Creates a framer.
+	 * @param maxFrameSize the largest packet to accept, in bytes;
+	 *   larger ones are considered a corruption of the stream
+	 */
+	protected AbstractOSCStreamFramer(int maxFrameSize) {
+
+		if (maxFrameSize <= 0) {
+			throw new IllegalArgumentException("The maximum frame size has to be positive, is: "
+					+ maxFrameSize);
+		}
+		this.maxFrameSize = maxFrameSize;
+		this.buffer = new byte[Math.min(INITIAL_BUFFER_SIZE, maxFrameSize + 8)];
+		this.channelBuffer = ByteBuffer.wrap(buffer);
+		this.start = 0;
+		this.end = 0;
+		this.tracker = new OSCFrameStopTracker();
+	}
+
+	/**
+	 * Creates a framer of the same kind and configuration,
+	 * but with its own state, for an other stream.
+	 * @return a new framer
+	 */
+	public abstract AbstractOSCStreamFramer newFramer();
+
+	/**
+	 * Returns the largest packet this framer accepts.
+	 * @return the maximum packet size, in bytes
+	 */
+	public int getMaxFrameSize() {
+		return maxFrameSize;
+	}
+
+	/**
+	 * Returns the number of bytes read, but not yet handed out as a packet.
+	 * @return the size of the incomplete packet at the end of the stream so far
+	 */
+	public int getPendingBytes() {
+		return end - start;
+	}
+
+	/**
+	 * Reads once from a stream, and hands out all the packets completed by that.
+	 * This blocks until at least one byte is available.
+	 * @param input the stream to read from
+	 * @param handler receives the completed packets
+	 * @return the number of bytes read, or <code>-1</code> at the end of the stream
+	 * @throws IOException if reading fails, or the stream is corrupt
+	 */
+	public int read(InputStream input, OSCFrameHandler handler) throws IOException {
+
+		makeRoom();
+		final int numRead = input.read(buffer, end, buffer.length - end);
+		if (numRead > 0) {
+			end += numRead;
+			consume(handler);
+		}
+		return numRead;
+	}
+
+	/**
+	 * Reads once from a channel, and hands out all the packets completed by that.
+	 * Whether this blocks depends on the channel.
+	 * @param channel the channel to read from
+	 * @param handler receives the completed packets
+	 * @return the number of bytes read, or <code>-1</code> at the end of the stream
+	 * @throws IOException if reading fails, or the stream is corrupt
+	 */
+	public int read(ReadableByteChannel channel, OSCFrameHandler handler) throws IOException {
+
+		makeRoom();
+		channelBuffer.limit(buffer.length);
+		channelBuffer.position(end);
+		final int numRead = channel.read(channelBuffer);
+		if (numRead > 0) {
+			end += numRead;
+			consume(handler);
+		}
+		return numRead;
+	}
+
+	/**
+	 * Appends bytes to the stream, and hands out all the packets completed by that.
+	 * Unlike the <code>read</code> methods, this copies the bytes.
+	 * If the handler asks to stop, the bytes not yet appended are dropped.
+	 * @param bytes contains the next part of the stream
+	 * @param offset where the part starts in <code>bytes</code>
+	 * @param length the size of the part
+	 * @param handler receives the completed packets
+	 * @throws IOException if the stream is corrupt
+	 */
+	public void feed(byte[] bytes, int offset, int length, OSCFrameHandler handler)
+			throws IOException
+	{
+		int remaining = length;
+		boolean more = true;
+		while (more && (remaining > 0)) {
+			makeRoom();
+			final int chunk = Math.min(remaining, buffer.length - end);
+			System.arraycopy(bytes, offset + length - remaining, buffer, end, chunk);
+			end += chunk;
+			remaining -= chunk;
+			more = consume(handler);
+		}
+	}
+
+	/**
+	 * Forgets about the data read so far,
+	 * for example to reuse this framer for a new stream.
+	 */
+	public void reset() {
+
+		start = 0;
+		end = 0;
+		resetFrame();
+	}
+
+	/**
+	 * Hands out the packets completed so far.
+	 * @return <code>false</code> if the handler asked to stop
+	 */
+	private boolean consume(final OSCFrameHandler handler) throws IOException {
+
+		tracker.track(handler);
+		try {
+			start = decodeFrames(buffer, start, end, tracker);
+		} finally {
+			tracker.track(null);
+		}
+		if (start == end) {
+			start = 0;
+			end = 0;
+		}
+		return tracker.isGoingOn();
+	}
+
+	/**
+	 * Makes sure there is space to read into,
+	 * by moving the pending bytes to the start of the buffer,
+	 * or by growing it.
+	 */
+	private void makeRoom() throws IOException {
+
+		if (end < buffer.length) {
+			return;
+		}
+		final int pending = end - start;
+		if (start > 0) {
+			System.arraycopy(buffer, start, buffer, 0, pending);
+		} else {
+			// a single frame fills the whole buffer
+			final int maxBufferSize = maxFrameSize + getMaxOverhead();
+			if (buffer.length >= maxBufferSize) {
+				throw new IOException("Frame exceeds the maximum size of "
+						+ maxFrameSize + " bytes");
+			}
+			final byte[] newBuffer = new byte[(int) Math.min((long) buffer.length * 2, maxBufferSize)];
+			System.arraycopy(buffer, 0, newBuffer, 0, pending);
+			buffer = newBuffer;
+			channelBuffer = ByteBuffer.wrap(buffer);
+		}
+		start = 0;
+		end = pending;
+	}
+
+	/**
+	 * Returns the number of bytes a frame may occupy in the stream
+	 * in addition to the packet itself.
+	 * @return the maximum framing overhead of a single packet
+	 */
+	protected abstract int getMaxOverhead();
+
+	/**
+	 * Hands out all the complete packets found in a region of the buffer,
+	 * until the handler asks to stop.
+	 * The region may be modified in place.
+	 * The bytes after the returned position are presented again
+	 * on the next call, possibly moved to a different position,
+	 * but always followed by newly read ones.
+	 * @param bytes the buffer
+	 * @param fromIndex where the unconsumed bytes start
+	 * @param toIndex where the read bytes end; exclusive
+	 * @param handler receives the completed packets
+	 * @return the position after the last byte consumed
+	 * @throws IOException if the stream is corrupt
+	 */
+	protected abstract int decodeFrames(byte[] bytes, int fromIndex, int toIndex, OSCFrameHandler handler)
+			throws IOException;
+
+	/**
+	 * Forgets about the state of a partially decoded frame.
+	 */
+	protected abstract void resetFrame();
+
+	/**
+	 * Writes a packet as a single frame.
+	 * The frame is written with a single call to
+	 * {@link OutputStream#write(byte[], int, int)}.
+	 * @param output the stream to write to
+	 * @param bytes contains the packet
+	 * @param offset where the packet starts in <code>bytes</code>
+	 * @param length the size of the packet
+	 * @throws IOException if writing fails
+	 */
+	public abstract void writeFrame(OutputStream output, byte[] bytes, int offset, int length)
+			throws IOException;
+}
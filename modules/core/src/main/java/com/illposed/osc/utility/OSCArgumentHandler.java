@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+/**
+ * Converts Java objects of a certain class into OSC message arguments.
+ * A handler supplies both the OSC type tag and the encoded value,
+ * so the converter needs only a single lookup per argument class.
+ *
+ * Applications may support their own argument types
+ * by registering a handler with
+ * {@link OSCArgumentHandlers#register(OSCArgumentHandler)}.
+ * An example, encoding a colour class as an OSC RGBA value:<br>
+ * <blockquote><pre>{@code
+ * OSCArgumentHandlers.getDefault().register(new OSCArgumentHandler<Color>() {
+ * 	public Class<Color> getJavaClass() {
+ * 		return Color.class;
+ * 	}
+ * 	public char getClassTypeTag() {
+ * 		return 'r';
+ * 	}
+ * 	public char getTypeTag(Color value) {
+ * 		return 'r';
+ * 	}
+ * 	public void write(OSCJavaToByteArrayConverter stream, Color value) {
+ * 		stream.write((value.getRGB() << 8) | value.getAlpha());
+ * 	}
+ * });
+ * }</pre></blockquote>
+ *
+ * Handlers have to be thread-safe, and should be stateless.
+ * @param <T> the Java class of the arguments handled
+ */
+public interface OSCArgumentHandler<T> {
+
+	/**
+	 * Returned by {@link #getClassTypeTag()}
+	 * if the type tag of an argument depends on its value.
+	 */
+	char VALUE_DEPENDENT = '\0';
+
+	/**
+	 * Returns the class of the arguments this handler converts.
+	 * The handler is also used for sub-classes of this class,
+	 * or for implementations, if it is an interface,
+	 * unless there is a handler registered for a more specific type.
+	 * @return the class of the handled Java objects
+	 */
+	Class<T> getJavaClass();
+
+	/**
+	 * Returns the OSC type tag shared by all arguments of the handled class.
+	 * If this is not {@link #VALUE_DEPENDENT},
+	 * {@link #getTypeTag(Object)} has to return the same type tag
+	 * for every argument, so it may be cached per class.
+	 * @return the OSC type tag of all the handled arguments,
+	 *   or {@link #VALUE_DEPENDENT} if it depends on the value
+	 */
+	char getClassTypeTag();
+
+	/**
+	 * Returns the OSC type tag of an argument.
+	 * @param value the argument, never <code>null</code>
+	 * @return the OSC type tag of the argument, for example <code>'i'</code>
+	 */
+	char getTypeTag(T value);
+
+	/**
+	 * Writes the data of an argument,
+	 * leaving the stream aligned to 4 bytes.
+	 * @param stream where to write the data to
+	 * @param value the argument to be written
+	 */
+	void write(OSCJavaToByteArrayConverter stream, T value);
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A registry of {@link OSCArgumentHandler}s,
+ * used by {@link OSCJavaToByteArrayConverter}
+ * to find the OSC type tag and the encoder for an argument.
+ *
+ * All converters, and thus all packets and ports,
+ * use the registry returned by {@link #getDefault()},
+ * so the handlers registered there are global to the JVM.
+ * Other instances only serve to look up handlers.
+ *
+ * The handler for a concrete argument class is resolved once,
+ * by looking for a handler registered for the class itself,
+ * then for its super-classes, and then for its interfaces.
+ * The result is cached, so all following lookups for the same class
+ * require only a single hash-map access.
+ * The cache does not keep the argument classes from being unloaded.
+ *
+ * This class is thread-safe.
+ * Registering a handler clears the cache of resolved handlers,
+ * so it is best done during application start-up.
+ * Only resolving a class not seen before takes a lock,
+ * which keeps it from caching a handler that was replaced meanwhile.
+ */
+public class OSCArgumentHandlers {
+
+	/**
+	 * Marks classes for which no handler was found.
+	 */
+	private static final OSCArgumentHandler<Object> NO_HANDLER
+			= new OSCTypeTagHandler<Object>(Object.class, '\0');
+
+	private static final OSCArgumentHandlers DEFAULT = new OSCArgumentHandlers();
+
+	/** Handlers, keyed by the class they were registered for. */
+	private final ConcurrentMap<Class<?>, OSCArgumentHandler<?>> registered;
+	/** Handlers, keyed by the concrete argument classes they were resolved for. */
+	private final OSCWeakClassCache<OSCArgumentHandler<?>> resolved;
+	/** Guards changing the registered handlers, and caching resolved ones. */
+	private final Object lock;
+	/** Changes whenever a handler is (un-)registered. */
+	private final AtomicInteger version;
+
+	/**
+	 * Creates a registry that contains handlers for the standard argument types,
+	 * which are:
+	 * <ul>
+	 * <li>{@link Integer}: <code>'i'</code></li>
+	 * <li>{@link Long}: <code>'h'</code></li>
+	 * <li>{@link Float}: <code>'f'</code></li>
+	 * <li>{@link Double}: <code>'d'</code></li>
+	 * <li>{@link String}: <code>'s'</code></li>
+	 * <li><code>byte[]</code>: <code>'b'</code></li>
+	 * <li>{@link Character}: <code>'c'</code></li>
+	 * <li>{@link java.util.Date}: <code>'t'</code></li>
+	 * <li>{@link Boolean}: <code>'T'</code> or <code>'F'</code></li>
+	 * <li>{@link com.illposed.osc.OSCImpulse}: <code>'I'</code></li>
+	 * <li>{@link com.illposed.osc.OSCPackedArray}: <code>'b'</code></li>
+	 * <li>{@link com.illposed.osc.OSCSymbol}: <code>'S'</code></li>
+	 * <li>{@link com.illposed.osc.OSCColor}: <code>'r'</code></li>
+	 * <li>{@link com.illposed.osc.OSCMidiMessage}: <code>'m'</code></li>
+	 * <li>{@link com.illposed.osc.OSCUnsigned}: <code>'u'</code></li>
+	 * </ul>
+	 * Arrays of <code>int</code>, <code>float</code>, <code>long</code>
+	 * and <code>double</code> need no handler;
+	 * they are written as OSC arrays by the converter itself.
+	 *
+	 * Converters only use the registry returned by {@link #getDefault()};
+	 * separate registries serve to test the registry on its own.
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	OSCArgumentHandlers() {
+
+		this.registered = new ConcurrentHashMap<Class<?>, OSCArgumentHandler<?>>();
+		this.resolved = new OSCWeakClassCache<OSCArgumentHandler<?>>();
+		this.lock = new Object();
+		this.version = new AtomicInteger();
+		OSCStandardArgumentHandlers.registerAll(this);
+	}
+
+	/**
+	 * Returns the registry used by all converters.
+	 * Handlers registered here are available everywhere,
+	 * for example when encoding {@link com.illposed.osc.OSCMessage}s.
+	 * @return the shared, default registry
+	 */
+	public static OSCArgumentHandlers getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Registers a handler for the class it reports,
+	 * replacing a previously registered handler for the same class.
+	 * @param handler to be used for arguments of its Java class
+	 * @param <T> the Java class of the arguments handled
+	 */
+	public <T> void register(OSCArgumentHandler<T> handler) {
+
+		synchronized (lock) {
+			registered.put(handler.getJavaClass(), handler);
+			resolved.clear();
+			version.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Removes the handler registered for a class.
+	 * @param javaClass the class the handler was registered for
+	 */
+	public void unregister(Class<?> javaClass) {
+
+		synchronized (lock) {
+			registered.remove(javaClass);
+			resolved.clear();
+			version.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns a number that changes whenever a handler is registered
+	 * or unregistered, so results derived from the handlers can be cached.
+	 * @return the version of the registered handlers
+	 */
+	public int getVersion() {
+		return version.get();
+	}
+
+	/**
+	 * Returns the handler to be used for arguments of a certain class.
+	 * @param argumentClass the concrete class of an argument
+	 * @param <T> the Java class of the arguments handled
+	 * @return the handler, or <code>null</code> if there is none
+	 *   for the class or any of its super-types
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> OSCArgumentHandler<? super T> lookup(Class<T> argumentClass) {
+
+		OSCArgumentHandler<?> handler = resolved.get(argumentClass);
+		if (handler == null) {
+			handler = resolveAndCache(argumentClass);
+		}
+		return NO_HANDLER.equals(handler) ? null : (OSCArgumentHandler<? super T>) handler;
+	}
+
+	private OSCArgumentHandler<?> resolveAndCache(final Class<?> argumentClass) {
+
+		// (un-)registering in between would leave a stale handler in the cache
+		synchronized (lock) {
+			OSCArgumentHandler<?> handler = resolved.get(argumentClass);
+			if (handler == null) {
+				handler = resolve(argumentClass);
+				resolved.put(argumentClass, handler);
+			}
+			return handler;
+		}
+	}
+
+	private OSCArgumentHandler<?> resolve(final Class<?> argumentClass) {
+
+		OSCArgumentHandler<?> handler = null;
+		for (Class<?> cls = argumentClass; (cls != null) && (handler == null); cls = cls.getSuperclass()) {
+			handler = registered.get(cls);
+		}
+
+		// breadth-first search through the interfaces
+		final LinkedList<Class<?>> interfaces = new LinkedList<Class<?>>();
+		for (Class<?> cls = argumentClass; (cls != null) && (handler == null); cls = cls.getSuperclass()) {
+			for (final Class<?> iface : cls.getInterfaces()) {
+				interfaces.add(iface);
+			}
+		}
+		while ((handler == null) && !interfaces.isEmpty()) {
+			final Class<?> iface = interfaces.removeFirst();
+			handler = registered.get(iface);
+			for (final Class<?> superIface : iface.getInterfaces()) {
+				interfaces.add(superIface);
+			}
+		}
+
+		return (handler == null) ? NO_HANDLER : handler;
+	}
+
+	/**
+	 * Returns all registered handlers.
+	 * @return a snapshot of the registered handlers,
+	 *   keyed by the class they were registered for
+	 */
+	public Map<Class<?>, OSCArgumentHandler<?>> getRegistered() {
+		return new ConcurrentHashMap<Class<?>, OSCArgumentHandler<?>>(registered);
+	}
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+/**
+ * Parses the arguments of a message for an {@link OSCPacketParser},
+ * reporting each of them to an {@link OSCPacketVisitor}.
+ */
+final class OSCArgumentParser {
+
+	private static final String TRUNCATED_ARGUMENT = "Truncated argument";
+
+	private OSCArgumentParser() {
+		// utility class
+	}
+
+	/**
+	 * Parses the arguments of a message.
+	 * @param start where the outermost packet starts; used for alignment
+	 *   and to report offsets
+	 * @param dataStart where the argument data starts
+	 * @param messageEnd where the message ends; exclusive
+	 * @param types the signature of the message
+	 * @param validating whether to reject unknown argument types
+	 *   and unbalanced array brackets
+	 * @return the position after the arguments
+	 */
+	public static int parseArguments(
+			final OSCPacketSource source,
+			final int start,
+			final int dataStart,
+			final int messageEnd,
+			final OSCSignature types,
+			final boolean validating,
+			final OSCPacketVisitor visitor)
+	{
+		int position;
+		if (types.isFixedLayout()) {
+			position = parseFixedLayout(source, start, dataStart, messageEnd, types, visitor);
+		} else {
+			position = parseVariableLayout(
+					source, start, dataStart, messageEnd, types, validating, visitor);
+		}
+		return position;
+	}
+
+	/**
+	 * Parses the arguments of a message in which all arguments
+	 * are of fixed width, reading directly at their pre-computed offsets,
+	 * after checking only once whether the message is long enough.
+	 * @param types the signature of the message, with a fixed layout
+	 * @return the position after the arguments
+	 */
+	private static int parseFixedLayout(
+			final OSCPacketSource source,
+			final int start,
+			final int dataStart,
+			final int messageEnd,
+			final OSCSignature types,
+			final OSCPacketVisitor visitor)
+	{
+		if ((dataStart > messageEnd) || (types.getFixedLength() > (messageEnd - dataStart))) {
+			// not using require(), so the reason is only built when needed
+			throw new OSCParseException("Message is too short for its arguments: " + types,
+					Math.min(dataStart, messageEnd) - start);
+		}
+		for (int ti = 0; ti < types.length(); ti++) {
+			final char type = types.charAt(ti);
+			final int position = dataStart + types.getOffset(ti);
+			switch (type) {
+				case 'i' :
+					visitor.intArg(source.int32At(position));
+					break;
+				case 'h' :
+					visitor.longArg(source.int64At(position));
+					break;
+				case 'f' :
+					visitor.floatArg(Float.intBitsToFloat(source.int32At(position)));
+					break;
+				case 'd' :
+					visitor.doubleArg(Double.longBitsToDouble(source.int64At(position)));
+					break;
+				default:
+					// a fixed layout contains no unknown types, so there is nothing to validate
+					parseArgument(source, start, position, messageEnd, type, false, visitor);
+					break;
+			}
+		}
+		return dataStart + types.getFixedLength();
+	}
+
+	/**
+	 * Parses the arguments of a message one after the other.
+	 * @return the position after the arguments
+	 */
+	private static int parseVariableLayout(
+			final OSCPacketSource source,
+			final int start,
+			final int dataStart,
+			final int messageEnd,
+			final OSCSignature types,
+			final boolean validating,
+			final OSCPacketVisitor visitor)
+	{
+		int position = dataStart;
+		int arrayDepth = 0;
+		for (int ti = 0; ti < types.length(); ti++) {
+			final char type = types.charAt(ti);
+			if (validating) {
+				switch (type) {
+					case '[' :
+						arrayDepth++;
+						break;
+					case ']' :
+						arrayDepth--;
+						break;
+					default:
+						break;
+				}
+				if (arrayDepth < 0) {
+					throw new OSCParseException("Unbalanced ']' in type tags: " + types,
+							position - start);
+				}
+			}
+			position = parseArgument(source, start, position, messageEnd, type, validating, visitor);
+		}
+		if (arrayDepth > 0) {
+			throw new OSCParseException("Unbalanced '[' in type tags: " + types,
+					position - start);
+		}
+		return position;
+	}
+
+	/**
+	 * Parses an argument of the type specified by the type char.
+	 * @param start where the outermost packet starts; used for alignment
+	 * @param position where the argument starts
+	 * @param end where the message ends; exclusive
+	 * @param type type of the argument to read
+	 * @return the position after the argument
+	 */
+	private static int parseArgument(
+			final OSCPacketSource source,
+			final int start,
+			final int position,
+			final int end,
+			final char type,
+			final boolean validating,
+			final OSCPacketVisitor visitor)
+	{
+		int next;
+		switch (OSCSignature.fixedWidth(type)) {
+			case 4 :
+				require(start, position, 4, end, TRUNCATED_ARGUMENT);
+				visitWord(source, position, type, visitor);
+				next = position + 4;
+				break;
+			case 8 :
+				require(start, position, 8, end, TRUNCATED_ARGUMENT);
+				visitLong(source, position, type, visitor);
+				next = position + 8;
+				break;
+			case 0 :
+				visitTag(start, position, type, validating, visitor);
+				next = position;
+				break;
+			default:
+				next = parseVariableWidth(source, start, position, end, type, validating, visitor);
+				break;
+		}
+		return next;
+	}
+
+	/**
+	 * Reports an argument encoded with 4 bytes.
+	 */
+	private static void visitWord(
+			final OSCPacketSource source,
+			final int position,
+			final char type,
+			final OSCPacketVisitor visitor)
+	{
+		switch (type) {
+			case 'i' :
+				visitor.intArg(source.int32At(position));
+				break;
+			case 'f' :
+				visitor.floatArg(Float.intBitsToFloat(source.int32At(position)));
+				break;
+			case 'u' :
+				visitor.unsignedIntArg(source.int32At(position) & 0xFFFFFFFFL);
+				break;
+			case 'c' :
+				// Like all OSC arguments, a char occupies 4 bytes,
+				// of which we use only the first one.
+				visitor.charArg((char) source.byteAt(position));
+				break;
+			case 'r' :
+				visitor.colorArg(source.int32At(position));
+				break;
+			case 'm' :
+				visitor.midiMessageArg(source.int32At(position));
+				break;
+			default:
+				throw new IllegalArgumentException("Not a 4 byte argument type: " + type);
+		}
+	}
+
+	/**
+	 * Reports an argument encoded with 8 bytes.
+	 */
+	private static void visitLong(
+			final OSCPacketSource source,
+			final int position,
+			final char type,
+			final OSCPacketVisitor visitor)
+	{
+		switch (type) {
+			case 'h' :
+				visitor.longArg(source.int64At(position));
+				break;
+			case 'd' :
+				visitor.doubleArg(Double.longBitsToDouble(source.int64At(position)));
+				break;
+			case 't' :
+				visitor.timeTagArg(source.int64At(position));
+				break;
+			default:
+				throw new IllegalArgumentException("Not an 8 byte argument type: " + type);
+		}
+	}
+
+	/**
+	 * Reports an argument that consists of its type tag only.
+	 */
+	private static void visitTag(
+			final int start,
+			final int position,
+			final char type,
+			final boolean validating,
+			final OSCPacketVisitor visitor)
+	{
+		switch (type) {
+			case 'T' :
+				visitor.booleanArg(true);
+				break;
+			case 'F' :
+				visitor.booleanArg(false);
+				break;
+			case 'N' :
+				visitor.nilArg();
+				break;
+			case 'I' :
+				visitor.impulseArg();
+				break;
+			case '[' :
+				visitor.startArray();
+				break;
+			case ']' :
+				visitor.endArray();
+				break;
+			default:
+				if (validating) {
+					throw new OSCParseException("Unknown argument type '" + type + "'",
+							position - start);
+				}
+				visitor.unknownArg(type);
+				break;
+		}
+	}
+
+	/**
+	 * Parses a string, symbol or blob argument,
+	 * or reports an argument that consists of its type tag only.
+	 * @return the position after the argument
+	 */
+	private static int parseVariableWidth(
+			final OSCPacketSource source,
+			final int start,
+			final int position,
+			final int end,
+			final char type,
+			final boolean validating,
+			final OSCPacketVisitor visitor)
+	{
+		int next;
+		switch (type) {
+			case 's' :
+				final int stringLength = source.lengthOfString(start, position, end);
+				visitor.stringArg(source.arrayOf(position, stringLength),
+						source.offsetOf(position), stringLength);
+				next = skipString(start, position, stringLength);
+				break;
+			case 'S' :
+				final int symbolLength = source.lengthOfString(start, position, end);
+				visitor.symbolArg(source.arrayOf(position, symbolLength),
+						source.offsetOf(position), symbolLength);
+				next = skipString(start, position, symbolLength);
+				break;
+			case 'b' :
+				require(start, position, 4, end, "Truncated blob length");
+				final int blobLength = source.int32At(position);
+				if ((blobLength < 0) || (blobLength > (end - position - 4))) {
+					throw new OSCParseException("Blob length exceeds the message, is:"
+							+ blobLength, position - start);
+				}
+				visitor.blobArg(source.arrayOf(position + 4, blobLength),
+						source.offsetOf(position + 4), blobLength);
+				next = position + 4 + ((blobLength + 3) & ~3);
+				break;
+			default:
+				visitTag(start, position, type, validating, visitor);
+				next = position;
+				break;
+		}
+		return next;
+	}
+
+	/**
+	 * Makes sure that a number of bytes is available.
+	 * @param start where the outermost packet starts; to report the offset
+	 * @param position where the bytes are to be read
+	 * @param count number of bytes to be read
+	 * @param end where the readable region ends; exclusive
+	 * @param reason to report if the bytes are not available
+	 * @throws OSCParseException if fewer bytes are available
+	 */
+	public static void require(
+			final int start,
+			final int position,
+			final int count,
+			final int end,
+			final String reason)
+	{
+		// written this way to not overflow
+		if ((position > end) || (count > (end - position))) {
+			// skipping padding may have moved us past the end already
+			throw new OSCParseException(reason, Math.min(position, end) - start);
+		}
+	}
+
+	/**
+	 * Returns the position after a string, its terminating zero and its padding.
+	 * The returned position may lie beyond the end of a (truncated) packet;
+	 * reading anything there is detected later on.
+	 * @param start where the outermost packet starts
+	 * @param position where the string starts
+	 * @param length of the string
+	 */
+	public static int skipString(final int start, final int position, final int length) {
+
+		final int stringEnd = position + length;
+		// there is at least one terminating zero,
+		// so if we are already at a 4 byte boundary, we need to move to the next one
+		return stringEnd + 4 - ((stringEnd - start) % 4);
+	}
+}
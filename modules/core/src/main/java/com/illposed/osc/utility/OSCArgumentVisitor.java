@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+/**
+ * Receives the arguments of a message from an {@link OSCPacketParser}.
+ * @see OSCPacketVisitor
+ */
+public interface OSCArgumentVisitor extends OSCFixedWidthArgumentVisitor {
+
+	/**
+	 * A string argument (<code>'s'</code>).
+	 * @param bytes contains the encoded string
+	 * @param offset where the string starts in <code>bytes</code>
+	 * @param length length of the encoded string,
+	 *   excluding the terminating zero
+	 */
+	void stringArg(byte[] bytes, int offset, int length);
+
+	/**
+	 * A symbol argument (<code>'S'</code>), encoded like a string.
+	 * @param bytes contains the encoded symbol
+	 * @param offset where the symbol starts in <code>bytes</code>
+	 * @param length length of the encoded symbol,
+	 *   excluding the terminating zero
+	 */
+	void symbolArg(byte[] bytes, int offset, int length);
+
+	/**
+	 * A blob argument (<code>'b'</code>).
+	 * @param bytes contains the blob data
+	 * @param offset where the blob data starts in <code>bytes</code>
+	 * @param length length of the blob data
+	 */
+	void blobArg(byte[] bytes, int offset, int length);
+
+	/**
+	 * A boolean argument (<code>'T'</code> or <code>'F'</code>).
+	 * @param value the argument
+	 */
+	void booleanArg(boolean value);
+
+	/**
+	 * A nil argument (<code>'N'</code>).
+	 */
+	void nilArg();
+
+	/**
+	 * An impulse argument (<code>'I'</code>).
+	 */
+	void impulseArg();
+
+	/**
+	 * An argument of a type this parser does not know.
+	 * As the size of the argument is unknown, no data is consumed for it.
+	 * @param type the OSC type tag of the argument
+	 */
+	void unknownArg(char type);
+}
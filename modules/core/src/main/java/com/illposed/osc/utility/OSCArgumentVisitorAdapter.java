@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+/**
+ * An {@link OSCArgumentVisitor} that ignores everything.
+ * Extend this class and override only the callbacks of interest.
+ */
+public class OSCArgumentVisitorAdapter extends OSCFixedWidthArgumentVisitorAdapter implements OSCArgumentVisitor {
+
+	protected OSCArgumentVisitorAdapter() {
+		// only to be extended
+	}
+
+	@Override
+	public void stringArg(byte[] bytes, int offset, int length) {
+		// ignored
+	}
+
+	@Override
+	public void symbolArg(byte[] bytes, int offset, int length) {
+		// ignored
+	}
+
+	@Override
+	public void blobArg(byte[] bytes, int offset, int length) {
+		// ignored
+	}
+
+	@Override
+	public void booleanArg(boolean value) {
+		// ignored
+	}
+
+	@Override
+	public void nilArg() {
+		// ignored
+	}
+
+	@Override
+	public void impulseArg() {
+		// ignored
+	}
+
+	@Override
+	public void unknownArg(char type) {
+		// ignored
+	}
+}
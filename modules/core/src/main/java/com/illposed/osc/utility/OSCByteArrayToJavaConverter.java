@@ -9,64 +9,557 @@
 package com.illposed.osc.utility;
 
 import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCColor;
 import com.illposed.osc.OSCImpulse;
 import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCMidiMessage;
+import com.illposed.osc.OSCPackedArray;
 import com.illposed.osc.OSCPacket;
-import java.math.BigInteger;
+import com.illposed.osc.OSCPacketPool;
+import com.illposed.osc.OSCSymbol;
+import com.illposed.osc.OSCUnsigned;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 /**
- * Utility class to convert a byte array,
+ * Utility class to convert a byte array or buffer,
  * conforming to the OSC byte stream format,
  * into Java objects.
+ * The bytes are walked through by an {@link OSCPacketParser};
+ * use that one directly to process packets without creating objects.
  *
  * @author Chandrasekhar Ramakrishnan
  */
 public class OSCByteArrayToJavaConverter {
 
-	private static final String BUNDLE_START = "#bundle";
-	private static final char BUNDLE_IDENTIFIER = BUNDLE_START.charAt(0);
-	private static final String NO_ARGUMENT_TYPES = "";
+	/**
+	 * Collects the elements of the innermost array of a message,
+	 * as long as they are all numbers of the same type,
+	 * so they can be turned into a primitive array without boxing them.
+	 */
+	private static final class PrimitiveArrayBuilder {
+
+		/** Whether the elements of the innermost array are collected here. */
+		private boolean active;
+		/** The type tag of the elements, or <code>0</code> if there are none yet. */
+		private char type;
+		/** The raw bits of the elements; re-used for all arrays. */
+		private long[] values;
+		private int size;
+
+		PrimitiveArrayBuilder() {
+
+			this.active = false;
+			this.type = 0;
+			this.values = new long[16];
+			this.size = 0;
+		}
+
+		boolean isActive() {
+			return active;
+		}
+
+		void start() {
+
+			active = true;
+			type = 0;
+			size = 0;
+		}
+
+		/**
+		 * Adds an element, if it has the same type as the ones before.
+		 * @param elementType the type tag of the element
+		 * @param bits the raw bits of the element
+		 * @return <code>false</code> if the element has an other type,
+		 *   and was not added
+		 */
+		boolean add(final char elementType, final long bits) {
+
+			if ((type != 0) && (type != elementType)) {
+				return false;
+			}
+			type = elementType;
+			if (size == values.length) {
+				final long[] newValues = new long[size * 2];
+				System.arraycopy(values, 0, newValues, 0, size);
+				values = newValues;
+			}
+			values[size++] = bits;
+			return true;
+		}
+
+		/**
+		 * Stops collecting, and adds the elements collected so far
+		 * to a list, boxed.
+		 * @param elements where to add the collected elements to
+		 */
+		void flushTo(final List<Object> elements) {
+
+			for (int vi = 0; vi < size; vi++) {
+				elements.add(box(values[vi]));
+			}
+			active = false;
+		}
+
+		private Object box(final long bits) {
+
+			switch (type) {
+				case 'i' : return (int) bits;
+				case 'f' : return Float.intBitsToFloat((int) bits);
+				case 'h' : return bits;
+				default: return Double.longBitsToDouble(bits);
+			}
+		}
+
+		/**
+		 * Stops collecting, and creates the primitive array.
+		 * @return an <code>int[]</code>, <code>float[]</code>,
+		 *   <code>long[]</code> or <code>double[]</code>,
+		 *   or <code>null</code> if the array is empty,
+		 *   in which case its type is unknown
+		 */
+		Object finish() {
+
+			active = false;
+			switch (type) {
+				case 'i' :
+					final int[] ints = new int[size];
+					for (int vi = 0; vi < size; vi++) {
+						ints[vi] = (int) values[vi];
+					}
+					return ints;
+				case 'f' :
+					final float[] floats = new float[size];
+					for (int vi = 0; vi < size; vi++) {
+						floats[vi] = Float.intBitsToFloat((int) values[vi]);
+					}
+					return floats;
+				case 'h' :
+					final long[] longs = new long[size];
+					System.arraycopy(values, 0, longs, 0, size);
+					return longs;
+				case 'd' :
+					final double[] doubles = new double[size];
+					for (int vi = 0; vi < size; vi++) {
+						doubles[vi] = Double.longBitsToDouble(values[vi]);
+					}
+					return doubles;
+				default:
+					return null;
+			}
+		}
+
+		/**
+		 * Stops collecting, and forgets the elements collected so far,
+		 * without creating an array.
+		 */
+		void reset() {
+
+			active = false;
+			type = 0;
+			size = 0;
+		}
+	}
+
+	/**
+	 * Creates the packet objects from the parts reported by the parser.
+	 * Each thread uses its own builder, which is reused for all conversions.
+	 */
+	private static final class PacketBuilder implements OSCPacketVisitor {
+
+		/** The converter we currently build a packet for. */
+		private OSCByteArrayToJavaConverter converter;
+		/**
+		 * Where the outermost packet starts in the arrays passed to us,
+		 * or <code>-1</code>, if these are copies of regions of a buffer.
+		 */
+		private int packetStart;
+		/** The outermost packet. */
+		private OSCPacket packet;
+		/** The enclosing bundles of the current position, outermost first. */
+		private final List<OSCBundle> bundles;
+		private OSCMessage message;
+		/** The enclosing arrays of the current argument, outermost first. */
+		private final List<List<Object>> arrays;
+		/** Collects the elements of the innermost array, if they are primitive. */
+		private final PrimitiveArrayBuilder primitives;
+
+		PacketBuilder() {
+
+			this.converter = null;
+			this.packetStart = -1;
+			this.packet = null;
+			this.bundles = new ArrayList<OSCBundle>();
+			this.message = null;
+			this.arrays = new ArrayList<List<Object>>();
+			this.primitives = new PrimitiveArrayBuilder();
+		}
+
+		/**
+		 * Builds a packet either from an array, or from a buffer.
+		 * @param owner the converter whose parser and settings to use
+		 * @param buffer to parse,
+		 *   or <code>null</code> to parse <code>bytes</code> instead
+		 */
+		OSCPacket build(
+				final OSCByteArrayToJavaConverter owner,
+				final byte[] bytes,
+				final int bytesOffset,
+				final int bytesLength,
+				final ByteBuffer buffer)
+		{
+			this.converter = owner;
+			if (buffer == null) {
+				packetStart = bytesOffset;
+			} else if (buffer.hasArray()) {
+				packetStart = buffer.arrayOffset() + buffer.position();
+			} else {
+				packetStart = -1;
+			}
+			boolean complete = false;
+			try {
+				if (buffer == null) {
+					owner.parser.parse(bytes, bytesOffset, bytesLength, this);
+				} else {
+					owner.parser.parse(buffer, this);
+				}
+				complete = true;
+				return packet;
+			} finally {
+				if (!complete) {
+					recycleIncomplete();
+				}
+				// do not keep anything alive, nor start the next conversion
+				// with left-overs of a failed one
+				this.converter = null;
+				packetStart = -1;
+				packet = null;
+				bundles.clear();
+				message = null;
+				arrays.clear();
+				primitives.reset();
+			}
+		}
+
+		/**
+		 * Returns the packets taken from the pool for a conversion that failed,
+		 * so malformed packets do not drain it.
+		 * Bundles still open are not yet contained in their parent,
+		 * so each one is recycled on its own.
+		 */
+		private void recycleIncomplete() {
+
+			final OSCPacketPool pool = converter.packetPool;
+			if (pool != null) {
+				pool.recycle(packet);
+				for (int bi = 0; bi < bundles.size(); bi++) {
+					pool.recycle(bundles.get(bi));
+				}
+				pool.recycle(message);
+			}
+		}
+
+		private void addPacket(final OSCPacket newPacket) {
+
+			if (bundles.isEmpty()) {
+				packet = newPacket;
+			} else {
+				bundles.get(bundles.size() - 1).addPacket(newPacket);
+			}
+		}
+
+		private void addArgument(final Object argument) {
+
+			if (arrays.isEmpty()) {
+				message.addArgument(argument);
+			} else {
+				final List<Object> array = arrays.get(arrays.size() - 1);
+				if (primitives.isActive()) {
+					// the array turned out to not be a primitive one
+					primitives.flushTo(array);
+				}
+				array.add(argument);
+			}
+		}
+
+		/**
+		 * Adds a number to the innermost array without boxing it,
+		 * if that is collected as a primitive array.
+		 * @param type the type tag of the number
+		 * @param bits the raw bits of the number
+		 * @return <code>false</code> if the number was not added,
+		 *   and has to be added boxed
+		 */
+		private boolean addToPrimitiveArray(final char type, final long bits) {
+			return primitives.isActive() && primitives.add(type, bits);
+		}
+
+		@Override
+		public void startBundle(long timeTag) {
+
+			final Date timestamp = OSCPacketParser.toDate(timeTag);
+			final OSCBundle bundle;
+			if (converter.packetPool == null) {
+				bundle = new OSCBundle(timestamp);
+			} else {
+				bundle = converter.packetPool.obtainBundle();
+				bundle.setTimestamp(timestamp);
+			}
+			bundles.add(bundle);
+		}
+
+		@Override
+		public void endBundle() {
+			addPacket(bundles.remove(bundles.size() - 1));
+		}
+
+		@Override
+		public void startMessage(byte[] bytes, int addressOffset, int addressLength, OSCSignature signature) {
+
+			message = (converter.packetPool == null)
+					? new OSCMessage()
+					: converter.packetPool.obtainMessage();
+			final String address = converter.decode(
+					bytes, addressOffset, addressLength, converter.addressCache);
+			try {
+				message.setAddress(address);
+			} catch (IllegalArgumentException ex) {
+				// the offset of the address within a copied region is meaningless
+				throw new OSCParseException("Invalid address \"" + address + "\"",
+						(packetStart < 0) ? 0 : (addressOffset - packetStart), ex);
+			}
+		}
+
+		@Override
+		public void endMessage() {
+
+			// close arrays that lack their ']'
+			while (!arrays.isEmpty()) {
+				endArray();
+			}
+			addPacket(message);
+			message = null;
+		}
+
+		@Override
+		public void startArray() {
+
+			if (primitives.isActive()) {
+				// an array containing an array is not a primitive one
+				primitives.flushTo(arrays.get(arrays.size() - 1));
+			}
+			arrays.add(new ArrayList<Object>());
+			if (converter.decodingPrimitiveArrays) {
+				primitives.start();
+			}
+		}
+
+		@Override
+		public void endArray() {
+
+			if (!arrays.isEmpty()) {
+				final List<Object> array = arrays.remove(arrays.size() - 1);
+				final Object primitiveArray = primitives.isActive() ? primitives.finish() : null;
+				addArgument((primitiveArray == null) ? array : primitiveArray);
+			}
+		}
+
+		@Override
+		public void intArg(int value) {
+
+			// numeric arguments are added to messages without boxing them
+			if (arrays.isEmpty()) {
+				message.addInt(value);
+			} else if (!addToPrimitiveArray('i', value)) {
+				addArgument(value);
+			}
+		}
+
+		@Override
+		public void longArg(long value) {
+
+			if (arrays.isEmpty()) {
+				message.addLong(value);
+			} else if (!addToPrimitiveArray('h', value)) {
+				addArgument(value);
+			}
+		}
+
+		@Override
+		public void floatArg(float value) {
+
+			if (arrays.isEmpty()) {
+				message.addFloat(value);
+			} else if (!addToPrimitiveArray('f', Float.floatToRawIntBits(value))) {
+				addArgument(value);
+			}
+		}
 
-	private static class Input {
+		@Override
+		public void doubleArg(double value) {
 
-		private final byte[] bytes;
-		private final int bytesLength;
-		private int streamPosition;
+			if (arrays.isEmpty()) {
+				message.addDouble(value);
+			} else if (!addToPrimitiveArray('d', Double.doubleToRawLongBits(value))) {
+				addArgument(value);
+			}
+		}
 
-		Input(final byte[] bytes, final int bytesLength) {
+		@Override
+		public void unsignedIntArg(long value) {
 
-			this.bytes = bytes;
-			this.bytesLength = bytesLength;
-			this.streamPosition = 0;
+			if (arrays.isEmpty()) {
+				message.addUnsigned(value);
+			} else {
+				addArgument(OSCUnsigned.valueOf(value));
+			}
 		}
 
-		public byte[] getBytes() {
-			return bytes;
+		@Override
+		public void stringArg(byte[] bytes, int offset, int length) {
+			addArgument(converter.decode(bytes, offset, length, converter.stringCache));
 		}
 
-		public int getBytesLength() {
-			return bytesLength;
+		@Override
+		public void symbolArg(byte[] bytes, int offset, int length) {
+			addArgument(new OSCSymbol(
+					converter.decode(bytes, offset, length, converter.stringCache)));
 		}
 
-		public int getAndIncreaseStreamPositionByOne() {
-			return streamPosition++;
+		@Override
+		public void blobArg(byte[] bytes, int offset, int length) {
+
+			if (converter.decodingPrimitiveArrays) {
+				final Object packedArray = unpack(bytes, offset, length);
+				if (packedArray != null) {
+					addArgument(packedArray);
+					return;
+				}
+			}
+			final byte[] blob = new byte[length];
+			System.arraycopy(bytes, offset, blob, 0, length);
+			addArgument(blob);
 		}
 
-		public void addToStreamPosition(int toAdd) {
-			streamPosition += toAdd;
+		/**
+		 * Decodes a blob written from an {@link OSCPackedArray}.
+		 * @return the primitive array contained in the blob,
+		 *   or <code>null</code> if the blob does not look like a packed array
+		 */
+		private static Object unpack(final byte[] bytes, final int offset, final int length) {
+
+			if ((length < OSCPackedArray.HEADER_SIZE)
+					|| (bytes[offset] != '[')
+					|| (bytes[offset + 2] != ']')
+					|| (bytes[offset + 3] != 0))
+			{
+				return null;
+			}
+			final char type = (char) bytes[offset + 1];
+			final int dataLength = length - OSCPackedArray.HEADER_SIZE;
+			final int elementSize = OSCSignature.fixedWidth(type);
+			if ((elementSize <= 0) || (dataLength % elementSize != 0)) {
+				return null;
+			}
+			// a buffer is big-endian by default, as is OSC
+			final ByteBuffer data = ByteBuffer.wrap(
+					bytes, offset + OSCPackedArray.HEADER_SIZE, dataLength);
+			final int numElements = dataLength / elementSize;
+			switch (type) {
+				case 'i' :
+					final int[] ints = new int[numElements];
+					data.asIntBuffer().get(ints);
+					return ints;
+				case 'f' :
+					final float[] floats = new float[numElements];
+					data.asFloatBuffer().get(floats);
+					return floats;
+				case 'h' :
+					final long[] longs = new long[numElements];
+					data.asLongBuffer().get(longs);
+					return longs;
+				case 'd' :
+					final double[] doubles = new double[numElements];
+					data.asDoubleBuffer().get(doubles);
+					return doubles;
+				default:
+					return null;
+			}
 		}
 
-		public int getStreamPosition() {
-			return streamPosition;
+		@Override
+		public void charArg(char value) {
+			addArgument(value);
+		}
+
+		@Override
+		public void colorArg(int rgba) {
+
+			if (arrays.isEmpty()) {
+				message.addColor(rgba);
+			} else {
+				addArgument(OSCColor.valueOf(rgba));
+			}
+		}
+
+		@Override
+		public void midiMessageArg(int midiMessage) {
+
+			if (arrays.isEmpty()) {
+				message.addMidiMessage(midiMessage);
+			} else {
+				addArgument(OSCMidiMessage.valueOf(midiMessage));
+			}
+		}
+
+		@Override
+		public void timeTagArg(long timeTag) {
+			addArgument(OSCPacketParser.toDate(timeTag));
+		}
+
+		@Override
+		public void booleanArg(boolean value) {
+			addArgument(value);
+		}
+
+		@Override
+		public void nilArg() {
+			addArgument(null);
+		}
+
+		@Override
+		public void impulseArg() {
+			addArgument(OSCImpulse.INSTANCE);
+		}
+
+		@Override
+		public void unknownArg(char type) {
+			// XXX Maybe we should let the user choose what to do in this
+			//   case (we encountered an unknown argument type in an
+			//   incomming message):
+			//   just ignore (add null), or throw an exception?
+			addArgument(null);
 		}
 	}
 
+	private final OSCPacketParser parser;
+	private final ThreadLocal<PacketBuilder> builders;
+
 	/** Used to decode message addresses and string parameters. */
 	private Charset charset;
+	/** Where to get packet instances from; <code>null</code> to create new ones. */
+	private OSCPacketPool packetPool;
+	/** Caches decoded message addresses; may be <code>null</code>. */
+	private OSCStringCache addressCache;
+	/** Caches decoded string arguments; may be <code>null</code>. */
+	private OSCStringCache stringCache;
+	/** Whether numeric arrays and packed arrays are decoded to primitive arrays. */
+	private boolean decodingPrimitiveArrays;
+	/** Informed about each decoded packet; may be <code>null</code>. */
+	private volatile OSCDecodeObserver decodeObserver;
 
 	/**
 	 * Creates a helper object for converting from a byte array
@@ -74,7 +567,19 @@ public class OSCByteArrayToJavaConverter {
 	 */
 	public OSCByteArrayToJavaConverter() {
 
+		this.parser = new OSCPacketParser();
+		this.builders = new ThreadLocal<PacketBuilder>() {
+			@Override
+			protected PacketBuilder initialValue() {
+				return new PacketBuilder();
+			}
+		};
 		this.charset = Charset.defaultCharset();
+		this.packetPool = null;
+		this.addressCache = null;
+		this.stringCache = null;
+		this.decodingPrimitiveArrays = false;
+		this.decodeObserver = null;
 	}
 
 	/**
@@ -96,355 +601,212 @@ public class OSCByteArrayToJavaConverter {
 	}
 
 	/**
-	 * Converts a byte array into an {@link OSCPacket}
-	 * (either an {@link OSCMessage} or {@link OSCBundle}).
-	 * @param bytes the storage containing the raw OSC packet
-	 * @param bytesLength indicates how many bytes the package consists of (<code>&lt;= bytes.length</code>)
-	 * @return the successfully parsed OSC packet; in case of a problem,
-	 *   a <code>RuntimeException</code> is thrown
+	 * Indicates whether packets are checked strictly against the specification.
+	 * @return <code>true</code> if this converter rejects packets
+	 *   that do not strictly follow the specification
 	 */
-	public OSCPacket convert(byte[] bytes, int bytesLength) {
-
-		final Input rawInput = new Input(bytes, bytesLength);
-		final OSCPacket packet;
-		if (isBundle(rawInput)) {
-			packet = convertBundle(rawInput);
-		} else {
-			packet = convertMessage(rawInput);
-		}
-
-		return packet;
+	public boolean isValidating() {
+		return parser.isValidating();
 	}
 
 	/**
-	 * Checks whether my byte array is a bundle.
-	 * From the OSC 1.0 specifications:
-	 * <quote>
-	 * The contents of an OSC packet must be either an OSC Message
-	 * or an OSC Bundle. The first byte of the packet's contents unambiguously
-	 * distinguishes between these two alternatives.
-	 * </quote>
-	 * @return true if it the byte array is a bundle, false o.w.
+	 * Sets whether packets are checked strictly against the specification,
+	 * see {@link OSCPacketParser#setValidating(boolean)} for details.
+	 * By default, packets that can be decoded are accepted,
+	 * even if they do not strictly follow the specification,
+	 * and unknown argument types are converted to <code>null</code>.
+	 * @param validating <code>true</code> to reject packets
+	 *   that do not strictly follow the specification
 	 */
-	private boolean isBundle(final Input rawInput) {
-		// The shortest valid packet may be no shorter then 4 bytes,
-		// thus we may assume to always have a byte at index 0.
-		return rawInput.getBytes()[0] == BUNDLE_IDENTIFIER;
+	public void setValidating(boolean validating) {
+		parser.setValidating(validating);
 	}
 
 	/**
-	 * Converts the byte array to a bundle.
-	 * Assumes that the byte array is a bundle.
-	 * @return a bundle containing the data specified in the byte stream
+	 * Returns the pool converted packets are taken from.
+	 * @return the pool used by this converter,
+	 *   or <code>null</code>, if new packets are created for each conversion
 	 */
-	private OSCBundle convertBundle(final Input rawInput) {
-		// skip the "#bundle " stuff
-		rawInput.addToStreamPosition(BUNDLE_START.length() + 1);
-		final Date timestamp = readTimeTag(rawInput);
-		final OSCBundle bundle = new OSCBundle(timestamp);
-		final OSCByteArrayToJavaConverter myConverter
-				= new OSCByteArrayToJavaConverter();
-		myConverter.setCharset(charset);
-		while (rawInput.getStreamPosition() < rawInput.getBytesLength()) {
-			// recursively read through the stream and convert packets you find
-			final int packetLength = readInteger(rawInput);
-			if (packetLength == 0) {
-				throw new IllegalArgumentException("Packet length may not be 0");
-			} else if ((packetLength % 4) != 0) {
-				throw new IllegalArgumentException("Packet length has to be a multiple of 4, is:"
-						+ packetLength);
-			}
-			final byte[] packetBytes = new byte[packetLength];
-			System.arraycopy(rawInput.getBytes(), rawInput.getStreamPosition(), packetBytes, 0, packetLength);
-			rawInput.addToStreamPosition(packetLength);
-			final OSCPacket packet = myConverter.convert(packetBytes, packetLength);
-			bundle.addPacket(packet);
-		}
-		return bundle;
+	public OSCPacketPool getPacketPool() {
+		return packetPool;
 	}
 
 	/**
-	 * Converts the byte array to a simple message.
-	 * Assumes that the byte array is a message.
-	 * @return a message containing the data specified in the byte stream
+	 * Sets a pool to take the converted packets from.
+	 * This avoids creating new packet objects for each conversion,
+	 * if the converted packets are recycled after use,
+	 * see {@link OSCPacketPool} for details.
+	 * @param packetPool to be used to obtain packet instances,
+	 *   or <code>null</code>, to create new packets for each conversion
 	 */
-	private OSCMessage convertMessage(final Input rawInput) {
-		final OSCMessage message = new OSCMessage();
-		message.setAddress(readString(rawInput));
-		final CharSequence types = readTypes(rawInput);
-		for (int ti = 0; ti < types.length(); ++ti) {
-			if ('[' == types.charAt(ti)) {
-				// we're looking at an array -- read it in
-				message.addArgument(readArray(rawInput, types, ++ti));
-				// then increment i to the end of the array
-				while (types.charAt(ti) != ']') {
-					ti++;
-				}
-			} else {
-				message.addArgument(readArgument(rawInput, types.charAt(ti)));
-			}
-		}
-		return message;
+	public void setPacketPool(OSCPacketPool packetPool) {
+		this.packetPool = packetPool;
 	}
 
 	/**
-	 * Reads a string from the byte stream.
-	 * @return the next string in the byte stream
+	 * Returns the cache used to look up message addresses.
+	 * @return the address cache used by this converter,
+	 *   or <code>null</code>, if each address is decoded anew
 	 */
-	private String readString(final Input rawInput) {
-		final int strLen = lengthOfCurrentString(rawInput);
-		final String res = new String(rawInput.getBytes(), rawInput.getStreamPosition(), strLen, charset);
-		rawInput.addToStreamPosition(strLen);
-		moveToFourByteBoundry(rawInput);
-		return res;
+	public OSCStringCache getAddressCache() {
+		return addressCache;
 	}
 
 	/**
-	 * Reads a binary blob from the byte stream.
-	 * @return the next blob in the byte stream
+	 * Sets a cache to look up message addresses in,
+	 * instead of decoding each one anew.
+	 * Repeatedly received addresses are then represented
+	 * by the same String instance each time.
+	 * @param addressCache to be used for message addresses,
+	 *   or <code>null</code>, to decode each address anew
 	 */
-	private byte[] readBlob(final Input rawInput) {
-		final int blobLen = readInteger(rawInput);
-		final byte[] res = new byte[blobLen];
-		System.arraycopy(rawInput.getBytes(), rawInput.getStreamPosition(), res, 0, blobLen);
-		rawInput.addToStreamPosition(blobLen);
-		moveToFourByteBoundry(rawInput);
-		return res;
+	public void setAddressCache(OSCStringCache addressCache) {
+		this.addressCache = addressCache;
 	}
 
 	/**
-	 * Reads the types of the arguments from the byte stream.
-	 * @return a char array with the types of the arguments,
-	 *   or <code>null</code>, in case of no arguments
+	 * Returns the cache used to look up string arguments.
+	 * @return the string cache used by this converter,
+	 *   or <code>null</code>, if each string argument is decoded anew
 	 */
-	private CharSequence readTypes(final Input rawInput) {
-		final String typesStr;
-
-		// The next byte should be a ',', but some legacy code may omit it
-		// in case of no arguments, refering to "OSC Messages" in:
-		// http://opensoundcontrol.org/spec-1_0
-		if (rawInput.getBytes().length <= rawInput.getStreamPosition()) {
-			typesStr = NO_ARGUMENT_TYPES;
-		} else if (rawInput.getBytes()[rawInput.getStreamPosition()] != ',') {
-			// XXX should we not rather fail-fast -> throw exception?
-			typesStr = NO_ARGUMENT_TYPES;
-		} else {
-			rawInput.getAndIncreaseStreamPositionByOne();
-			typesStr = readString(rawInput);
-		}
-
-		return typesStr;
+	public OSCStringCache getStringCache() {
+		return stringCache;
 	}
 
 	/**
-	 * Reads an object of the type specified by the type char.
-	 * @param type type of the argument to read
-	 * @return a Java representation of the argument
+	 * Sets a cache to look up string arguments in,
+	 * instead of decoding each one anew.
+	 * This is only useful if the same strings are received repeatedly,
+	 * for example when they are used as keys or symbols.
+	 * @param stringCache to be used for string arguments,
+	 *   or <code>null</code>, to decode each string argument anew
 	 */
-	private Object readArgument(final Input rawInput, final char type) {
-		switch (type) {
-			case 'u' :
-				return readUnsignedInteger(rawInput);
-			case 'i' :
-				return readInteger(rawInput);
-			case 'h' :
-				return readLong(rawInput);
-			case 'f' :
-				return readFloat(rawInput);
-			case 'd' :
-				return readDouble(rawInput);
-			case 's' :
-				return readString(rawInput);
-			case 'b' :
-				return readBlob(rawInput);
-			case 'c' :
-				return readChar(rawInput);
-			case 'N' :
-				return null;
-			case 'T' :
-				return Boolean.TRUE;
-			case 'F' :
-				return Boolean.FALSE;
-			case 'I' :
-				return OSCImpulse.INSTANCE;
-			case 't' :
-				return readTimeTag(rawInput);
-			default:
-				// XXX Maybe we should let the user choose what to do in this
-				//   case (we encountered an unknown argument type in an
-				//   incomming message):
-				//   just ignore (return null), or throw an exception?
-//				throw new UnsupportedOperationException(
-//						"Invalid or not yet supported OSC type: '" + type + "'");
-				return null;
-		}
+	public void setStringCache(OSCStringCache stringCache) {
+		this.stringCache = stringCache;
 	}
 
 	/**
-	 * Reads a char from the byte stream.
-	 * @return a {@link Character}
+	 * Indicates whether numeric arrays are decoded to primitive arrays.
+	 * @return <code>true</code> if arrays of numbers of a single type,
+	 *   and blobs containing an {@link OSCPackedArray},
+	 *   are decoded to primitive arrays
 	 */
-	private Character readChar(final Input rawInput) {
-		return (char) rawInput.getBytes()[rawInput.getAndIncreaseStreamPositionByOne()];
-	}
-
-	private BigInteger readBigInteger(final Input rawInput, final int numBytes) {
-		final byte[] myBytes = new byte[numBytes];
-		System.arraycopy(rawInput.getBytes(), rawInput.getStreamPosition(), myBytes, 0, numBytes);
-		rawInput.addToStreamPosition(numBytes);
-		return  new BigInteger(myBytes);
+	public boolean isDecodingPrimitiveArrays() {
+		return decodingPrimitiveArrays;
 	}
 
 	/**
-	 * Reads a double from the byte stream.
-	 * @return a 64bit precision floating point value
+	 * Sets whether numeric arrays are decoded to primitive arrays.
+	 * If enabled, an OSC array containing only numbers of a single type
+	 * (for example <code>"[fff]"</code>) is decoded to
+	 * an <code>int[]</code>, <code>float[]</code>, <code>long[]</code>
+	 * or <code>double[]</code>, without boxing its elements,
+	 * and so is a blob written from an {@link OSCPackedArray}.
+	 * Empty arrays and all other arrays are decoded to a {@link List},
+	 * and all other blobs to a <code>byte[]</code>, as by default.
+	 * @param decodingPrimitiveArrays <code>true</code> to decode
+	 *   numeric arrays to primitive arrays
 	 */
-	private Object readDouble(final Input rawInput) {
-		final BigInteger doubleBits = readBigInteger(rawInput, 8);
-		return Double.longBitsToDouble(doubleBits.longValue());
+	public void setDecodingPrimitiveArrays(boolean decodingPrimitiveArrays) {
+		this.decodingPrimitiveArrays = decodingPrimitiveArrays;
 	}
 
 	/**
-	 * Reads a float from the byte stream.
-	 * @return a 32bit precision floating point value
+	 * Returns the observer informed about each decoded packet.
+	 * @return the observer, or <code>null</code> if there is none
 	 */
-	private Float readFloat(final Input rawInput) {
-		final BigInteger floatBits = readBigInteger(rawInput, 4);
-		return Float.intBitsToFloat(floatBits.intValue());
+	public OSCDecodeObserver getDecodeObserver() {
+		return decodeObserver;
 	}
 
 	/**
-	 * Reads a double precision integer (64 bit integer) from the byte stream.
-	 * @return double precision integer (64 bit)
+	 * Sets an observer to be informed about each decoded packet,
+	 * including how long decoding took.
+	 * Without an observer, decoding is not timed.
+	 * This may be changed at any time, even while decoding.
+	 * @param decodeObserver the new observer,
+	 *   or <code>null</code> to remove the current one
 	 */
-	private Long readLong(final Input rawInput) {
-		final BigInteger longintBytes = readBigInteger(rawInput, 8);
-		return longintBytes.longValue();
+	public void setDecodeObserver(OSCDecodeObserver decodeObserver) {
+		this.decodeObserver = decodeObserver;
 	}
 
-	/**
-	 * Reads an Integer (32 bit integer) from the byte stream.
-	 * @return an {@link Integer}
-	 */
-	private Integer readInteger(final Input rawInput) {
-		final BigInteger intBits = readBigInteger(rawInput, 4);
-		return intBits.intValue();
+	private OSCPacket build(
+			final byte[] bytes,
+			final int offset,
+			final int length,
+			final ByteBuffer buffer)
+	{
+		final OSCDecodeObserver observer = decodeObserver;
+		if (observer == null) {
+			return builders.get().build(this, bytes, offset, length, buffer);
+		}
+		final int numBytes = (buffer == null) ? length : buffer.remaining();
+		final Object token = observer.decodeStarting(numBytes);
+		final long start = System.nanoTime();
+		final OSCPacket packet = builders.get().build(this, bytes, offset, length, buffer);
+		observer.packetDecoded(token, packet, numBytes, System.nanoTime() - start);
+		return packet;
 	}
 
 	/**
-	 * Reads an unsigned integer (32 bit) from the byte stream.
-	 * This code is copied from {@see http://darksleep.com/player/JavaAndUnsignedTypes.html},
-	 * which is licensed under the Public Domain.
-	 * @return single precision, unsigned integer (32 bit) wrapped in a 64 bit integer (long)
+	 * Converts a byte array into an {@link OSCPacket}
+	 * (either an {@link OSCMessage} or {@link OSCBundle}).
+	 * @param bytes the storage containing the raw OSC packet
+	 * @param bytesLength indicates how many bytes the package consists of (<code>&lt;= bytes.length</code>)
+	 * @return the successfully parsed OSC packet
+	 * @throws OSCParseException if the bytes are not a valid OSC packet
 	 */
-	private Long readUnsignedInteger(final Input rawInput) {
-
-		final int firstByte = (0x000000FF & ((int) rawInput.getBytes()[rawInput.getAndIncreaseStreamPositionByOne()]));
-		final int secondByte = (0x000000FF & ((int) rawInput.getBytes()[rawInput.getAndIncreaseStreamPositionByOne()]));
-		final int thirdByte = (0x000000FF & ((int) rawInput.getBytes()[rawInput.getAndIncreaseStreamPositionByOne()]));
-		final int fourthByte = (0x000000FF & ((int) rawInput.getBytes()[rawInput.getAndIncreaseStreamPositionByOne()]));
-		return ((long) (firstByte << 24
-				| secondByte << 16
-				| thirdByte << 8
-				| fourthByte))
-				& 0xFFFFFFFFL;
+	public OSCPacket convert(byte[] bytes, int bytesLength) {
+		return build(bytes, 0, bytesLength, null);
 	}
 
 	/**
-	 * Reads the time tag and convert it to a Java Date object.
-	 * A timestamp is a 64 bit number representing the time in NTP format.
-	 * The first 32 bits are seconds since 1900, the second 32 bits are
-	 * fractions of a second.
-	 * @return a {@link Date}
+	 * Converts a part of a byte array into an {@link OSCPacket}
+	 * (either an {@link OSCMessage} or {@link OSCBundle}).
+	 * This allows to convert packets in place,
+	 * for example out of a buffer holding a whole stream of them.
+	 * @param bytes the storage containing the raw OSC packet
+	 * @param offset where the packet starts in <code>bytes</code>
+	 * @param length how many bytes the packet consists of
+	 * @return the successfully parsed OSC packet
+	 * @throws OSCParseException if the bytes are not a valid OSC packet
 	 */
-	private Date readTimeTag(final Input rawInput) {
-		final byte[] secondBytes = new byte[8];
-		final byte[] fractionBytes = new byte[8];
-		for (int bi = 0; bi < 4; bi++) {
-			// clear the higher order 4 bytes
-			secondBytes[bi] = 0;
-			fractionBytes[bi] = 0;
-		}
-		// while reading in the seconds & fraction, check if
-		// this timetag has immediate semantics
-		boolean isImmediate = true;
-		for (int bi = 4; bi < 8; bi++) {
-			secondBytes[bi] = rawInput.getBytes()[rawInput.getAndIncreaseStreamPositionByOne()];
-			if (secondBytes[bi] > 0) {
-				isImmediate = false;
-			}
-		}
-		for (int bi = 4; bi < 8; bi++) {
-			fractionBytes[bi] = rawInput.getBytes()[rawInput.getAndIncreaseStreamPositionByOne()];
-			if (bi < 7) {
-				if (fractionBytes[bi] > 0) {
-					isImmediate = false;
-				}
-			} else {
-				if (fractionBytes[bi] > 1) {
-					isImmediate = false;
-				}
-			}
-		}
-
-		if (isImmediate) {
-			return OSCBundle.TIMESTAMP_IMMEDIATE;
-		}
-
-		final long secsSince1900 = new BigInteger(secondBytes).longValue();
-		long secsSince1970 = secsSince1900 - OSCBundle.SECONDS_FROM_1900_TO_1970;
-
-		// no point maintaining times in the distant past
-		if (secsSince1970 < 0) {
-			secsSince1970 = 0;
-		}
-		long fraction = new BigInteger(fractionBytes).longValue();
-
-		// this line was cribbed from jakarta commons-net's NTP TimeStamp code
-		fraction = (fraction * 1000) / 0x100000000L;
-
-		// I do not know where, but I'm losing 1ms somewhere...
-		fraction = (fraction > 0) ? fraction + 1 : 0;
-		final long millisecs = (secsSince1970 * 1000) + fraction;
-		return new Date(millisecs);
+	public OSCPacket convert(byte[] bytes, int offset, int length) {
+		return build(bytes, offset, length, null);
 	}
 
 	/**
-	 * Reads an array from the byte stream.
-	 * @param types
-	 * @param pos at which position to start reading
-	 * @return the array that was read
+	 * Converts the bytes between the position and the limit of a buffer
+	 * into an {@link OSCPacket}.
+	 * The buffer may be a heap, direct or memory mapped one;
+	 * it is read in place, see {@link OSCPacketParser#parse(ByteBuffer, OSCPacketVisitor)}.
+	 * On success, the position of the buffer is moved to its limit;
+	 * if conversion fails, the position is left unchanged.
+	 * @param buffer contains the raw OSC packet
+	 *   between its position and its limit
+	 * @return the successfully parsed OSC packet
+	 * @throws OSCParseException if the bytes are not a valid OSC packet
 	 */
-	private List<Object> readArray(final Input rawInput, final CharSequence types, int pos) {
-		int arrayLen = 0;
-		while (types.charAt(pos + arrayLen) != ']') {
-			arrayLen++;
-		}
-		final List<Object> array = new ArrayList<Object>(arrayLen);
-		for (int ai = 0; ai < arrayLen; ai++) {
-			array.add(readArgument(rawInput, types.charAt(pos + ai)));
-		}
-		return array;
+	public OSCPacket convert(ByteBuffer buffer) {
+		return build(null, 0, 0, buffer);
 	}
 
 	/**
-	 * Get the length of the string currently in the byte stream.
+	 * Decodes a message address or a string argument.
+	 * @param cache where to look up the string, or <code>null</code>
+	 * @return the decoded string
 	 */
-	private int lengthOfCurrentString(final Input rawInput) {
-		int len = 0;
-		while (rawInput.getBytes()[rawInput.getStreamPosition() + len] != 0) {
-			len++;
+	private String decode(
+			final byte[] bytes,
+			final int offset,
+			final int length,
+			final OSCStringCache cache)
+	{
+		if (cache == null) {
+			return OSCStringCache.decode(bytes, offset, length, charset);
+		} else {
+			return cache.get(bytes, offset, length, charset);
 		}
-		return len;
-	}
-
-	/**
-	 * Move to the next byte with an index in the byte array
-	 * which is dividable by four.
-	 */
-	private void moveToFourByteBoundry(final Input rawInput) {
-		// If i am already at a 4 byte boundry, I need to move to the next one
-		final int mod = rawInput.getStreamPosition() % 4;
-		rawInput.addToStreamPosition(4 - mod);
 	}
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import com.illposed.osc.OSCPacket;
+
+/**
+ * Gets informed by an {@link OSCByteArrayToJavaConverter}
+ * each time it starts and finishes decoding a packet,
+ * and how long that took.
+ * What the observer returns when decoding starts is handed back to it
+ * when decoding finished, so it can, for example, time the decoding itself.
+ * Packets that fail to decode are not reported as finished;
+ * their token is dropped.
+ * It is called from the decoding thread, right before and after decoding,
+ * so it should return quickly.
+ *
+ * @see OSCByteArrayToJavaConverter#setDecodeObserver(OSCDecodeObserver)
+ */
+public interface OSCDecodeObserver {
+
+	/**
+	 * Called before a packet is decoded.
+	 * @param numBytes size of the encoded packet
+	 * @return a token to be handed to
+	 *   {@link #packetDecoded(Object, OSCPacket, int, long)}, or <code>null</code>
+	 */
+	Object decodeStarting(int numBytes);
+
+	/**
+	 * Called after a packet was decoded.
+	 * @param token as returned by {@link #decodeStarting(int)} for this packet
+	 * @param packet the decoded message or bundle;
+	 *   if a packet pool is used, it is only valid during this call
+	 * @param numBytes size of the encoded packet
+	 * @param durationNanos how long decoding took, in nano-seconds
+	 */
+	void packetDecoded(Object token, OSCPacket packet, int numBytes, long durationNanos);
+}
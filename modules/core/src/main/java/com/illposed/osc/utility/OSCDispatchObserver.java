@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import com.illposed.osc.OSCListener;
+import com.illposed.osc.OSCMessage;
+import java.util.Date;
+
+/**
+ * Gets informed by an {@link OSCPacketDispatcher}
+ * each time one of its listeners is about to accept a message,
+ * and after it did, with how long that took.
+ * What the observer returns before the listener call is handed back to it
+ * after the call, so it can, for example, time the call itself.
+ * If the listener throws an exception, the call is not reported as finished;
+ * its token is dropped.
+ * It is called from the dispatching thread, right before and after the listener call,
+ * so it should return quickly.
+ *
+ * @see OSCPacketDispatcher#setDispatchObserver(OSCDispatchObserver)
+ */
+public interface OSCDispatchObserver {
+
+	/**
+	 * Called before a listener accepts a message.
+	 * @param listener the listener about to be called
+	 * @param time the time-tag the message is dispatched with,
+	 *   or <code>null</code> for immediately
+	 * @param message the dispatched message
+	 * @return a token to be handed to
+	 *   {@link #messageAccepted(Object, OSCListener, Date, OSCMessage, long)},
+	 *   or <code>null</code>
+	 */
+	Object messageAccepting(OSCListener listener, Date time, OSCMessage message);
+
+	/**
+	 * Called after a listener accepted a message.
+	 * @param token as returned by
+	 *   {@link #messageAccepting(OSCListener, Date, OSCMessage)} for this call
+	 * @param listener the listener that was called
+	 * @param time the time-tag the message was dispatched with,
+	 *   or <code>null</code> for immediately
+	 * @param message the dispatched message
+	 * @param durationNanos how long the listener took, in nano-seconds
+	 */
+	void messageAccepted(
+			Object token,
+			OSCListener listener,
+			Date time,
+			OSCMessage message,
+			long durationNanos);
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+/**
+ * Receives the arguments of a message that are encoded with 4 or 8 bytes,
+ * from an {@link OSCPacketParser}.
+ * @see OSCPacketVisitor
+ */
+public interface OSCFixedWidthArgumentVisitor {
+
+	/**
+	 * A 32 bit integer argument (<code>'i'</code>).
+	 * @param value the argument
+	 */
+	void intArg(int value);
+
+	/**
+	 * A 64 bit integer argument (<code>'h'</code>).
+	 * @param value the argument
+	 */
+	void longArg(long value);
+
+	/**
+	 * A 32 bit floating point argument (<code>'f'</code>).
+	 * @param value the argument
+	 */
+	void floatArg(float value);
+
+	/**
+	 * A 64 bit floating point argument (<code>'d'</code>).
+	 * @param value the argument
+	 */
+	void doubleArg(double value);
+
+	/**
+	 * An unsigned, 32 bit integer argument (<code>'u'</code>).
+	 * @param value the argument, in the range [0, 2^32)
+	 */
+	void unsignedIntArg(long value);
+
+	/**
+	 * A character argument (<code>'c'</code>).
+	 * @param value the argument
+	 */
+	void charArg(char value);
+
+	/**
+	 * An RGBA color argument (<code>'r'</code>).
+	 * @param rgba the color components, red in the most significant byte
+	 */
+	void colorArg(int rgba);
+
+	/**
+	 * A MIDI message argument (<code>'m'</code>).
+	 * @param message the bytes of the MIDI message,
+	 *   the port ID in the most significant one
+	 */
+	void midiMessageArg(int message);
+
+	/**
+	 * A time tag argument (<code>'t'</code>).
+	 * @param timeTag the raw, 64 bit NTP time tag,
+	 *   see {@link OSCPacketParser#toDate(long)}
+	 */
+	void timeTagArg(long timeTag);
+}
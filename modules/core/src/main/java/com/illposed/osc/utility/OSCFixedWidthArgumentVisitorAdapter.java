@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+/**
+ * An {@link OSCFixedWidthArgumentVisitor} that ignores everything.
+ * Extend this class and override only the callbacks of interest.
+ */
+public class OSCFixedWidthArgumentVisitorAdapter implements OSCFixedWidthArgumentVisitor {
+
+	protected OSCFixedWidthArgumentVisitorAdapter() {
+		// only to be extended
+	}
+
+	@Override
+	public void intArg(int value) {
+		// ignored
+	}
+
+	@Override
+	public void longArg(long value) {
+		// ignored
+	}
+
+	@Override
+	public void floatArg(float value) {
+		// ignored
+	}
+
+	@Override
+	public void doubleArg(double value) {
+		// ignored
+	}
+
+	@Override
+	public void unsignedIntArg(long value) {
+		// ignored
+	}
+
+	@Override
+	public void charArg(char value) {
+		// ignored
+	}
+
+	@Override
+	public void colorArg(int rgba) {
+		// ignored
+	}
+
+	@Override
+	public void midiMessageArg(int message) {
+		// ignored
+	}
+
+	@Override
+	public void timeTagArg(long timeTag) {
+		// ignored
+	}
+}
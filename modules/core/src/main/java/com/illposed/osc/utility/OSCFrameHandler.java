@@ -0,0 +1,27 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+/**
+ * Receives the packets read from a stream by an {@link AbstractOSCStreamFramer}.
+ */
+public interface OSCFrameHandler {
+
+	/**
+	 * Handles a single packet, in place.
+	 * The bytes are only valid until this method returns.
+	 * @param bytes contains the packet
+	 * @param offset where the packet starts in <code>bytes</code>
+	 * @param length the size of the packet in bytes
+	 * @return <code>true</code> to go on with the next packet,
+	 *   <code>false</code> to stop framing the bytes read,
+	 *   for example because the stream was closed meanwhile
+	 */
+	boolean handleFrame(byte[] bytes, int offset, int length);
+}
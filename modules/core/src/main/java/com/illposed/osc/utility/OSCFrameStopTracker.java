@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+/**
+ * Passes the packets decoded by an {@link AbstractOSCStreamFramer}
+ * on to the actual handler, and notes whether it asks to stop.
+ * A framer reuses a single tracker for all its reads.
+ */
+final class OSCFrameStopTracker implements OSCFrameHandler {
+
+	private OSCFrameHandler handler;
+	private boolean goingOn;
+
+	OSCFrameStopTracker() {
+
+		this.handler = null;
+		this.goingOn = true;
+	}
+
+	/**
+	 * Starts passing packets to a handler.
+	 * @param newHandler receives the packets from now on,
+	 *   or <code>null</code> to not keep the last one alive
+	 */
+	public void track(final OSCFrameHandler newHandler) {
+
+		handler = newHandler;
+		if (newHandler != null) {
+			goingOn = true;
+		}
+	}
+
+	/**
+	 * Indicates whether the handler wants more packets.
+	 * @return <code>false</code> if the handler asked to stop
+	 *   since {@link #track(OSCFrameHandler)} was last called with it
+	 */
+	public boolean isGoingOn() {
+		return goingOn;
+	}
+
+	@Override
+	public boolean handleFrame(final byte[] bytes, final int offset, final int length) {
+
+		goingOn = handler.handleFrame(bytes, offset, length);
+		return goingOn;
+	}
+}
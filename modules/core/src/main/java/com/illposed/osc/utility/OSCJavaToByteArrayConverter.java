@@ -8,9 +8,10 @@
 
 package com.illposed.osc.utility;
 
-import com.illposed.osc.OSCImpulse;
+import com.illposed.osc.OSCPackedArray;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Date;
@@ -47,6 +48,10 @@ public class OSCJavaToByteArrayConverter {
 	private Charset charset;
 	private final byte[] intBytes;
 	private final byte[] longintBytes;
+	/** Re-used for encoding ASCII strings. */
+	private byte[] stringBytes;
+	/** Re-used for encoding primitive arrays in bulk. */
+	private byte[] arrayBytes;
 
 	public OSCJavaToByteArrayConverter() {
 
@@ -54,6 +59,8 @@ public class OSCJavaToByteArrayConverter {
 		this.charset = Charset.defaultCharset();
 		this.intBytes = new byte[4];
 		this.longintBytes = new byte[8];
+		this.stringBytes = new byte[32];
+		this.arrayBytes = new byte[64];
 	}
 
 	/**
@@ -103,6 +110,78 @@ public class OSCJavaToByteArrayConverter {
 		alignStream();
 	}
 
+	/**
+	 * Write a packed array into the byte stream, as a blob.
+	 * @param packedArray the array to be written,
+	 *   preceded by its blob length and header
+	 */
+	public void write(OSCPackedArray packedArray) {
+
+		writeInteger32ToByteArray(packedArray.getEncodedLength());
+		stream.write('[');
+		stream.write(packedArray.getElementType());
+		stream.write(']');
+		stream.write(0);
+		writePrimitiveArray(packedArray.getArray());
+		// the size of the elements is a multiple of 4, so we are aligned
+	}
+
+	/**
+	 * Returns the OSC type tag of the elements of a primitive array.
+	 * @param argument the argument to check
+	 * @return <code>'i'</code>, <code>'f'</code>, <code>'h'</code> or
+	 *   <code>'d'</code> for arrays of <code>int</code>, <code>float</code>,
+	 *   <code>long</code> or <code>double</code>,
+	 *   and <code>0</code> for anything else
+	 */
+	static char primitiveArrayType(final Object argument) {
+
+		if (argument instanceof int[]) {
+			return 'i';
+		} else if (argument instanceof float[]) {
+			return 'f';
+		} else if (argument instanceof long[]) {
+			return 'h';
+		} else if (argument instanceof double[]) {
+			return 'd';
+		} else {
+			return 0;
+		}
+	}
+
+	/**
+	 * Writes the elements of a primitive array in big-endian order,
+	 * all in one go, without alignment.
+	 * @param array an <code>int[]</code>, <code>float[]</code>,
+	 *   <code>long[]</code> or <code>double[]</code>
+	 */
+	private void writePrimitiveArray(final Object array) {
+
+		final char type = primitiveArrayType(array);
+		final int elementSize = ((type == 'i') || (type == 'f')) ? 4 : 8;
+		final int numBytes = primitiveArrayLength(array) * elementSize;
+		if (numBytes > arrayBytes.length) {
+			arrayBytes = new byte[Math.max(numBytes, arrayBytes.length * 2)];
+		}
+		// a buffer is big-endian by default, as is OSC
+		final ByteBuffer buffer = ByteBuffer.wrap(arrayBytes, 0, numBytes);
+		switch (type) {
+			case 'i' :
+				buffer.asIntBuffer().put((int[]) array);
+				break;
+			case 'f' :
+				buffer.asFloatBuffer().put((float[]) array);
+				break;
+			case 'h' :
+				buffer.asLongBuffer().put((long[]) array);
+				break;
+			default:
+				buffer.asDoubleBuffer().put((double[]) array);
+				break;
+		}
+		stream.write(arrayBytes, 0, numBytes);
+	}
+
 	/**
 	 * Write an integer into the byte stream.
 	 * @param anInt the integer to be written
@@ -127,6 +206,30 @@ public class OSCJavaToByteArrayConverter {
 		writeInteger64ToByteArray(Double.doubleToRawLongBits(aDouble));
 	}
 
+	/**
+	 * Write a float into the byte stream, without boxing it.
+	 * @param aFloat floating point number to be written
+	 */
+	public void write(float aFloat) {
+		writeInteger32ToByteArray(Float.floatToIntBits(aFloat));
+	}
+
+	/**
+	 * Write a double into the byte stream (8 bytes), without boxing it.
+	 * @param aDouble double precision floating point number to be written
+	 */
+	public void write(double aDouble) {
+		writeInteger64ToByteArray(Double.doubleToRawLongBits(aDouble));
+	}
+
+	/**
+	 * Write a 64 bit integer into the byte stream, without boxing it.
+	 * @param aLong the double precision integer to be written
+	 */
+	public void write(long aLong) {
+		writeInteger64ToByteArray(aLong);
+	}
+
 	/**
 	 * @param anInt the integer to be written
 	 */
@@ -185,12 +288,43 @@ public class OSCJavaToByteArrayConverter {
 	 * @param aString the string to be written
 	 */
 	public void write(String aString) {
-		final byte[] stringBytes = aString.getBytes(charset);
-		writeUnderHandler(stringBytes);
+
+		if (!writeAscii(aString)) {
+			final byte[] encodedBytes = aString.getBytes(charset);
+			writeUnderHandler(encodedBytes);
+		}
 		stream.write(0);
 		alignStream();
 	}
 
+	/**
+	 * Writes a string consisting of ASCII characters only,
+	 * without going through the character set encoder,
+	 * if the character set is ASCII compatible.
+	 * @param aString the string to be written
+	 * @return <code>false</code> if nothing was written,
+	 *   because the string or the character set are not ASCII
+	 */
+	private boolean writeAscii(final String aString) {
+
+		if (!OSCStringCache.isAsciiCompatible(charset)) {
+			return false;
+		}
+		final int length = aString.length();
+		if (length > stringBytes.length) {
+			stringBytes = new byte[Math.max(length, stringBytes.length * 2)];
+		}
+		for (int ci = 0; ci < length; ci++) {
+			final char aChar = aString.charAt(ci);
+			if (aChar >= 0x80) {
+				return false;
+			}
+			stringBytes[ci] = (byte) aChar;
+		}
+		stream.write(stringBytes, 0, length);
+		return true;
+	}
+
 	/**
 	 * Write a char into the byte stream, and ensure it is 4 byte aligned again.
 	 * @param aChar the character to be written
@@ -210,81 +344,190 @@ public class OSCJavaToByteArrayConverter {
 	}
 
 	/**
-	 * Checks whether the given object is represented by a type that comes without data.
-	 * @param anObject the object to inspect
-	 * @return whether the object to check consists of only its type information
+	 * Returns the handler for arguments of a certain class.
+	 * @param argumentClass the concrete class of an argument
+	 * @return the handler for the class, or <code>null</code> if there is none
 	 */
-	private boolean isNoDataObject(Object anObject) {
-		return ((anObject instanceof OSCImpulse)
-				|| (anObject instanceof Boolean)
-				|| (anObject == null));
+	@SuppressWarnings("unchecked")
+	private OSCArgumentHandler<Object> findHandler(final Class<?> argumentClass) {
+		return (OSCArgumentHandler<Object>) OSCArgumentHandlers.getDefault().lookup(argumentClass);
 	}
 
 	/**
 	 * Write an object into the byte stream.
+	 * The object is encoded by the {@link OSCArgumentHandler} registered
+	 * for its class, see {@link OSCArgumentHandlers#getDefault()}.
+	 * Arrays of <code>int</code>, <code>float</code>, <code>long</code>
+	 * and <code>double</code> are written in bulk, as OSC arrays.
 	 * @param anObject (usually) one of Float, Double, String, Character, Integer, Long,
 	 *   or array of these.
 	 */
 	public void write(Object anObject) {
-		// Can't do switch on class
-		if (anObject instanceof Collection) {
+
+		if (primitiveArrayType(anObject) != 0) {
+			writePrimitiveArray(anObject);
+		} else if (anObject instanceof Collection) {
 			@SuppressWarnings("unchecked") final Collection<Object> theArray = (Collection<Object>) anObject;
 			for (final Object entry : theArray) {
 				write(entry);
 			}
-		} else if (anObject instanceof Float) {
-			write((Float) anObject);
-		} else if (anObject instanceof Double) {
-			write((Double) anObject);
-		} else if (anObject instanceof String) {
-			write((String) anObject);
-		} else if (anObject instanceof byte[]) {
-			write((byte[]) anObject);
-		} else if (anObject instanceof Character) {
-			write((Character) anObject);
-		} else if (anObject instanceof Integer) {
-			write((Integer) anObject);
-		} else if (anObject instanceof Long) {
-			write((Long) anObject);
-		} else if (anObject instanceof Date) {
-			write((Date) anObject);
-		} else if (!isNoDataObject(anObject)) {
-			throw new UnsupportedOperationException("Do not know how to write an object of class: "
-					+ anObject.getClass());
+		} else if (anObject != null) {
+			final OSCArgumentHandler<Object> handler = findHandler(anObject.getClass());
+			if (handler == null) {
+				throw new UnsupportedOperationException(
+						"Do not know how to write an object of class: " + anObject.getClass());
+			}
+			handler.write(this, anObject);
 		}
 	}
 
+	/**
+	 * Indicates whether the OSC type tag of an argument depends on its class only,
+	 * and is thus the same for all arguments of that class.
+	 * It is not for collections and primitive arrays,
+	 * nor for arguments whose handler tells the type tag by the value,
+	 * like the one for {@link Boolean}s,
+	 * see {@link OSCArgumentHandler#getClassTypeTag()}.
+	 * @param argument the argument to check, may be <code>null</code>
+	 * @return <code>true</code> if all arguments of the same class
+	 *   have the same type tag
+	 */
+	public boolean isTypeTagOfClass(Object argument) {
+
+		boolean ofClass;
+		if (argument == null) {
+			ofClass = true;
+		} else if ((primitiveArrayType(argument) != 0) || (argument instanceof Collection)) {
+			ofClass = false;
+		} else {
+			final OSCArgumentHandler<Object> handler = findHandler(argument.getClass());
+			ofClass = (handler != null)
+					&& (handler.getClassTypeTag() != OSCArgumentHandler.VALUE_DEPENDENT);
+		}
+		return ofClass;
+	}
+
 	/**
 	 * Write the OSC specification type tag for the type a certain Java type
 	 * converts to.
 	 * @param typeClass Class of a Java object in the arguments
+	 * @throws UnsupportedOperationException if there is no handler for the class,
+	 *   or if the type tag depends on the value
 	 */
 	public void writeType(Class typeClass) {
 
-		// A big ol' else-if chain -- what's polymorphism mean, again?
-		// I really wish I could extend the base classes!
-		if (Integer.class.equals(typeClass)) {
-			stream.write('i');
-		} else if (Long.class.equals(typeClass)) {
-			stream.write('h');
-		} else if (Date.class.equals(typeClass)) {
-			stream.write('t');
-		} else if (Float.class.equals(typeClass)) {
-			stream.write('f');
-		} else if (Double.class.equals(typeClass)) {
-			stream.write('d');
-		} else if (String.class.equals(typeClass)) {
-			stream.write('s');
-		} else if (byte[].class.equals(typeClass)) {
-			stream.write('b');
-		} else if (Character.class.equals(typeClass)) {
-			stream.write('c');
-		} else if (OSCImpulse.class.equals(typeClass)) {
-			stream.write('I');
-		} else {
+		@SuppressWarnings("unchecked")
+		final OSCArgumentHandler<Object> handler = findHandler(typeClass);
+		if ((handler == null) || (handler.getClassTypeTag() == OSCArgumentHandler.VALUE_DEPENDENT)) {
 			throw new UnsupportedOperationException("Do not know the OSC type for the java class: "
 					+ typeClass);
 		}
+		stream.write(handler.getClassTypeTag());
+	}
+
+	/**
+	 * Returns the type tag of a single, non-array argument.
+	 * @param argument the argument to find the type tag of
+	 * @return the OSC type tag of the argument
+	 */
+	private char typeTagOf(final Object argument) {
+
+		if (null == argument) {
+			return 'N';
+		}
+		final OSCArgumentHandler<Object> handler = findHandler(argument.getClass());
+		if (handler == null) {
+			throw new UnsupportedOperationException(
+					"Do not know the OSC type for the java class: " + argument.getClass());
+		}
+		return handler.getTypeTag(argument);
+	}
+
+	/**
+	 * Returns the number of elements of a primitive array.
+	 * @param array an <code>int[]</code>, <code>float[]</code>,
+	 *   <code>long[]</code> or <code>double[]</code>
+	 * @return the length of the array
+	 */
+	private static int primitiveArrayLength(final Object array) {
+
+		switch (primitiveArrayType(array)) {
+			case 'i' : return ((int[]) array).length;
+			case 'f' : return ((float[]) array).length;
+			case 'h' : return ((long[]) array).length;
+			default: return ((double[]) array).length;
+		}
+	}
+
+	/**
+	 * Write the OSC type tag(s) for a single argument.
+	 * Collections and primitive arrays are written as arrays,
+	 * using <code>'['</code> and <code>']'</code>,
+	 * enclosing the type tags of their elements.
+	 * @param argument the argument to write the type tag(s) of
+	 */
+	public void writeArgumentType(Object argument) {
+
+		final char elementType = primitiveArrayType(argument);
+		if (elementType != 0) {
+			stream.write('[');
+			for (int ei = primitiveArrayLength(argument); ei > 0; ei--) {
+				stream.write(elementType);
+			}
+			stream.write(']');
+		} else if (argument instanceof Collection) {
+			// If the array at i is a type of array, write a '['.
+			// This is used for nested arguments.
+			stream.write('[');
+			// fill the [] with the SuperCollider types corresponding to
+			// the object (e.g., Object of type String needs -s).
+			@SuppressWarnings("unchecked") Collection<Object> collArg = (Collection<Object>) argument;
+			writeTypesArray(collArg);
+			// close the array
+			stream.write(']');
+		} else {
+			stream.write(typeTagOf(argument));
+		}
+	}
+
+	/**
+	 * Appends the OSC type tag(s) for a single argument to a signature.
+	 * Collections are added as arrays, like in
+	 * {@link #writeArgumentType(Object)}.
+	 * @param signature where to add the type tag(s) to
+	 * @param argument the argument to add the type tag(s) of
+	 */
+	public void appendArgumentType(OSCSignatureBuilder signature, Object argument) {
+
+		final char elementType = primitiveArrayType(argument);
+		if (elementType != 0) {
+			signature.add('[');
+			for (int ei = primitiveArrayLength(argument); ei > 0; ei--) {
+				signature.add(elementType);
+			}
+			signature.add(']');
+		} else if (argument instanceof Collection) {
+			signature.add('[');
+			@SuppressWarnings("unchecked") Collection<Object> collArg = (Collection<Object>) argument;
+			for (final Object element : collArg) {
+				appendArgumentType(signature, element);
+			}
+			signature.add(']');
+		} else {
+			signature.add(typeTagOf(argument));
+		}
+	}
+
+	/**
+	 * Write the type tags of a message, including the leading <code>','</code>
+	 * and the terminating zero and padding.
+	 * This is equivalent to writing <code>','</code>,
+	 * followed by {@link #writeTypes(Collection)},
+	 * but copies the pre-encoded bytes of the signature in one go.
+	 * @param signature the type tags of the message
+	 */
+	public void write(OSCSignature signature) {
+		writeUnderHandler(signature.getEncodedBytes());
 	}
 
 	/**
@@ -294,39 +537,16 @@ public class OSCJavaToByteArrayConverter {
 	private void writeTypesArray(Collection<Object> arguments) {
 
 		for (final Object argument : arguments) {
-			if (null == argument) {
-				stream.write('N');
-			} else if (argument instanceof Collection) {
-				// If the array at i is a type of array, write a '['.
-				// This is used for nested arguments.
-				stream.write('[');
-				// fill the [] with the SuperCollider types corresponding to
-				// the object (e.g., Object of type String needs -s).
-				// XXX Why not call this function, recursively? The only reason would be, to not allow nested arrays, but the specification does not say anythign about them not being allowed.
-				@SuppressWarnings("unchecked") Collection<Object> collArg = (Collection<Object>) argument;
-				writeTypesArray(collArg);
-				// close the array
-				stream.write(']');
-			} else if (Boolean.TRUE.equals(argument)) {
-				stream.write('T');
-			} else if (Boolean.FALSE.equals(argument)) {
-				stream.write('F');
-			} else {
-				// go through the array and write the superCollider types as shown
-				// in the above method.
-				// The classes derived here are used as the arg to the above method.
-				writeType(argument.getClass());
-			}
+			writeArgumentType(argument);
 		}
 	}
 
 	/**
-	 * Write types for the arguments.
-	 * @param arguments  the arguments to an OSCMessage
+	 * Terminates the type tags of a message,
+	 * after they were written with {@link #writeArgumentType(Object)}.
 	 */
-	public void writeTypes(Collection<Object> arguments) {
+	public void terminateTypes() {
 
-		writeTypesArray(arguments);
 		// we always need to terminate with a zero,
 		// even if (especially when) the stream is already aligned.
 		stream.write(0);
@@ -334,6 +554,16 @@ public class OSCJavaToByteArrayConverter {
 		alignStream();
 	}
 
+	/**
+	 * Write types for the arguments.
+	 * @param arguments  the arguments to an OSCMessage
+	 */
+	public void writeTypes(Collection<Object> arguments) {
+
+		writeTypesArray(arguments);
+		terminateTypes();
+	}
+
 	/**
 	 * Write bytes to the stream, catching IOExceptions and converting them to
 	 * RuntimeExceptions.
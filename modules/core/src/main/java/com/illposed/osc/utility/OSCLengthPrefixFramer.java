@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Frames OSC packets as described by the OSC 1.0 specification
+ * for stream-oriented protocols:
+ * each packet is preceded by its size, as a big-endian int32.
+ * This is what SuperCollider uses over TCP.
+ */
+public class OSCLengthPrefixFramer extends AbstractOSCStreamFramer {
+
+	private static final int HEADER_SIZE = 4;
+
+	/** Re-used for writing a frame in one go. */
+	private byte[] frameBytes;
+
+	/**
+	 * Creates a framer accepting packets of up to
+	 * {@link #DEFAULT_MAX_FRAME_SIZE} bytes.
+	 */
+	public OSCLengthPrefixFramer() {
+		this(DEFAULT_MAX_FRAME_SIZE);
+	}
+
+	/**
+	 * Creates a framer.
+	 * @param maxFrameSize the largest packet to accept, in bytes
+	 */
+	public OSCLengthPrefixFramer(int maxFrameSize) {
+		super(maxFrameSize);
+
+		this.frameBytes = new byte[64];
+	}
+
+	@Override
+	public AbstractOSCStreamFramer newFramer() {
+		return new OSCLengthPrefixFramer(getMaxFrameSize());
+	}
+
+	@Override
+	protected int getMaxOverhead() {
+		return HEADER_SIZE;
+	}
+
+	@Override
+	protected int decodeFrames(
+			final byte[] bytes,
+			final int fromIndex,
+			final int toIndex,
+			final OSCFrameHandler handler)
+			throws IOException
+	{
+		int position = fromIndex;
+		boolean more = true;
+		while (more && ((toIndex - position) >= HEADER_SIZE)) {
+			final int frameLength = ((bytes[position] & 0xFF) << 24)
+					| ((bytes[position + 1] & 0xFF) << 16)
+					| ((bytes[position + 2] & 0xFF) << 8)
+					| (bytes[position + 3] & 0xFF);
+			if ((frameLength < 0) || (frameLength > getMaxFrameSize())) {
+				throw new IOException("Invalid frame length: " + frameLength);
+			}
+			if ((toIndex - position - HEADER_SIZE) < frameLength) {
+				// wait for the rest of the frame
+				break;
+			}
+			more = handler.handleFrame(bytes, position + HEADER_SIZE, frameLength);
+			position += HEADER_SIZE + frameLength;
+		}
+		return position;
+	}
+
+	@Override
+	protected void resetFrame() {
+		// all state is in the buffer
+	}
+
+	@Override
+	public void writeFrame(OutputStream output, byte[] bytes, int offset, int length)
+			throws IOException
+	{
+		final int frameLength = HEADER_SIZE + length;
+		if (frameLength > frameBytes.length) {
+			frameBytes = new byte[Math.max(frameLength, frameBytes.length * 2)];
+		}
+		frameBytes[0] = (byte) (length >>> 24);
+		frameBytes[1] = (byte) (length >>> 16);
+		frameBytes[2] = (byte) (length >>> 8);
+		frameBytes[3] = (byte) length;
+		System.arraycopy(bytes, offset, frameBytes, HEADER_SIZE, length);
+		output.write(frameBytes, 0, frameLength);
+	}
+}
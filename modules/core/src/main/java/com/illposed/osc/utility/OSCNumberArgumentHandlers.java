@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import com.illposed.osc.OSCColor;
+import com.illposed.osc.OSCMidiMessage;
+import com.illposed.osc.OSCUnsigned;
+
+/**
+ * The handlers for the standard argument types encoded as plain numbers,
+ * registered with every new {@link OSCArgumentHandlers} registry.
+ */
+final class OSCNumberArgumentHandlers {
+
+	private OSCNumberArgumentHandlers() {
+		// utility class
+	}
+
+	/**
+	 * Registers the handlers for the number argument types.
+	 * @param handlers the registry to add the handlers to
+	 */
+	public static void registerAll(final OSCArgumentHandlers handlers) {
+
+		handlers.register(new OSCTypeTagHandler<Integer>(Integer.class, 'i') {
+			@Override
+			public void write(final OSCJavaToByteArrayConverter stream, final Integer value) {
+				stream.write((int) value);
+			}
+		});
+		handlers.register(new OSCTypeTagHandler<Long>(Long.class, 'h') {
+			@Override
+			public void write(final OSCJavaToByteArrayConverter stream, final Long value) {
+				stream.write((long) value);
+			}
+		});
+		handlers.register(new OSCTypeTagHandler<Float>(Float.class, 'f') {
+			@Override
+			public void write(final OSCJavaToByteArrayConverter stream, final Float value) {
+				stream.write((float) value);
+			}
+		});
+		handlers.register(new OSCTypeTagHandler<Double>(Double.class, 'd') {
+			@Override
+			public void write(final OSCJavaToByteArrayConverter stream, final Double value) {
+				stream.write((double) value);
+			}
+		});
+		handlers.register(new OSCTypeTagHandler<OSCUnsigned>(OSCUnsigned.class, 'u') {
+			@Override
+			public void write(final OSCJavaToByteArrayConverter stream, final OSCUnsigned value) {
+				stream.write(value.intValue());
+			}
+		});
+		handlers.register(new OSCTypeTagHandler<OSCColor>(OSCColor.class, 'r') {
+			@Override
+			public void write(final OSCJavaToByteArrayConverter stream, final OSCColor value) {
+				stream.write(value.toRGBA());
+			}
+		});
+		handlers.register(new OSCTypeTagHandler<OSCMidiMessage>(OSCMidiMessage.class, 'm') {
+			@Override
+			public void write(final OSCJavaToByteArrayConverter stream, final OSCMidiMessage value) {
+				stream.write(value.toInt());
+			}
+		});
+	}
+}
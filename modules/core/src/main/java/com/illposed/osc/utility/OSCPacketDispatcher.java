@@ -10,26 +10,99 @@ package com.illposed.osc.utility;
 
 import com.illposed.osc.AddressSelector;
 import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCImmutableBundle;
+import com.illposed.osc.OSCImmutableMessage;
 import com.illposed.osc.OSCListener;
 import com.illposed.osc.OSCMessage;
 import com.illposed.osc.OSCPacket;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Dispatches {@link OSCPacket}s to registered listeners (<i>Method</i>s).
  *
+ * Optionally, the listeners matching an address may be cached,
+ * see {@link #setMatchCacheEnabled(boolean)},
+ * and the time each listener takes may be observed,
+ * see {@link #setDispatchObserver(OSCDispatchObserver)}.
+ *
  * @author Chandrasekhar Ramakrishnan
  */
 public class OSCPacketDispatcher {
 
+	/** The maximum number of addresses kept in the match cache. */
+	public static final int MAX_MATCH_CACHE_SIZE = 1024;
+	private static final OSCListener[] NO_LISTENERS = new OSCListener[0];
+
 	private final Map<AddressSelector, OSCListener> selectorToListener;
+	/**
+	 * The listeners whose selectors match an address, keyed by that address;
+	 * <code>null</code> if disabled.
+	 */
+	private Map<String, CachedMatch> matchCache;
+	/**
+	 * Incremented whenever a listener is added,
+	 * which invalidates all the matches cached before.
+	 */
+	private final AtomicLong listenersVersion;
+	private final AtomicReference<OSCDispatchObserver> dispatchObserver;
 
 	public OSCPacketDispatcher() {
 		this.selectorToListener = new HashMap<AddressSelector, OSCListener>();
+		this.matchCache = null;
+		this.listenersVersion = new AtomicLong();
+		this.dispatchObserver = new AtomicReference<OSCDispatchObserver>();
+	}
+
+	/**
+	 * Indicates whether the listeners matching an address are cached.
+	 * @return <code>true</code> if the matching listeners are cached
+	 */
+	public boolean isMatchCacheEnabled() {
+		return matchCache != null;
+	}
+
+	/**
+	 * Sets whether to cache the listeners matching an address.
+	 * With the cache enabled, the selectors are only asked once per address
+	 * (for up to {@link #MAX_MATCH_CACHE_SIZE} different addresses),
+	 * which is a lot cheaper for pattern matching selectors.
+	 * This requires all selectors to always give the same answer
+	 * for the same address.
+	 * Looking up addresses is cheapest if they are interned, see
+	 * {@link OSCByteArrayToJavaConverter#setAddressCache(OSCStringCache)},
+	 * as then they are compared by identity.
+	 * @param enabled whether to cache the matching listeners
+	 */
+	public void setMatchCacheEnabled(boolean enabled) {
+		this.matchCache = enabled ? new ConcurrentHashMap<String, CachedMatch>() : null;
+	}
+
+	/**
+	 * Returns the observer informed about each listener call.
+	 * @return the observer, or <code>null</code> if there is none
+	 */
+	public OSCDispatchObserver getDispatchObserver() {
+		return dispatchObserver.get();
+	}
+
+	/**
+	 * Sets an observer to be informed about each listener call,
+	 * including how long it took.
+	 * Without an observer, listener calls are not timed.
+	 * This may be changed at any time, even while dispatching.
+	 * @param dispatchObserver the new observer,
+	 *   or <code>null</code> to remove the current one
+	 */
+	public void setDispatchObserver(OSCDispatchObserver dispatchObserver) {
+		this.dispatchObserver.set(dispatchObserver);
 	}
 
 	/**
@@ -41,33 +114,153 @@ public class OSCPacketDispatcher {
 	 */
 	public void addListener(AddressSelector addressSelector, OSCListener listener) {
 		selectorToListener.put(addressSelector, listener);
+		// a dispatching thread may still cache a match made before the put,
+		// but it will be tagged with the old version, and thus be ignored
+		listenersVersion.incrementAndGet();
+		if (matchCache != null) {
+			matchCache.clear();
+		}
 	}
 
 	public void dispatchPacket(OSCPacket packet) {
 		dispatchPacket(packet, null);
 	}
 
+	/**
+	 * Dispatches a packet to the listeners of all the messages it contains.
+	 * Besides {@link OSCMessage}s and {@link OSCBundle}s,
+	 * this accepts {@link OSCImmutableMessage}s and {@link OSCImmutableBundle}s;
+	 * as listeners receive {@link OSCMessage}s,
+	 * each immutable message is handed to them as a mutable copy.
+	 * @param packet a message or bundle
+	 * @param timestamp the time-tag to dispatch a message with;
+	 *   ignored for bundles, which use their own
+	 */
 	public void dispatchPacket(OSCPacket packet, Date timestamp) {
 		if (packet instanceof OSCBundle) {
-			dispatchBundle((OSCBundle) packet);
-		} else {
+			final OSCBundle bundle = (OSCBundle) packet;
+			dispatchPackets(bundle.getPackets(), bundle.getTimestamp());
+		} else if (packet instanceof OSCImmutableBundle) {
+			final OSCImmutableBundle bundle = (OSCImmutableBundle) packet;
+			dispatchPackets(bundle.getPackets(), bundle.getTimestamp());
+		} else if (packet instanceof OSCImmutableMessage) {
+			dispatchMessage(((OSCImmutableMessage) packet).toMessage(), timestamp);
+		} else if (packet instanceof OSCMessage) {
 			dispatchMessage((OSCMessage) packet, timestamp);
+		} else {
+			throw new IllegalArgumentException("Can not dispatch packets of type "
+					+ packet.getClass().getName() + "; decode their encoded form instead");
 		}
 	}
 
-	private void dispatchBundle(OSCBundle bundle) {
-		final Date timestamp = bundle.getTimestamp();
-		final List<OSCPacket> packets = bundle.getPackets();
-		for (final OSCPacket packet : packets) {
-			dispatchPacket(packet, timestamp);
+	/**
+	 * Indicates whether a packet can be dispatched as it is.
+	 * Other kinds of packets, like {@link com.illposed.osc.OSCMessageTemplate}s,
+	 * have to be encoded and decoded first.
+	 * @param packet to be dispatched
+	 * @return <code>true</code> if the packet is a message,
+	 *   or a bundle containing only such packets, as accepted by
+	 *   {@link #dispatchPacket(OSCPacket, Date)}
+	 */
+	public static boolean isDispatchable(OSCPacket packet) {
+
+		boolean dispatchable;
+		if (packet instanceof OSCBundle) {
+			dispatchable = areDispatchable(((OSCBundle) packet).getPackets());
+		} else if (packet instanceof OSCImmutableBundle) {
+			dispatchable = areDispatchable(((OSCImmutableBundle) packet).getPackets());
+		} else {
+			dispatchable = (packet instanceof OSCMessage)
+					|| (packet instanceof OSCImmutableMessage);
+		}
+		return dispatchable;
+	}
+
+	private static boolean areDispatchable(final List<OSCPacket> packets) {
+
+		boolean dispatchable = true;
+		for (int pi = 0; dispatchable && (pi < packets.size()); pi++) {
+			dispatchable = isDispatchable(packets.get(pi));
+		}
+		return dispatchable;
+	}
+
+	private void dispatchPackets(final List<OSCPacket> packets, final Date timestamp) {
+		// not using an iterator, so dispatching a pooled bundle creates no objects
+		for (int pi = 0; pi < packets.size(); pi++) {
+			dispatchPacket(packets.get(pi), timestamp);
 		}
 	}
 
 	private void dispatchMessage(OSCMessage message, Date time) {
+
+		final Map<String, CachedMatch> cache = matchCache;
+		final String address = message.getAddress();
+		if ((cache == null) || (address == null)) {
+			for (final Entry<AddressSelector, OSCListener> addrList : selectorToListener.entrySet()) {
+				if (addrList.getKey().matches(address)) {
+					deliver(addrList.getValue(), time, message);
+				}
+			}
+		} else {
+			for (final OSCListener listener : lookUpListeners(cache, address)) {
+				deliver(listener, time, message);
+			}
+		}
+	}
+
+	private void deliver(final OSCListener listener, final Date time, final OSCMessage message) {
+
+		final OSCDispatchObserver observer = dispatchObserver.get();
+		if (observer == null) {
+			listener.acceptMessage(time, message);
+		} else {
+			final Object token = observer.messageAccepting(listener, time, message);
+			final long start = System.nanoTime();
+			listener.acceptMessage(time, message);
+			observer.messageAccepted(token, listener, time, message, System.nanoTime() - start);
+		}
+	}
+
+	private OSCListener[] lookUpListeners(final Map<String, CachedMatch> cache, final String address) {
+
+		// read before matching, so a listener added meanwhile invalidates the result
+		final long version = listenersVersion.get();
+		final CachedMatch cached = cache.get(address);
+		CachedMatch match = cached;
+		if ((cached == null) || (cached.version != version)) {
+			match = new CachedMatch(version, address);
+			if (cache.size() < MAX_MATCH_CACHE_SIZE) {
+				cache.put(address, match);
+			}
+		}
+		return match.listeners;
+	}
+
+	private OSCListener[] findListeners(final String address) {
+
+		final List<OSCListener> listeners = new ArrayList<OSCListener>();
 		for (final Entry<AddressSelector, OSCListener> addrList : selectorToListener.entrySet()) {
-			if (addrList.getKey().matches(message.getAddress())) {
-				addrList.getValue().acceptMessage(time, message);
+			if (addrList.getKey().matches(address)) {
+				listeners.add(addrList.getValue());
 			}
 		}
+		return listeners.isEmpty() ? NO_LISTENERS : listeners.toArray(NO_LISTENERS);
+	}
+
+	/**
+	 * The listeners matching an address,
+	 * as of a certain version of the registered listeners.
+	 */
+	private final class CachedMatch {
+
+		private final long version;
+		private final OSCListener[] listeners;
+
+		CachedMatch(final long version, final String address) {
+
+			this.version = version;
+			this.listeners = findListeners(address);
+		}
 	}
 }
@@ -0,0 +1,368 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import com.illposed.osc.OSCBundle;
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+/**
+ * Walks through the bytes of an OSC packet once,
+ * reporting each of its parts to an {@link OSCPacketVisitor}.
+ *
+ * Parsing creates no objects, except for the signatures of yet unseen
+ * type tag strings (see {@link OSCSignature}).
+ * Whether the parts are turned into objects, and which ones,
+ * is entirely up to the visitor;
+ * {@link OSCByteArrayToJavaConverter}, for example,
+ * is a visitor creating {@link com.illposed.osc.OSCPacket}s.
+ *
+ * Bundles are parsed in place, without copying the contained packets.
+ * Whatever the received bytes look like, parsing either succeeds,
+ * or fails with an {@link OSCParseException},
+ * telling what is wrong and where;
+ * see {@link #setValidating(boolean)} for how strict the checks are.
+ * Packets may be parsed from byte arrays, or from heap, direct
+ * and memory mapped {@link ByteBuffer}s.
+ * A parser holds no state between calls,
+ * and may thus be used by multiple threads at the same time.
+ */
+public class OSCPacketParser {
+
+	private static final byte BUNDLE_IDENTIFIER = '#';
+	/** <code>"#bundle"</code>, including the terminating zero. */
+	private static final byte[] BUNDLE_START = {'#', 'b', 'u', 'n', 'd', 'l', 'e', 0};
+	/** <code>"#bundle"</code> and the time tag. */
+	private static final int BUNDLE_HEADER_LENGTH = BUNDLE_START.length + 8;
+	/**
+	 * How deep bundles may be nested within each other.
+	 * This keeps crafted packets from exhausting the stack.
+	 */
+	public static final int MAX_BUNDLE_DEPTH = 32;
+
+	/** Whether to reject packets that are decodable, but do not follow the specification. */
+	private boolean validating;
+	private final ThreadLocal<OSCPacketSource> sources;
+
+	/**
+	 * Creates a lenient parser.
+	 */
+	public OSCPacketParser() {
+
+		this.validating = false;
+		this.sources = new ThreadLocal<OSCPacketSource>() {
+			@Override
+			protected OSCPacketSource initialValue() {
+				return new OSCPacketSource();
+			}
+		};
+	}
+
+	/**
+	 * Indicates whether packets are checked strictly against the specification.
+	 * @return <code>true</code> if this parser rejects packets
+	 *   that do not strictly follow the specification
+	 * @see #setValidating(boolean)
+	 */
+	public boolean isValidating() {
+		return validating;
+	}
+
+	/**
+	 * Sets whether packets are checked strictly against the specification.
+	 * Whatever the setting, reads beyond the end of a packet are detected,
+	 * and reported with an {@link OSCParseException}.
+	 * Only a validating parser additionally rejects:
+	 * <ul>
+	 * <li>packets whose length is not a multiple of 4</li>
+	 * <li>bundles not starting with <code>"#bundle"</code></li>
+	 * <li>addresses not starting with <code>'/'</code></li>
+	 * <li>messages without a type tag string</li>
+	 * <li>unknown argument types,
+	 *   instead of reporting them with {@link OSCPacketVisitor#unknownArg(char)}</li>
+	 * <li>unbalanced array brackets</li>
+	 * <li>messages followed by unused bytes</li>
+	 * </ul>
+	 * @param validating <code>true</code> to reject packets
+	 *   that do not strictly follow the specification
+	 */
+	public void setValidating(boolean validating) {
+		this.validating = validating;
+	}
+
+	/**
+	 * Parses a packet that starts at the beginning of a byte array.
+	 * @param bytes the storage containing the raw OSC packet
+	 * @param bytesLength indicates how many bytes the package consists of
+	 *   (<code>&lt;= bytes.length</code>)
+	 * @param visitor receives the parts of the packet
+	 * @throws OSCParseException if the bytes are not a valid packet;
+	 *   the visitor may have received some of the parts already
+	 */
+	public void parse(byte[] bytes, int bytesLength, OSCPacketVisitor visitor) {
+		parse(bytes, 0, bytesLength, visitor);
+	}
+
+	/**
+	 * Parses a packet within a byte array.
+	 * @param bytes the storage containing the raw OSC packet
+	 * @param offset where the packet starts in <code>bytes</code>;
+	 *   alignment is relative to this position
+	 * @param length indicates how many bytes the package consists of
+	 * @param visitor receives the parts of the packet
+	 * @throws OSCParseException if the bytes are not a valid packet;
+	 *   the visitor may have received some of the parts already
+	 */
+	public void parse(byte[] bytes, int offset, int length, OSCPacketVisitor visitor) {
+
+		if ((offset < 0) || (length < 0) || (length > (bytes.length - offset))) {
+			throw new IllegalArgumentException("The packet (offset " + offset + ", length "
+					+ length + ") exceeds the array of size " + bytes.length);
+		}
+		final OSCPacketSource source = obtainSource();
+		source.wrap(bytes);
+		parse(source, offset, offset + length, visitor);
+	}
+
+	/**
+	 * Parses the packet between the position and the limit of a buffer.
+	 * The bytes are read in place, with absolute reads,
+	 * so the buffer may also be a direct or a memory mapped one.
+	 * Multi-byte values are always read in big-endian order,
+	 * whatever the {@link ByteBuffer#order() byte order} of the buffer.
+	 * Only the bytes of addresses, strings and blobs
+	 * are copied into a reused array,
+	 * in case the buffer is not backed by an accessible array.
+	 *
+	 * On success, the position of the buffer is moved to its limit,
+	 * so a stream of packets may be parsed from a single buffer,
+	 * by setting the limit to the end of each packet in turn.
+	 * If parsing fails, the position is left unchanged.
+	 * The buffer must not be modified by other threads during the call.
+	 *
+	 * On Java 22 and later, packets in a
+	 * <code>java.lang.foreign.MemorySegment</code> are parsed in place,
+	 * by passing <code>segment.asByteBuffer()</code> to this method.
+	 *
+	 * @param buffer contains the raw OSC packet
+	 *   between its position and its limit
+	 * @param visitor receives the parts of the packet
+	 * @throws OSCParseException if the bytes are not a valid packet;
+	 *   the visitor may have received some of the parts already
+	 */
+	public void parse(ByteBuffer buffer, OSCPacketVisitor visitor) {
+
+		final int position = buffer.position();
+		final int limit = buffer.limit();
+		if (buffer.hasArray()) {
+			final int arrayOffset = buffer.arrayOffset();
+			parse(buffer.array(), arrayOffset + position, limit - position, visitor);
+		} else {
+			final OSCPacketSource source = obtainSource();
+			source.wrap(buffer);
+			parse(source, position, limit, visitor);
+		}
+		buffer.position(limit);
+	}
+
+	private OSCPacketSource obtainSource() {
+
+		final OSCPacketSource source = sources.get();
+		// a visitor may parse an other packet while being called by us,
+		// for example one contained in a blob
+		return source.isInUse() ? new OSCPacketSource() : source;
+	}
+
+	/**
+	 * Parses the packet of a source, and releases the source afterwards.
+	 * @param start where the packet starts
+	 * @param end where the packet ends; exclusive
+	 */
+	private void parse(
+			final OSCPacketSource source,
+			final int start,
+			final int end,
+			final OSCPacketVisitor visitor)
+	{
+		try {
+			if (validating && (((end - start) % 4) != 0)) {
+				throw new OSCParseException(
+						"Packet length has to be a multiple of 4, is:" + (end - start), 0);
+			}
+			// The current position is passed around as a plain int,
+			// instead of being held in an object,
+			// so parsing does not allocate anything.
+			parsePacket(source, start, start, end, 0, visitor);
+		} finally {
+			// do not keep the packet alive
+			source.release();
+		}
+	}
+
+	/**
+	 * Parses the packet starting at the given position.
+	 * @param start where the outermost packet starts; used for alignment
+	 *   and to report offsets
+	 * @param position where the packet starts
+	 * @param end where the packet ends; exclusive
+	 * @param depth number of bundles enclosing the packet
+	 */
+	private void parsePacket(
+			final OSCPacketSource source,
+			final int start,
+			final int position,
+			final int end,
+			final int depth,
+			final OSCPacketVisitor visitor)
+	{
+		if (position >= end) {
+			throw new OSCParseException("Empty packet", position - start);
+		}
+		if (isBundle(source, position)) {
+			parseBundle(source, start, position, end, depth, visitor);
+		} else {
+			parseMessage(source, start, position, end, visitor);
+		}
+	}
+
+	/**
+	 * Checks whether the packet at the given position is a bundle.
+	 * From the OSC 1.0 specifications:
+	 * <quote>
+	 * The contents of an OSC packet must be either an OSC Message
+	 * or an OSC Bundle. The first byte of the packet's contents unambiguously
+	 * distinguishes between these two alternatives.
+	 * </quote>
+	 * @return true if the packet is a bundle, false o.w.
+	 */
+	private static boolean isBundle(final OSCPacketSource source, final int position) {
+		return source.byteAt(position) == BUNDLE_IDENTIFIER;
+	}
+
+	private void parseBundle(
+			final OSCPacketSource source,
+			final int start,
+			final int bundleStart,
+			final int bundleEnd,
+			final int depth,
+			final OSCPacketVisitor visitor)
+	{
+		if (depth >= MAX_BUNDLE_DEPTH) {
+			throw new OSCParseException("Bundles are nested more than "
+					+ MAX_BUNDLE_DEPTH + " levels deep", bundleStart - start);
+		}
+		OSCArgumentParser.require(start, bundleStart, BUNDLE_HEADER_LENGTH, bundleEnd,
+				"Truncated bundle header");
+		if (validating && !source.regionMatches(bundleStart, BUNDLE_START)) {
+			throw new OSCParseException("Bundle does not start with \"#bundle\"",
+					bundleStart - start);
+		}
+		// skip the "#bundle " stuff
+		int position = bundleStart + BUNDLE_START.length;
+		visitor.startBundle(source.int64At(position));
+		position += 8;
+		while (position < bundleEnd) {
+			OSCArgumentParser.require(start, position, 4, bundleEnd, "Truncated packet length");
+			final int packetLength = source.int32At(position);
+			if (packetLength == 0) {
+				throw new OSCParseException("Packet length may not be 0", position - start);
+			} else if ((packetLength % 4) != 0) {
+				throw new OSCParseException("Packet length has to be a multiple of 4, is:"
+						+ packetLength, position - start);
+			}
+			position += 4;
+			if ((packetLength < 0) || (packetLength > (bundleEnd - position))) {
+				throw new OSCParseException("Packet length exceeds the bundle, is:"
+						+ packetLength, position - 4 - start);
+			}
+			// parse the contained packet in place,
+			// instead of copying it into a new array
+			parsePacket(source, start, position, position + packetLength, depth + 1, visitor);
+			position += packetLength;
+		}
+		visitor.endBundle();
+	}
+
+	private void parseMessage(
+			final OSCPacketSource source,
+			final int start,
+			final int messageStart,
+			final int messageEnd,
+			final OSCPacketVisitor visitor)
+	{
+		if (validating && (source.byteAt(messageStart) != '/')) {
+			throw new OSCParseException("Address has to start with '/'", messageStart - start);
+		}
+		final int addressLength = source.lengthOfString(start, messageStart, messageEnd);
+		int position = OSCArgumentParser.skipString(start, messageStart, addressLength);
+
+		// The next byte should be a ',', but some legacy code may omit it
+		// in case of no arguments, refering to "OSC Messages" in:
+		// http://opensoundcontrol.org/spec-1_0
+		OSCSignature types;
+		if ((position < messageEnd) && (source.byteAt(position) == ',')) {
+			position++;
+			final int typesLength = source.lengthOfString(start, position, messageEnd);
+			types = OSCSignature.intern(
+					source.arrayOf(position, typesLength), source.offsetOf(position), typesLength);
+			position = OSCArgumentParser.skipString(start, position, typesLength);
+		} else if (validating) {
+			throw new OSCParseException("Missing type tag string", position - start);
+		} else {
+			types = OSCSignature.EMPTY;
+		}
+
+		visitor.startMessage(source.arrayOf(messageStart, addressLength),
+				source.offsetOf(messageStart), addressLength, types);
+		position = OSCArgumentParser.parseArguments(
+				source, start, position, messageEnd, types, validating, visitor);
+		if (validating && (position != messageEnd)) {
+			throw new OSCParseException("Unused bytes after the arguments", position - start);
+		}
+		visitor.endMessage();
+	}
+
+	/**
+	 * Converts a time tag to a Java Date object.
+	 * A time tag is a 64 bit number representing the time in NTP format.
+	 * The first 32 bits are seconds since 1900, the second 32 bits are
+	 * fractions of a second.
+	 * @param timeTag the raw 64 bits of the time tag
+	 * @return {@link OSCBundle#TIMESTAMP_IMMEDIATE} for the special time tag
+	 *   meaning "immediately", a new {@link Date} otherwise
+	 */
+	public static Date toDate(long timeTag) {
+
+		final long secsSince1900 = timeTag >>> 32;
+		long fraction = timeTag & 0xFFFFFFFFL;
+
+		// a time tag of 0 seconds and a fraction of 0 or 1
+		// has the semantics of "immediately"
+		Date date;
+		if ((secsSince1900 == 0) && (fraction <= 1)) {
+			date = OSCBundle.TIMESTAMP_IMMEDIATE;
+		} else {
+			long secsSince1970 = secsSince1900 - OSCBundle.SECONDS_FROM_1900_TO_1970;
+
+			// no point maintaining times in the distant past
+			if (secsSince1970 < 0) {
+				secsSince1970 = 0;
+			}
+
+			// this line was cribbed from jakarta commons-net's NTP TimeStamp code
+			fraction = (fraction * 1000) / 0x100000000L;
+
+			// I do not know where, but I'm losing 1ms somewhere...
+			fraction = (fraction > 0) ? fraction + 1 : 0;
+			final long millisecs = (secsSince1970 * 1000) + fraction;
+			date = new Date(millisecs);
+		}
+		return date;
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads the bytes of a packet for an {@link OSCPacketParser}, either from an array,
+ * or from a buffer without an accessible array.
+ * Each thread reuses its own instance, so parsing allocates nothing.
+ */
+final class OSCPacketSource {
+
+	/** The packet bytes, or <code>null</code> when reading from {@link #buffer}. */
+	private byte[] bytes;
+	private ByteBuffer buffer;
+	private boolean bigEndian;
+	/** Holds regions copied from {@link #buffer}. */
+	private byte[] scratch;
+
+	OSCPacketSource() {
+
+		this.bytes = null;
+		this.buffer = null;
+		this.bigEndian = true;
+		this.scratch = new byte[64];
+	}
+
+	/**
+	 * Reads the packet from an array, in place, until {@link #release()}.
+	 * @param packetBytes the storage containing the raw OSC packet
+	 */
+	@SuppressWarnings("PMD.ArrayIsStoredDirectly")
+	public void wrap(final byte[] packetBytes) {
+		// parsing in place is the point; the array is only kept during a parse call
+		this.bytes = packetBytes;
+	}
+
+	/**
+	 * Reads the packet from a buffer, with absolute reads, until {@link #release()}.
+	 * @param packetBuffer the buffer containing the raw OSC packet
+	 */
+	public void wrap(final ByteBuffer packetBuffer) {
+
+		this.buffer = packetBuffer;
+		this.bigEndian = (packetBuffer.order() == ByteOrder.BIG_ENDIAN);
+	}
+
+	/**
+	 * Forgets the packet, so it is not kept alive by us.
+	 */
+	public void release() {
+
+		bytes = null;
+		buffer = null;
+	}
+
+	public boolean isInUse() {
+		return (bytes != null) || (buffer != null);
+	}
+
+	public byte byteAt(final int index) {
+		return (bytes == null) ? buffer.get(index) : bytes[index];
+	}
+
+	/**
+	 * Reads a big-endian, 32 bit integer at the given position.
+	 * @return the raw 32 bits
+	 */
+	public int int32At(final int pos) {
+
+		int value;
+		if (bytes == null) {
+			value = buffer.getInt(pos);
+			if (!bigEndian) {
+				value = Integer.reverseBytes(value);
+			}
+		} else {
+			value = (bytes[pos] << 24)
+					| ((bytes[pos + 1] & 0xFF) << 16)
+					| ((bytes[pos + 2] & 0xFF) << 8)
+					| (bytes[pos + 3] & 0xFF);
+		}
+		return value;
+	}
+
+	/**
+	 * Reads a big-endian, 64 bit integer at the given position.
+	 * @return the raw 64 bits
+	 */
+	public long int64At(final int pos) {
+
+		final long high = int32At(pos);
+		final long low = int32At(pos + 4) & 0xFFFFFFFFL;
+		return (high << 32) | low;
+	}
+
+	/**
+	 * Returns an array containing a region of the packet,
+	 * at {@link #offsetOf(int)}.
+	 * The array may be reused by the next call.
+	 * @param index where the region starts in the packet
+	 * @param length of the region
+	 */
+	public byte[] arrayOf(final int index, final int length) {
+
+		byte[] array = bytes;
+		if (array == null) {
+			if (scratch.length < length) {
+				scratch = new byte[Math.max(length, scratch.length * 2)];
+			}
+			// there is no absolute bulk get in Java 6,
+			// so we move the position, and restore it afterwards
+			final int position = buffer.position();
+			buffer.position(index);
+			buffer.get(scratch, 0, length);
+			buffer.position(position);
+			array = scratch;
+		}
+		return array;
+	}
+
+	/**
+	 * Returns where a region of the packet starts
+	 * in the array returned by {@link #arrayOf(int, int)}.
+	 * @param index where the region starts in the packet
+	 */
+	public int offsetOf(final int index) {
+		return (bytes == null) ? 0 : index;
+	}
+
+	/**
+	 * Indicates whether the packet contains the given bytes at a position.
+	 * The bytes have to be available.
+	 * @param position where to look for the bytes
+	 * @param expected the bytes to look for
+	 * @return <code>true</code> if all the bytes match
+	 */
+	public boolean regionMatches(final int position, final byte[] expected) {
+
+		boolean matches = true;
+		for (int bi = 0; matches && (bi < expected.length); bi++) {
+			matches = (byteAt(position + bi) == expected[bi]);
+		}
+		return matches;
+	}
+
+	/**
+	 * Get the length of the string at the given position.
+	 * @param start where the outermost packet starts; to report the offset
+	 * @param end where the readable region ends; exclusive
+	 * @throws OSCParseException if the string is not terminated
+	 *   before <code>end</code>
+	 */
+	public int lengthOfString(final int start, final int position, final int end) {
+
+		int length = -1;
+		for (int bi = position; (length < 0) && (bi < end); bi++) {
+			if (byteAt(bi) == 0) {
+				length = bi - position;
+			}
+		}
+		if (length < 0) {
+			throw new OSCParseException("Unterminated string", Math.min(position, end) - start);
+		}
+		return length;
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+/**
+ * Receives the parts of an OSC packet, in the order they appear in the bytes,
+ * from an {@link OSCPacketParser}.
+ *
+ * This allows to process received packets without creating
+ * {@link com.illposed.osc.OSCMessage} and {@link com.illposed.osc.OSCBundle}
+ * objects, or any other objects, at all.
+ * A message results in the calls:
+ * <ol>
+ * <li>{@link #startMessage(byte[], int, int, OSCSignature)}</li>
+ * <li>one call per argument, for example {@link #intArg(int)};
+ *   the arguments of an array are enclosed in {@link #startArray()}
+ *   and {@link #endArray()}</li>
+ * <li>{@link #endMessage()}</li>
+ * </ol>
+ * The packets within a bundle are enclosed in
+ * {@link #startBundle(long)} and {@link #endBundle()}.
+ *
+ * Strings, blobs and addresses are handed over as regions of the
+ * raw packet bytes, which are only valid during the call.
+ * The arguments are reported through the callbacks inherited from
+ * {@link OSCArgumentVisitor}.
+ * Extend {@link OSCPacketVisitorAdapter} to only handle some of the callbacks.
+ */
+public interface OSCPacketVisitor extends OSCArgumentVisitor {
+
+	/**
+	 * Called at the start of a bundle.
+	 * @param timeTag the raw, 64 bit NTP time tag of the bundle,
+	 *   see {@link OSCPacketParser#toDate(long)}
+	 */
+	void startBundle(long timeTag);
+
+	/**
+	 * Called after the last packet of a bundle.
+	 */
+	void endBundle();
+
+	/**
+	 * Called at the start of a message.
+	 * @param bytes contains the encoded address
+	 * @param addressOffset where the address starts in <code>bytes</code>
+	 * @param addressLength length of the encoded address,
+	 *   excluding the terminating zero
+	 * @param signature the type tags of the arguments that follow
+	 */
+	void startMessage(byte[] bytes, int addressOffset, int addressLength, OSCSignature signature);
+
+	/**
+	 * Called after the last argument of a message.
+	 */
+	void endMessage();
+
+	/**
+	 * Called at the start of an array argument (<code>'['</code>).
+	 */
+	void startArray();
+
+	/**
+	 * Called after the last element of an array argument (<code>']'</code>).
+	 */
+	void endArray();
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+/**
+ * An {@link OSCPacketVisitor} that ignores everything.
+ * Extend this class and override only the callbacks of interest.
+ */
+public class OSCPacketVisitorAdapter extends OSCArgumentVisitorAdapter implements OSCPacketVisitor {
+
+	protected OSCPacketVisitorAdapter() {
+		// only to be extended
+	}
+
+	@Override
+	public void startBundle(long timeTag) {
+		// ignored
+	}
+
+	@Override
+	public void endBundle() {
+		// ignored
+	}
+
+	@Override
+	public void startMessage(byte[] bytes, int addressOffset, int addressLength, OSCSignature signature) {
+		// ignored
+	}
+
+	@Override
+	public void endMessage() {
+		// ignored
+	}
+
+	@Override
+	public void startArray() {
+		// ignored
+	}
+
+	@Override
+	public void endArray() {
+		// ignored
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+/**
+ * Indicates that received bytes do not form a valid OSC packet.
+ *
+ * This is the only exception thrown while decoding a packet,
+ * whatever the bytes look like.
+ * It extends {@link IllegalArgumentException},
+ * which was thrown for some malformed packets before.
+ */
+public class OSCParseException extends IllegalArgumentException {
+
+	private final String reason;
+	private final int offset;
+
+	/**
+	 * Creates an exception for a problem found at a certain position.
+	 * @param reason describes what is wrong with the packet
+	 * @param offset where the problem was found,
+	 *   relative to the start of the packet
+	 */
+	public OSCParseException(String reason, int offset) {
+		this(reason, offset, null);
+	}
+
+	/**
+	 * Creates an exception for a problem found at a certain position,
+	 * caused by an other exception.
+	 * @param reason describes what is wrong with the packet
+	 * @param offset where the problem was found,
+	 *   relative to the start of the packet
+	 * @param cause the exception that revealed the problem
+	 */
+	public OSCParseException(String reason, int offset, Throwable cause) {
+		super(reason + " (at byte " + offset + ")", cause);
+
+		this.reason = reason;
+		this.offset = offset;
+	}
+
+	/**
+	 * Describes what is wrong with the packet.
+	 * @return the reason of the failure, without the offset
+	 */
+	public String getReason() {
+		return reason;
+	}
+
+	/**
+	 * Returns where in the packet the problem was found.
+	 * @return the position relative to the start of the (outermost) packet
+	 */
+	public int getOffset() {
+		return offset;
+	}
+}
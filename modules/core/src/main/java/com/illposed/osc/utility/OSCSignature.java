@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * The type tags of an OSC message, for example <code>"iff"</code>.
+ *
+ * Signatures are immutable and interned:
+ * Most applications use only few distinct signatures,
+ * so each one is created once, and then shared by all messages
+ * that are encoded or decoded with it.
+ * Looking up a signature by its raw type tag bytes creates no objects.
+ *
+ * Each signature also knows its encoded form
+ * (including the leading <code>','</code> and the padding),
+ * and the position of each argument within the argument data,
+ * as far as all preceding arguments are of fixed width.
+ * Messages whose arguments are all of fixed width
+ * (see {@link #isFixedLayout()}) may thus be decoded
+ * by reading directly at pre-computed offsets.
+ */
+public final class OSCSignature implements CharSequence {
+
+	/**
+	 * The maximum number of signatures kept in the intern cache,
+	 * see {@link OSCSignatureCache}.
+	 */
+	public static final int MAX_CACHED = 1024;
+	/** Offset of arguments whose position depends on variable-width data. */
+	public static final int VARIABLE_OFFSET = -1;
+
+	/** Type tags are plain ASCII. */
+	private static final Charset TAGS_CHARSET = Charset.forName("ISO-8859-1");
+	private static final OSCSignatureCache CACHE = new OSCSignatureCache(MAX_CACHED);
+
+	/** The signature of messages without arguments. */
+	public static final OSCSignature EMPTY = CACHE.intern(new byte[0], 0, 0);
+
+	private final byte[] tags;
+	private final byte[] encoded;
+	private final int[] offsets;
+	private final int fixedLength;
+	private final int hash;
+	private final String string;
+
+	/**
+	 * Creates a new, not interned signature;
+	 * use {@link #intern(byte[], int, int)} instead.
+	 * @param bytes contains the type tags, which are copied
+	 * @param offset where the type tags start in <code>bytes</code>
+	 * @param length number of type tags
+	 * @param hash the hash code of the type tags, as used by the cache
+	 */
+	OSCSignature(final byte[] bytes, final int offset, final int length, final int hash) {
+
+		this.tags = Arrays.copyOfRange(bytes, offset, offset + length);
+		this.hash = hash;
+		this.string = new String(tags, TAGS_CHARSET);
+
+		// ',' + tags + terminating zero, padded to a multiple of 4
+		this.encoded = new byte[(length + 2 + 3) & ~3];
+		encoded[0] = ',';
+		System.arraycopy(tags, 0, encoded, 1, length);
+
+		this.offsets = new int[length];
+		int argOffset = 0;
+		for (int ti = 0; ti < length; ti++) {
+			offsets[ti] = argOffset;
+			if (argOffset != VARIABLE_OFFSET) {
+				final int width = fixedWidth((char) tags[ti]);
+				argOffset = (width < 0) ? VARIABLE_OFFSET : (argOffset + width);
+			}
+		}
+		this.fixedLength = argOffset;
+	}
+
+	/**
+	 * Returns the number of bytes an argument of the given type occupies.
+	 * @param type OSC type tag of the argument
+	 * @return the encoded size of the argument in bytes,
+	 *   or <code>-1</code> if it is not of fixed width
+	 */
+	public static int fixedWidth(char type) {
+
+		int width;
+		switch (type) {
+			case 'i' :
+			case 'f' :
+			case 'c' :
+			case 'u' :
+			case 'r' :
+			case 'm' :
+				width = 4;
+				break;
+			case 'h' :
+			case 'd' :
+			case 't' :
+				width = 8;
+				break;
+			case 'T' :
+			case 'F' :
+			case 'N' :
+			case 'I' :
+				width = 0;
+				break;
+			default:
+				width = -1;
+				break;
+		}
+		return width;
+	}
+
+	/**
+	 * Indicates whether this signature consists of the given type tags.
+	 * @param bytes contains the type tags
+	 * @param offset where the type tags start in <code>bytes</code>
+	 * @param length number of type tags
+	 * @return <code>true</code> if the type tags are equal to ours
+	 */
+	public boolean matches(byte[] bytes, int offset, int length) {
+
+		boolean equal = (length == tags.length);
+		for (int ti = 0; equal && (ti < length); ti++) {
+			equal = (tags[ti] == bytes[offset + ti]);
+		}
+		return equal;
+	}
+
+	/**
+	 * Returns the signature with the given type tags.
+	 * @param bytes contains the type tags, without the leading <code>','</code>
+	 *   and without the terminating zero
+	 * @param offset where the type tags start in <code>bytes</code>
+	 * @param length number of type tags
+	 * @return the shared signature
+	 */
+	public static OSCSignature intern(byte[] bytes, int offset, int length) {
+		// the cache may evict it, but the empty signature stays shared
+		return (length == 0) ? EMPTY : CACHE.intern(bytes, offset, length);
+	}
+
+	/**
+	 * Returns the signature with the given type tags.
+	 * @param typeTags the type tags, without the leading <code>','</code>
+	 * @return the shared signature
+	 */
+	public static OSCSignature valueOf(String typeTags) {
+
+		final byte[] bytes = new byte[typeTags.length()];
+		for (int ti = 0; ti < bytes.length; ti++) {
+			bytes[ti] = (byte) typeTags.charAt(ti);
+		}
+		return intern(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Returns the encoded form of this signature,
+	 * as it appears in a message.
+	 * @return a new array, holding the encoded signature
+	 */
+	public byte[] getEncoded() {
+		return encoded.clone();
+	}
+
+	/**
+	 * Returns the encoded form of this signature without copying it,
+	 * for the converter to write.
+	 * @return the shared, internal array, which must not be modified
+	 */
+	@SuppressWarnings("PMD.DefaultPackage")
+	byte[] getEncodedBytes() {
+		return encoded;
+	}
+
+	/**
+	 * Indicates whether all the arguments are of fixed width.
+	 * @return <code>true</code> if the position of each argument
+	 *   is known in advance
+	 */
+	public boolean isFixedLayout() {
+		return fixedLength != VARIABLE_OFFSET;
+	}
+
+	/**
+	 * Returns the size of the argument data of a fixed layout message.
+	 * @return the number of bytes of the argument data,
+	 *   or {@link #VARIABLE_OFFSET} if not all arguments are of fixed width
+	 */
+	public int getFixedLength() {
+		return fixedLength;
+	}
+
+	/**
+	 * Returns the position of an argument within the argument data.
+	 * @param index of the argument
+	 * @return the offset relative to the start of the argument data,
+	 *   or {@link #VARIABLE_OFFSET} if a preceding argument
+	 *   is not of fixed width
+	 */
+	public int getOffset(int index) {
+		return offsets[index];
+	}
+
+	@Override
+	public int length() {
+		return tags.length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return (char) tags[index];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return string.subSequence(start, end);
+	}
+
+	@Override
+	public String toString() {
+		return string;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+
+		boolean equal = (this == other);
+		if (!equal && (other instanceof OSCSignature)) {
+			equal = Arrays.equals(tags, ((OSCSignature) other).tags);
+		}
+		return equal;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import java.util.Arrays;
+
+/**
+ * Collects type tags, to create an {@link OSCSignature} from.
+ * Builders are not thread-safe.
+ */
+public final class OSCSignatureBuilder {
+
+	private byte[] tags;
+	private int length;
+
+	public OSCSignatureBuilder() {
+		this(8);
+	}
+
+	/**
+	 * Creates a builder with room for the given number of type tags.
+	 * @param capacity initial number of type tags to reserve space for
+	 */
+	public OSCSignatureBuilder(int capacity) {
+
+		this.tags = new byte[Math.max(capacity, 1)];
+		this.length = 0;
+	}
+
+	/**
+	 * Appends a type tag.
+	 * @param tag the OSC type tag to append, for example <code>'f'</code>
+	 * @return this builder
+	 */
+	public OSCSignatureBuilder add(char tag) {
+
+		if (length == tags.length) {
+			tags = Arrays.copyOf(tags, length * 2);
+		}
+		tags[length++] = (byte) tag;
+		return this;
+	}
+
+	/**
+	 * Returns the signature of the type tags added so far.
+	 * @return the shared signature
+	 */
+	public OSCSignature build() {
+		return OSCSignature.intern(tags, 0, length);
+	}
+}
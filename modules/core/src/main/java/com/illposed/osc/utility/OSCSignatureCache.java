@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+/**
+ * The bounded table {@link OSCSignature}s are interned in.
+ *
+ * Once it holds its maximum number of signatures,
+ * newly seen ones evict cached ones,
+ * so a peer sending random type tags can neither exhaust our memory,
+ * nor keep the signatures in actual use out of the cache for good.
+ *
+ * Looking up a cached signature creates no objects.
+ * This class is thread-safe.
+ */
+final class OSCSignatureCache {
+
+	/** The cached signatures. */
+	private final AbstractOSCInternTable<OSCSignature> table;
+
+	/**
+	 * Creates a cache holding up to the given number of signatures.
+	 * @param maxSize the maximum number of signatures to cache
+	 */
+	OSCSignatureCache(final int maxSize) {
+
+		this.table = new AbstractOSCInternTable<OSCSignature>(maxSize) {
+			@Override
+			protected boolean matches(
+					final OSCSignature signature,
+					final byte[] bytes,
+					final int offset,
+					final int length,
+					final int hash)
+			{
+				return (signature.hashCode() == hash) && signature.matches(bytes, offset, length);
+			}
+
+			@Override
+			protected int hashOf(final OSCSignature signature) {
+				return signature.hashCode();
+			}
+		};
+	}
+
+	/**
+	 * Returns the signature with the given type tags,
+	 * creating and caching it if it is not cached yet.
+	 * @param bytes contains the type tags
+	 * @param offset where the type tags start in <code>bytes</code>
+	 * @param length number of type tags
+	 * @return the shared signature
+	 */
+	public OSCSignature intern(final byte[] bytes, final int offset, final int length) {
+
+		final int hash = AbstractOSCInternTable.hash(bytes, offset, length);
+		OSCSignature signature = table.get(bytes, offset, length, hash);
+		if (signature == null) {
+			signature = table.add(bytes, offset, length, hash,
+					new OSCSignature(bytes, offset, length, hash));
+		}
+		return signature;
+	}
+}
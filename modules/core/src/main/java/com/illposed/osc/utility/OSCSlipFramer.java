@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Frames OSC packets as recommended by the OSC 1.1 specification
+ * for stream-oriented protocols:
+ * with double-ended SLIP (RFC 1055),
+ * which encloses each packet in <code>END</code> bytes,
+ * and escapes these where they occur in the packet.
+ * Empty frames are ignored.
+ *
+ * Packets are un-escaped in place, as that never makes them longer.
+ */
+public class OSCSlipFramer extends AbstractOSCStreamFramer {
+
+	private static final byte END = (byte) 0xC0;
+	private static final byte ESC = (byte) 0xDB;
+	private static final byte ESC_END = (byte) 0xDC;
+	private static final byte ESC_ESC = (byte) 0xDD;
+
+	/**
+	 * How many bytes of the current frame were examined already,
+	 * relative to its start.
+	 */
+	private int scanned;
+	/** The size of the current frame after un-escaping, so far. */
+	private int decoded;
+	/** Whether the last byte examined was an <code>ESC</code>. */
+	private boolean escaping;
+	/** Re-used for writing a frame in one go. */
+	private byte[] frameBytes;
+
+	/**
+	 * Creates a framer accepting packets of up to
+	 * {@link #DEFAULT_MAX_FRAME_SIZE} bytes.
+	 */
+	public OSCSlipFramer() {
+		this(DEFAULT_MAX_FRAME_SIZE);
+	}
+
+	/**
+	 * Creates a framer.
+	 * @param maxFrameSize the largest packet to accept, in bytes
+	 */
+	public OSCSlipFramer(int maxFrameSize) {
+		super(maxFrameSize);
+
+		this.scanned = 0;
+		this.decoded = 0;
+		this.escaping = false;
+		this.frameBytes = new byte[64];
+	}
+
+	@Override
+	public AbstractOSCStreamFramer newFramer() {
+		return new OSCSlipFramer(getMaxFrameSize());
+	}
+
+	@Override
+	protected int getMaxOverhead() {
+		// each byte may be escaped, plus the two END bytes
+		return getMaxFrameSize() + 2;
+	}
+
+	@Override
+	protected int decodeFrames(
+			final byte[] bytes,
+			final int fromIndex,
+			final int toIndex,
+			final OSCFrameHandler handler)
+			throws IOException
+	{
+		int frameStart = fromIndex;
+		int position = fromIndex + scanned;
+		boolean more = true;
+		while (more && (position < toIndex)) {
+			final byte value = bytes[position];
+			if (escaping) {
+				escaping = false;
+				if (value == ESC_END) {
+					append(bytes, frameStart, END);
+				} else if (value == ESC_ESC) {
+					append(bytes, frameStart, ESC);
+				} else {
+					// a protocol violation; RFC 1055 suggests to keep the byte
+					append(bytes, frameStart, value);
+				}
+			} else if (value == END) {
+				if (decoded > 0) {
+					more = handler.handleFrame(bytes, frameStart, decoded);
+				}
+				frameStart = position + 1;
+				decoded = 0;
+			} else if (value == ESC) {
+				escaping = true;
+			} else {
+				append(bytes, frameStart, value);
+			}
+			position++;
+		}
+		scanned = position - frameStart;
+		return frameStart;
+	}
+
+	private void append(final byte[] bytes, final int frameStart, final byte value)
+			throws IOException
+	{
+		if (decoded == getMaxFrameSize()) {
+			throw new IOException("Frame exceeds the maximum size of "
+					+ getMaxFrameSize() + " bytes");
+		}
+		// never overtakes the position we read from
+		bytes[frameStart + decoded] = value;
+		decoded++;
+	}
+
+	@Override
+	protected void resetFrame() {
+
+		scanned = 0;
+		decoded = 0;
+		escaping = false;
+	}
+
+	@Override
+	public void writeFrame(OutputStream output, byte[] bytes, int offset, int length)
+			throws IOException
+	{
+		final int maxFrameLength = (2 * length) + 2;
+		if (maxFrameLength > frameBytes.length) {
+			frameBytes = new byte[Math.max(maxFrameLength, frameBytes.length * 2)];
+		}
+		int frameLength = 0;
+		frameBytes[frameLength++] = END;
+		for (int bi = offset; bi < (offset + length); bi++) {
+			final byte value = bytes[bi];
+			if (value == END) {
+				frameBytes[frameLength++] = ESC;
+				frameBytes[frameLength++] = ESC_END;
+			} else if (value == ESC) {
+				frameBytes[frameLength++] = ESC;
+				frameBytes[frameLength++] = ESC_ESC;
+			} else {
+				frameBytes[frameLength++] = value;
+			}
+		}
+		frameBytes[frameLength++] = END;
+		output.write(frameBytes, 0, frameLength);
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import com.illposed.osc.OSCImpulse;
+import com.illposed.osc.OSCPackedArray;
+import com.illposed.osc.OSCSymbol;
+import java.util.Date;
+
+/**
+ * The handlers for the standard argument types,
+ * registered with every new {@link OSCArgumentHandlers} registry.
+ * The number types are handled by {@link OSCNumberArgumentHandlers}.
+ */
+final class OSCStandardArgumentHandlers {
+
+	private OSCStandardArgumentHandlers() {
+		// utility class
+	}
+
+	/**
+	 * Registers the handlers for all the standard argument types.
+	 * @param handlers the registry to add the handlers to
+	 */
+	public static void registerAll(final OSCArgumentHandlers handlers) {
+
+		OSCNumberArgumentHandlers.registerAll(handlers);
+		registerTextHandlers(handlers);
+		registerOtherHandlers(handlers);
+	}
+
+	private static void registerTextHandlers(final OSCArgumentHandlers handlers) {
+
+		handlers.register(new OSCTypeTagHandler<String>(String.class, 's') {
+			@Override
+			public void write(final OSCJavaToByteArrayConverter stream, final String value) {
+				stream.write(value);
+			}
+		});
+		handlers.register(new OSCTypeTagHandler<Character>(Character.class, 'c') {
+			@Override
+			public void write(final OSCJavaToByteArrayConverter stream, final Character value) {
+				stream.write(value);
+			}
+		});
+		handlers.register(new OSCTypeTagHandler<OSCSymbol>(OSCSymbol.class, 'S') {
+			@Override
+			public void write(final OSCJavaToByteArrayConverter stream, final OSCSymbol value) {
+				stream.write(value.getName());
+			}
+		});
+	}
+
+	private static void registerOtherHandlers(final OSCArgumentHandlers handlers) {
+
+		handlers.register(new OSCTypeTagHandler<byte[]>(byte[].class, 'b') {
+			@Override
+			public void write(final OSCJavaToByteArrayConverter stream, final byte[] value) {
+				stream.write(value);
+			}
+		});
+		handlers.register(new OSCTypeTagHandler<Date>(Date.class, 't') {
+			@Override
+			public void write(final OSCJavaToByteArrayConverter stream, final Date value) {
+				stream.write(value);
+			}
+		});
+		handlers.register(new OSCTypeTagHandler<Boolean>(Boolean.class, 'T') {
+			@Override
+			public char getClassTypeTag() {
+				return VALUE_DEPENDENT;
+			}
+
+			@Override
+			public char getTypeTag(final Boolean value) {
+				return value ? 'T' : 'F';
+			}
+		});
+		handlers.register(new OSCTypeTagHandler<OSCImpulse>(OSCImpulse.class, 'I'));
+		handlers.register(new OSCTypeTagHandler<OSCPackedArray>(OSCPackedArray.class, 'b') {
+			@Override
+			public void write(final OSCJavaToByteArrayConverter stream, final OSCPackedArray value) {
+				stream.write(value);
+			}
+		});
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import java.nio.charset.Charset;
+
+/**
+ * A bounded cache mapping raw, encoded strings to {@link String} instances.
+ *
+ * OSC applications usually receive the same few addresses over and over.
+ * With this cache, a received address is decoded only the first time;
+ * afterwards, the already existing String instance is returned,
+ * which requires hashing and comparing the raw bytes,
+ * but creates no objects at all.
+ * As equal addresses then are the very same instance,
+ * look-ups keyed by them (for example in {@link OSCPacketDispatcher})
+ * are resolved by identity, and never need to hash the String again.
+ *
+ * Once the cache holds its maximum number of entries,
+ * each newly added string evicts one cached before;
+ * so a peer sending ever changing strings can neither exhaust our memory,
+ * nor keep the strings in actual use out of the cache for good.
+ *
+ * This class is thread-safe.
+ * A cache should only be used with a single character set.
+ *
+ * @see OSCByteArrayToJavaConverter#setAddressCache(OSCStringCache)
+ */
+public class OSCStringCache {
+
+	/** The default maximum number of cached strings. */
+	public static final int DEFAULT_MAX_SIZE = 1024;
+
+	private static final Charset US_ASCII = Charset.forName("US-ASCII");
+	private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/** The cached strings, with their encoded forms. */
+	private final AbstractOSCInternTable<Entry> table;
+
+	/**
+	 * Creates a cache holding up to {@link #DEFAULT_MAX_SIZE} strings.
+	 */
+	public OSCStringCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Creates a cache holding up to the given number of strings.
+	 * @param maxSize the maximum number of strings to cache
+	 */
+	public OSCStringCache(int maxSize) {
+
+		this.table = new AbstractOSCInternTable<Entry>(maxSize) {
+			@Override
+			protected boolean matches(
+					final Entry entry,
+					final byte[] bytes,
+					final int offset,
+					final int length,
+					final int hash)
+			{
+				return entry.matches(bytes, offset, length, hash);
+			}
+
+			@Override
+			protected int hashOf(final Entry entry) {
+				return entry.hash;
+			}
+		};
+	}
+
+	/**
+	 * Returns the maximum number of strings this cache holds.
+	 * @return the maximum number of cached strings
+	 */
+	public int getMaxSize() {
+		return table.getMaxSize();
+	}
+
+	/**
+	 * Returns the number of strings currently cached.
+	 * @return the number of cached strings
+	 */
+	public int size() {
+		return table.size();
+	}
+
+	/**
+	 * Returns the string encoded in the given bytes.
+	 * @param bytes containing the encoded string
+	 * @param offset where the string starts in <code>bytes</code>
+	 * @param length number of bytes of the encoded string,
+	 *   excluding any terminating zero
+	 * @param charset used to decode the string, in case it is not cached yet
+	 * @return the cached string, or a newly decoded one
+	 */
+	public String get(byte[] bytes, int offset, int length, Charset charset) {
+
+		final int hash = AbstractOSCInternTable.hash(bytes, offset, length);
+		final Entry cached = table.get(bytes, offset, length, hash);
+		String string;
+		if (cached == null) {
+			final String decoded = decode(bytes, offset, length, charset);
+			string = table.add(bytes, offset, length, hash,
+					new Entry(bytes, offset, length, decoded, hash)).string;
+		} else {
+			string = cached.string;
+		}
+		return string;
+	}
+
+	/**
+	 * Removes all cached strings.
+	 */
+	public void clear() {
+		table.clear();
+	}
+
+	/**
+	 * Checks whether ASCII characters are encoded as single bytes
+	 * of the same value in the given character set.
+	 * @param charset to be checked
+	 * @return <code>true</code> if the fast path for ASCII strings
+	 *   may be used with this character set
+	 */
+	public static boolean isAsciiCompatible(final Charset charset) {
+		return UTF_8.equals(charset) || US_ASCII.equals(charset) || ISO_8859_1.equals(charset);
+	}
+
+	private static boolean isAscii(final byte[] bytes, final int offset, final int length) {
+
+		boolean ascii = true;
+		for (int bi = offset; ascii && (bi < (offset + length)); bi++) {
+			ascii = (bytes[bi] >= 0);
+		}
+		return ascii;
+	}
+
+	/**
+	 * Decodes a string, using a fast path for pure ASCII strings
+	 * in ASCII compatible character sets.
+	 * @param bytes containing the encoded string
+	 * @param offset where the string starts in <code>bytes</code>
+	 * @param length number of bytes of the encoded string
+	 * @param charset used to decode the string
+	 * @return the decoded string
+	 */
+	public static String decode(final byte[] bytes, final int offset, final int length, final Charset charset) {
+
+		String string;
+		if (isAsciiCompatible(charset) && isAscii(bytes, offset, length)) {
+			// all charsets agree on ASCII,
+			// and the JRE decodes ISO-8859-1 by simply widening each byte
+			string = new String(bytes, offset, length, ISO_8859_1);
+		} else {
+			string = new String(bytes, offset, length, charset);
+		}
+		return string;
+	}
+
+	/**
+	 * A cached string, together with its encoded form.
+	 */
+	private static final class Entry {
+
+		private final byte[] bytes;
+		private final String string;
+		private final int hash;
+
+		Entry(final byte[] source, final int offset, final int length, final String string, final int hash) {
+
+			this.bytes = new byte[length];
+			System.arraycopy(source, offset, bytes, 0, length);
+			this.string = string;
+			this.hash = hash;
+		}
+
+		private boolean matches(final byte[] other, final int offset, final int length, final int otherHash) {
+
+			boolean matches = (hash == otherHash) && (bytes.length == length);
+			for (int bi = 0; matches && (bi < length); bi++) {
+				matches = (bytes[bi] == other[offset + bi]);
+			}
+			return matches;
+		}
+	}
+}
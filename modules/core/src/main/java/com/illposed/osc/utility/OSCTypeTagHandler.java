@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+/**
+ * Handles arguments of a single OSC type tag.
+ * As is, it writes no data, for arguments that are fully represented
+ * by their type tag; the standard handlers override
+ * {@link #write(OSCJavaToByteArrayConverter, Object)} to write their data.
+ * @param <T> the Java class of the arguments handled
+ */
+class OSCTypeTagHandler<T> implements OSCArgumentHandler<T> {
+
+	private final Class<T> javaClass;
+	private final char typeTag;
+
+	OSCTypeTagHandler(final Class<T> javaClass, final char typeTag) {
+
+		this.javaClass = javaClass;
+		this.typeTag = typeTag;
+	}
+
+	@Override
+	public Class<T> getJavaClass() {
+		return javaClass;
+	}
+
+	@Override
+	public char getClassTypeTag() {
+		return typeTag;
+	}
+
+	@Override
+	public char getTypeTag(final T value) {
+		return typeTag;
+	}
+
+	@Override
+	public void write(final OSCJavaToByteArrayConverter stream, final T value) {
+		// the value is fully represented by the type tag
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches a value per class, without keeping the classes,
+ * and thus their class loaders, from being unloaded.
+ *
+ * This stands in for <code>java.lang.ClassValue</code>,
+ * which is not available on Java 6.
+ * Looking up a value creates no objects.
+ * This class is thread-safe.
+ * @param <V> the type of the cached values
+ */
+final class OSCWeakClassCache<V> {
+
+	/** Values, keyed by weak references to their classes. */
+	private final ConcurrentMap<Object, V> values;
+	/** Receives the keys of classes that were unloaded. */
+	private final ReferenceQueue<Class<?>> unloaded;
+	/** The reused key to look up values with, one per thread. */
+	private final ThreadLocal<LookupKey> lookupKeys;
+
+	OSCWeakClassCache() {
+
+		this.values = new ConcurrentHashMap<Object, V>();
+		this.unloaded = new ReferenceQueue<Class<?>>();
+		this.lookupKeys = new ThreadLocal<LookupKey>() {
+			@Override
+			protected LookupKey initialValue() {
+				return new LookupKey();
+			}
+		};
+	}
+
+	/**
+	 * Returns the value cached for a class.
+	 * @param cls the class to look up
+	 * @return the cached value, or <code>null</code> if there is none
+	 */
+	public V get(final Class<?> cls) {
+
+		final LookupKey key = lookupKeys.get();
+		key.cls = cls;
+		final V value = values.get(key);
+		// do not keep the class alive
+		key.cls = null;
+		return value;
+	}
+
+	/**
+	 * Caches a value for a class, replacing the one cached before.
+	 * @param cls the class to cache the value for
+	 * @param value to be cached
+	 */
+	public void put(final Class<?> cls, final V value) {
+
+		expungeUnloaded();
+		values.put(new WeakKey(cls, unloaded), value);
+	}
+
+	/**
+	 * Removes all the cached values.
+	 */
+	public void clear() {
+
+		values.clear();
+		expungeUnloaded();
+	}
+
+	private void expungeUnloaded() {
+
+		Reference<? extends Class<?>> key = unloaded.poll();
+		while (key != null) {
+			values.remove(key);
+			key = unloaded.poll();
+		}
+	}
+
+	/**
+	 * A key of the values map, referring to a class.
+	 * All keys referring to the same class are equal.
+	 */
+	private interface ClassKey {
+
+		/**
+		 * Returns the class this key refers to.
+		 * @return the class, or <code>null</code> if there is none (anymore)
+		 */
+		Class<?> getKeyClass();
+	}
+
+	/**
+	 * The key values are stored with.
+	 * It is equal to the keys for the same class,
+	 * and once its class was unloaded, only to itself.
+	 */
+	private static final class WeakKey extends WeakReference<Class<?>> implements ClassKey {
+
+		private final int hash;
+
+		WeakKey(final Class<?> cls, final ReferenceQueue<Class<?>> queue) {
+			super(cls, queue);
+
+			this.hash = System.identityHashCode(cls);
+		}
+
+		@Override
+		public Class<?> getKeyClass() {
+			return get();
+		}
+
+		@Override
+		public boolean equals(final Object other) {
+			return (this == other)
+					|| ((other instanceof ClassKey) && referToSameClass(this, (ClassKey) other));
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * The key values are looked up with.
+	 * It is equal to the keys for the same class.
+	 */
+	private static final class LookupKey implements ClassKey {
+
+		private Class<?> cls;
+
+		LookupKey() {
+			this.cls = null;
+		}
+
+		@Override
+		public Class<?> getKeyClass() {
+			return cls;
+		}
+
+		@Override
+		public boolean equals(final Object other) {
+			return (this == other)
+					|| ((other instanceof ClassKey) && referToSameClass(this, (ClassKey) other));
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(cls);
+		}
+	}
+
+	private static boolean referToSameClass(final ClassKey key, final ClassKey other) {
+
+		final Class<?> cls = key.getKeyClass();
+		return (cls != null) && (cls == other.getKeyClass());
+	}
+}
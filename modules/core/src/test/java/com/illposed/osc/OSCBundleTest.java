@@ -74,4 +74,123 @@ public class OSCBundleTest {
 		bundle.setTimestamp(null);
 		sendBundleTimestampTestHelper(bundle, OSCBundle.TIMESTAMP_IMMEDIATE);
 	}
+
+	@Test
+	public void testNestedBundles() {
+		OSCBundle inner = new OSCBundle();
+		inner.addPacket(new OSCMessage("/inner/one"));
+		inner.addPacket(new OSCMessage("/inner/two"));
+		OSCBundle outer = new OSCBundle();
+		outer.addPacket(new OSCMessage("/outer/first"));
+		outer.addPacket(inner);
+		outer.addPacket(new OSCMessage("/outer/last"));
+		byte[] byteArray = outer.getByteArray();
+		OSCByteArrayToJavaConverter converter = new OSCByteArrayToJavaConverter();
+		OSCBundle received = (OSCBundle) converter.convert(byteArray, byteArray.length);
+		List<OSCPacket> packets = received.getPackets();
+		Assert.assertEquals(3, packets.size());
+		Assert.assertEquals("/outer/first", ((OSCMessage) packets.get(0)).getAddress());
+		List<OSCPacket> innerPackets = ((OSCBundle) packets.get(1)).getPackets();
+		Assert.assertEquals(2, innerPackets.size());
+		Assert.assertEquals("/inner/one", ((OSCMessage) innerPackets.get(0)).getAddress());
+		Assert.assertEquals("/inner/two", ((OSCMessage) innerPackets.get(1)).getAddress());
+		Assert.assertEquals("/outer/last", ((OSCMessage) packets.get(2)).getAddress());
+	}
+
+	/**
+	 * Creates a deep copy of a packet, which has no cached byte arrays.
+	 */
+	private static OSCPacket copy(OSCPacket packet) {
+		if (packet instanceof OSCBundle) {
+			OSCBundle bundle = (OSCBundle) packet;
+			List<OSCPacket> packets = new ArrayList<OSCPacket>();
+			for (OSCPacket contained : bundle.getPackets()) {
+				packets.add(copy(contained));
+			}
+			return new OSCBundle(packets, bundle.getTimestamp());
+		} else {
+			OSCMessage message = (OSCMessage) packet;
+			return new OSCMessage(message.getAddress(), message.getArguments());
+		}
+	}
+
+	private static byte[] encodeFromScratch(OSCPacket packet) {
+		return copy(packet).getByteArray();
+	}
+
+	@Test
+	public void testUnchangedBundleIsCached() {
+		OSCBundle inner = new OSCBundle();
+		inner.addPacket(new OSCMessage("/inner"));
+		OSCBundle outer = new OSCBundle();
+		outer.addPacket(inner);
+		outer.addPacket(new OSCMessage("/outer"));
+		byte[] first = outer.getByteArray();
+		Assert.assertSame(first, outer.getByteArray());
+	}
+
+	@Test
+	public void testTimestampChangeInvalidates() {
+		OSCBundle bundle = new OSCBundle();
+		bundle.addPacket(new OSCMessage("/dummy"));
+		byte[] before = bundle.getByteArray();
+		Date timestamp = new Date(1400000000000L);
+		bundle.setTimestamp(timestamp);
+		Assert.assertNotSame(before, bundle.getByteArray());
+		sendBundleTimestampTestHelper(bundle, timestamp);
+	}
+
+	@Test
+	public void testNestedMessageChangeInvalidatesAncestors() {
+		OSCMessage changing = new OSCMessage("/inner/changing");
+		changing.addInt(1);
+		OSCBundle inner = new OSCBundle();
+		inner.addPacket(changing);
+		inner.addPacket(new OSCMessage("/inner/constant"));
+		OSCBundle sibling = new OSCBundle();
+		sibling.addPacket(new OSCMessage("/sibling"));
+		OSCBundle outer = new OSCBundle();
+		outer.addPacket(inner);
+		outer.addPacket(sibling);
+		byte[] before = outer.getByteArray();
+		byte[] beforeCopy = before.clone();
+		byte[] siblingBefore = sibling.getByteArray();
+
+		// same length, so the bundles get patched
+		changing.setAddress("/inner/Changing");
+		byte[] patched = outer.getByteArray();
+		Assert.assertNotSame(before, patched);
+		Assert.assertArrayEquals(beforeCopy, before);
+		Assert.assertArrayEquals(encodeFromScratch(outer), patched);
+		Assert.assertSame(siblingBefore, sibling.getByteArray());
+		Assert.assertSame(patched, outer.getByteArray());
+
+		// different length, so the bundles get re-assembled
+		changing.addFloat(2.0f);
+		byte[] reassembled = outer.getByteArray();
+		Assert.assertEquals(patched.length + 4, reassembled.length);
+		Assert.assertArrayEquals(encodeFromScratch(outer), reassembled);
+		Assert.assertSame(siblingBefore, sibling.getByteArray());
+
+		OSCByteArrayToJavaConverter converter = new OSCByteArrayToJavaConverter();
+		OSCBundle received = (OSCBundle) converter.convert(reassembled, reassembled.length);
+		OSCMessage receivedChanging = (OSCMessage)
+				((OSCBundle) received.getPackets().get(0)).getPackets().get(0);
+		Assert.assertEquals("/inner/Changing", receivedChanging.getAddress());
+		Assert.assertEquals(2, receivedChanging.getArgumentCount());
+	}
+
+	@Test
+	public void testTemplateChangeInvalidates() {
+		OSCMessageTemplate template = new OSCMessageTemplate("/template", "i");
+		OSCBundle bundle = new OSCBundle();
+		bundle.addPacket(template);
+		byte[] before = bundle.getByteArray();
+		template.setInt(0, 42);
+		byte[] after = bundle.getByteArray();
+		Assert.assertNotSame(before, after);
+		OSCByteArrayToJavaConverter converter = new OSCByteArrayToJavaConverter();
+		OSCBundle received = (OSCBundle) converter.convert(after, after.length);
+		Assert.assertEquals(42, ((OSCMessage) received.getPackets().get(0)).getInt(0));
+	}
 }
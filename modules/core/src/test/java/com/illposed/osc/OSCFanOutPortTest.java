@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @see OSCFanOutPort
+ */
+public class OSCFanOutPortTest {
+
+	private static final long WAIT_FOR_SOCKET_CLOSE = 30;
+	private static final int PORT_1 = OSCPort.defaultSCOSCPort();
+	private static final int PORT_2 = OSCPort.defaultSCOSCPort() + 1;
+
+	private OSCFanOutPort sender;
+	private OSCPortIn receiver1;
+	private OSCPortIn receiver2;
+
+	@Before
+	public void setUp() throws Exception {
+		sender = new OSCFanOutPort();
+		receiver1 = new OSCPortIn(PORT_1);
+		receiver2 = new OSCPortIn(PORT_2);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		receiver1.close();
+		receiver2.close();
+		sender.close();
+		Thread.sleep(WAIT_FOR_SOCKET_CLOSE);
+	}
+
+	@Test
+	public void testDestinationSet() throws Exception {
+
+		final SocketAddress destination = new InetSocketAddress(InetAddress.getLocalHost(), PORT_1);
+		Assert.assertTrue(sender.addDestination(destination));
+		Assert.assertFalse("Duplicate destination was added",
+				sender.addDestination(InetAddress.getLocalHost(), PORT_1));
+		Assert.assertEquals(1, sender.getDestinations().size());
+		Assert.assertNotNull(sender.getStatistics(destination));
+
+		Assert.assertTrue(sender.removeDestination(destination));
+		Assert.assertFalse(sender.removeDestination(destination));
+		Assert.assertTrue(sender.getDestinations().isEmpty());
+		Assert.assertNull(sender.getStatistics(destination));
+	}
+
+	@Test
+	public void testSendToNobody() throws Exception {
+		Assert.assertEquals(0, sender.send(new OSCMessage("/nobody")));
+	}
+
+	@Test
+	public void testReceiving() throws Exception {
+
+		final SimpleOSCListener listener1 = new SimpleOSCListener();
+		receiver1.addListener("/fan/out", listener1);
+		receiver1.startListening();
+		final SimpleOSCListener listener2 = new SimpleOSCListener();
+		receiver2.addListener("/fan/out", listener2);
+		receiver2.startListening();
+
+		final SocketAddress destination1 = new InetSocketAddress(InetAddress.getLocalHost(), PORT_1);
+		final SocketAddress destination2 = new InetSocketAddress(InetAddress.getLocalHost(), PORT_2);
+		sender.addDestination(destination1);
+		sender.addDestination(destination2);
+		final OSCMessage message = new OSCMessage("/fan/out");
+		message.addArgument(1);
+		Assert.assertEquals(2, sender.send(message));
+		Thread.sleep(100); // wait a bit
+		receiver1.stopListening();
+		receiver2.stopListening();
+
+		if (!listener1.isMessageReceived()) {
+			Assert.fail("Message was not received by the first destination");
+		}
+		if (!listener2.isMessageReceived()) {
+			Assert.fail("Message was not received by the second destination");
+		}
+
+		final int numBytes = message.getByteArray().length;
+		for (final SocketAddress destination : sender.getDestinations()) {
+			final OSCDestinationStatistics statistics = sender.getStatistics(destination);
+			Assert.assertEquals(1, statistics.getPacketsSent());
+			Assert.assertEquals(numBytes, statistics.getBytesSent());
+			Assert.assertEquals(0, statistics.getSendErrors());
+			Assert.assertNull(statistics.getLastError());
+		}
+	}
+
+	@Test
+	public void testSendErrorsAreRecorded() throws Exception {
+
+		final SocketAddress destination = new InetSocketAddress(InetAddress.getLocalHost(), PORT_1);
+		sender.addDestination(destination);
+		sender.close();
+
+		Assert.assertEquals(0, sender.send(new OSCMessage("/closed")));
+		final OSCDestinationStatistics statistics = sender.getStatistics(destination);
+		Assert.assertEquals(0, statistics.getPacketsSent());
+		Assert.assertEquals(1, statistics.getSendErrors());
+		Assert.assertNotNull(statistics.getLastError());
+	}
+}
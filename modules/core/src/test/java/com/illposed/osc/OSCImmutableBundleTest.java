@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCByteArrayToJavaConverter;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see OSCImmutableBundle
+ */
+public class OSCImmutableBundleTest {
+
+	@Test
+	public void testEncodesLikeOSCBundle() {
+		Date timestamp = new Date(1400000000000L);
+		OSCBundle inner = new OSCBundle();
+		inner.addPacket(new OSCMessage("/inner"));
+		OSCBundle mutable = new OSCBundle(timestamp);
+		OSCMessage message = new OSCMessage("/outer");
+		message.addInt(5);
+		mutable.addPacket(message);
+		mutable.addPacket(inner);
+
+		OSCImmutableBundle immutable = OSCImmutableBundle.copyOf(mutable);
+		Assert.assertArrayEquals(mutable.getByteArray(), immutable.getByteArray());
+		Assert.assertEquals(timestamp, immutable.getTimestamp());
+		Assert.assertTrue(immutable.getPackets().get(0) instanceof OSCImmutableMessage);
+		Assert.assertTrue(immutable.getPackets().get(1) instanceof OSCImmutableBundle);
+
+		byte[] bytes = immutable.getByteArray();
+		OSCByteArrayToJavaConverter converter = new OSCByteArrayToJavaConverter();
+		OSCBundle received = (OSCBundle) converter.convert(bytes, bytes.length);
+		Assert.assertEquals(immutable, OSCImmutableBundle.copyOf(received));
+	}
+
+	@Test
+	public void testSharesPackets() {
+		OSCImmutableMessage message = OSCImmutableMessage.builder("/shared").addInt(1).build();
+		OSCImmutableBundle first = OSCImmutableBundle.builder().addPacket(message).build();
+		OSCImmutableBundle second = first.toBuilder().addPacket(message).build();
+		Assert.assertSame(message, first.getPackets().get(0));
+		Assert.assertSame(message, second.getPackets().get(1));
+		Assert.assertEquals(1, first.getPackets().size());
+		Assert.assertEquals(2, second.getPackets().size());
+	}
+
+	@Test
+	public void testByteArrayIsCopied() {
+		OSCImmutableBundle bundle = OSCImmutableBundle.builder()
+				.addPacket(OSCImmutableMessage.builder("/copy").addInt(1).build())
+				.build();
+		byte[] encoded = bundle.getByteArray().clone();
+		bundle.getByteArray()[0] = 0;
+		Assert.assertArrayEquals(encoded, bundle.getByteArray());
+	}
+
+	@Test
+	public void testByteBufferIsReadOnly() {
+		OSCImmutableBundle bundle = OSCImmutableBundle.builder()
+				.addPacket(OSCImmutableMessage.builder("/view").addInt(1).build())
+				.build();
+		ByteBuffer view = bundle.getByteBuffer();
+		Assert.assertTrue(view.isReadOnly());
+		byte[] viewed = new byte[view.remaining()];
+		view.get(viewed);
+		Assert.assertArrayEquals(bundle.getByteArray(), viewed);
+	}
+
+	@Test
+	public void testEqualsAndHashCode() {
+		OSCImmutableMessage message = OSCImmutableMessage.builder("/key").addInt(1).build();
+		OSCImmutableBundle first = OSCImmutableBundle.builder()
+				.setTimestamp(new Date(1000L))
+				.addPacket(message)
+				.build();
+		OSCImmutableBundle second = OSCImmutableBundle.builder()
+				.setTimestamp(new Date(1000L))
+				.addPacket(message.toBuilder().build())
+				.build();
+		OSCImmutableBundle later = second.toBuilder().setTimestamp(new Date(2000L)).build();
+		Assert.assertEquals(first, second);
+		Assert.assertEquals(first.hashCode(), second.hashCode());
+		Assert.assertFalse(first.equals(later));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsOtherPacketTypes() {
+		OSCImmutableBundle.builder().addPacket(new OSCMessageTemplate("/template", "i"));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSetCharsetUnsupported() {
+		OSCImmutableBundle.builder().build().setCharset(null);
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCByteArrayToJavaConverter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see OSCImmutableMessage
+ */
+public class OSCImmutableMessageTest {
+
+	@Test
+	public void testEncodesLikeOSCMessage() {
+		OSCMessage mutable = new OSCMessage("/n_set");
+		mutable.addInt(1000);
+		mutable.addFloat(440.0f);
+		mutable.addArgument("freq");
+		mutable.addArgument(new byte[] {1, 2, 3});
+		OSCImmutableMessage immutable = OSCImmutableMessage.builder("/n_set")
+				.addInt(1000)
+				.addFloat(440.0f)
+				.addArgument("freq")
+				.addArgument(new byte[] {1, 2, 3})
+				.build();
+		Assert.assertArrayEquals(mutable.getByteArray(), immutable.getByteArray());
+		Assert.assertNotSame(immutable.getByteArray(), immutable.getByteArray());
+
+		byte[] bytes = immutable.getByteArray();
+		OSCByteArrayToJavaConverter converter = new OSCByteArrayToJavaConverter();
+		OSCMessage received = (OSCMessage) converter.convert(bytes, bytes.length);
+		Assert.assertEquals(immutable, OSCImmutableMessage.copyOf(received));
+	}
+
+	@Test
+	public void testEqualsAndHashCode() {
+		OSCImmutableMessage first = OSCImmutableMessage.builder("/key")
+				.addInt(1)
+				.addArgument(new byte[] {4, 5})
+				.build();
+		OSCImmutableMessage second = OSCImmutableMessage.builder("/key")
+				.addInt(1)
+				.addArgument(new byte[] {4, 5})
+				.build();
+		OSCImmutableMessage other = OSCImmutableMessage.builder("/key")
+				.addInt(2)
+				.addArgument(new byte[] {4, 5})
+				.build();
+		Assert.assertEquals(first, second);
+		Assert.assertEquals(first.hashCode(), second.hashCode());
+		Assert.assertFalse(first.equals(other));
+
+		Map<OSCImmutableMessage, String> map = new HashMap<OSCImmutableMessage, String>();
+		map.put(first, "value");
+		Assert.assertEquals("value", map.get(second));
+		Assert.assertNull(map.get(other));
+	}
+
+	@Test
+	public void testMutableArgumentsAreCopied() {
+		byte[] blob = new byte[] {1, 2};
+		List<Object> array = new ArrayList<Object>();
+		array.add(1);
+		OSCImmutableMessage message = OSCImmutableMessage.builder("/copy")
+				.addArgument(blob)
+				.addArgument(array)
+				.build();
+		byte[] encoded = message.getByteArray().clone();
+		blob[0] = 9;
+		array.add(2);
+		Assert.assertEquals(1, ((byte[]) message.getArgument(0))[0]);
+		Assert.assertEquals(1, ((List<?>) message.getArgument(1)).size());
+		Assert.assertArrayEquals(encoded, message.getByteArray());
+	}
+
+	@Test
+	public void testReturnedValuesAreCopies() {
+		Date time = new Date(1000L);
+		OSCImmutableMessage message = OSCImmutableMessage.builder("/copy")
+				.addArgument(new byte[] {1, 2})
+				.addArgument(time)
+				.addArgument(new int[] {3, 4})
+				.build();
+		OSCImmutableMessage same = message.toBuilder().build();
+		int hashCode = message.hashCode();
+		byte[] encoded = message.getByteArray().clone();
+
+		((byte[]) message.getArgument(0))[0] = 9;
+		((Date) message.getArgument(1)).setTime(2000L);
+		((int[]) message.getArguments().get(2))[0] = 9;
+		((byte[]) message.getArguments().get(0))[1] = 9;
+		message.getByteArray()[0] = 0;
+
+		Assert.assertArrayEquals(new byte[] {1, 2}, (byte[]) message.getArgument(0));
+		Assert.assertEquals(time, message.getArgument(1));
+		Assert.assertArrayEquals(new int[] {3, 4}, (int[]) message.getArgument(2));
+		Assert.assertArrayEquals(encoded, message.getByteArray());
+		Assert.assertEquals(hashCode, message.hashCode());
+		Assert.assertEquals(same, message);
+	}
+
+	@Test
+	public void testImmutableArrayArgumentsAreNotCopied() {
+		List<Object> array = new ArrayList<Object>();
+		array.add(1);
+		array.add("two");
+		OSCImmutableMessage message = OSCImmutableMessage.builder("/share")
+				.addArgument(array)
+				.build();
+		Assert.assertSame(message.getArguments(), message.getArguments());
+		Assert.assertSame(message.getArgument(0), message.getArgument(0));
+		Assert.assertEquals(array, message.getArgument(0));
+
+		List<Object> timed = new ArrayList<Object>();
+		timed.add(new Date(1000L));
+		OSCImmutableMessage copying = OSCImmutableMessage.builder("/copy")
+				.addArgument(timed)
+				.build();
+		Assert.assertNotSame(copying.getArgument(0), copying.getArgument(0));
+		((Date) ((List<?>) copying.getArgument(0)).get(0)).setTime(2000L);
+		Assert.assertEquals(timed, copying.getArgument(0));
+	}
+
+	@Test
+	public void testBuilderSharesArguments() {
+		OSCImmutableMessageBuilder builder = OSCImmutableMessage.builder("/share").addInt(1);
+		OSCImmutableMessage first = builder.build();
+		OSCImmutableMessage second = builder.addInt(2).build();
+		Assert.assertEquals(1, first.getArgumentCount());
+		Assert.assertEquals(2, second.getArgumentCount());
+
+		OSCImmutableMessage moved = second.withAddress("/moved");
+		Assert.assertEquals("/moved", moved.getAddress());
+		Assert.assertEquals(second.getArguments(), moved.getArguments());
+		Assert.assertFalse(second.equals(moved));
+
+		OSCImmutableMessage extended = second.toBuilder().addInt(3).build();
+		Assert.assertEquals(2, second.getArgumentCount());
+		Assert.assertEquals(3, extended.getArgumentCount());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSetCharsetUnsupported() {
+		OSCImmutableMessage.builder("/fixed").build().setCharset(null);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testArgumentsUnmodifiable() {
+		OSCImmutableMessage.builder("/fixed").addInt(1).build().getArguments().clear();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBuildWithoutAddress() {
+		new OSCImmutableMessageBuilder().build();
+	}
+}
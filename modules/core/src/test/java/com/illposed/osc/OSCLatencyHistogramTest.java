@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see OSCLatencyHistogram
+ */
+public class OSCLatencyHistogramTest {
+
+	@Test
+	public void testEmpty() {
+
+		final OSCLatencyHistogram histogram = new OSCLatencyHistogram();
+		Assert.assertEquals(0, histogram.getCount());
+		Assert.assertEquals(0, histogram.getMax());
+		Assert.assertEquals(0.0, histogram.getMean(), 0.0);
+		Assert.assertEquals(0, histogram.getValueAtPercentile(99.0));
+	}
+
+	@Test
+	public void testBucketsCoverAllValues() {
+
+		long previousHighest = -1;
+		final int lastIndex = OSCLatencyHistogram.indexOf(Long.MAX_VALUE);
+		for (int bi = 0; bi <= lastIndex; bi++) {
+			final long lowest = OSCLatencyHistogram.lowestValueAt(bi);
+			final long highest = OSCLatencyHistogram.highestValueAt(bi);
+			Assert.assertEquals("Gap before bucket " + bi, previousHighest + 1, lowest);
+			Assert.assertEquals(bi, OSCLatencyHistogram.indexOf(lowest));
+			Assert.assertEquals(bi, OSCLatencyHistogram.indexOf(highest));
+			previousHighest = highest;
+		}
+		Assert.assertEquals(Long.MAX_VALUE, previousHighest);
+	}
+
+	@Test
+	public void testExactBelowSubBucketCount() {
+
+		final OSCLatencyHistogram histogram = new OSCLatencyHistogram();
+		for (int value = 1; value <= 100; value++) {
+			histogram.record(value);
+		}
+		Assert.assertEquals(100, histogram.getCount());
+		Assert.assertEquals(50, histogram.getValueAtPercentile(50.0));
+		Assert.assertEquals(90, histogram.getValueAtPercentile(90.0));
+		Assert.assertEquals(99, histogram.getValueAtPercentile(99.0));
+		Assert.assertEquals(100, histogram.getValueAtPercentile(100.0));
+		Assert.assertEquals(100, histogram.getMax());
+		Assert.assertEquals(50.5, histogram.getMean(), 0.0001);
+	}
+
+	@Test
+	public void testRelativeError() {
+
+		final OSCLatencyHistogram histogram = new OSCLatencyHistogram();
+		for (long value = 1; value <= 1000000; value++) {
+			histogram.record(value);
+		}
+		final long median = histogram.getValueAtPercentile(50.0);
+		Assert.assertTrue("median " + median, median >= 500000);
+		Assert.assertTrue("median " + median, median <= 500000 * 1.016);
+		final long p999 = histogram.getValueAtPercentile(99.9);
+		Assert.assertTrue("p99.9 " + p999, p999 >= 999000);
+		Assert.assertTrue("p99.9 " + p999, p999 <= 1000000);
+		Assert.assertEquals(1000000, histogram.getMax());
+	}
+
+	@Test
+	public void testNegativeAndReset() {
+
+		final OSCLatencyHistogram histogram = new OSCLatencyHistogram();
+		histogram.record(-5);
+		Assert.assertEquals(1, histogram.getCount());
+		Assert.assertEquals(0, histogram.getValueAtPercentile(100.0));
+
+		histogram.record(1000);
+		histogram.reset();
+		Assert.assertEquals(0, histogram.getCount());
+		Assert.assertEquals(0, histogram.getMax());
+	}
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCParseException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @see OSCLoopbackPortIn
+ * @see OSCLoopbackPortOut
+ */
+public class OSCLoopbackPortTest {
+
+	private static final long TIMEOUT_MILLIS = 5000;
+
+	/**
+	 * Remembers all the messages received, from any thread.
+	 */
+	private static class RecordingListener implements OSCListener {
+
+		private final List<OSCMessage> messages
+				= Collections.synchronizedList(new ArrayList<OSCMessage>());
+
+		@Override
+		public void acceptMessage(Date time, OSCMessage message) {
+			messages.add(message);
+		}
+
+		public List<OSCMessage> getMessages() {
+			return messages;
+		}
+	}
+
+	private OSCLoopbackPortIn receiver;
+	private RecordingListener listener;
+
+	@Before
+	public void setUp() {
+
+		receiver = new OSCLoopbackPortIn();
+		listener = new RecordingListener();
+		receiver.addListener("/loop/*", listener);
+	}
+
+	@After
+	public void tearDown() {
+		receiver.close();
+	}
+
+	private static OSCMessage createMessage(final int value) {
+
+		final OSCMessage message = new OSCMessage("/loop/back");
+		message.addInt(value);
+		return message;
+	}
+
+	@Test
+	public void testEncodedDispatchPending() {
+
+		final OSCLoopbackPortOut sender = new OSCLoopbackPortOut(receiver);
+		final OSCMessage message = createMessage(1);
+		sender.send(message);
+		sender.send(createMessage(2));
+		Assert.assertEquals(2, receiver.getPendingCount());
+		Assert.assertTrue(listener.getMessages().isEmpty());
+
+		Assert.assertEquals(2, receiver.dispatchPending());
+		Assert.assertEquals(0, receiver.getPendingCount());
+		Assert.assertEquals(2, listener.getMessages().size());
+		final OSCMessage received = listener.getMessages().get(0);
+		Assert.assertNotSame(message, received);
+		Assert.assertEquals("/loop/back", received.getAddress());
+		Assert.assertEquals(1, received.getInt(0));
+		Assert.assertEquals(2, listener.getMessages().get(1).getInt(0));
+	}
+
+	@Test
+	public void testUnencodedHandsOverTheSameObject() {
+
+		final OSCLoopbackPortOut sender = new OSCLoopbackPortOut(receiver, false);
+		Assert.assertFalse(sender.isEncoding());
+		final OSCMessage message = createMessage(1);
+		final OSCBundle bundle = new OSCBundle();
+		bundle.addPacket(message);
+		sender.send(bundle);
+		receiver.dispatchPending();
+		Assert.assertEquals(1, listener.getMessages().size());
+		Assert.assertSame(message, listener.getMessages().get(0));
+	}
+
+	@Test
+	public void testUnencodedImmutablePackets() throws Exception {
+
+		final OSCLoopbackPortOut sender = new OSCLoopbackPortOut(receiver, false);
+		final OSCImmutableMessage message = OSCImmutableMessage.builder("/loop/immutable")
+				.addInt(1)
+				.addArgument(new byte[] {1, 2, 3})
+				.build();
+		final Date timestamp = new Date(1000000L);
+		final OSCImmutableBundle bundle = OSCImmutableBundle.builder()
+				.setTimestamp(timestamp)
+				.addPacket(message)
+				.addPacket(OSCImmutableMessage.builder("/loop/bundled").addInt(2).build())
+				.build();
+		sender.send(message);
+		sender.send(bundle);
+
+		// dispatched from the listening thread, which must survive
+		receiver.startListening();
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while ((listener.getMessages().size() < 3)
+				&& (System.currentTimeMillis() < deadline))
+		{
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(3, listener.getMessages().size());
+		final OSCMessage received = listener.getMessages().get(0);
+		Assert.assertEquals("/loop/immutable", received.getAddress());
+		Assert.assertEquals(1, received.getInt(0));
+		Assert.assertEquals("/loop/immutable", listener.getMessages().get(1).getAddress());
+		Assert.assertEquals("/loop/bundled", listener.getMessages().get(2).getAddress());
+		Assert.assertEquals(2, listener.getMessages().get(2).getInt(0));
+
+		// changing the copy a listener got leaves the original untouched
+		((byte[]) received.getArgument(1))[0] = 42;
+		Assert.assertEquals(1, ((byte[]) message.toMessage().getArgument(1))[0]);
+		Assert.assertTrue(receiver.isListening());
+	}
+
+	@Test
+	public void testUnencodedTemplatesAreEncoded() throws Exception {
+
+		final OSCLoopbackPortOut sender = new OSCLoopbackPortOut(receiver, false);
+		final OSCMessageTemplate template = new OSCMessageTemplate("/loop/template", "i");
+		template.setInt(0, 1);
+		sender.send(template);
+		final OSCMessage message = createMessage(3);
+		final OSCBundle bundle = new OSCBundle();
+		bundle.addPacket(message);
+		bundle.addPacket(template);
+		sender.send(bundle);
+
+		// dispatched from the listening thread, which must survive
+		receiver.startListening();
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while ((listener.getMessages().size() < 3)
+				&& (System.currentTimeMillis() < deadline))
+		{
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(3, listener.getMessages().size());
+		Assert.assertEquals("/loop/template", listener.getMessages().get(0).getAddress());
+		Assert.assertEquals(1, listener.getMessages().get(0).getInt(0));
+		// a bundle containing a template is sent encoded as a whole
+		Assert.assertNotSame(message, listener.getMessages().get(1));
+		Assert.assertEquals(3, listener.getMessages().get(1).getInt(0));
+		Assert.assertEquals("/loop/template", listener.getMessages().get(2).getAddress());
+		Assert.assertTrue(receiver.isListening());
+	}
+
+	@Test
+	public void testTemplateChangedAfterSend() {
+
+		final OSCLoopbackPortOut sender = new OSCLoopbackPortOut(receiver, false);
+		final OSCMessageTemplate template = new OSCMessageTemplate("/loop/template", "i");
+		for (int mi = 0; mi < 3; mi++) {
+			template.setInt(0, mi);
+			sender.send(template);
+		}
+		template.setInt(0, -1);
+
+		Assert.assertEquals(3, receiver.dispatchPending());
+		Assert.assertEquals(3, listener.getMessages().size());
+		for (int mi = 0; mi < 3; mi++) {
+			Assert.assertEquals(mi, listener.getMessages().get(mi).getInt(0));
+		}
+	}
+
+	@Test
+	public void testListening() throws Exception {
+
+		receiver.startListening();
+		final OSCLoopbackPortOut sender = new OSCLoopbackPortOut(receiver);
+		final int numMessages = 10000;
+		for (int mi = 0; mi < numMessages; mi++) {
+			sender.send(createMessage(mi));
+		}
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while ((listener.getMessages().size() < numMessages)
+				&& (System.currentTimeMillis() < deadline))
+		{
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(numMessages, listener.getMessages().size());
+		for (int mi = 0; mi < numMessages; mi++) {
+			Assert.assertEquals(mi, listener.getMessages().get(mi).getInt(0));
+		}
+
+		receiver.stopListening();
+		Thread.sleep(200); // let the listening thread notice
+		sender.send(createMessage(-1));
+		Assert.assertEquals(1, receiver.getPendingCount());
+	}
+
+	@Test
+	public void testReceivingMalformedPacket() {
+
+		final List<OSCParseException> parseErrors = new ArrayList<OSCParseException>();
+		receiver.setErrorHandler(new OSCErrorHandler() {
+			@Override
+			public void handleParseError(OSCParseException exception, SocketAddress sender) {
+				parseErrors.add(exception);
+			}
+
+			@Override
+			public void handleReceiveError(IOException exception) {
+				Assert.fail("Unexpected receive error: " + exception);
+			}
+		});
+		final OSCLoopbackPortOut sender = new OSCLoopbackPortOut(receiver);
+		sender.send(new OSCPacket() {
+			@Override
+			public Charset getCharset() {
+				return Charset.defaultCharset();
+			}
+
+			@Override
+			public void setCharset(Charset charset) {
+			}
+
+			@Override
+			public byte[] getByteArray() {
+				// a string argument lacking its terminating zero
+				return new byte[] {'/', 'x', 0, 0, ',', 's', 0, 0, 'a', 'b', 'c', 'd'};
+			}
+		});
+		sender.send(createMessage(1));
+		Assert.assertEquals(2, receiver.dispatchPending());
+		Assert.assertEquals(1, parseErrors.size());
+		Assert.assertEquals(8, parseErrors.get(0).getOffset());
+		Assert.assertEquals(1, listener.getMessages().size());
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.lang.management.ManagementFactory;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.Map;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @see OSCManagement
+ * @see OSCReceiveStatistics
+ * @see OSCDestinationStatistics
+ */
+public class OSCManagementTest {
+
+	private static final long TIMEOUT_MILLIS = 5000;
+
+	private OSCPortIn receiver;
+	private OSCPortOut sender;
+	private MBeanServer server;
+
+	@Before
+	public void setUp() throws Exception {
+
+		final DatagramSocket socket = new DatagramSocket(0);
+		receiver = new OSCPortIn(socket);
+		sender = new OSCPortOut(InetAddress.getLocalHost(), socket.getLocalPort());
+		server = ManagementFactory.getPlatformMBeanServer();
+	}
+
+	@After
+	public void tearDown() {
+
+		receiver.close();
+		sender.close();
+	}
+
+	@Test
+	public void testPortMetrics() throws Exception {
+
+		final SimpleOSCListener listener = new SimpleOSCListener();
+		receiver.addListener("/metrics/test", listener);
+		Assert.assertFalse(receiver.isTimingEnabled());
+		final ObjectName inName = OSCManagement.register(receiver, "test-in");
+		final ObjectName outName = OSCManagement.register(sender, "test-out");
+		Assert.assertTrue(receiver.isTimingEnabled());
+		receiver.startListening();
+		final OSCMessage message = new OSCMessage("/metrics/test");
+		message.addInt(1);
+		sender.send(message);
+
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (receiver.getStatistics().getDispatchTimes().getCount() < 1) {
+			Assert.assertTrue("Message not dispatched in time",
+					System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+		receiver.stopListening();
+
+		final int numBytes = message.getByteArray().length;
+		try {
+			Assert.assertEquals(OSCManagement.DOMAIN, inName.getDomain());
+			Assert.assertEquals("OSCPortIn", inName.getKeyProperty("type"));
+			Assert.assertEquals(1L, server.getAttribute(inName, "PacketsReceived"));
+			Assert.assertEquals((long) numBytes, server.getAttribute(inName, "BytesReceived"));
+			Assert.assertEquals(0L, server.getAttribute(inName, "PacketsDropped"));
+			Assert.assertEquals(1L, server.getAttribute(inName, "ListenerCalls"));
+			final long[] dispatchTimes
+					= (long[]) server.getAttribute(inName, "DispatchTimePercentiles");
+			Assert.assertEquals(OSCReceiveStatistics.getPercentiles().length + 1, dispatchTimes.length);
+			Assert.assertTrue(dispatchTimes[dispatchTimes.length - 1] > 0);
+
+			Assert.assertEquals(1L, server.getAttribute(outName, "PacketsSent"));
+			Assert.assertEquals((long) numBytes, server.getAttribute(outName, "BytesSent"));
+			Assert.assertEquals(0L, server.getAttribute(outName, "SendErrors"));
+			Assert.assertNull(server.getAttribute(outName, "LastErrorMessage"));
+		} finally {
+			OSCManagement.unregister(inName);
+			OSCManagement.unregister(outName);
+		}
+		Assert.assertFalse(server.isRegistered(inName));
+	}
+
+	@Test
+	public void testTimingDisabledByDefault() throws Exception {
+
+		final SimpleOSCListener listener = new SimpleOSCListener();
+		receiver.addListener("/metrics/untimed", listener);
+		receiver.startListening();
+		sender.send(new OSCMessage("/metrics/untimed"));
+
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (!listener.isMessageReceived()) {
+			Assert.assertTrue("Message not dispatched in time",
+					System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+		receiver.stopListening();
+		final OSCReceiveStatistics statistics = receiver.getStatistics();
+		Assert.assertEquals(1L, statistics.getPacketsReceived());
+		Assert.assertEquals(0L, statistics.getDispatchTimes().getCount());
+		Assert.assertEquals(0L, statistics.getListenerCalls());
+	}
+
+	@Test
+	public void testPercentilesAreCopied() {
+
+		final double[] percentiles = OSCReceiveStatistics.getPercentiles();
+		percentiles[0] = 0.0;
+		Assert.assertEquals(50.0, OSCReceiveStatistics.getPercentiles()[0], 0.0);
+	}
+
+	@Test
+	public void testSnapshot() {
+
+		final OSCReceiveStatistics statistics = receiver.getStatistics();
+		statistics.packetReceived(100);
+		statistics.packetDispatched(2000);
+		statistics.listenerCalled(1000);
+		final Map<String, Long> snapshot = statistics.getSnapshot();
+		Assert.assertEquals(Long.valueOf(1), snapshot.get("packetsReceived"));
+		Assert.assertEquals(Long.valueOf(100), snapshot.get("bytesReceived"));
+		Assert.assertEquals(Long.valueOf(0), snapshot.get("packetsDropped"));
+		Assert.assertEquals(Long.valueOf(1), snapshot.get("listenerCalls"));
+		Assert.assertEquals(Long.valueOf(2000), snapshot.get("dispatchTimeMax"));
+		Assert.assertTrue(snapshot.containsKey("dispatchTimeP50"));
+		Assert.assertTrue(snapshot.containsKey("listenerTimeP99.9"));
+
+		final Map<String, Long> sent = sender.getStatistics().getSnapshot();
+		Assert.assertEquals(Long.valueOf(0), sent.get("packetsSent"));
+	}
+
+	@Test
+	public void testLoopbackQueueDepth() throws Exception {
+
+		final OSCLoopbackPortIn loopback = new OSCLoopbackPortIn();
+		final ObjectName name = OSCManagement.register(loopback, "test-loopback");
+		try {
+			new OSCLoopbackPortOut(loopback).send(new OSCMessage("/queued"));
+			Assert.assertEquals(1, server.getAttribute(name, "PendingCount"));
+			Assert.assertEquals(false, server.getAttribute(name, "Listening"));
+		} finally {
+			OSCManagement.unregister(name);
+			loopback.close();
+		}
+	}
+
+	@Test(expected = InstanceAlreadyExistsException.class)
+	public void testDuplicateName() throws Exception {
+
+		final ObjectName name = OSCManagement.register(receiver, "test-duplicate");
+		try {
+			OSCManagement.register(new OSCPortIn(new DatagramSocket(0)), "test-duplicate");
+		} finally {
+			OSCManagement.unregister(name);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCByteArrayToJavaConverter;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * @see OSCMessageTemplate
+ */
+public class OSCMessageTemplateTest {
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Test
+	public void testEqualsMessageEncoding() {
+
+		final OSCMessageTemplate template = new OSCMessageTemplate("/n_set", ",iifhdcTFNI");
+		template.setInt(0, 1000);
+		template.setFloat(2, 440.0f);
+		template.setLong(3, 1234567890123L);
+		template.setDouble(4, -0.5);
+		template.setChar(5, 'x');
+
+		final OSCMessage message = new OSCMessage("/n_set");
+		message.addArgument(1000);
+		message.addArgument(0);
+		message.addArgument(440.0f);
+		message.addArgument(1234567890123L);
+		message.addArgument(-0.5);
+		message.addArgument('x');
+		message.addArgument(Boolean.TRUE);
+		message.addArgument(Boolean.FALSE);
+		message.addArgument(null);
+		message.addArgument(OSCImpulse.INSTANCE);
+
+		OSCMessageTest.checkResultEqualsAnswer(template.getByteArray(), message.getByteArray());
+	}
+
+	@Test
+	public void testExtendedTypes() {
+
+		final OSCMessageTemplate template = new OSCMessageTemplate("/dmx", "urm");
+		template.setUnsigned(0, 0xFFFFFFFEL);
+		template.setColor(1, OSCColor.toRGBA(255, 128, 0, 255));
+		template.setMidiMessage(2, OSCMidiMessage.toInt(0, 0x90, 60, 127));
+
+		final OSCMessage message = new OSCMessage("/dmx");
+		message.addUnsigned(0xFFFFFFFEL);
+		message.addArgument(OSCColor.valueOf(255, 128, 0, 255));
+		message.addArgument(OSCMidiMessage.valueOf(0, 0x90, 60, 127));
+
+		OSCMessageTest.checkResultEqualsAnswer(template.getByteArray(), message.getByteArray());
+	}
+
+	@Test
+	public void testPatchingInPlace() {
+
+		final OSCMessageTemplate template = new OSCMessageTemplate("/n_set", "if");
+		final OSCByteArrayToJavaConverter converter = new OSCByteArrayToJavaConverter();
+		for (int value = 0; value < 3; value++) {
+			template.setInt(0, value);
+			template.setFloat(1, value / 2.0f);
+			final byte[] bytes = template.getByteArray();
+			final OSCMessage received = (OSCMessage) converter.convert(bytes, bytes.length);
+			final List<Object> arguments = received.getArguments();
+			Assert.assertEquals("/n_set", received.getAddress());
+			Assert.assertEquals(value, arguments.get(0));
+			Assert.assertEquals(value / 2.0f, arguments.get(1));
+		}
+	}
+
+	@Test
+	public void testBuffer() {
+
+		final OSCMessageTemplate template = new OSCMessageTemplate("/buffer", "i");
+		final ByteBuffer buffer = template.getBuffer();
+		Assert.assertEquals(0, buffer.position());
+		Assert.assertEquals(template.getByteArray().length, buffer.remaining());
+		template.setInt(0, 42);
+		Assert.assertEquals(42, buffer.getInt(buffer.limit() - 4));
+	}
+
+	@Test
+	public void testSetCharsetKeepsArguments() {
+
+		final OSCMessageTemplate template = new OSCMessageTemplate("/charset", "h");
+		template.setLong(0, Long.MAX_VALUE);
+		template.setCharset(Charset.forName("UTF-16"));
+		final ByteBuffer buffer = template.getBuffer();
+		Assert.assertEquals(Long.MAX_VALUE, buffer.getLong(buffer.limit() - 8));
+	}
+
+	@Test
+	public void testWrongArgumentType() {
+
+		final OSCMessageTemplate template = new OSCMessageTemplate("/wrong", "i");
+		expectedException.expect(IllegalArgumentException.class);
+		template.setFloat(0, 1.0f);
+	}
+
+	@Test
+	public void testVariableWidthType() {
+		expectedException.expect(IllegalArgumentException.class);
+		new OSCMessageTemplate("/string", "s");
+	}
+}
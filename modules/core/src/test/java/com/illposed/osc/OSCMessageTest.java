@@ -487,6 +487,100 @@ public class OSCMessageTest {
 		}
 	}
 
+	@Test
+	public void testPrimitiveArgumentsEncodeLikeBoxed() {
+		OSCMessage primitive = new OSCMessage("/s_new");
+		primitive.addInt(1001);
+		primitive.addArgument("freq");
+		primitive.addFloat(440.0f);
+		primitive.addLong(-1L);
+		primitive.addDouble(0.25);
+		OSCMessage boxed = new OSCMessage("/s_new");
+		boxed.addArgument(1001);
+		boxed.addArgument("freq");
+		boxed.addArgument(440.0f);
+		boxed.addArgument(-1L);
+		boxed.addArgument(0.25);
+		checkResultEqualsAnswer(primitive.getByteArray(), boxed.getByteArray());
+	}
+
+	@Test
+	public void testPrimitiveArgumentsRoundTrip() {
+		OSCMessage message = new OSCMessage("/dummy");
+		message.addInt(-7);
+		message.addFloat(1.5f);
+		message.addLong(Long.MIN_VALUE);
+		message.addDouble(Math.PI);
+		byte[] byteArray = message.getByteArray();
+		OSCByteArrayToJavaConverter converter = new OSCByteArrayToJavaConverter();
+		OSCMessage packet = (OSCMessage) converter.convert(byteArray, byteArray.length);
+		Assert.assertEquals(4, packet.getArgumentCount());
+		Assert.assertEquals(-7, packet.getInt(0));
+		Assert.assertEquals(1.5f, packet.getFloat(1), 0.0f);
+		Assert.assertEquals(Long.MIN_VALUE, packet.getLong(2));
+		Assert.assertEquals(Math.PI, packet.getDouble(3), 0.0);
+		Assert.assertEquals(Integer.valueOf(-7), packet.getArgument(0));
+		Assert.assertEquals(Float.valueOf(1.5f), packet.getArguments().get(1));
+		Assert.assertEquals(Long.valueOf(Long.MIN_VALUE), packet.getArguments().get(2));
+		Assert.assertEquals(Double.valueOf(Math.PI), packet.getArguments().get(3));
+	}
+
+	@Test
+	public void testPrimitiveGettersConvert() {
+		OSCMessage message = new OSCMessage("/dummy");
+		message.addInt(3);
+		message.addDouble(2.75);
+		message.addArgument(new java.math.BigDecimal("1.5"));
+		Assert.assertEquals(3.0f, message.getFloat(0), 0.0f);
+		Assert.assertEquals(2, message.getInt(1));
+		Assert.assertEquals(1L, message.getLong(2));
+		Assert.assertEquals(1.5, message.getDouble(2), 0.0);
+	}
+
+	@Test
+	public void testGetFloatRoundsLongsOnce() {
+		// rounds to 2^60 through double, but up to 2^60 + 2^37 directly
+		final long value = (1L << 60) + (1L << 36) + 1L;
+		OSCMessage message = new OSCMessage("/dummy");
+		message.addLong(value);
+		message.addArgument(value);
+		Assert.assertEquals((float) value, message.getFloat(0), 0.0f);
+		Assert.assertEquals((float) value, message.getFloat(1), 0.0f);
+	}
+
+	@Test
+	public void testAddUnsignedOutOfRange() {
+		OSCMessage message = new OSCMessage("/dummy");
+		message.addUnsigned(OSCUnsigned.MAX_VALUE);
+		expectedException.expect(IllegalArgumentException.class);
+		message.addUnsigned(OSCUnsigned.MAX_VALUE + 1);
+	}
+
+	@Test
+	public void testAddUnsignedNegative() {
+		OSCMessage message = new OSCMessage("/dummy");
+		expectedException.expect(IllegalArgumentException.class);
+		message.addUnsigned(-1L);
+	}
+
+	@Test
+	public void testPrimitiveGetterNonNumeric() {
+		OSCMessage message = new OSCMessage("/dummy");
+		message.addArgument("text");
+		expectedException.expect(IllegalArgumentException.class);
+		message.getFloat(0);
+	}
+
+	@Test
+	public void testGetArgumentsReflectsChanges() {
+		OSCMessage message = new OSCMessage("/dummy");
+		message.addFloat(1.0f);
+		Assert.assertEquals(1, message.getArguments().size());
+		message.addArgument("two");
+		Assert.assertEquals(2, message.getArguments().size());
+		Assert.assertEquals("two", message.getArguments().get(1));
+	}
+
 	@Test
 	public void testAddressValidationFrontendCtorNull() {
 
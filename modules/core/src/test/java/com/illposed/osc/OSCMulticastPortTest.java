@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.util.Enumeration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * @see OSCMulticastPortIn
+ * @see OSCMulticastPortOut
+ */
+public class OSCMulticastPortTest {
+
+	private static final long WAIT_FOR_SOCKET_CLOSE = 30;
+	private static final long WAIT_FOR_RECEIVE = 2000;
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	private InetAddress group;
+	private OSCMulticastPortOut sender;
+	private OSCMulticastPortIn receiver;
+
+	@Before
+	public void setUp() throws Exception {
+		group = InetAddress.getByName("239.255.0.1");
+		sender = new OSCMulticastPortOut(group, OSCPort.defaultSCOSCPort());
+		receiver = new OSCMulticastPortIn(OSCPort.defaultSCOSCPort());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		receiver.close();
+		sender.close();
+		Thread.sleep(WAIT_FOR_SOCKET_CLOSE);
+	}
+
+	@Test
+	public void testNonMulticastAddress() throws Exception {
+		expectedException.expect(IllegalArgumentException.class);
+		new OSCMulticastPortOut(InetAddress.getLocalHost(), OSCPort.defaultSCOSCPort());
+	}
+
+	@Test
+	public void testTimeToLive() throws Exception {
+		sender.setTimeToLive(4);
+		Assert.assertEquals(4, sender.getTimeToLive());
+	}
+
+	@Test
+	public void testLoopback() throws Exception {
+		// this is only a hint to the system, but the socket reports it as set
+		sender.setLoopbackEnabled(false);
+		Assert.assertFalse(sender.isLoopbackEnabled());
+		sender.setLoopbackEnabled(true);
+		Assert.assertTrue(sender.isLoopbackEnabled());
+	}
+
+	@Test
+	public void testBroadcast() throws Exception {
+		sender.setBroadcast(true);
+		Assert.assertTrue(sender.isBroadcast());
+		sender.setBroadcast(false);
+		Assert.assertFalse(sender.isBroadcast());
+	}
+
+	@Test
+	public void testSendAndReceive() throws Exception {
+
+		final NetworkInterface loopback = findLoopbackInterface();
+		Assert.assertNotNull("No loopback network interface found", loopback);
+		receiver.joinGroup(group, loopback);
+		try {
+			sender.setNetworkInterface(loopback);
+			sender.setLoopbackEnabled(true);
+			final SimpleOSCListener listener = new SimpleOSCListener();
+			receiver.addListener("/multicast/send", listener);
+			receiver.startListening();
+
+			sender.send(new OSCMessage("/multicast/send"));
+
+			final long deadline = System.currentTimeMillis() + WAIT_FOR_RECEIVE;
+			while (!listener.isMessageReceived() && (System.currentTimeMillis() < deadline)) {
+				Thread.sleep(10);
+			}
+			receiver.stopListening();
+			Assert.assertTrue("Multicast message was not received", listener.isMessageReceived());
+			Assert.assertEquals(1, listener.getMessageReceivedCount());
+		} finally {
+			receiver.leaveGroup(group, loopback);
+		}
+	}
+
+	private static NetworkInterface findLoopbackInterface() throws Exception {
+
+		NetworkInterface loopback = null;
+		final Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+		while ((loopback == null) && interfaces.hasMoreElements()) {
+			final NetworkInterface candidate = interfaces.nextElement();
+			if (candidate.isLoopback() && candidate.isUp()) {
+				loopback = candidate;
+			}
+		}
+		return loopback;
+	}
+}
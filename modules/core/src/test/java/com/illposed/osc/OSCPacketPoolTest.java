@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCByteArrayToJavaConverter;
+import java.util.Date;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @see OSCPacketPool
+ */
+public class OSCPacketPoolTest {
+
+	private OSCPacketPool pool;
+
+	@Before
+	public void setUp() {
+		pool = new OSCPacketPool();
+	}
+
+	@Test
+	public void testMessageIsReused() {
+
+		final OSCMessage message = pool.obtainMessage();
+		message.setAddress("/reused");
+		message.addFloat(1.0f);
+		pool.recycle(message);
+
+		final OSCMessage reused = pool.obtainMessage();
+		Assert.assertSame(message, reused);
+		Assert.assertNull(reused.getAddress());
+		Assert.assertEquals(0, reused.getArgumentCount());
+		Assert.assertTrue(reused.getArguments().isEmpty());
+	}
+
+	@Test
+	public void testRetainedMessageIsNotReused() {
+
+		final OSCMessage message = pool.obtainMessage();
+		message.retain();
+		pool.recycle(message);
+		Assert.assertNotSame(message, pool.obtainMessage());
+	}
+
+	@Test
+	public void testDoubleRecycle() {
+
+		final OSCMessage message = pool.obtainMessage();
+		pool.recycle(message);
+		pool.recycle(message);
+		Assert.assertSame(message, pool.obtainMessage());
+		Assert.assertNotSame(message, pool.obtainMessage());
+	}
+
+	@Test
+	public void testMaxPooled() {
+
+		pool = new OSCPacketPool(1);
+		final OSCMessage message1 = pool.obtainMessage();
+		final OSCMessage message2 = pool.obtainMessage();
+		pool.recycle(message1);
+		pool.recycle(message2);
+		Assert.assertSame(message1, pool.obtainMessage());
+		Assert.assertNotSame(message2, pool.obtainMessage());
+	}
+
+	@Test
+	public void testBundleIsRecycledRecursively() {
+
+		final OSCMessage message = pool.obtainMessage();
+		message.setAddress("/in/bundle");
+		final OSCBundle bundle = pool.obtainBundle();
+		bundle.setTimestamp(new Date());
+		bundle.addPacket(message);
+		pool.recycle(bundle);
+
+		final OSCBundle reusedBundle = pool.obtainBundle();
+		Assert.assertSame(bundle, reusedBundle);
+		Assert.assertTrue(reusedBundle.getPackets().isEmpty());
+		Assert.assertEquals(OSCBundle.TIMESTAMP_IMMEDIATE, reusedBundle.getTimestamp());
+		Assert.assertSame(message, pool.obtainMessage());
+	}
+
+	@Test
+	public void testRetainedMessageInBundle() {
+
+		final OSCMessage message = pool.obtainMessage();
+		message.setAddress("/in/bundle");
+		message.retain();
+		final OSCBundle bundle = pool.obtainBundle();
+		bundle.addPacket(message);
+		pool.recycle(bundle);
+
+		Assert.assertSame(bundle, pool.obtainBundle());
+		Assert.assertNotSame(message, pool.obtainMessage());
+		Assert.assertEquals("/in/bundle", message.getAddress());
+	}
+
+	@Test
+	public void testConverterUsesPool() {
+
+		final OSCBundle bundle = new OSCBundle();
+		final OSCMessage sent = new OSCMessage("/pooled");
+		sent.addInt(42);
+		bundle.addPacket(sent);
+		bundle.addPacket(new OSCMessage("/pooled/two"));
+		final byte[] bytes = bundle.getByteArray();
+
+		final OSCByteArrayToJavaConverter converter = new OSCByteArrayToJavaConverter();
+		converter.setPacketPool(pool);
+		final OSCBundle received = (OSCBundle) converter.convert(bytes, bytes.length);
+		Assert.assertEquals(2, received.getPackets().size());
+		final OSCMessage receivedMessage = (OSCMessage) received.getPackets().get(0);
+		Assert.assertEquals("/pooled", receivedMessage.getAddress());
+		Assert.assertEquals(42, receivedMessage.getInt(0));
+		pool.recycle(received);
+
+		final OSCBundle receivedAgain = (OSCBundle) converter.convert(bytes, bytes.length);
+		Assert.assertSame(received, receivedAgain);
+		Assert.assertEquals(2, receivedAgain.getPackets().size());
+		Assert.assertEquals(42, ((OSCMessage) receivedAgain.getPackets().get(0)).getInt(0));
+	}
+
+	@Test
+	public void testFailedConversionReturnsPackets() {
+
+		final OSCBundle bundle = new OSCBundle();
+		bundle.addPacket(new OSCMessage("/pooled"));
+		final OSCBundle inner = new OSCBundle();
+		final OSCMessage truncated = new OSCMessage("/pooled/truncated");
+		truncated.addInt(42);
+		inner.addPacket(truncated);
+		bundle.addPacket(inner);
+		final byte[] bytes = bundle.getByteArray();
+
+		final OSCByteArrayToJavaConverter converter = new OSCByteArrayToJavaConverter();
+		converter.setPacketPool(pool);
+		pool.recycle(converter.convert(bytes, bytes.length));
+		final int freeCount = pool.getFreeCount();
+		Assert.assertEquals(4, freeCount);
+
+		for (int ci = 0; ci < 3; ci++) {
+			try {
+				// cut off the integer argument
+				converter.convert(bytes, bytes.length - 4);
+				Assert.fail("The truncated packet was converted");
+			} catch (final IllegalArgumentException ex) {
+				// expected
+			}
+			Assert.assertEquals(freeCount, pool.getFreeCount());
+		}
+	}
+}
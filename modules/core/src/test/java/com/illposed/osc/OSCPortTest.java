@@ -8,8 +8,15 @@
 
 package com.illposed.osc;
 
+import com.illposed.osc.utility.OSCParseException;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.SocketAddress;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import org.junit.After;
 import org.junit.Assert;
@@ -160,6 +167,78 @@ public class OSCPortTest {
 		}
 	}
 
+	@Test
+	public void testReceivingMalformedPacket() throws Exception {
+		final List<OSCParseException> parseErrors = new ArrayList<OSCParseException>();
+		receiver.setErrorHandler(new OSCErrorHandler() {
+			@Override
+			public void handleParseError(OSCParseException exception, SocketAddress sender) {
+				parseErrors.add(exception);
+			}
+
+			@Override
+			public void handleReceiveError(IOException exception) {
+				Assert.fail("Unexpected receive error: " + exception);
+			}
+		});
+		SimpleOSCListener listener = new SimpleOSCListener();
+		receiver.addListener("/message/receiving", listener);
+		receiver.startListening();
+
+		// a string argument lacking its terminating zero
+		final byte[] malformed = {'/', 'x', 0, 0, ',', 's', 0, 0, 'a', 'b', 'c', 'd'};
+		final DatagramSocket rawSocket = new DatagramSocket();
+		try {
+			rawSocket.send(new DatagramPacket(malformed, malformed.length,
+					InetAddress.getLocalHost(), OSCPort.defaultSCOSCPort()));
+		} finally {
+			rawSocket.close();
+		}
+		sender.send(new OSCMessage("/message/receiving"));
+		Thread.sleep(100); // wait a bit
+		receiver.stopListening();
+
+		Assert.assertEquals(1, parseErrors.size());
+		Assert.assertEquals(8, parseErrors.get(0).getOffset());
+		Assert.assertTrue("The port stopped receiving after a malformed packet",
+				listener.isMessageReceived());
+	}
+
+	@Test
+	public void testFailingListenerKeepsReceiving() throws Exception {
+		final List<IOException> receiveErrors
+				= Collections.synchronizedList(new ArrayList<IOException>());
+		receiver.setErrorHandler(new OSCErrorHandler() {
+			@Override
+			public void handleParseError(OSCParseException exception, SocketAddress sender) {
+				Assert.fail("Unexpected parse error: " + exception);
+			}
+
+			@Override
+			public void handleReceiveError(IOException exception) {
+				receiveErrors.add(exception);
+			}
+		});
+		receiver.addListener("/fail", new OSCListener() {
+			@Override
+			public void acceptMessage(Date time, OSCMessage message) {
+				throw new IllegalStateException("failing on purpose");
+			}
+		});
+		SimpleOSCListener listener = new SimpleOSCListener();
+		receiver.addListener("/message/receiving", listener);
+		receiver.startListening();
+		sender.send(new OSCMessage("/fail"));
+		sender.send(new OSCMessage("/message/receiving"));
+		Thread.sleep(100); // wait a bit
+		receiver.stopListening();
+
+		Assert.assertEquals(1, receiveErrors.size());
+		Assert.assertTrue(receiveErrors.get(0).getCause() instanceof IllegalStateException);
+		Assert.assertTrue("The port stopped receiving after a failing listener",
+				listener.isMessageReceived());
+	}
+
 	@Test
 	public void testBundleReceiving() throws Exception {
 		OSCBundle bundle = new OSCBundle();
@@ -178,4 +257,91 @@ public class OSCPortTest {
 					+ " but has " + listener.getReceivedTimestamp());
 		}
 	}
+
+	private static OSCBundle createBundle(final int minSize) {
+
+		final OSCBundle bundle = new OSCBundle();
+		while (bundle.getByteArray().length < minSize) {
+			final OSCMessage message = new OSCMessage("/bundle/large");
+			message.addArgument(new byte[100]);
+			bundle.addPacket(message);
+		}
+		return bundle;
+	}
+
+	@Test
+	public void testReceivingLargeBundle() throws Exception {
+		final OSCBundle bundle = createBundle(6000);
+		SimpleOSCListener listener = new SimpleOSCListener();
+		receiver.addListener("/bundle/large", listener);
+		receiver.setMaxPacketSize(8192);
+		receiver.setReceiveBufferSize(1 << 16);
+		Assert.assertTrue(receiver.getReceiveBufferSize() > 0);
+		receiver.startListening();
+		sender.send(bundle);
+		Thread.sleep(100); // wait a bit
+		receiver.stopListening();
+
+		Assert.assertEquals(bundle.getPackets().size(), listener.getMessageReceivedCount());
+		final OSCReceiveStatistics statistics = receiver.getStatistics();
+		Assert.assertEquals(1, statistics.getPacketsReceived());
+		Assert.assertEquals(bundle.getByteArray().length, statistics.getBytesReceived());
+		Assert.assertEquals(0, statistics.getPacketsTruncated());
+		// 4097 to 8192 bytes
+		Assert.assertEquals(1, statistics.getSizeHistogram()[7]);
+	}
+
+	@Test
+	public void testReceivingTruncatedPacket() throws Exception {
+		final List<OSCParseException> parseErrors = new ArrayList<OSCParseException>();
+		receiver.setErrorHandler(new OSCErrorHandler() {
+			@Override
+			public void handleParseError(OSCParseException exception, SocketAddress sender) {
+				parseErrors.add(exception);
+			}
+
+			@Override
+			public void handleReceiveError(IOException exception) {
+				Assert.fail("Unexpected receive error: " + exception);
+			}
+		});
+		SimpleOSCListener listener = new SimpleOSCListener();
+		receiver.addListener("/bundle/large", listener);
+		receiver.addListener("/message/receiving", listener);
+		receiver.startListening();
+
+		// just a little larger than the default maximum
+		sender.send(createBundle(OSCPortIn.DEFAULT_MAX_PACKET_SIZE + 1));
+		sender.send(new OSCMessage("/message/receiving"));
+		Thread.sleep(100); // wait a bit
+		receiver.stopListening();
+
+		Assert.assertEquals(1, parseErrors.size());
+		Assert.assertEquals(OSCPortIn.DEFAULT_MAX_PACKET_SIZE, parseErrors.get(0).getOffset());
+		Assert.assertEquals("Only the packet that fit should have been dispatched",
+				1, listener.getMessageReceivedCount());
+		final OSCReceiveStatistics statistics = receiver.getStatistics();
+		Assert.assertEquals(1, statistics.getPacketsTruncated());
+		Assert.assertEquals(1, statistics.getPacketsReceived());
+		Assert.assertEquals(1, statistics.getSizeHistogram()[0]);
+		Assert.assertEquals(1, statistics.getSizeHistogram()[OSCReceiveStatistics.NUM_BUCKETS - 1]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMaxPacketSizeTooLarge() throws Exception {
+		receiver.setMaxPacketSize(OSCPortIn.MAX_PACKET_SIZE + 1);
+	}
+
+	@Test
+	public void testStatisticsBuckets() {
+		Assert.assertEquals(0, OSCReceiveStatistics.bucketOf(0));
+		Assert.assertEquals(0, OSCReceiveStatistics.bucketOf(64));
+		Assert.assertEquals(1, OSCReceiveStatistics.bucketOf(65));
+		Assert.assertEquals(4, OSCReceiveStatistics.bucketOf(1024));
+		Assert.assertEquals(5, OSCReceiveStatistics.bucketOf(1025));
+		Assert.assertEquals(OSCReceiveStatistics.NUM_BUCKETS - 1,
+				OSCReceiveStatistics.bucketOf(OSCPortIn.MAX_PACKET_SIZE));
+		Assert.assertEquals(65536,
+				OSCReceiveStatistics.getBucketSize(OSCReceiveStatistics.NUM_BUCKETS - 1));
+	}
 }
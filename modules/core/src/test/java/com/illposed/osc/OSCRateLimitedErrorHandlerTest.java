@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCParseException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see OSCRateLimitedErrorHandler
+ */
+public class OSCRateLimitedErrorHandlerTest {
+
+	private static class CountingErrorHandler implements OSCErrorHandler {
+
+		private int parseErrors = 0;
+		private int receiveErrors = 0;
+
+		@Override
+		public void handleParseError(OSCParseException exception, SocketAddress sender) {
+			parseErrors++;
+		}
+
+		@Override
+		public void handleReceiveError(IOException exception) {
+			receiveErrors++;
+		}
+	}
+
+	@Test
+	public void testSuppressesErrorsBeyondLimit() {
+		final CountingErrorHandler counter = new CountingErrorHandler();
+		final OSCRateLimitedErrorHandler handler
+				= new OSCRateLimitedErrorHandler(counter, 3, 60000L);
+		for (int ei = 0; ei < 10; ei++) {
+			handler.handleParseError(new OSCParseException("Test", ei), null);
+		}
+		handler.handleReceiveError(new IOException("Test"));
+
+		Assert.assertEquals(3, counter.parseErrors);
+		Assert.assertEquals(0, counter.receiveErrors);
+		Assert.assertEquals(11, handler.getErrorCount());
+		Assert.assertEquals(8, handler.getSuppressedCount());
+	}
+
+	@Test
+	public void testReportsAgainInNextInterval() throws Exception {
+		final CountingErrorHandler counter = new CountingErrorHandler();
+		final OSCRateLimitedErrorHandler handler
+				= new OSCRateLimitedErrorHandler(counter, 1, 20L);
+		handler.handleReceiveError(new IOException("Test"));
+		handler.handleReceiveError(new IOException("Test"));
+		Thread.sleep(40);
+		handler.handleReceiveError(new IOException("Test"));
+
+		Assert.assertEquals(2, counter.receiveErrors);
+		Assert.assertEquals(1, handler.getSuppressedCount());
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCArgumentHandler;
+import com.illposed.osc.utility.OSCArgumentHandlers;
+import com.illposed.osc.utility.OSCJavaToByteArrayConverter;
+import com.illposed.osc.utility.OSCSignature;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see OSCShapeCache
+ */
+public class OSCShapeCacheTest {
+
+	/** An argument class only known to this test. */
+	private static final class Marker {
+	}
+
+	/** Encodes {@link Marker}s as a type tag without data. */
+	private static final class MarkerHandler implements OSCArgumentHandler<Marker> {
+
+		private final char typeTag;
+
+		MarkerHandler(final char typeTag) {
+			this.typeTag = typeTag;
+		}
+
+		@Override
+		public Class<Marker> getJavaClass() {
+			return Marker.class;
+		}
+
+		@Override
+		public char getClassTypeTag() {
+			return typeTag;
+		}
+
+		@Override
+		public char getTypeTag(final Marker value) {
+			return typeTag;
+		}
+
+		@Override
+		public void write(final OSCJavaToByteArrayConverter stream, final Marker value) {
+			// the value is fully represented by the type tag
+		}
+	}
+
+	/** An argument class whose type tag depends on the value. */
+	private static final class Switch {
+
+		private final boolean on;
+
+		Switch(final boolean on) {
+			this.on = on;
+		}
+	}
+
+	/** Encodes {@link Switch}es as <code>'T'</code> or <code>'F'</code>. */
+	private static final class SwitchHandler implements OSCArgumentHandler<Switch> {
+
+		@Override
+		public Class<Switch> getJavaClass() {
+			return Switch.class;
+		}
+
+		@Override
+		public char getClassTypeTag() {
+			return VALUE_DEPENDENT;
+		}
+
+		@Override
+		public char getTypeTag(final Switch value) {
+			return value.on ? 'T' : 'F';
+		}
+
+		@Override
+		public void write(final OSCJavaToByteArrayConverter stream, final Switch value) {
+			// the value is fully represented by the type tag
+		}
+	}
+
+	private final OSCJavaToByteArrayConverter stream = new OSCJavaToByteArrayConverter();
+
+	@Test
+	public void testSameShapeSameSignature() {
+
+		final OSCShapeCache cache = new OSCShapeCache(16);
+		final byte[] types = {'i', 0, 0, 'f'};
+		final OSCSignature first = cache.signatureOf(types, new Object[] {null, "a", null, null}, 4, stream);
+		final OSCSignature second = cache.signatureOf(types, new Object[] {null, "b", null, null}, 4, stream);
+		Assert.assertEquals("isNf", first.toString());
+		Assert.assertSame(first, second);
+		Assert.assertEquals("iiNf",
+				cache.signatureOf(types, new Object[] {null, 1, null, null}, 4, stream).toString());
+		Assert.assertSame(OSCSignature.EMPTY, cache.signatureOf(new byte[0], null, 0, stream));
+	}
+
+	@Test
+	public void testValueDependentTypes() {
+
+		final OSCShapeCache cache = new OSCShapeCache(16);
+		final byte[] types = {0};
+		Assert.assertEquals("T", cache.signatureOf(types, new Object[] {Boolean.TRUE}, 1, stream).toString());
+		Assert.assertEquals("F", cache.signatureOf(types, new Object[] {Boolean.FALSE}, 1, stream).toString());
+		Assert.assertEquals("[ii]",
+				cache.signatureOf(types, new Object[] {new int[2]}, 1, stream).toString());
+		Assert.assertEquals("[iii]",
+				cache.signatureOf(types, new Object[] {new int[3]}, 1, stream).toString());
+		Assert.assertEquals("[sf]",
+				cache.signatureOf(types, new Object[] {Arrays.<Object>asList("x", 1.0f)}, 1, stream).toString());
+	}
+
+	@Test
+	public void testValueDependentCustomHandler() {
+
+		final OSCShapeCache cache = new OSCShapeCache(16);
+		final byte[] types = {0};
+		final OSCArgumentHandlers handlers = OSCArgumentHandlers.getDefault();
+		try {
+			handlers.register(new SwitchHandler());
+			Assert.assertEquals("T", cache.signatureOf(types, new Object[] {new Switch(true)}, 1, stream).toString());
+			Assert.assertEquals("F", cache.signatureOf(types, new Object[] {new Switch(false)}, 1, stream).toString());
+		} finally {
+			handlers.unregister(Switch.class);
+		}
+	}
+
+	@Test
+	public void testRegisteringInvalidates() {
+
+		final OSCShapeCache cache = new OSCShapeCache(16);
+		final byte[] types = {0};
+		final OSCArgumentHandlers handlers = OSCArgumentHandlers.getDefault();
+		try {
+			handlers.register(new MarkerHandler('I'));
+			Assert.assertEquals("I", cache.signatureOf(types, new Object[] {new Marker()}, 1, stream).toString());
+			handlers.register(new MarkerHandler('N'));
+			Assert.assertEquals("N", cache.signatureOf(types, new Object[] {new Marker()}, 1, stream).toString());
+		} finally {
+			handlers.unregister(Marker.class);
+		}
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.AbstractOSCStreamFramer;
+import com.illposed.osc.utility.OSCLengthPrefixFramer;
+import com.illposed.osc.utility.OSCParseException;
+import com.illposed.osc.utility.OSCSlipFramer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see OSCTCPPortIn
+ * @see OSCTCPPortOut
+ */
+public class OSCTCPPortTest {
+
+	private static final long TIMEOUT_MILLIS = 5000;
+
+	private OSCTCPPortIn receiver;
+	private OSCTCPPortOut sender;
+
+	@After
+	public void tearDown() throws Exception {
+
+		if (sender != null) {
+			sender.close();
+		}
+		if (receiver != null) {
+			receiver.close();
+		}
+	}
+
+	private void connect(final AbstractOSCStreamFramer framer) throws IOException {
+
+		receiver = new OSCTCPPortIn(0, framer);
+		receiver.startListening();
+		sender = new OSCTCPPortOut(InetAddress.getLocalHost(), receiver.getPort(), framer);
+	}
+
+	private static void waitFor(final SimpleOSCListener listener, final int count)
+			throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while ((listener.getMessageReceivedCount() < count)
+				&& (System.currentTimeMillis() < deadline))
+		{
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(count, listener.getMessageReceivedCount());
+	}
+
+	/**
+	 * Creates a bundle much larger than a UDP receive buffer.
+	 */
+	private static OSCBundle createLargeBundle() {
+
+		final OSCBundle bundle = new OSCBundle();
+		for (int mi = 0; mi < 100; mi++) {
+			final OSCMessage message = new OSCMessage("/large/bundle");
+			message.addInt(mi);
+			message.addArgument(new byte[100]);
+			bundle.addPacket(message);
+		}
+		return bundle;
+	}
+
+	private void checkLargeBundles(final AbstractOSCStreamFramer framer) throws Exception {
+
+		connect(framer);
+		final SimpleOSCListener listener = new SimpleOSCListener();
+		receiver.addListener("/large/bundle", listener);
+		final OSCBundle bundle = createLargeBundle();
+		Assert.assertTrue(bundle.getByteArray().length > 10000);
+		for (int bi = 0; bi < 5; bi++) {
+			sender.send(bundle);
+		}
+		waitFor(listener, 500);
+	}
+
+	@Test
+	public void testLengthPrefixedLargeBundles() throws Exception {
+		checkLargeBundles(new OSCLengthPrefixFramer());
+	}
+
+	@Test
+	public void testSlipLargeBundles() throws Exception {
+		checkLargeBundles(new OSCSlipFramer());
+	}
+
+	@Test
+	public void testManySmallMessages() throws Exception {
+
+		connect(new OSCSlipFramer());
+		final SimpleOSCListener listener = new SimpleOSCListener();
+		receiver.addListener("/small", listener);
+		final OSCMessage message = new OSCMessage("/small");
+		message.addFloat(0.5f);
+		for (int mi = 0; mi < 1000; mi++) {
+			sender.send(message);
+		}
+		waitFor(listener, 1000);
+	}
+
+	@Test
+	public void testReceivingMalformedPacket() throws Exception {
+
+		receiver = new OSCTCPPortIn(0, new OSCLengthPrefixFramer());
+		final List<OSCParseException> parseErrors
+				= Collections.synchronizedList(new ArrayList<OSCParseException>());
+		final List<SocketAddress> senders
+				= Collections.synchronizedList(new ArrayList<SocketAddress>());
+		receiver.setErrorHandler(new OSCErrorHandler() {
+			@Override
+			public void handleParseError(OSCParseException exception, SocketAddress sender) {
+				parseErrors.add(exception);
+				senders.add(sender);
+			}
+
+			@Override
+			public void handleReceiveError(IOException exception) {
+				Assert.fail("Unexpected receive error: " + exception);
+			}
+		});
+		final SimpleOSCListener listener = new SimpleOSCListener();
+		receiver.addListener("/after", listener);
+		receiver.startListening();
+
+		final Socket socket = new Socket(InetAddress.getLocalHost(), receiver.getPort());
+		try {
+			final OutputStream output = socket.getOutputStream();
+			// a string argument lacking its terminating zero, ...
+			final byte[] malformed = {'/', 'x', 0, 0, ',', 's', 0, 0, 'a', 'b', 'c', 'd'};
+			new OSCLengthPrefixFramer().writeFrame(output, malformed, 0, malformed.length);
+			// ... followed by a valid message on the same connection
+			final byte[] valid = new OSCMessage("/after").getByteArray();
+			new OSCLengthPrefixFramer().writeFrame(output, valid, 0, valid.length);
+			waitFor(listener, 1);
+		} finally {
+			socket.close();
+		}
+		Assert.assertEquals(1, parseErrors.size());
+		Assert.assertEquals(8, parseErrors.get(0).getOffset());
+		Assert.assertNotNull(senders.get(0));
+	}
+
+	@Test
+	public void testFailingListenerKeepsConnection() throws Exception {
+
+		connect(new OSCSlipFramer());
+		final List<IOException> receiveErrors
+				= Collections.synchronizedList(new ArrayList<IOException>());
+		receiver.setErrorHandler(new OSCErrorHandler() {
+			@Override
+			public void handleParseError(OSCParseException exception, SocketAddress sender) {
+				Assert.fail("Unexpected parse error: " + exception);
+			}
+
+			@Override
+			public void handleReceiveError(IOException exception) {
+				receiveErrors.add(exception);
+			}
+		});
+		receiver.addListener("/fail", new OSCListener() {
+			@Override
+			public void acceptMessage(Date time, OSCMessage message) {
+				throw new IllegalStateException("failing on purpose");
+			}
+		});
+		final SimpleOSCListener listener = new SimpleOSCListener();
+		receiver.addListener("/after", listener);
+		sender.send(new OSCMessage("/fail"));
+		sender.send(new OSCMessage("/after"));
+		waitFor(listener, 1);
+		Assert.assertEquals(1, receiveErrors.size());
+		Assert.assertTrue(receiveErrors.get(0).getCause() instanceof IllegalStateException);
+		Assert.assertEquals(1, receiver.getConnectionCount());
+	}
+
+	@Test
+	public void testTimestampOfBundle() throws Exception {
+
+		connect(new OSCLengthPrefixFramer());
+		final SimpleOSCListener listener = new SimpleOSCListener();
+		receiver.addListener("/timed", listener);
+		final Date timestamp = new Date(1000000L);
+		final OSCBundle bundle = new OSCBundle(timestamp);
+		bundle.addPacket(new OSCMessage("/timed"));
+		sender.send(bundle);
+		waitFor(listener, 1);
+		Assert.assertEquals(timestamp, listener.getReceivedTimestamp());
+	}
+}
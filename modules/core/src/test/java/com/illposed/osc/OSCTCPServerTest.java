@@ -0,0 +1,336 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc;
+
+import com.illposed.osc.utility.OSCParseException;
+import com.illposed.osc.utility.OSCSlipFramer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see OSCTCPServer
+ * @see OSCConnection
+ */
+public class OSCTCPServerTest {
+
+	private static final long TIMEOUT_MILLIS = 5000;
+	private static final int NUM_CLIENTS = 50;
+	private static final int NUM_MESSAGES = 100;
+
+	/**
+	 * Counts the messages received, and remembers which connections they came from.
+	 * Each message carries the id of the connection it is expected to come from.
+	 */
+	private static class ConnectionRecordingListener implements OSCListener {
+
+		private final AtomicInteger messageCount = new AtomicInteger();
+		private final AtomicInteger misattributedCount = new AtomicInteger();
+		private final Set<Long> connectionIds
+				= Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
+		@Override
+		public void acceptMessage(Date time, OSCMessage message) {
+
+			final OSCConnection connection = OSCConnection.current();
+			if ((connection == null) || (connection.getId() != message.getInt(0))) {
+				misattributedCount.incrementAndGet();
+			} else {
+				connectionIds.add(connection.getId());
+			}
+			messageCount.incrementAndGet();
+		}
+
+		public int getMessageCount() {
+			return messageCount.get();
+		}
+
+		public int getMisattributedCount() {
+			return misattributedCount.get();
+		}
+
+		public Set<Long> getConnectionIds() {
+			return connectionIds;
+		}
+	}
+
+	private OSCTCPServer server;
+	private final List<OSCTCPPortOut> clients = new ArrayList<OSCTCPPortOut>();
+
+	@After
+	public void tearDown() throws Exception {
+
+		for (final OSCTCPPortOut client : clients) {
+			client.close();
+		}
+		if (server != null) {
+			server.stop();
+		}
+	}
+
+	private void waitForConnections(final int count) throws InterruptedException {
+
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while ((server.getConnectionCount() != count)
+				&& (System.currentTimeMillis() < deadline))
+		{
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(count, server.getConnectionCount());
+	}
+
+	private static void waitForMessages(final ConnectionRecordingListener listener, final int count)
+			throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while ((listener.getMessageCount() < count)
+				&& (System.currentTimeMillis() < deadline))
+		{
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(count, listener.getMessageCount());
+	}
+
+	private OSCTCPPortOut connect() throws IOException {
+
+		final OSCTCPPortOut client = new OSCTCPPortOut(
+				InetAddress.getLocalHost(), server.getPort(), new OSCSlipFramer());
+		clients.add(client);
+		return client;
+	}
+
+	private static OSCMessage createMessage(final int connectionId) {
+
+		final OSCMessage message = new OSCMessage("/tablet/touch");
+		message.addInt(connectionId);
+		return message;
+	}
+
+	@Test
+	public void testManyClients() throws Exception {
+
+		server = new OSCTCPServer(0, new OSCSlipFramer(), 2);
+		final ConnectionRecordingListener listener = new ConnectionRecordingListener();
+		server.addListener("/tablet/*", listener);
+		server.start();
+
+		for (int ci = 0; ci < NUM_CLIENTS; ci++) {
+			connect();
+		}
+		waitForConnections(NUM_CLIENTS);
+
+		// connections are numbered in the order they were accepted
+		for (int mi = 0; mi < NUM_MESSAGES; mi++) {
+			for (int ci = 0; ci < NUM_CLIENTS; ci++) {
+				clients.get(ci).send(createMessage(ci + 1));
+			}
+		}
+		waitForMessages(listener, NUM_CLIENTS * NUM_MESSAGES);
+		Assert.assertEquals(0, listener.getMisattributedCount());
+		Assert.assertEquals(NUM_CLIENTS, listener.getConnectionIds().size());
+	}
+
+	@Test
+	public void testDisconnect() throws Exception {
+
+		server = new OSCTCPServer(0, new OSCSlipFramer(), 1);
+		server.start();
+		final OSCTCPPortOut first = connect();
+		connect();
+		waitForConnections(2);
+
+		first.close();
+		clients.remove(first);
+		waitForConnections(1);
+	}
+
+	@Test
+	public void testReceivingMalformedPacket() throws Exception {
+
+		server = new OSCTCPServer(0, new OSCSlipFramer(), 1);
+		final List<SocketAddress> senders
+				= Collections.synchronizedList(new ArrayList<SocketAddress>());
+		server.setErrorHandler(new OSCErrorHandler() {
+			@Override
+			public void handleParseError(OSCParseException exception, SocketAddress sender) {
+				senders.add(sender);
+			}
+
+			@Override
+			public void handleReceiveError(IOException exception) {
+				Assert.fail("Unexpected receive error: " + exception);
+			}
+		});
+		final ConnectionRecordingListener listener = new ConnectionRecordingListener();
+		server.addListener("/tablet/*", listener);
+		server.start();
+
+		final Socket socket = new Socket(InetAddress.getLocalHost(), server.getPort());
+		try {
+			final OutputStream output = socket.getOutputStream();
+			// a string argument lacking its terminating zero, ...
+			final byte[] malformed = {'/', 'x', 0, 0, ',', 's', 0, 0, 'a', 'b', 'c', 'd'};
+			new OSCSlipFramer().writeFrame(output, malformed, 0, malformed.length);
+			// ... followed by a valid message on the same connection
+			final byte[] valid = createMessage(1).getByteArray();
+			new OSCSlipFramer().writeFrame(output, valid, 0, valid.length);
+			waitForMessages(listener, 1);
+		} finally {
+			socket.close();
+		}
+		Assert.assertEquals(0, listener.getMisattributedCount());
+		Assert.assertEquals(1, senders.size());
+		Assert.assertNotNull(senders.get(0));
+	}
+
+	@Test
+	public void testFailingListener() throws Exception {
+
+		server = new OSCTCPServer(0, new OSCSlipFramer(), 1);
+		final List<IOException> receiveErrors
+				= Collections.synchronizedList(new ArrayList<IOException>());
+		server.setErrorHandler(new OSCErrorHandler() {
+			@Override
+			public void handleParseError(OSCParseException exception, SocketAddress sender) {
+				Assert.fail("Unexpected parse error: " + exception);
+			}
+
+			@Override
+			public void handleReceiveError(IOException exception) {
+				receiveErrors.add(exception);
+			}
+		});
+		final ConnectionRecordingListener listener = new ConnectionRecordingListener();
+		server.addListener("/tablet/*", listener);
+		server.addListener("/fail", new OSCListener() {
+			@Override
+			public void acceptMessage(Date time, OSCMessage message) {
+				throw new IllegalStateException("failing on purpose");
+			}
+		});
+		server.start();
+
+		final OSCTCPPortOut client = connect();
+		waitForConnections(1);
+		client.send(new OSCMessage("/fail"));
+		client.send(createMessage(1));
+		waitForMessages(listener, 1);
+
+		// the selector thread survived, and still serves new connections
+		connect().send(createMessage(2));
+		waitForMessages(listener, 2);
+		Assert.assertEquals(0, listener.getMisattributedCount());
+		Assert.assertEquals(1, receiveErrors.size());
+		Assert.assertTrue(receiveErrors.get(0).getCause() instanceof IllegalStateException);
+	}
+
+	@Test
+	public void testCloseConnection() throws Exception {
+
+		server = new OSCTCPServer(0, new OSCSlipFramer(), 1);
+		final List<OSCConnection> connections
+				= Collections.synchronizedList(new ArrayList<OSCConnection>());
+		server.addListener("/close", new OSCListener() {
+			@Override
+			public void acceptMessage(Date time, OSCMessage message) {
+				connections.add(OSCConnection.current());
+				try {
+					OSCConnection.current().close();
+				} catch (IOException ex) {
+					throw new IllegalStateException(ex);
+				}
+			}
+		});
+		server.start();
+
+		final OSCTCPPortOut client = connect();
+		connect();
+		waitForConnections(2);
+		client.send(new OSCMessage("/close"));
+		waitForConnections(1);
+
+		// neither closing again, nor the client hanging up, count twice
+		final OSCConnection connection = connections.get(0);
+		Assert.assertFalse(connection.isOpen());
+		connection.close();
+		client.close();
+		clients.remove(client);
+		Thread.sleep(100);
+		Assert.assertEquals(1, server.getConnectionCount());
+	}
+
+	@Test
+	public void testNoDispatchAfterClose() throws Exception {
+
+		server = new OSCTCPServer(0, new OSCSlipFramer(), 1);
+		final AtomicInteger messageCount = new AtomicInteger();
+		server.addListener("/close", new OSCListener() {
+			@Override
+			public void acceptMessage(Date time, OSCMessage message) {
+				messageCount.incrementAndGet();
+				try {
+					OSCConnection.current().close();
+				} catch (IOException ex) {
+					throw new IllegalStateException(ex);
+				}
+			}
+		});
+		server.start();
+
+		// both frames in a single write, so they are read together
+		final byte[] packet = new OSCMessage("/close").getByteArray();
+		final ByteArrayOutputStream frames = new ByteArrayOutputStream();
+		final OSCSlipFramer framer = new OSCSlipFramer();
+		framer.writeFrame(frames, packet, 0, packet.length);
+		framer.writeFrame(frames, packet, 0, packet.length);
+		final Socket socket = new Socket(InetAddress.getLocalHost(), server.getPort());
+		try {
+			waitForConnections(1);
+			socket.getOutputStream().write(frames.toByteArray());
+			waitForConnections(0);
+			Thread.sleep(100);
+			Assert.assertEquals(1, messageCount.get());
+		} finally {
+			socket.close();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testPortInUse() throws Exception {
+
+		server = new OSCTCPServer(0, new OSCSlipFramer(), 1);
+		new OSCTCPServer(server.getPort(), new OSCSlipFramer(), 1);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAddListenerAfterStart() throws Exception {
+
+		server = new OSCTCPServer(0, new OSCSlipFramer(), 1);
+		server.start();
+		server.addListener("/late", new ConnectionRecordingListener());
+	}
+
+	@Test
+	public void testNoCurrentConnectionOutsideListeners() {
+		Assert.assertNull(OSCConnection.current());
+	}
+}
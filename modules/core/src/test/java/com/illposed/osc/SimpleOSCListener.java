@@ -14,6 +14,7 @@ public class SimpleOSCListener implements OSCListener {
 
 	private boolean messageReceived = false;
 	private Date receivedTimestamp = null;
+	private int messageReceivedCount = 0;
 
 	public Date getReceivedTimestamp() {
 		return receivedTimestamp;
@@ -23,9 +24,14 @@ public class SimpleOSCListener implements OSCListener {
 		return messageReceived;
 	}
 
+	public int getMessageReceivedCount() {
+		return messageReceivedCount;
+	}
+
 	@Override
 	public void acceptMessage(Date time, OSCMessage message) {
 		messageReceived = true;
 		receivedTimestamp = time;
+		messageReceivedCount++;
 	}
 }
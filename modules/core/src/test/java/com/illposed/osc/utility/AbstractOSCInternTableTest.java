@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import java.nio.charset.Charset;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see AbstractOSCInternTable
+ */
+public class AbstractOSCInternTableTest {
+
+	private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+	private static AbstractOSCInternTable<String> createTable(final int maxSize) {
+
+		return new AbstractOSCInternTable<String>(maxSize) {
+			@Override
+			protected boolean matches(
+					final String value,
+					final byte[] bytes,
+					final int offset,
+					final int length,
+					final int hash)
+			{
+				return value.equals(new String(bytes, offset, length, US_ASCII));
+			}
+
+			@Override
+			protected int hashOf(final String value) {
+
+				final byte[] bytes = value.getBytes(US_ASCII);
+				return AbstractOSCInternTable.hash(bytes, 0, bytes.length);
+			}
+		};
+	}
+
+	private static String intern(final AbstractOSCInternTable<String> table, final String value) {
+
+		final byte[] bytes = value.getBytes(US_ASCII);
+		final int hash = AbstractOSCInternTable.hash(bytes, 0, bytes.length);
+		String interned = table.get(bytes, 0, bytes.length, hash);
+		if (interned == null) {
+			interned = table.add(bytes, 0, bytes.length, hash, new String(value));
+		}
+		return interned;
+	}
+
+	@Test
+	public void testIntern() {
+
+		final AbstractOSCInternTable<String> table = createTable(4);
+		final String first = intern(table, "abc");
+		Assert.assertEquals("abc", first);
+		Assert.assertSame(first, intern(table, "abc"));
+		Assert.assertEquals(1, table.size());
+		Assert.assertEquals(4, table.getMaxSize());
+
+		table.clear();
+		Assert.assertEquals(0, table.size());
+		Assert.assertNotSame(first, intern(table, "abc"));
+	}
+
+	@Test
+	public void testFullEvicts() {
+
+		final AbstractOSCInternTable<String> table = createTable(2);
+		intern(table, "a");
+		intern(table, "b");
+		final String third = intern(table, "c");
+		Assert.assertSame(third, intern(table, "c"));
+		Assert.assertEquals(2, table.size());
+	}
+
+	@Test
+	public void testFloodKeepsTableUsable() {
+
+		final AbstractOSCInternTable<String> table = createTable(16);
+		for (int vi = 0; vi < 10000; vi++) {
+			intern(table, "/random/" + vi);
+			Assert.assertTrue(table.size() <= 16);
+		}
+		Assert.assertEquals(16, table.size());
+
+		// all values still cached are reachable after the evictions moved them
+		int reachable = 0;
+		for (int vi = 0; vi < 10000; vi++) {
+			final byte[] bytes = ("/random/" + vi).getBytes(US_ASCII);
+			if (table.get(bytes, 0, bytes.length, AbstractOSCInternTable.hash(bytes, 0, bytes.length)) != null) {
+				reachable++;
+			}
+		}
+		Assert.assertEquals(16, reachable);
+
+		final String used = intern(table, "/synth/1");
+		Assert.assertSame(used, intern(table, "/synth/1"));
+	}
+}
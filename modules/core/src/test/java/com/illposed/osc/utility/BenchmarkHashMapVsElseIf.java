@@ -19,6 +19,8 @@ import java.util.Random;
  * Runs a very basic benchmark test to check whether using an else-if-chain or
  * a HashMap based approach is faster, when trying to convert a java class to
  * an OSC Type indicator char.
+ * The last one measured is the {@link OSCArgumentHandlers} registry,
+ * which is what {@link OSCJavaToByteArrayConverter} uses.
  */
 public class BenchmarkHashMapVsElseIf {
 
@@ -37,6 +39,7 @@ public class BenchmarkHashMapVsElseIf {
 	}
 	private static final List<Class> JAVA_CLASSES = new ArrayList<Class>(JAVA_CLASS_TO_OSC_TYPE.keySet());
 	private static final Random TYPE_GENERATOR_RND = new Random();
+	private static final OSCArgumentHandlers ARGUMENT_HANDLERS = new OSCArgumentHandlers();
 
 	public static void main(String[] args) {
 
@@ -73,6 +76,16 @@ public class BenchmarkHashMapVsElseIf {
 		}
 		final long timeHashMap = (System.currentTimeMillis() - start) / numTestRuns;
 		System.err.printf("Average time 'HashMap':         %d ms\n", timeHashMap);
+
+		System.err.printf("Running 'OSCArgumentHandlers' benchmark %d times ...\n", numTestRuns);
+		start = System.currentTimeMillis();
+		for (int tri = 0; tri < numTestRuns; tri++) {
+			for (Class type : generateRandomTypes) {
+				convertToTypeRegistry(type);
+			}
+		}
+		final long timeRegistry = (System.currentTimeMillis() - start) / numTestRuns;
+		System.err.printf("Average time 'OSCArgumentHandlers': %d ms\n", timeRegistry);
 	}
 
 	private static Class generateRandomType() {
@@ -93,6 +106,11 @@ public class BenchmarkHashMapVsElseIf {
 		return JAVA_CLASS_TO_OSC_TYPE.get(cls);
 	}
 
+	@SuppressWarnings("unchecked")
+	public static Character convertToTypeRegistry(Class cls) {
+		return ((OSCArgumentHandler<Object>) ARGUMENT_HANDLERS.lookup(cls)).getClassTypeTag();
+	}
+
 	public static Character convertToTypeElseIf(Class cls) {
 
 		final Character type;
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCColor;
+import com.illposed.osc.OSCImpulse;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCMidiMessage;
+import com.illposed.osc.OSCPackedArray;
+import com.illposed.osc.OSCSymbol;
+import com.illposed.osc.OSCUnsigned;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Feeds truncated, corrupted and random bytes to the converter,
+ * as arrays and as direct buffers,
+ * making sure it never fails with anything but an {@link OSCParseException}.
+ * @see OSCByteArrayToJavaConverter
+ * @see OSCPacketParser
+ */
+public class OSCByteArrayToJavaConverterFuzzTest {
+
+	/** Fixed, so failures are reproducible. */
+	private static final long SEED = 20140917L;
+	private static final int MUTATIONS_PER_PACKET = 2000;
+	private static final int RANDOM_PACKETS = 5000;
+
+	private static List<byte[]> createValidPackets() {
+
+		final List<byte[]> packets = new ArrayList<byte[]>();
+
+		final OSCMessage allTypes = new OSCMessage("/fuzz/all");
+		allTypes.addArgument(1);
+		allTypes.addArgument(2L);
+		allTypes.addArgument(3.0f);
+		allTypes.addArgument(4.0);
+		allTypes.addArgument("five");
+		allTypes.addArgument(new byte[] {6, 6, 6});
+		allTypes.addArgument('7');
+		allTypes.addArgument(new Date(8000L));
+		allTypes.addArgument(Boolean.TRUE);
+		allTypes.addArgument(null);
+		allTypes.addArgument(OSCImpulse.INSTANCE);
+		allTypes.addArgument(Arrays.<Object>asList(9, "ten", Arrays.<Object>asList(11.0f)));
+		allTypes.addArgument(new double[] {12.0, 13.0});
+		allTypes.addArgument(OSCPackedArray.wrap(new int[] {14, 15}));
+		allTypes.addArgument(new OSCSymbol("sixteen"));
+		allTypes.addArgument(OSCColor.valueOf(17));
+		allTypes.addArgument(OSCMidiMessage.valueOf(18));
+		allTypes.addArgument(OSCUnsigned.valueOf(19L));
+		packets.add(allTypes.getByteArray());
+
+		final OSCMessage fixed = new OSCMessage("/fuzz/fixed");
+		fixed.addArgument(1);
+		fixed.addArgument(2.0);
+		fixed.addArgument(Boolean.FALSE);
+		packets.add(fixed.getByteArray());
+
+		packets.add(new OSCMessage("/fuzz/empty").getByteArray());
+
+		final OSCBundle inner = new OSCBundle(new Date(1000L));
+		inner.addPacket(fixed);
+		final OSCBundle outer = new OSCBundle();
+		outer.addPacket(allTypes);
+		outer.addPacket(inner);
+		packets.add(outer.getByteArray());
+
+		return packets;
+	}
+
+	/**
+	 * Converts bytes with a lenient and with a validating converter,
+	 * each from an array and from a direct buffer,
+	 * the latter decoding primitive arrays,
+	 * failing the test if any other than the expected exception is thrown.
+	 * @return the number of parse failures (0 to 4)
+	 */
+	private static int convert(final byte[] bytes, final int length) {
+
+		int failures = 0;
+		for (final boolean validating : new boolean[] {false, true}) {
+			for (final boolean direct : new boolean[] {false, true}) {
+				final OSCByteArrayToJavaConverter converter = new OSCByteArrayToJavaConverter();
+				converter.setValidating(validating);
+				converter.setDecodingPrimitiveArrays(direct);
+				try {
+					if (direct) {
+						final ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+						buffer.put(bytes, 0, length).flip();
+						converter.convert(buffer);
+					} else {
+						converter.convert(bytes, length);
+					}
+				} catch (OSCParseException ex) {
+					failures++;
+					Assert.assertTrue("Offset out of range: " + ex.getOffset(),
+							(ex.getOffset() >= 0) && (ex.getOffset() <= length));
+				} catch (RuntimeException ex) {
+					throw new AssertionError("Unexpected " + ex + " for "
+							+ Arrays.toString(Arrays.copyOf(bytes, length)));
+				} catch (StackOverflowError err) {
+					throw new AssertionError("Unexpected " + err + " for "
+							+ Arrays.toString(Arrays.copyOf(bytes, length)));
+				}
+			}
+		}
+		return failures;
+	}
+
+	@Test
+	public void testValidPackets() {
+
+		for (final byte[] packet : createValidPackets()) {
+			Assert.assertEquals(0, convert(packet, packet.length));
+		}
+	}
+
+	@Test
+	public void testTruncatedPackets() {
+
+		for (final byte[] packet : createValidPackets()) {
+			for (int length = 0; length < packet.length; length++) {
+				convert(packet, length);
+			}
+		}
+	}
+
+	@Test
+	public void testCorruptedPackets() {
+
+		final Random random = new Random(SEED);
+		for (final byte[] packet : createValidPackets()) {
+			for (int mi = 0; mi < MUTATIONS_PER_PACKET; mi++) {
+				final byte[] mutated = packet.clone();
+				final int numFlips = 1 + random.nextInt(4);
+				for (int fi = 0; fi < numFlips; fi++) {
+					final int index = random.nextInt(mutated.length);
+					if (random.nextBoolean()) {
+						mutated[index] = (byte) random.nextInt(256);
+					} else {
+						// favor values that are special to the format
+						final byte[] special = {0, ',', '#', '[', ']', 's', 'b', (byte) 0x7F, (byte) 0xFF};
+						mutated[index] = special[random.nextInt(special.length)];
+					}
+				}
+				convert(mutated, mutated.length);
+			}
+		}
+	}
+
+	@Test
+	public void testRandomPackets() {
+
+		final Random random = new Random(SEED);
+		for (int pi = 0; pi < RANDOM_PACKETS; pi++) {
+			final byte[] bytes = new byte[random.nextInt(64)];
+			random.nextBytes(bytes);
+			if ((bytes.length > 0) && random.nextBoolean()) {
+				bytes[0] = (byte) (random.nextBoolean() ? '/' : '#');
+			}
+			convert(bytes, bytes.length);
+		}
+	}
+
+	@Test
+	public void testDeeplyNestedBundles() {
+
+		OSCBundle bundle = new OSCBundle();
+		bundle.addPacket(new OSCMessage("/deep"));
+		for (int di = 0; di < OSCPacketParser.MAX_BUNDLE_DEPTH; di++) {
+			final OSCBundle outer = new OSCBundle();
+			outer.addPacket(bundle);
+			bundle = outer;
+		}
+		final byte[] bytes = bundle.getByteArray();
+		Assert.assertEquals(4, convert(bytes, bytes.length));
+	}
+}
@@ -9,8 +9,17 @@
 package com.illposed.osc.utility;
 
 import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCColor;
 import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCMidiMessage;
+import com.illposed.osc.OSCPackedArray;
 import com.illposed.osc.OSCPacket;
+import com.illposed.osc.OSCSymbol;
+import com.illposed.osc.OSCUnsigned;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import org.junit.After;
@@ -110,4 +119,295 @@ public class OSCByteArrayToJavaConverterTest {
 		final OSCMessage message = (OSCMessage) packets.get(0);
 		checkAddress("/test", message.getAddress());
 	}
+
+	@Test
+	public void testReadCharFollowedByOtherArguments() {
+		final OSCMessage sent = new OSCMessage("/chars");
+		sent.addArgument('x');
+		sent.addInt(7);
+		sent.addArgument("after");
+		final byte[] bytes = sent.getByteArray();
+		final OSCMessage message = (OSCMessage) converter.convert(bytes, bytes.length);
+		Assert.assertEquals('x', message.getArgument(0));
+		Assert.assertEquals(7, message.getInt(1));
+		Assert.assertEquals("after", message.getArgument(2));
+	}
+
+	@Test
+	public void testReadFixedLayoutPacket() {
+		final OSCMessage sent = new OSCMessage("/fixed");
+		sent.addInt(-3);
+		sent.addArgument(Boolean.TRUE);
+		sent.addDouble(2.5);
+		sent.addArgument('c');
+		sent.addLong(Long.MIN_VALUE);
+		sent.addFloat(0.25f);
+		final byte[] bytes = sent.getByteArray();
+		final OSCMessage message = (OSCMessage) converter.convert(bytes, bytes.length);
+		Assert.assertEquals(sent.getArguments(), message.getArguments());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReadTruncatedFixedLayoutPacket() {
+		final OSCMessage sent = new OSCMessage("/fixed");
+		sent.addInt(1);
+		sent.addInt(2);
+		final byte[] bytes = sent.getByteArray();
+		converter.convert(bytes, bytes.length - 4);
+	}
+
+	@Test
+	public void testReadAlignedBlobFollowedByOtherArguments() {
+		final OSCMessage sent = new OSCMessage("/blob");
+		sent.addArgument(new byte[] {1, 2, 3, 4});
+		sent.addInt(5);
+		final byte[] bytes = sent.getByteArray();
+		final OSCMessage message = (OSCMessage) converter.convert(bytes, bytes.length);
+		Assert.assertArrayEquals(new byte[] {1, 2, 3, 4}, (byte[]) message.getArgument(0));
+		Assert.assertEquals(5, message.getInt(1));
+	}
+
+	@Test
+	public void testReadNestedArrays() {
+		final OSCMessage sent = new OSCMessage("/nested");
+		sent.addArgument(Arrays.<Object>asList(1, Arrays.<Object>asList("a", 2.0f), 3));
+		sent.addInt(4);
+		final byte[] bytes = sent.getByteArray();
+		final OSCMessage message = (OSCMessage) converter.convert(bytes, bytes.length);
+		Assert.assertEquals(sent.getArguments(), message.getArguments());
+	}
+
+	@Test
+	public void testReadPrimitiveArrays() {
+		final OSCMessage sent = new OSCMessage("/primitive");
+		sent.addArgument(new int[] {1, 2, 3});
+		sent.addArgument(new float[] {1.5f});
+		sent.addArgument(new long[] {Long.MIN_VALUE, Long.MAX_VALUE});
+		sent.addArgument(new double[] {0.25, -0.5});
+		sent.addArgument(Arrays.<Object>asList(1, 2.0f));
+		sent.addArgument(Arrays.<Object>asList(Arrays.<Object>asList(4, 5), 6));
+		sent.addArgument(new int[0]);
+		final byte[] bytes = sent.getByteArray();
+
+		// by default, arrays are read as lists
+		final OSCMessage boxed = (OSCMessage) converter.convert(bytes, bytes.length);
+		Assert.assertEquals(Arrays.<Object>asList(1, 2, 3), boxed.getArguments().get(0));
+		Assert.assertEquals(Arrays.<Object>asList(1.5f), boxed.getArguments().get(1));
+
+		converter.setDecodingPrimitiveArrays(true);
+		final List<Object> arguments = ((OSCMessage) converter.convert(bytes, bytes.length)).getArguments();
+		Assert.assertEquals(7, arguments.size());
+		Assert.assertArrayEquals(new int[] {1, 2, 3}, (int[]) arguments.get(0));
+		Assert.assertArrayEquals(new float[] {1.5f}, (float[]) arguments.get(1), 0.0f);
+		Assert.assertArrayEquals(new long[] {Long.MIN_VALUE, Long.MAX_VALUE}, (long[]) arguments.get(2));
+		Assert.assertArrayEquals(new double[] {0.25, -0.5}, (double[]) arguments.get(3), 0.0);
+		// mixed and nested arrays, and empty ones, are still read as lists
+		Assert.assertEquals(Arrays.<Object>asList(1, 2.0f), arguments.get(4));
+		final List<?> nested = (List<?>) arguments.get(5);
+		Assert.assertArrayEquals(new int[] {4, 5}, (int[]) nested.get(0));
+		Assert.assertEquals(6, nested.get(1));
+		Assert.assertEquals(Arrays.asList(), arguments.get(6));
+	}
+
+	@Test
+	public void testReadPackedArrays() {
+		final OSCMessage sent = new OSCMessage("/packed");
+		sent.addArgument(OSCPackedArray.wrap(new int[] {7, 8}));
+		sent.addArgument(OSCPackedArray.wrap(new float[] {0.5f}));
+		sent.addArgument(OSCPackedArray.wrap(new long[] {-1L}));
+		sent.addArgument(OSCPackedArray.wrap(new double[] {1.0, 2.0}));
+		sent.addArgument(new byte[] {'[', 'x', ']', 0, 1, 2, 3, 4});
+		final byte[] bytes = sent.getByteArray();
+
+		// by default, packed arrays are plain blobs
+		final OSCMessage raw = (OSCMessage) converter.convert(bytes, bytes.length);
+		Assert.assertArrayEquals(new byte[] {'[', 'i', ']', 0, 0, 0, 0, 7, 0, 0, 0, 8},
+				(byte[]) raw.getArguments().get(0));
+
+		converter.setDecodingPrimitiveArrays(true);
+		final List<Object> arguments = ((OSCMessage) converter.convert(bytes, bytes.length)).getArguments();
+		Assert.assertArrayEquals(new int[] {7, 8}, (int[]) arguments.get(0));
+		Assert.assertArrayEquals(new float[] {0.5f}, (float[]) arguments.get(1), 0.0f);
+		Assert.assertArrayEquals(new long[] {-1L}, (long[]) arguments.get(2));
+		Assert.assertArrayEquals(new double[] {1.0, 2.0}, (double[]) arguments.get(3), 0.0);
+		// blobs with an unknown element type stay blobs
+		Assert.assertArrayEquals(new byte[] {'[', 'x', ']', 0, 1, 2, 3, 4},
+				(byte[]) arguments.get(4));
+	}
+
+	@Test
+	public void testReadExtendedTypes() {
+		final OSCMessage sent = new OSCMessage("/extended");
+		sent.addArgument(new OSCSymbol("sine"));
+		sent.addColor(OSCColor.toRGBA(1, 2, 3, 4));
+		sent.addMidiMessage(OSCMidiMessage.toInt(0, 0x90, 60, 100));
+		sent.addUnsigned(OSCUnsigned.MAX_VALUE);
+		sent.addArgument(Arrays.<Object>asList(
+				OSCUnsigned.valueOf(7L), OSCColor.valueOf(0xFF0000FF), new OSCSymbol("x")));
+		final byte[] bytes = sent.getByteArray();
+
+		final OSCMessage message = (OSCMessage) converter.convert(bytes, bytes.length);
+		Assert.assertEquals(sent.getArguments(), message.getArguments());
+		Assert.assertEquals(new OSCSymbol("sine"), message.getArgument(0));
+		final OSCColor color = (OSCColor) message.getArgument(1);
+		Assert.assertEquals(1, color.getRed());
+		Assert.assertEquals(2, color.getGreen());
+		Assert.assertEquals(3, color.getBlue());
+		Assert.assertEquals(4, color.getAlpha());
+		Assert.assertEquals(0x01020304, message.getInt(1));
+		final OSCMidiMessage midi = (OSCMidiMessage) message.getArgument(2);
+		Assert.assertEquals(0x90, midi.getStatus());
+		Assert.assertEquals(60, midi.getData1());
+		Assert.assertEquals(100, midi.getData2());
+		Assert.assertEquals(OSCUnsigned.MAX_VALUE, message.getLong(3));
+		Assert.assertEquals(OSCUnsigned.valueOf(OSCUnsigned.MAX_VALUE), message.getArgument(3));
+	}
+
+	private static OSCMessage createMixedMessage() {
+		final OSCMessage message = new OSCMessage("/buffer");
+		message.addInt(1);
+		message.addArgument("two");
+		message.addArgument(new byte[] {3, 3, 3});
+		message.addDouble(4.0);
+		message.addArgument(Arrays.<Object>asList(5L, 'c'));
+		return message;
+	}
+
+	@Test
+	public void testReadDirectBuffer() {
+		final OSCMessage sent = createMixedMessage();
+		final byte[] bytes = sent.getByteArray();
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 8);
+		buffer.position(4);
+		buffer.put(bytes);
+		buffer.flip();
+		buffer.position(4);
+		// the byte order of the buffer must not matter
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		final OSCMessage message = (OSCMessage) converter.convert(buffer);
+		checkAddress("/buffer", message.getAddress());
+		Assert.assertEquals(5, message.getArguments().size());
+		Assert.assertEquals(sent.getArgument(0), message.getArgument(0));
+		Assert.assertEquals(sent.getArgument(1), message.getArgument(1));
+		Assert.assertArrayEquals((byte[]) sent.getArgument(2), (byte[]) message.getArgument(2));
+		Assert.assertEquals(sent.getArgument(3), message.getArgument(3));
+		Assert.assertEquals(sent.getArgument(4), message.getArgument(4));
+		Assert.assertEquals(buffer.limit(), buffer.position());
+	}
+
+	@Test
+	public void testReadHeapBufferSlice() {
+		final OSCMessage sent = new OSCMessage("/slice");
+		sent.addFloat(1.5f);
+		final byte[] bytes = sent.getByteArray();
+		final byte[] storage = new byte[bytes.length + 12];
+		System.arraycopy(bytes, 0, storage, 8, bytes.length);
+		final ByteBuffer wrapped = ByteBuffer.wrap(storage);
+		wrapped.position(4);
+		final ByteBuffer slice = wrapped.slice();
+		slice.position(4);
+		slice.limit(4 + bytes.length);
+
+		final OSCMessage message = (OSCMessage) converter.convert(slice);
+		checkAddress("/slice", message.getAddress());
+		Assert.assertEquals(1.5f, message.getFloat(0), 0.0f);
+		Assert.assertEquals(4 + bytes.length, slice.position());
+	}
+
+	@Test
+	public void testReadFramedStreamFromBuffer() {
+		final byte[] first = new OSCMessage("/first").getByteArray();
+		final byte[] second = new OSCMessage("/second", Arrays.<Object>asList(2)).getByteArray();
+		final ByteBuffer stream = ByteBuffer.allocateDirect(first.length + second.length);
+		stream.put(first).put(second).flip();
+
+		stream.limit(first.length);
+		checkAddress("/first", ((OSCMessage) converter.convert(stream)).getAddress());
+		stream.limit(stream.capacity());
+		final OSCMessage message = (OSCMessage) converter.convert(stream);
+		checkAddress("/second", message.getAddress());
+		Assert.assertEquals(2, message.getInt(0));
+		Assert.assertFalse(stream.hasRemaining());
+	}
+
+	@Test
+	public void testFailedBufferReadKeepsPosition() {
+		final byte[] bytes = new OSCMessage("/short", Arrays.<Object>asList(1)).getByteArray();
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes, 0, bytes.length - 4).flip();
+		try {
+			converter.convert(buffer);
+			Assert.fail("Truncated packet was accepted");
+		} catch (OSCParseException ex) {
+			Assert.assertEquals(0, buffer.position());
+		}
+	}
+
+	@Test
+	public void testInvalidAddressOffsetIsRelative() {
+		final OSCBundle bundle = new OSCBundle();
+		bundle.addPacket(new OSCMessage("/abc"));
+		final byte[] packet = bundle.getByteArray();
+		// "#bundle", the time tag, and the size of the message precede it
+		final int messageStart = 8 + 8 + 4;
+		packet[messageStart + 2] = ' ';
+		final int prefix = 8;
+		final byte[] bytes = new byte[prefix + packet.length];
+		System.arraycopy(packet, 0, bytes, prefix, packet.length);
+
+		try {
+			converter.convert(bytes, prefix, packet.length);
+			Assert.fail("Invalid address was accepted");
+		} catch (OSCParseException ex) {
+			Assert.assertEquals(messageStart, ex.getOffset());
+		}
+		try {
+			converter.convert(ByteBuffer.wrap(bytes, prefix, packet.length));
+			Assert.fail("Invalid address was accepted");
+		} catch (OSCParseException ex) {
+			Assert.assertEquals(messageStart, ex.getOffset());
+		}
+	}
+
+	@Test
+	public void testDecodeObserver() {
+		final List<Integer> sizes = new ArrayList<Integer>();
+		final List<Integer> started = new ArrayList<Integer>();
+		converter.setDecodeObserver(new OSCDecodeObserver() {
+			@Override
+			public Object decodeStarting(int numBytes) {
+				started.add(numBytes);
+				return started.size();
+			}
+
+			@Override
+			public void packetDecoded(
+					Object token,
+					OSCPacket packet,
+					int numBytes,
+					long durationNanos)
+			{
+				Assert.assertEquals(started.size(), token);
+				Assert.assertTrue(packet instanceof OSCMessage);
+				Assert.assertTrue(durationNanos >= 0);
+				sizes.add(numBytes);
+			}
+		});
+		final byte[] bytes = new OSCMessage("/observed", Arrays.<Object>asList(1)).getByteArray();
+		converter.convert(bytes, bytes.length);
+		converter.convert(ByteBuffer.wrap(bytes));
+		try {
+			converter.convert(bytes, bytes.length - 4);
+			Assert.fail("Truncated packet was accepted");
+		} catch (OSCParseException ex) {
+			// failed packets are not observed
+		}
+		Assert.assertEquals(Arrays.asList(bytes.length, bytes.length), sizes);
+		Assert.assertEquals(Arrays.asList(bytes.length, bytes.length, bytes.length - 4), started);
+
+		converter.setDecodeObserver(null);
+		converter.convert(bytes, bytes.length);
+		Assert.assertEquals(2, sizes.size());
+	}
 }
@@ -8,7 +8,13 @@
 
 package com.illposed.osc.utility;
 
+import com.illposed.osc.OSCMessage;
 import com.illposed.osc.OSCMessageTest;
+import com.illposed.osc.OSCPackedArray;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -153,4 +159,181 @@ public class OSCJavaToByteArrayConverterTest {
 			// ignore
 		}
 	}
+
+	/**
+	 * An application specific argument type, used to test custom handlers.
+	 */
+	private static class Colour {
+
+		private final int rgba;
+
+		Colour(int rgba) {
+			this.rgba = rgba;
+		}
+
+		public int getRGBA() {
+			return rgba;
+		}
+	}
+
+	private static class ColourHandler implements OSCArgumentHandler<Colour> {
+
+		@Override
+		public Class<Colour> getJavaClass() {
+			return Colour.class;
+		}
+
+		@Override
+		public char getClassTypeTag() {
+			return 'r';
+		}
+
+		@Override
+		public char getTypeTag(Colour value) {
+			return 'r';
+		}
+
+		@Override
+		public void write(OSCJavaToByteArrayConverter stream, Colour value) {
+			stream.write(value.getRGBA());
+		}
+	}
+
+	@Test
+	public void testCustomArgumentHandler() {
+		OSCArgumentHandlers.getDefault().register(new ColourHandler());
+		try {
+			OSCJavaToByteArrayConverter stream = new OSCJavaToByteArrayConverter();
+			Colour colour = new Colour(0x11223344);
+			stream.writeArgumentType(colour);
+			stream.terminateTypes();
+			stream.write((Object) colour);
+			byte[] answer = {'r', 0, 0, 0, 0x11, 0x22, 0x33, 0x44};
+			checkResultEqualsAnswer(stream.toByteArray(), answer);
+
+			// the registry is global, so it is used for packets too
+			OSCMessage message = new OSCMessage("/c");
+			message.addArgument(colour);
+			byte[] messageAnswer
+					= {'/', 'c', 0, 0, ',', 'r', 0, 0, 0x11, 0x22, 0x33, 0x44};
+			checkResultEqualsAnswer(message.getByteArray(), messageAnswer);
+		} finally {
+			OSCArgumentHandlers.getDefault().unregister(Colour.class);
+		}
+		Assert.assertNull(OSCArgumentHandlers.getDefault().lookup(Colour.class));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testUnknownArgumentClass() {
+		OSCJavaToByteArrayConverter stream = new OSCJavaToByteArrayConverter();
+		stream.writeArgumentType(new Colour(0));
+	}
+
+	@Test
+	public void testUnregisterArgumentHandler() {
+		OSCArgumentHandlers handlers = new OSCArgumentHandlers();
+		handlers.register(new ColourHandler());
+		Assert.assertNotNull(handlers.lookup(Colour.class));
+		handlers.unregister(Colour.class);
+		Assert.assertNull(handlers.lookup(Colour.class));
+	}
+
+	@Test
+	public void testRegisterWhileLookingUp() throws InterruptedException {
+		final OSCArgumentHandlers handlers = new OSCArgumentHandlers();
+		final OSCArgumentHandler<Colour> handler = new ColourHandler();
+		final Thread[] lookups = new Thread[2];
+		final AtomicBoolean done = new AtomicBoolean(false);
+		for (int ti = 0; ti < lookups.length; ti++) {
+			lookups[ti] = new Thread() {
+				@Override
+				public void run() {
+					while (!done.get()) {
+						handlers.lookup(Colour.class);
+					}
+				}
+			};
+			lookups[ti].start();
+		}
+		for (int ri = 0; ri < 2000; ri++) {
+			handlers.register(handler);
+			handlers.unregister(Colour.class);
+		}
+		done.set(true);
+		for (final Thread lookup : lookups) {
+			lookup.join();
+		}
+		// a lookup resolved before the last unregister must not have been cached after it
+		Assert.assertNull(handlers.lookup(Colour.class));
+	}
+
+	@Test
+	public void testArgumentHandlerOfSuperClass() {
+		OSCJavaToByteArrayConverter stream = new OSCJavaToByteArrayConverter();
+		Timestamp timestamp = new Timestamp(0L);
+		stream.writeType(Timestamp.class);
+		stream.writeArgumentType(Boolean.TRUE);
+		stream.writeArgumentType(Boolean.FALSE);
+		stream.terminateTypes();
+		stream.write((Object) timestamp);
+		OSCJavaToByteArrayConverter dateStream = new OSCJavaToByteArrayConverter();
+		dateStream.write(new Date(0L));
+		byte[] result = stream.toByteArray();
+		byte[] dateBytes = dateStream.toByteArray();
+		Assert.assertEquals('t', result[0]);
+		Assert.assertEquals('T', result[1]);
+		Assert.assertEquals('F', result[2]);
+		Assert.assertEquals(4 + dateBytes.length, result.length);
+		for (int bi = 0; bi < dateBytes.length; bi++) {
+			Assert.assertEquals(dateBytes[bi], result[4 + bi]);
+		}
+	}
+
+	@Test
+	public void testPrintPrimitiveArrayOnStream() {
+		OSCJavaToByteArrayConverter stream = new OSCJavaToByteArrayConverter();
+		int[] ints = {1, -2, 0x01020304};
+		stream.writeArgumentType(ints);
+		stream.writeArgumentType(new double[] {0.5});
+		stream.terminateTypes();
+		stream.write((Object) ints);
+		stream.write((Object) new double[] {0.5});
+		byte[] answer = {
+			'[', 'i', 'i', 'i', ']', '[', 'd', ']', 0, 0, 0, 0,
+			0, 0, 0, 1,
+			(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFE,
+			1, 2, 3, 4,
+			0x3F, (byte) 0xE0, 0, 0, 0, 0, 0, 0};
+		checkResultEqualsAnswer(stream.toByteArray(), answer);
+	}
+
+	@Test
+	public void testPrintPrimitiveArrayLikeList() {
+		OSCJavaToByteArrayConverter stream = new OSCJavaToByteArrayConverter();
+		stream.writeArgumentType(new float[] {1.5f, 2.5f});
+		stream.terminateTypes();
+		stream.write((Object) new float[] {1.5f, 2.5f});
+		OSCJavaToByteArrayConverter listStream = new OSCJavaToByteArrayConverter();
+		listStream.writeArgumentType(Arrays.<Object>asList(1.5f, 2.5f));
+		listStream.terminateTypes();
+		listStream.write((Object) Arrays.<Object>asList(1.5f, 2.5f));
+		checkResultEqualsAnswer(stream.toByteArray(), listStream.toByteArray());
+	}
+
+	@Test
+	public void testPrintPackedArrayOnStream() {
+		OSCJavaToByteArrayConverter stream = new OSCJavaToByteArrayConverter();
+		OSCPackedArray packed = OSCPackedArray.wrap(new long[] {1L, -1L});
+		stream.writeArgumentType(packed);
+		stream.terminateTypes();
+		stream.write((Object) packed);
+		byte[] answer = {
+			'b', 0, 0, 0,
+			0, 0, 0, 20,
+			'[', 'h', ']', 0,
+			0, 0, 0, 0, 0, 0, 0, 1,
+			(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+			(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+		checkResultEqualsAnswer(stream.toByteArray(), answer);
+	}
 }
@@ -9,8 +9,12 @@
 package com.illposed.osc.utility;
 
 import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCListener;
 import com.illposed.osc.OSCMessage;
 import com.illposed.osc.SimpleOSCListener;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -86,4 +90,57 @@ public class OSCPacketDispatcherTest {
 			Assert.fail("Bundle didn't dispatch message to listener 2");
 		}
 	}
+
+	@Test
+	public void testDispatchWithMatchCache() {
+		dispatcher.setMatchCacheEnabled(true);
+		dispatcher.dispatchPacket(new OSCMessage("/listener1"));
+		dispatcher.dispatchPacket(new OSCMessage("/listener1"));
+		dispatcher.dispatchPacket(new OSCMessage("/nobody"));
+		Assert.assertEquals(2, listener1.getMessageReceivedCount());
+		Assert.assertFalse(listener2.isMessageReceived());
+
+		// adding a listener has to invalidate the cached matches
+		SimpleOSCListener listener3 = new SimpleOSCListener();
+		dispatcher.addListener(new OSCPatternAddressSelector("/nobody"), listener3);
+		dispatcher.dispatchPacket(new OSCMessage("/nobody"));
+		Assert.assertTrue(listener3.isMessageReceived());
+	}
+
+	@Test
+	public void testDispatchObserver() {
+
+		final List<OSCListener> observed = new ArrayList<OSCListener>();
+		final Object token = new Object();
+		dispatcher.setDispatchObserver(new OSCDispatchObserver() {
+			@Override
+			public Object messageAccepting(OSCListener listener, Date time, OSCMessage message) {
+				Assert.assertFalse(listener2.isMessageReceived());
+				return token;
+			}
+
+			@Override
+			public void messageAccepted(
+					Object callToken,
+					OSCListener listener,
+					Date time,
+					OSCMessage message,
+					long durationNanos)
+			{
+				Assert.assertSame(token, callToken);
+				Assert.assertTrue(listener2.isMessageReceived());
+				Assert.assertEquals("/listener2", message.getAddress());
+				Assert.assertTrue(durationNanos >= 0);
+				observed.add(listener);
+			}
+		});
+		dispatcher.dispatchPacket(new OSCMessage("/listener2"));
+		dispatcher.dispatchPacket(new OSCMessage("/nobody"));
+		Assert.assertEquals(1, observed.size());
+		Assert.assertSame(listener2, observed.get(0));
+
+		dispatcher.setDispatchObserver(null);
+		dispatcher.dispatchPacket(new OSCMessage("/listener2"));
+		Assert.assertEquals(1, observed.size());
+	}
 }
@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCColor;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCMidiMessage;
+import com.illposed.osc.OSCSymbol;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see OSCPacketParser
+ */
+public class OSCPacketParserTest {
+
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+
+	/**
+	 * Records all the callbacks as strings.
+	 */
+	private static class RecordingVisitor implements OSCPacketVisitor {
+
+		private final List<String> events = new ArrayList<String>();
+
+		public List<String> getEvents() {
+			return events;
+		}
+
+		@Override
+		public void startBundle(long timeTag) {
+			events.add("startBundle " + timeTag);
+		}
+
+		@Override
+		public void endBundle() {
+			events.add("endBundle");
+		}
+
+		@Override
+		public void startMessage(byte[] bytes, int addressOffset, int addressLength, OSCSignature signature) {
+			events.add("startMessage " + new String(bytes, addressOffset, addressLength, ASCII)
+					+ " " + signature);
+		}
+
+		@Override
+		public void endMessage() {
+			events.add("endMessage");
+		}
+
+		@Override
+		public void startArray() {
+			events.add("[");
+		}
+
+		@Override
+		public void endArray() {
+			events.add("]");
+		}
+
+		@Override
+		public void intArg(int value) {
+			events.add("i " + value);
+		}
+
+		@Override
+		public void longArg(long value) {
+			events.add("h " + value);
+		}
+
+		@Override
+		public void floatArg(float value) {
+			events.add("f " + value);
+		}
+
+		@Override
+		public void doubleArg(double value) {
+			events.add("d " + value);
+		}
+
+		@Override
+		public void unsignedIntArg(long value) {
+			events.add("u " + value);
+		}
+
+		@Override
+		public void stringArg(byte[] bytes, int offset, int length) {
+			events.add("s " + new String(bytes, offset, length, ASCII));
+		}
+
+		@Override
+		public void symbolArg(byte[] bytes, int offset, int length) {
+			events.add("S " + new String(bytes, offset, length, ASCII));
+		}
+
+		@Override
+		public void blobArg(byte[] bytes, int offset, int length) {
+			events.add("b " + Arrays.toString(Arrays.copyOfRange(bytes, offset, offset + length)));
+		}
+
+		@Override
+		public void charArg(char value) {
+			events.add("c " + value);
+		}
+
+		@Override
+		public void colorArg(int rgba) {
+			events.add("r " + Integer.toHexString(rgba));
+		}
+
+		@Override
+		public void midiMessageArg(int message) {
+			events.add("m " + Integer.toHexString(message));
+		}
+
+		@Override
+		public void timeTagArg(long timeTag) {
+			events.add("t " + timeTag);
+		}
+
+		@Override
+		public void booleanArg(boolean value) {
+			events.add("bool " + value);
+		}
+
+		@Override
+		public void nilArg() {
+			events.add("N");
+		}
+
+		@Override
+		public void impulseArg() {
+			events.add("I");
+		}
+
+		@Override
+		public void unknownArg(char type) {
+			events.add("unknown " + type);
+		}
+	}
+
+	private static List<String> parse(final byte[] bytes) {
+
+		final RecordingVisitor visitor = new RecordingVisitor();
+		new OSCPacketParser().parse(bytes, bytes.length, visitor);
+		return visitor.getEvents();
+	}
+
+	@Test
+	public void testMessage() {
+
+		final OSCMessage message = new OSCMessage("/visit");
+		message.setCharset(ASCII);
+		message.addArgument(1);
+		message.addArgument("two");
+		message.addArgument(new byte[] {3, 3, 3, 3});
+		message.addArgument(4.0f);
+		message.addArgument(Arrays.<Object>asList(5L, Boolean.TRUE));
+		message.addArgument(null);
+		message.addArgument('z');
+
+		final List<String> expected = Arrays.asList(
+				"startMessage /visit isbf[hT]Nc",
+				"i 1",
+				"s two",
+				"b [3, 3, 3, 3]",
+				"f 4.0",
+				"[",
+				"h 5",
+				"bool true",
+				"]",
+				"N",
+				"c z",
+				"endMessage");
+		Assert.assertEquals(expected, parse(message.getByteArray()));
+	}
+
+	@Test
+	public void testFixedLayoutMessage() {
+
+		final OSCMessage message = new OSCMessage("/fixed");
+		message.addArgument(1);
+		message.addArgument(2.5);
+		message.addArgument(Boolean.FALSE);
+		message.addArgument(7L);
+
+		final List<String> expected = Arrays.asList(
+				"startMessage /fixed idFh",
+				"i 1",
+				"d 2.5",
+				"bool false",
+				"h 7",
+				"endMessage");
+		Assert.assertEquals(expected, parse(message.getByteArray()));
+	}
+
+	@Test
+	public void testExtendedTypes() {
+
+		final OSCMessage message = new OSCMessage("/extended");
+		message.setCharset(ASCII);
+		message.addArgument(new OSCSymbol("sym"));
+		message.addArgument(OSCColor.valueOf(0x11, 0x22, 0x33, 0x44));
+		message.addMidiMessage(0x00903C7F);
+		message.addUnsigned(0x80000000L);
+
+		final List<String> expected = Arrays.asList(
+				"startMessage /extended Srmu",
+				"S sym",
+				"r 11223344",
+				"m 903c7f",
+				"u 2147483648",
+				"endMessage");
+		Assert.assertEquals(expected, parse(message.getByteArray()));
+	}
+
+	@Test
+	public void testNestedBundles() {
+
+		final OSCBundle inner = new OSCBundle(OSCBundle.TIMESTAMP_IMMEDIATE);
+		inner.addPacket(new OSCMessage("/inner", Arrays.<Object>asList(2)));
+		final OSCBundle outer = new OSCBundle(OSCBundle.TIMESTAMP_IMMEDIATE);
+		outer.addPacket(new OSCMessage("/outer", Arrays.<Object>asList(1)));
+		outer.addPacket(inner);
+		outer.addPacket(new OSCMessage("/last"));
+
+		final List<String> expected = Arrays.asList(
+				"startBundle 1",
+				"startMessage /outer i",
+				"i 1",
+				"endMessage",
+				"startBundle 1",
+				"startMessage /inner i",
+				"i 2",
+				"endMessage",
+				"endBundle",
+				"startMessage /last ",
+				"endMessage",
+				"endBundle");
+		Assert.assertEquals(expected, parse(outer.getByteArray()));
+	}
+
+	@Test
+	public void testParseWithOffset() {
+
+		final byte[] packet = new OSCMessage("/offset", Arrays.<Object>asList("abc")).getByteArray();
+		final byte[] bytes = new byte[packet.length + 6];
+		System.arraycopy(packet, 0, bytes, 2, packet.length);
+
+		final RecordingVisitor visitor = new RecordingVisitor();
+		new OSCPacketParser().parse(bytes, 2, packet.length, visitor);
+		final List<String> expected = Arrays.asList(
+				"startMessage /offset s",
+				"s abc",
+				"endMessage");
+		Assert.assertEquals(expected, visitor.getEvents());
+	}
+
+	@Test
+	public void testAdapterIgnoresUnhandledParts() {
+
+		final OSCMessage message = new OSCMessage("/sum");
+		message.addArgument(1);
+		message.addArgument("ignored");
+		message.addArgument(2);
+
+		final int[] sum = new int[1];
+		final OSCPacketVisitor visitor = new OSCPacketVisitorAdapter() {
+			@Override
+			public void intArg(int value) {
+				sum[0] += value;
+			}
+		};
+		final byte[] bytes = message.getByteArray();
+		new OSCPacketParser().parse(bytes, bytes.length, visitor);
+		Assert.assertEquals(3, sum[0]);
+	}
+
+	@Test
+	public void testToDate() {
+
+		Assert.assertSame(OSCBundle.TIMESTAMP_IMMEDIATE, OSCPacketParser.toDate(0L));
+		Assert.assertSame(OSCBundle.TIMESTAMP_IMMEDIATE, OSCPacketParser.toDate(1L));
+		final long secondsSince1900 = OSCBundle.SECONDS_FROM_1900_TO_1970 + 1000L;
+		Assert.assertEquals(new Date(1000000L), OSCPacketParser.toDate(secondsSince1900 << 32));
+	}
+
+	@Test
+	public void testUnknownType() {
+
+		final byte[] bytes = {'/', 'x', 0, 0, ',', 'i', 'X', 'i', 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 2};
+		final List<String> expected = Arrays.asList(
+				"startMessage /x iXi",
+				"i 1",
+				"unknown X",
+				"i 2",
+				"endMessage");
+		Assert.assertEquals(expected, parse(bytes));
+
+		final OSCPacketParser validatingParser = new OSCPacketParser();
+		validatingParser.setValidating(true);
+		try {
+			validatingParser.parse(bytes, bytes.length, new RecordingVisitor());
+			Assert.fail("Unknown type was accepted");
+		} catch (OSCParseException ex) {
+			Assert.assertEquals(16, ex.getOffset());
+		}
+	}
+
+	@Test
+	public void testBlobExceedingMessage() {
+
+		final byte[] bytes = {'/', 'x', 0, 0, ',', 'b', 0, 0, 0, 0, 0, 8, 1, 2, 3, 4};
+		try {
+			parse(bytes);
+			Assert.fail("Blob exceeding the message was accepted");
+		} catch (OSCParseException ex) {
+			Assert.assertEquals(8, ex.getOffset());
+			Assert.assertEquals("Blob length exceeds the message, is:8", ex.getReason());
+		}
+	}
+
+	@Test
+	public void testPacketExceedingBundle() {
+
+		final OSCBundle bundle = new OSCBundle();
+		bundle.addPacket(new OSCMessage("/x"));
+		final byte[] bytes = bundle.getByteArray();
+		// claim the contained message to be longer than it is
+		bytes[19] += 4;
+		try {
+			parse(bytes);
+			Assert.fail("Packet exceeding the bundle was accepted");
+		} catch (OSCParseException ex) {
+			Assert.assertEquals(16, ex.getOffset());
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import com.illposed.osc.OSCMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see OSCSignature
+ */
+public class OSCSignatureTest {
+
+	@Test
+	public void testInterned() {
+		final byte[] bytes = {'x', 'i', 'f', 's', 'x'};
+		final OSCSignature fromBytes = OSCSignature.intern(bytes, 1, 3);
+		final OSCSignature fromString = OSCSignature.valueOf("ifs");
+		Assert.assertSame(fromBytes, fromString);
+		Assert.assertEquals("ifs", fromBytes.toString());
+		Assert.assertSame(OSCSignature.EMPTY, OSCSignature.valueOf(""));
+		Assert.assertNotSame(fromBytes, OSCSignature.valueOf("ifd"));
+	}
+
+	@Test
+	public void testOffsets() {
+		final OSCSignature fixed = OSCSignature.valueOf("ihTdf");
+		Assert.assertTrue(fixed.isFixedLayout());
+		Assert.assertEquals(24, fixed.getFixedLength());
+		Assert.assertEquals(0, fixed.getOffset(0));
+		Assert.assertEquals(4, fixed.getOffset(1));
+		Assert.assertEquals(12, fixed.getOffset(2));
+		Assert.assertEquals(12, fixed.getOffset(3));
+		Assert.assertEquals(20, fixed.getOffset(4));
+
+		final OSCSignature variable = OSCSignature.valueOf("isf");
+		Assert.assertFalse(variable.isFixedLayout());
+		Assert.assertEquals(OSCSignature.VARIABLE_OFFSET, variable.getFixedLength());
+		Assert.assertEquals(4, variable.getOffset(1));
+		Assert.assertEquals(OSCSignature.VARIABLE_OFFSET, variable.getOffset(2));
+	}
+
+	@Test
+	public void testEncoded() {
+		Assert.assertArrayEquals(new byte[] {',', 0, 0, 0}, OSCSignature.EMPTY.getEncoded());
+		Assert.assertArrayEquals(new byte[] {',', 'i', 'f', 0},
+				OSCSignature.valueOf("if").getEncoded());
+		Assert.assertArrayEquals(new byte[] {',', 'i', 'f', 's', 0, 0, 0, 0},
+				OSCSignature.valueOf("ifs").getEncoded());
+	}
+
+	@Test
+	public void testMessageEncodingUsesSignature() {
+		final OSCMessage message = new OSCMessage("/sig");
+		message.addInt(1);
+		message.addArgument("text");
+		message.addArgument(null);
+		final OSCJavaToByteArrayConverter stream = new OSCJavaToByteArrayConverter();
+		stream.write("/sig");
+		stream.write(OSCSignature.valueOf("isN"));
+		stream.write(1);
+		stream.write("text");
+		Assert.assertArrayEquals(stream.toByteArray(), message.getByteArray());
+	}
+}
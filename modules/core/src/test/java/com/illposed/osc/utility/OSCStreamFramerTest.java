@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see AbstractOSCStreamFramer
+ * @see OSCLengthPrefixFramer
+ * @see OSCSlipFramer
+ */
+public class OSCStreamFramerTest {
+
+	/**
+	 * Collects copies of the frames handed out.
+	 */
+	private static class CollectingHandler implements OSCFrameHandler {
+
+		private final List<byte[]> frames = new ArrayList<byte[]>();
+
+		public List<byte[]> getFrames() {
+			return frames;
+		}
+
+		@Override
+		public boolean handleFrame(byte[] bytes, int offset, int length) {
+			frames.add(Arrays.copyOfRange(bytes, offset, offset + length));
+			return true;
+		}
+	}
+
+	/**
+	 * Collects only the first frame, and then asks to stop.
+	 */
+	private static class StoppingHandler extends CollectingHandler {
+
+		@Override
+		public boolean handleFrame(byte[] bytes, int offset, int length) {
+			super.handleFrame(bytes, offset, length);
+			return false;
+		}
+	}
+
+	/**
+	 * Returns only a few bytes per read, like a slow network would.
+	 */
+	private static class TricklingInputStream extends ByteArrayInputStream {
+
+		private final int maxChunk;
+
+		TricklingInputStream(final byte[] bytes, final int maxChunk) {
+			super(bytes);
+
+			this.maxChunk = maxChunk;
+		}
+
+		@Override
+		public synchronized int read(byte[] bytes, int offset, int length) {
+			return super.read(bytes, offset, Math.min(length, maxChunk));
+		}
+	}
+
+	private static List<byte[]> createPackets() {
+
+		final Random random = new Random(42);
+		final List<byte[]> packets = new ArrayList<byte[]>();
+		for (final int size : new int[] {4, 8, 100, 5000, 16}) {
+			final byte[] packet = new byte[size];
+			random.nextBytes(packet);
+			packets.add(packet);
+		}
+		// nothing but bytes that have to be escaped in SLIP
+		packets.add(new byte[] {(byte) 0xC0, (byte) 0xDB, (byte) 0xC0, (byte) 0xDB});
+		return packets;
+	}
+
+	private static byte[] writeFrames(final AbstractOSCStreamFramer framer, final List<byte[]> packets)
+			throws IOException
+	{
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		for (final byte[] packet : packets) {
+			framer.writeFrame(stream, packet, 0, packet.length);
+		}
+		return stream.toByteArray();
+	}
+
+	private static void assertFrames(final List<byte[]> expected, final List<byte[]> actual) {
+
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int fi = 0; fi < expected.size(); fi++) {
+			Assert.assertArrayEquals(expected.get(fi), actual.get(fi));
+		}
+	}
+
+	private static void checkRoundTrip(final AbstractOSCStreamFramer framer) throws IOException {
+
+		final List<byte[]> packets = createPackets();
+		final byte[] stream = writeFrames(framer, packets);
+
+		// all at once
+		CollectingHandler handler = new CollectingHandler();
+		AbstractOSCStreamFramer reader = framer.newFramer();
+		reader.feed(stream, 0, stream.length, handler);
+		assertFrames(packets, handler.getFrames());
+		Assert.assertEquals(0, reader.getPendingBytes());
+
+		// byte by byte
+		handler = new CollectingHandler();
+		reader = framer.newFramer();
+		for (int bi = 0; bi < stream.length; bi++) {
+			reader.feed(stream, bi, 1, handler);
+		}
+		assertFrames(packets, handler.getFrames());
+
+		// in odd sized chunks, read in place
+		handler = new CollectingHandler();
+		reader = framer.newFramer();
+		final InputStream input = new TricklingInputStream(stream, 7);
+		while (reader.read(input, handler) >= 0) {
+			// collect
+		}
+		assertFrames(packets, handler.getFrames());
+	}
+
+	@Test
+	public void testLengthPrefixRoundTrip() throws IOException {
+		checkRoundTrip(new OSCLengthPrefixFramer());
+	}
+
+	@Test
+	public void testSlipRoundTrip() throws IOException {
+		checkRoundTrip(new OSCSlipFramer());
+	}
+
+	private static void checkStop(final AbstractOSCStreamFramer framer) throws IOException {
+
+		final List<byte[]> packets = createPackets();
+		final byte[] stream = writeFrames(framer, packets);
+
+		CollectingHandler handler = new StoppingHandler();
+		framer.feed(stream, 0, stream.length, handler);
+		assertFrames(packets.subList(0, 1), handler.getFrames());
+
+		handler = new StoppingHandler();
+		final AbstractOSCStreamFramer reader = framer.newFramer();
+		reader.read(new ByteArrayInputStream(stream), handler);
+		assertFrames(packets.subList(0, 1), handler.getFrames());
+	}
+
+	@Test
+	public void testLengthPrefixStop() throws IOException {
+		checkStop(new OSCLengthPrefixFramer());
+	}
+
+	@Test
+	public void testSlipStop() throws IOException {
+		checkStop(new OSCSlipFramer());
+	}
+
+	@Test
+	public void testLengthPrefixEncoding() throws IOException {
+
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		new OSCLengthPrefixFramer().writeFrame(stream, new byte[] {9, 1, 2, 3, 4, 9}, 1, 4);
+		Assert.assertArrayEquals(new byte[] {0, 0, 0, 4, 1, 2, 3, 4}, stream.toByteArray());
+	}
+
+	@Test
+	public void testSlipEncoding() throws IOException {
+
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		new OSCSlipFramer().writeFrame(stream, new byte[] {1, (byte) 0xC0, 2, (byte) 0xDB}, 0, 4);
+		final byte[] expected = {
+			(byte) 0xC0, 1, (byte) 0xDB, (byte) 0xDC, 2, (byte) 0xDB, (byte) 0xDD, (byte) 0xC0};
+		Assert.assertArrayEquals(expected, stream.toByteArray());
+	}
+
+	@Test
+	public void testSlipIgnoresEmptyFrames() throws IOException {
+
+		final byte[] stream = {(byte) 0xC0, (byte) 0xC0, 1, 2, (byte) 0xC0, (byte) 0xC0, 3, (byte) 0xC0};
+		final CollectingHandler handler = new CollectingHandler();
+		new OSCSlipFramer().feed(stream, 0, stream.length, handler);
+		assertFrames(Arrays.asList(new byte[] {1, 2}, new byte[] {3}), handler.getFrames());
+	}
+
+	@Test
+	public void testPartialFrameIsPending() throws IOException {
+
+		final byte[] stream = {0, 0, 0, 8, 1, 2, 3};
+		final CollectingHandler handler = new CollectingHandler();
+		final AbstractOSCStreamFramer framer = new OSCLengthPrefixFramer();
+		framer.feed(stream, 0, stream.length, handler);
+		Assert.assertTrue(handler.getFrames().isEmpty());
+		Assert.assertEquals(7, framer.getPendingBytes());
+		framer.reset();
+		Assert.assertEquals(0, framer.getPendingBytes());
+	}
+
+	@Test(expected = IOException.class)
+	public void testLengthPrefixFrameTooLarge() throws IOException {
+
+		final byte[] stream = {0, 0, 1, 0};
+		new OSCLengthPrefixFramer(255).feed(stream, 0, stream.length, new CollectingHandler());
+	}
+
+	@Test(expected = IOException.class)
+	public void testSlipFrameTooLarge() throws IOException {
+
+		final byte[] stream = new byte[300];
+		stream[0] = (byte) 0xC0;
+		new OSCSlipFramer(255).feed(stream, 0, stream.length, new CollectingHandler());
+	}
+}
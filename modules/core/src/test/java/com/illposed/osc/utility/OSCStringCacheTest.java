@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import com.illposed.osc.OSCMessage;
+import java.nio.charset.Charset;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see OSCStringCache
+ */
+public class OSCStringCacheTest {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	@Test
+	public void testHitReturnsSameInstance() {
+		final OSCStringCache cache = new OSCStringCache();
+		final byte[] first = "xx/synth/1xx".getBytes(UTF_8);
+		final byte[] second = "/synth/1".getBytes(UTF_8);
+		final String fromFirst = cache.get(first, 2, 8, UTF_8);
+		final String fromSecond = cache.get(second, 0, 8, UTF_8);
+		Assert.assertEquals("/synth/1", fromFirst);
+		Assert.assertSame(fromFirst, fromSecond);
+		Assert.assertEquals("/synth/2", cache.get("/synth/2".getBytes(UTF_8), 0, 8, UTF_8));
+		Assert.assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testBounded() {
+		final OSCStringCache cache = new OSCStringCache(2);
+		cache.get("/a".getBytes(UTF_8), 0, 2, UTF_8);
+		cache.get("/b".getBytes(UTF_8), 0, 2, UTF_8);
+		final String first = cache.get("/c".getBytes(UTF_8), 0, 2, UTF_8);
+		final String second = cache.get("/c".getBytes(UTF_8), 0, 2, UTF_8);
+		Assert.assertEquals(2, cache.size());
+		Assert.assertSame(first, second);
+
+		cache.clear();
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testNonAscii() {
+		final OSCStringCache cache = new OSCStringCache();
+		final String umlauts = "/grüße";
+		final byte[] bytes = umlauts.getBytes(UTF_8);
+		Assert.assertEquals(umlauts, cache.get(bytes, 0, bytes.length, UTF_8));
+		Assert.assertEquals(umlauts, OSCStringCache.decode(bytes, 0, bytes.length, UTF_8));
+	}
+
+	@Test
+	public void testConverterUsesCaches() {
+		final OSCMessage message = new OSCMessage("/cached");
+		message.addArgument("symbol");
+		message.setCharset(UTF_8);
+		final byte[] bytes = message.getByteArray();
+		final OSCByteArrayToJavaConverter converter = new OSCByteArrayToJavaConverter();
+		converter.setCharset(UTF_8);
+		converter.setAddressCache(new OSCStringCache());
+		converter.setStringCache(new OSCStringCache());
+		final OSCMessage first = (OSCMessage) converter.convert(bytes, bytes.length);
+		final OSCMessage second = (OSCMessage) converter.convert(bytes, bytes.length);
+		Assert.assertEquals("/cached", first.getAddress());
+		Assert.assertSame(first.getAddress(), second.getAddress());
+		Assert.assertSame(first.getArgument(0), second.getArgument(0));
+	}
+
+	@Test
+	public void testNonAsciiRoundTrip() {
+		final String text = "äöü €";
+		final OSCMessage message = new OSCMessage("/text");
+		message.addArgument("ascii");
+		message.addArgument(text);
+		message.setCharset(UTF_8);
+		final byte[] bytes = message.getByteArray();
+		final OSCByteArrayToJavaConverter converter = new OSCByteArrayToJavaConverter();
+		converter.setCharset(UTF_8);
+		final OSCMessage received = (OSCMessage) converter.convert(bytes, bytes.length);
+		Assert.assertEquals("ascii", received.getArgument(0));
+		Assert.assertEquals(text, received.getArgument(1));
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.utility;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see OSCWeakClassCache
+ */
+public class OSCWeakClassCacheTest {
+
+	@Test
+	public void testPutAndGet() {
+
+		final OSCWeakClassCache<String> cache = new OSCWeakClassCache<String>();
+		Assert.assertNull(cache.get(Integer.class));
+		cache.put(Integer.class, "int");
+		cache.put(Long.class, "long");
+		Assert.assertEquals("int", cache.get(Integer.class));
+		Assert.assertEquals("long", cache.get(Long.class));
+		Assert.assertNull(cache.get(Number.class));
+		cache.put(Integer.class, "integer");
+		Assert.assertEquals("integer", cache.get(Integer.class));
+	}
+
+	@Test
+	public void testClear() {
+
+		final OSCWeakClassCache<String> cache = new OSCWeakClassCache<String>();
+		cache.put(Integer.class, "int");
+		cache.clear();
+		Assert.assertNull(cache.get(Integer.class));
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emitted by an {@link com.illposed.osc.OSCPortIn}
+ * for each datagram it receives, before decoding it.
+ */
+@Name(DatagramReceivedEvent.NAME)
+@Label("OSC Datagram Received")
+@Category(OSCFlightRecorder.CATEGORY)
+@Description("A datagram received by an OSC port, before decoding")
+@StackTrace(false)
+class DatagramReceivedEvent extends Event {
+
+	static final String NAME = "com.illposed.osc.DatagramReceived";
+
+	@Label("Port")
+	String port;
+
+	@Label("Sender")
+	String sender;
+
+	@Label("Size")
+	@DataAmount
+	int size;
+
+	@Label("Truncated")
+	@Description("Whether the datagram exceeded the maximum packet size, and was dropped")
+	boolean truncated;
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import jdk.jfr.Timestamp;
+
+/**
+ * Emitted by the {@link com.illposed.osc.utility.OSCPacketDispatcher}
+ * of an {@link com.illposed.osc.OSCPortIn} for each listener call.
+ */
+@Name(MessageDispatchedEvent.NAME)
+@Label("OSC Message Dispatched")
+@Category(OSCFlightRecorder.CATEGORY)
+@Description("An OSC message handed to one listener")
+@StackTrace(false)
+class MessageDispatchedEvent extends Event {
+
+	static final String NAME = "com.illposed.osc.MessageDispatched";
+
+	@Label("Port")
+	String port;
+
+	@Label("Address")
+	String address;
+
+	@Label("Listener")
+	@Description("The class of the listener")
+	String listener;
+
+	@Label("Listener Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	long listenerDuration;
+
+	@Label("Time Tag")
+	@Description("The time tag of the enclosing bundle; missing for immediate execution")
+	@Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+	long timeTag;
+
+	@Label("Late")
+	@Description("Whether the time tag was already in the past when dispatching")
+	boolean late;
+
+	@Label("Lateness")
+	@Description("How far the time tag was in the past when dispatching")
+	@Timespan(Timespan.MILLISECONDS)
+	long lateness;
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.jfr;
+
+import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCListener;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCPacket;
+import com.illposed.osc.OSCPortIn;
+import com.illposed.osc.OSCReceiveObserver;
+import com.illposed.osc.utility.OSCDecodeObserver;
+import com.illposed.osc.utility.OSCDispatchObserver;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Emits Java Flight Recorder events for the receive path of ports,
+ * so latency spikes can be correlated with garbage collection,
+ * thread scheduling and the like:
+ * <ul>
+ * <li><code>com.illposed.osc.DatagramReceived</code>
+ *   for each datagram received, with its size</li>
+ * <li><code>com.illposed.osc.PacketDecoded</code>
+ *   for each packet decoded, with its type and the decode duration</li>
+ * <li><code>com.illposed.osc.MessageDispatched</code>
+ *   for each listener call, with the message address, the call duration,
+ *   and whether the time tag was already in the past</li>
+ * </ul>
+ * The events are in the category "OSC", and are enabled by default
+ * in any recording, for example one started with
+ * <code>-XX:StartFlightRecording</code> or <code>jcmd JFR.start</code>;
+ * they may be disabled in a custom recording settings file.
+ *
+ * A port installed here is only observed while a recording is running;
+ * otherwise, its observers are removed,
+ * so it does not even time its decoding.
+ * Installing a port replaces its receive, decode and dispatch observers
+ * while recording.
+ * The decode and dispatch events begin before the work they describe
+ * and are committed after it, so their duration covers the work.
+ *
+ * An example:<br>
+ * <blockquote><pre>{@code
+ * receiver = new OSCPortIn(7770);
+ * OSCFlightRecorder.install(receiver, "synth");
+ * ...
+ * OSCFlightRecorder.uninstall(receiver);
+ * receiver.close();
+ * }</pre></blockquote>
+ */
+public final class OSCFlightRecorder {
+
+	/** The category all the events of this module are listed under. */
+	public static final String CATEGORY = "OSC";
+
+	/**
+	 * Creates the events of a single port.
+	 */
+	private static final class PortObserver
+			implements OSCReceiveObserver, OSCDecodeObserver, OSCDispatchObserver
+	{
+		private final OSCPortIn port;
+		private final String name;
+
+		PortObserver(final OSCPortIn port, final String name) {
+
+			this.port = port;
+			this.name = name;
+		}
+
+		void attach() {
+
+			port.setReceiveObserver(this);
+			port.setDecodeObserver(this);
+			port.setDispatchObserver(this);
+		}
+
+		void detach() {
+
+			if (port.getReceiveObserver() == this) {
+				port.setReceiveObserver(null);
+			}
+			if (port.getDecodeObserver() == this) {
+				port.setDecodeObserver(null);
+			}
+			if (port.getDispatchObserver() == this) {
+				port.setDispatchObserver(null);
+			}
+		}
+
+		@Override
+		public void datagramReceived(SocketAddress sender, int numBytes, boolean truncated) {
+
+			final DatagramReceivedEvent event = new DatagramReceivedEvent();
+			if (event.isEnabled()) {
+				event.port = name;
+				event.sender = String.valueOf(sender);
+				event.size = numBytes;
+				event.truncated = truncated;
+				event.commit();
+			}
+		}
+
+		@Override
+		public Object decodeStarting(int numBytes) {
+
+			final PacketDecodedEvent event = new PacketDecodedEvent();
+			Object token = null;
+			if (event.isEnabled()) {
+				// the event spans the decoding
+				event.begin();
+				token = event;
+			}
+			return token;
+		}
+
+		@Override
+		public void packetDecoded(Object token, OSCPacket packet, int numBytes, long durationNanos) {
+
+			if (token instanceof PacketDecodedEvent) {
+				final PacketDecodedEvent event = (PacketDecodedEvent) token;
+				event.end();
+				event.port = name;
+				if (packet instanceof OSCBundle) {
+					event.packetType = "bundle";
+					event.address = "";
+				} else {
+					event.packetType = "message";
+					event.address = ((OSCMessage) packet).getAddress();
+				}
+				event.size = numBytes;
+				event.decodeDuration = durationNanos;
+				event.commit();
+			}
+		}
+
+		@Override
+		public Object messageAccepting(OSCListener listener, Date time, OSCMessage message) {
+
+			final MessageDispatchedEvent event = new MessageDispatchedEvent();
+			Object token = null;
+			if (event.isEnabled()) {
+				// the event spans the listener call
+				event.begin();
+				token = event;
+			}
+			return token;
+		}
+
+		@Override
+		public void messageAccepted(
+				Object token,
+				OSCListener listener,
+				Date time,
+				OSCMessage message,
+				long durationNanos)
+		{
+			if (token instanceof MessageDispatchedEvent) {
+				final MessageDispatchedEvent event = (MessageDispatchedEvent) token;
+				event.end();
+				event.port = name;
+				event.address = message.getAddress();
+				event.listener = listener.getClass().getName();
+				event.listenerDuration = durationNanos;
+				if ((time != null) && !OSCBundle.TIMESTAMP_IMMEDIATE.equals(time)) {
+					final long lateness = System.currentTimeMillis() - time.getTime();
+					event.timeTag = time.getTime();
+					event.late = lateness > 0;
+					event.lateness = Math.max(0L, lateness);
+				}
+				event.commit();
+			}
+		}
+	}
+
+	/**
+	 * Attaches the observers when the first recording starts,
+	 * and detaches them when the last one stops.
+	 */
+	private static final FlightRecorderListener RECORDING_LISTENER = new FlightRecorderListener() {
+		@Override
+		public void recordingStateChanged(Recording recording) {
+			updateRecording();
+		}
+	};
+
+	/** The ports installed, by identity. */
+	private static final Map<OSCPortIn, PortObserver> PORTS = new IdentityHashMap<>();
+	private static final AtomicBoolean LISTENER_ADDED = new AtomicBoolean(false);
+	private static boolean recording = false;
+
+	private OSCFlightRecorder() {
+		// utility class
+	}
+
+	private static boolean isAnyRecordingRunning() {
+
+		if (!FlightRecorder.isInitialized()) {
+			return false;
+		}
+		for (final Recording running : FlightRecorder.getFlightRecorder().getRecordings()) {
+			if (running.getState() == RecordingState.RUNNING) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks the recordings outside of our lock,
+	 * as the recorder calls us while holding its own.
+	 */
+	private static void updateRecording() {
+		setRecording(isAnyRecordingRunning());
+	}
+
+	private static synchronized void setRecording(final boolean running) {
+
+		recording = running;
+		for (final PortObserver observer : PORTS.values()) {
+			if (running) {
+				observer.attach();
+			} else {
+				observer.detach();
+			}
+		}
+	}
+
+	/**
+	 * Starts emitting events for a port, whenever a recording is running.
+	 * Installing a port again only changes its name.
+	 * @param port to observe
+	 * @param name identifies the port in the events
+	 * @return <code>false</code> if the JVM does not support
+	 *   the Flight Recorder, <code>true</code> otherwise
+	 */
+	public static boolean install(OSCPortIn port, String name) {
+
+		if (!FlightRecorder.isAvailable()) {
+			return false;
+		}
+		if (LISTENER_ADDED.compareAndSet(false, true)) {
+			FlightRecorder.addListener(RECORDING_LISTENER);
+		}
+		synchronized (OSCFlightRecorder.class) {
+			final PortObserver previous = PORTS.put(port, new PortObserver(port, name));
+			if (previous != null) {
+				previous.detach();
+			}
+		}
+		updateRecording();
+		return true;
+	}
+
+	/**
+	 * Stops emitting events for a port, and removes its observers.
+	 * @param port installed before
+	 */
+	public static void uninstall(OSCPortIn port) {
+
+		final PortObserver observer;
+		synchronized (OSCFlightRecorder.class) {
+			observer = PORTS.remove(port);
+		}
+		if (observer != null) {
+			observer.detach();
+		}
+	}
+
+	/**
+	 * Returns the ports currently installed.
+	 * @return a snapshot of the installed ports
+	 */
+	public static synchronized List<OSCPortIn> getInstalled() {
+		return new ArrayList<>(PORTS.keySet());
+	}
+
+	/**
+	 * Indicates whether the installed ports are currently observed,
+	 * which is the case while any recording is running.
+	 * @return <code>true</code> if events are being emitted
+	 */
+	public static synchronized boolean isRecording() {
+		return recording;
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Emitted by the {@link com.illposed.osc.utility.OSCByteArrayToJavaConverter}
+ * of an {@link com.illposed.osc.OSCPortIn} for each packet it decodes.
+ */
+@Name(PacketDecodedEvent.NAME)
+@Label("OSC Packet Decoded")
+@Category(OSCFlightRecorder.CATEGORY)
+@Description("An OSC packet decoded from its bytes")
+@StackTrace(false)
+class PacketDecodedEvent extends Event {
+
+	static final String NAME = "com.illposed.osc.PacketDecoded";
+
+	@Label("Port")
+	String port;
+
+	@Label("Packet Type")
+	@Description("Either 'message' or 'bundle'")
+	String packetType;
+
+	@Label("Address")
+	@Description("The address of a message; empty for a bundle")
+	String address;
+
+	@Label("Size")
+	@DataAmount
+	int size;
+
+	@Label("Decode Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	long decodeDuration;
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.jfr;
+
+import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCListener;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCPortIn;
+import com.illposed.osc.OSCPortOut;
+import java.io.File;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @see OSCFlightRecorder
+ */
+public class OSCFlightRecorderTest {
+
+	private static final long TIMEOUT_MILLIS = 5000;
+	private static final long LISTENER_MILLIS = 5;
+
+	private OSCPortIn receiver;
+	private OSCPortOut sender;
+	private AtomicInteger received;
+
+	@Before
+	public void setUp() throws Exception {
+
+		final DatagramSocket socket = new DatagramSocket(0);
+		receiver = new OSCPortIn(socket);
+		sender = new OSCPortOut(InetAddress.getLoopbackAddress(), socket.getLocalPort());
+		received = new AtomicInteger();
+		receiver.addListener("/jfr/*", new OSCListener() {
+			@Override
+			public void acceptMessage(Date time, OSCMessage message) {
+				try {
+					// long enough to show in the duration of the dispatch events
+					Thread.sleep(LISTENER_MILLIS);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				received.incrementAndGet();
+			}
+		});
+		receiver.startListening();
+	}
+
+	@After
+	public void tearDown() {
+
+		OSCFlightRecorder.uninstall(receiver);
+		receiver.stopListening();
+		receiver.close();
+		sender.close();
+	}
+
+	private void waitForReceived(final int count) throws InterruptedException {
+
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (received.get() < count) {
+			Assert.assertTrue("Messages not received in time",
+					System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	public void testNotObservedWithoutRecording() {
+
+		Assert.assertTrue(OSCFlightRecorder.install(receiver, "idle"));
+		Assert.assertFalse(OSCFlightRecorder.isRecording());
+		Assert.assertNull(receiver.getReceiveObserver());
+		Assert.assertNull(receiver.getDecodeObserver());
+		Assert.assertNull(receiver.getDispatchObserver());
+		Assert.assertTrue(OSCFlightRecorder.getInstalled().contains(receiver));
+	}
+
+	@Test
+	public void testEvents() throws Exception {
+
+		Assert.assertTrue(OSCFlightRecorder.install(receiver, "test"));
+		final File file = File.createTempFile("javaosc", ".jfr");
+		final List<RecordedEvent> events = new ArrayList<>();
+		try {
+			try (Recording recording = new Recording()) {
+				recording.enable(DatagramReceivedEvent.NAME);
+				recording.enable(PacketDecodedEvent.NAME);
+				recording.enable(MessageDispatchedEvent.NAME);
+				recording.start();
+				Assert.assertTrue(OSCFlightRecorder.isRecording());
+				Assert.assertNotNull(receiver.getDecodeObserver());
+
+				sender.send(new OSCMessage("/jfr/message"));
+				final OSCBundle bundle = new OSCBundle(new Date(System.currentTimeMillis() - 1000));
+				bundle.addPacket(new OSCMessage("/jfr/late"));
+				sender.send(bundle);
+				waitForReceived(2);
+
+				recording.stop();
+				recording.dump(file.toPath());
+			}
+			Assert.assertFalse(OSCFlightRecorder.isRecording());
+			Assert.assertNull(receiver.getDecodeObserver());
+			events.addAll(RecordingFile.readAllEvents(file.toPath()));
+		} finally {
+			file.delete();
+		}
+
+		int datagrams = 0;
+		final List<String> packetTypes = new ArrayList<>();
+		final List<String> dispatched = new ArrayList<>();
+		for (final RecordedEvent event : events) {
+			final String name = event.getEventType().getName();
+			if (DatagramReceivedEvent.NAME.equals(name)) {
+				Assert.assertEquals("test", event.getString("port"));
+				Assert.assertTrue(event.getInt("size") > 0);
+				Assert.assertFalse(event.getBoolean("truncated"));
+				datagrams++;
+			} else if (PacketDecodedEvent.NAME.equals(name)) {
+				packetTypes.add(event.getString("packetType"));
+				Assert.assertTrue(event.getLong("decodeDuration") >= 0);
+				Assert.assertTrue("Decoding is not spanned by the event",
+						event.getDuration().toNanos() > 0);
+			} else if (MessageDispatchedEvent.NAME.equals(name)) {
+				final String address = event.getString("address");
+				dispatched.add(address);
+				Assert.assertEquals("/jfr/late".equals(address), event.getBoolean("late"));
+				Assert.assertTrue("The listener call is not spanned by the event",
+						event.getDuration().toMillis() >= LISTENER_MILLIS);
+			}
+		}
+		Assert.assertEquals(2, datagrams);
+		Assert.assertTrue(packetTypes.contains("message"));
+		Assert.assertTrue(packetTypes.contains("bundle"));
+		Assert.assertTrue(dispatched.contains("/jfr/message"));
+		Assert.assertTrue(dispatched.contains("/jfr/late"));
+	}
+
+	@Test
+	public void testUninstall() throws Exception {
+
+		OSCFlightRecorder.install(receiver, "test");
+		try (Recording recording = new Recording()) {
+			recording.start();
+			Assert.assertNotNull(receiver.getReceiveObserver());
+			OSCFlightRecorder.uninstall(receiver);
+			Assert.assertNull(receiver.getReceiveObserver());
+			Assert.assertNull(receiver.getDispatchObserver());
+			Assert.assertFalse(OSCFlightRecorder.getInstalled().contains(receiver));
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.loadgen;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The command line options of the load generator,
+ * given as <code>--name=value</code> or <code>--name value</code>.
+ */
+public class LoadOptions {
+
+	private final Map<String, String> values;
+	private final Set<String> used;
+
+	/**
+	 * Parses command line options.
+	 * @param args the options, without the mode
+	 * @throws IllegalArgumentException if an argument is not an option,
+	 *   or an option lacks its value
+	 */
+	public LoadOptions(final String[] args) {
+
+		this.values = new HashMap<String, String>();
+		this.used = new HashSet<String>();
+		for (int ai = 0; ai < args.length; ai++) {
+			final String arg = args[ai];
+			if (!arg.startsWith("--") || (arg.length() == 2)) {
+				throw new IllegalArgumentException("Not an option: " + arg);
+			}
+			final int equals = arg.indexOf('=');
+			if (equals >= 0) {
+				values.put(arg.substring(2, equals), arg.substring(equals + 1));
+			} else if (ai + 1 < args.length) {
+				ai++;
+				values.put(arg.substring(2), args[ai]);
+			} else {
+				throw new IllegalArgumentException("Missing value for option: " + arg);
+			}
+		}
+	}
+
+	/**
+	 * Returns the value of an option.
+	 * @param name of the option, without the leading dashes
+	 * @param defaultValue returned if the option was not given
+	 * @return the options value, or <code>defaultValue</code>
+	 */
+	public String getString(String name, String defaultValue) {
+
+		used.add(name);
+		final String value = values.get(name);
+		return (value == null) ? defaultValue : value;
+	}
+
+	/**
+	 * Returns the value of an integer option.
+	 * @param name of the option, without the leading dashes
+	 * @param defaultValue returned if the option was not given
+	 * @return the options value, or <code>defaultValue</code>
+	 * @throws IllegalArgumentException if the value is not an integer
+	 */
+	public int getInt(String name, int defaultValue) {
+		return (int) getLong(name, defaultValue);
+	}
+
+	/**
+	 * Returns the value of a long integer option.
+	 * @param name of the option, without the leading dashes
+	 * @param defaultValue returned if the option was not given
+	 * @return the options value, or <code>defaultValue</code>
+	 * @throws IllegalArgumentException if the value is not an integer
+	 */
+	public long getLong(String name, long defaultValue) {
+
+		final String value = getString(name, null);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (final NumberFormatException ex) {
+			throw new IllegalArgumentException(
+					"Option --" + name + " requires an integer, not: " + value);
+		}
+	}
+
+	/**
+	 * Returns the value of a decimal option.
+	 * @param name of the option, without the leading dashes
+	 * @param defaultValue returned if the option was not given
+	 * @return the options value, or <code>defaultValue</code>
+	 * @throws IllegalArgumentException if the value is not a number
+	 */
+	public double getDouble(String name, double defaultValue) {
+
+		final String value = getString(name, null);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Double.parseDouble(value);
+		} catch (final NumberFormatException ex) {
+			throw new IllegalArgumentException(
+					"Option --" + name + " requires a number, not: " + value);
+		}
+	}
+
+	/**
+	 * Returns the names of the given options that were not asked for,
+	 * which usually are misspelled ones.
+	 * @return the unused option names
+	 */
+	public Set<String> getUnused() {
+
+		final Set<String> unused = new HashSet<String>(values.keySet());
+		unused.removeAll(used);
+		return Collections.unmodifiableSet(unused);
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.loadgen;
+
+import com.illposed.osc.OSCPacket;
+import com.illposed.osc.OSCPortOut;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends the packets of a {@link TrafficMix} through one {@link OSCPortOut},
+ * at a given average rate, in bursts of packets sent back-to-back.
+ * Bursts are scheduled relative to the start,
+ * so a sender that fell behind catches up,
+ * rather than lowering the average rate.
+ */
+public class LoadSender implements Runnable {
+
+	private final OSCPortOut port;
+	private final TrafficMix mix;
+	private final int senderId;
+	private final double packetsPerSecond;
+	private final int burst;
+	private final long durationNanos;
+	private final AtomicLong packetsSent;
+	private final AtomicLong messagesSent;
+	private final AtomicLong sendErrors;
+	private volatile IOException firstError;
+	private volatile boolean stopped;
+
+	/**
+	 * Creates a sender.
+	 * @param port to send through
+	 * @param mix creates the packets to send
+	 * @param senderId identifies this sender towards the sink
+	 * @param packetsPerSecond average rate to send at,
+	 *   or 0 to send as fast as possible
+	 * @param burst number of packets sent back-to-back
+	 * @param durationNanos how long to send for
+	 */
+	public LoadSender(
+			OSCPortOut port,
+			TrafficMix mix,
+			int senderId,
+			double packetsPerSecond,
+			int burst,
+			long durationNanos)
+	{
+		if (packetsPerSecond < 0.0) {
+			throw new IllegalArgumentException("The rate may not be negative");
+		}
+		if (burst < 1) {
+			throw new IllegalArgumentException("A burst has to contain at least one packet");
+		}
+
+		this.port = port;
+		this.mix = mix;
+		this.senderId = senderId;
+		this.packetsPerSecond = packetsPerSecond;
+		this.burst = burst;
+		this.durationNanos = durationNanos;
+		this.packetsSent = new AtomicLong();
+		this.messagesSent = new AtomicLong();
+		this.sendErrors = new AtomicLong();
+		this.firstError = null;
+		this.stopped = false;
+	}
+
+	@Override
+	public void run() {
+
+		final long start = System.nanoTime();
+		final long deadline = start + durationNanos;
+		final double burstIntervalNanos = (packetsPerSecond == 0.0)
+				? 0.0
+				: ((burst * (double) TimeUnit.SECONDS.toNanos(1)) / packetsPerSecond);
+		final int messagesPerPacket = mix.getMessagesPerPacket();
+		long sequence = 0;
+		long burstIndex = 0;
+		while (!stopped) {
+			final long due = start + (long) (burstIndex * burstIntervalNanos);
+			long now = System.nanoTime();
+			while ((now < due) && (due < deadline) && !stopped) {
+				LockSupport.parkNanos(due - now);
+				now = System.nanoTime();
+			}
+			if ((now >= deadline) || stopped) {
+				break;
+			}
+			for (int pi = 0; pi < burst; pi++) {
+				final OSCPacket packet = mix.createPacket(senderId, sequence);
+				sequence += messagesPerPacket;
+				try {
+					port.send(packet);
+					packetsSent.incrementAndGet();
+					messagesSent.addAndGet(messagesPerPacket);
+				} catch (final IOException ex) {
+					if (firstError == null) {
+						firstError = ex;
+					}
+					sendErrors.incrementAndGet();
+				}
+			}
+			burstIndex++;
+		}
+	}
+
+	/**
+	 * Makes {@link #run()} return after the current burst.
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	public int getSenderId() {
+		return senderId;
+	}
+
+	public long getPacketsSent() {
+		return packetsSent.get();
+	}
+
+	/**
+	 * Returns the number of messages sent,
+	 * which differs from the number of packets when sending bundles.
+	 * Messages of packets that failed to be sent are not included,
+	 * though their sequence numbers are used up,
+	 * so the sink counts them as lost.
+	 * @return number of messages successfully handed to the network
+	 */
+	public long getMessagesSent() {
+		return messagesSent.get();
+	}
+
+	public long getSendErrors() {
+		return sendErrors.get();
+	}
+
+	/**
+	 * Returns the first error that occurred while sending.
+	 * @return the error, or <code>null</code> if there was none
+	 */
+	public IOException getFirstError() {
+		return firstError;
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.loadgen;
+
+import com.illposed.osc.OSCLatencyHistogram;
+import com.illposed.osc.OSCListener;
+import com.illposed.osc.OSCMessage;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Evaluates the messages created by a {@link TrafficMix}:
+ * counts them, detects lost ones by gaps in the sequence numbers
+ * of each sender, and records their one-way latencies,
+ * the difference between their embedded sending time
+ * and the time they are received, in micro-seconds.
+ * Latencies are recorded into a histogram covering the whole run,
+ * and one covering the current reporting interval.
+ */
+public class LoadSink implements OSCListener {
+
+	/**
+	 * What is known about the messages of one sender.
+	 */
+	private static class SenderState {
+
+		private long received;
+		private long highestSequence = -1L;
+		private long reordered;
+	}
+
+	private final Map<Integer, SenderState> senders;
+	private final OSCLatencyHistogram totalLatencies;
+	private final OSCLatencyHistogram intervalLatencies;
+	private long received;
+	private long reordered;
+	private long foreign;
+
+	public LoadSink() {
+
+		this.senders = new HashMap<Integer, SenderState>();
+		this.totalLatencies = new OSCLatencyHistogram();
+		this.intervalLatencies = new OSCLatencyHistogram();
+		this.received = 0;
+		this.reordered = 0;
+		this.foreign = 0;
+	}
+
+	@Override
+	public synchronized void acceptMessage(Date time, OSCMessage message) {
+
+		final long receiveMicros = WallClock.currentTimeMicros();
+		if ((message.getArgumentCount() < TrafficMix.HEADER_ARGUMENTS)
+				|| !(message.getArgument(0) instanceof Integer)
+				|| !(message.getArgument(1) instanceof Long)
+				|| !(message.getArgument(2) instanceof Long))
+		{
+			foreign++;
+			return;
+		}
+		final int senderId = message.getInt(0);
+		final long sequence = message.getLong(1);
+		final long sendMicros = message.getLong(2);
+
+		SenderState sender = senders.get(senderId);
+		if (sender == null) {
+			sender = new SenderState();
+			senders.put(senderId, sender);
+		}
+		sender.received++;
+		if (sequence > sender.highestSequence) {
+			sender.highestSequence = sequence;
+		} else {
+			sender.reordered++;
+			reordered++;
+		}
+		received++;
+
+		final long latency = receiveMicros - sendMicros;
+		totalLatencies.record(latency);
+		intervalLatencies.record(latency);
+	}
+
+	/**
+	 * Returns the number of messages received from the load generator.
+	 * @return number of evaluated messages
+	 */
+	public synchronized long getReceived() {
+		return received;
+	}
+
+	/**
+	 * Returns the number of messages that were sent, but not received.
+	 * This assumes the messages of each sender start at sequence number 0,
+	 * and that the last ones sent were received;
+	 * messages still in flight are counted as lost.
+	 * Duplicated messages decrease the count.
+	 * @return number of messages missing
+	 */
+	public synchronized long getLost() {
+
+		long lost = 0;
+		for (final SenderState sender : senders.values()) {
+			lost += (sender.highestSequence + 1) - sender.received;
+		}
+		return lost;
+	}
+
+	/**
+	 * Returns the number of messages received after one
+	 * with a higher sequence number from the same sender.
+	 * @return number of messages received out of order
+	 */
+	public synchronized long getReordered() {
+		return reordered;
+	}
+
+	/**
+	 * Returns the number of messages received that were not created
+	 * by the load generator.
+	 * @return number of ignored messages
+	 */
+	public synchronized long getForeign() {
+		return foreign;
+	}
+
+	public synchronized int getSenderCount() {
+		return senders.size();
+	}
+
+	/**
+	 * Returns the latencies of all messages received, in micro-seconds.
+	 * @return the latencies histogram of the whole run
+	 */
+	public OSCLatencyHistogram getTotalLatencies() {
+		return totalLatencies;
+	}
+
+	/**
+	 * Returns the latencies of the messages received
+	 * since the last call to {@link #resetInterval()}, in micro-seconds.
+	 * @return the latencies histogram of the current interval
+	 */
+	public OSCLatencyHistogram getIntervalLatencies() {
+		return intervalLatencies;
+	}
+
+	/**
+	 * Starts a new reporting interval.
+	 */
+	public synchronized void resetInterval() {
+		intervalLatencies.reset();
+	}
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.loadgen;
+
+import com.illposed.osc.OSCLatencyHistogram;
+import com.illposed.osc.OSCPort;
+import com.illposed.osc.OSCPortIn;
+import com.illposed.osc.OSCPortOut;
+import com.illposed.osc.OSCReceiveStatistics;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Command line entry point of the load generator.
+ * In <code>send</code> mode, it sends generated OSC traffic
+ * from one or more threads, each using its own {@link OSCPortOut};
+ * in <code>sink</code> mode, it receives that traffic on an {@link OSCPortIn},
+ * and reports throughput, loss and one-way latency percentiles.
+ * Run without arguments to see the available options.
+ */
+public final class Main {
+
+	private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+	private Main() {
+		// utility class
+	}
+
+	private static void printUsage(final PrintStream out) {
+
+		out.println("Usage:");
+		out.println("  send [options]  generates OSC traffic");
+		out.println("    --host <name>           receiving host (default: localhost)");
+		out.println("    --port <port>           receiving port (default: " + OSCPort.DEFAULT_SC_OSC_PORT + ")");
+		out.println("    --senders <n>           concurrent sending threads (default: 1)");
+		out.println("    --rate <n>              packets per second per sender, 0 for unlimited (default: 1000)");
+		out.println("    --burst <n>             packets sent back-to-back (default: 1)");
+		out.println("    --duration <s>          seconds to send for (default: 10)");
+		out.println("    --addresses <n>         size of the address set (default: 16)");
+		out.println("    --types <tags>          payload type tags out of '" + TrafficMix.SUPPORTED_TYPES + "' (default: if)");
+		out.println("    --bundle-depth <n>      0 for plain messages, else bundle nesting depth (default: 0)");
+		out.println("    --bundle-size <n>       messages per bundle (default: 4)");
+		out.println("    --blob-size <bytes>     size of blob payload arguments (default: 64)");
+		out.println("    --sender-id <n>         ID of the first sender (default: random)");
+		out.println("    --report <s>            seconds between reports (default: 1)");
+		out.println("  sink [options]  receives and evaluates OSC traffic");
+		out.println("    --port <port>           port to listen on (default: " + OSCPort.DEFAULT_SC_OSC_PORT + ")");
+		out.println("    --duration <s>          seconds to listen for, 0 until interrupted (default: 0)");
+		out.println("    --max-packet-size <n>   largest packet received in full (default: " + OSCPortIn.MAX_PACKET_SIZE + ")");
+		out.println("    --receive-buffer <n>    socket receive buffer size, 0 for the system default (default: 0)");
+		out.println("    --report <s>            seconds between reports (default: 1)");
+		out.println("Latencies are one-way, in micro-seconds; across hosts, their clocks have to be synchronized.");
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+
+		if (args.length == 0) {
+			printUsage(System.out);
+			return;
+		}
+		final String mode = args[0];
+		final String[] optionArgs = new String[args.length - 1];
+		System.arraycopy(args, 1, optionArgs, 0, optionArgs.length);
+		try {
+			final LoadOptions options = new LoadOptions(optionArgs);
+			if ("send".equals(mode)) {
+				send(options);
+			} else if ("sink".equals(mode)) {
+				sink(options);
+			} else {
+				throw new IllegalArgumentException("Unknown mode: " + mode);
+			}
+		} catch (final IllegalArgumentException ex) {
+			System.err.println(ex.getMessage());
+			printUsage(System.err);
+			System.exit(2);
+		}
+	}
+
+	private static void checkUnused(final LoadOptions options) {
+
+		if (!options.getUnused().isEmpty()) {
+			throw new IllegalArgumentException("Unknown options: " + options.getUnused());
+		}
+	}
+
+	private static void send(final LoadOptions options)
+			throws IOException, InterruptedException
+	{
+		final InetAddress host = InetAddress.getByName(options.getString("host", "localhost"));
+		final int port = options.getInt("port", OSCPort.DEFAULT_SC_OSC_PORT);
+		final int senderCount = options.getInt("senders", 1);
+		final double rate = options.getDouble("rate", 1000.0);
+		final int burst = options.getInt("burst", 1);
+		final long durationNanos
+				= (long) (options.getDouble("duration", 10.0) * TimeUnit.SECONDS.toNanos(1));
+		final TrafficMix mix = new TrafficMix(
+				options.getInt("addresses", 16),
+				options.getString("types", "if"),
+				options.getInt("bundle-depth", 0),
+				options.getInt("bundle-size", 4),
+				options.getInt("blob-size", 64));
+		final int firstSenderId = options.getInt("sender-id",
+				new Random().nextInt(Integer.MAX_VALUE - senderCount));
+		final long reportMillis = (long) (options.getDouble("report", 1.0) * 1000.0);
+		checkUnused(options);
+		if (senderCount < 1) {
+			throw new IllegalArgumentException("There has to be at least one sender");
+		}
+
+		final List<LoadSender> senders = new ArrayList<LoadSender>(senderCount);
+		final List<OSCPortOut> ports = new ArrayList<OSCPortOut>(senderCount);
+		final List<Thread> threads = new ArrayList<Thread>(senderCount);
+		for (int si = 0; si < senderCount; si++) {
+			final OSCPortOut portOut = new OSCPortOut(host, port);
+			final LoadSender sender = new LoadSender(
+					portOut, mix, firstSenderId + si, rate, burst, durationNanos);
+			ports.add(portOut);
+			senders.add(sender);
+			threads.add(new Thread(sender, "OSC load sender " + si));
+		}
+
+		System.out.println("Sending to " + host.getHostAddress() + ':' + port
+				+ " from " + senderCount + " sender(s), IDs starting at " + firstSenderId
+				+ ", " + mix.getMessagesPerPacket() + " message(s) per packet");
+		System.out.println("   time[s]   packets/s  messages/s      errors");
+		final long start = System.nanoTime();
+		for (final Thread thread : threads) {
+			thread.start();
+		}
+		long lastPackets = 0;
+		long lastMessages = 0;
+		long lastReport = start;
+		boolean running = true;
+		while (running) {
+			running = false;
+			for (final Thread thread : threads) {
+				thread.join(reportMillis);
+				if (thread.isAlive()) {
+					running = true;
+					break;
+				}
+			}
+			final long now = System.nanoTime();
+			long packets = 0;
+			long messages = 0;
+			long errors = 0;
+			for (final LoadSender sender : senders) {
+				packets += sender.getPacketsSent();
+				messages += sender.getMessagesSent();
+				errors += sender.getSendErrors();
+			}
+			final double seconds = (now - lastReport) / (double) TimeUnit.SECONDS.toNanos(1);
+			if (running && (seconds * 1000.0 < reportMillis)) {
+				continue;
+			}
+			System.out.println(String.format("%10.1f %11.0f %11.0f %11d",
+					(now - start) / (double) TimeUnit.SECONDS.toNanos(1),
+					(packets - lastPackets) / seconds,
+					(messages - lastMessages) / seconds,
+					errors));
+			lastPackets = packets;
+			lastMessages = messages;
+			lastReport = now;
+		}
+		for (final OSCPortOut portOut : ports) {
+			portOut.close();
+		}
+
+		final double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+		System.out.println(String.format("Sent %d packets, %d messages in %.1f s, %.0f messages/s",
+				lastPackets, lastMessages, seconds, lastMessages / seconds));
+		for (final LoadSender sender : senders) {
+			if (sender.getFirstError() != null) {
+				System.err.println("Sender " + sender.getSenderId() + " failed "
+						+ sender.getSendErrors() + " time(s), first with: "
+						+ sender.getFirstError());
+			}
+		}
+	}
+
+	private static void sink(final LoadOptions options)
+			throws IOException, InterruptedException
+	{
+		final int port = options.getInt("port", OSCPort.DEFAULT_SC_OSC_PORT);
+		final double durationSeconds = options.getDouble("duration", 0.0);
+		final int maxPacketSize = options.getInt("max-packet-size", OSCPortIn.MAX_PACKET_SIZE);
+		final int receiveBuffer = options.getInt("receive-buffer", 0);
+		final long reportMillis = (long) (options.getDouble("report", 1.0) * 1000.0);
+		checkUnused(options);
+
+		final OSCPortIn portIn = new OSCPortIn(port);
+		portIn.setMaxPacketSize(maxPacketSize);
+		if (receiveBuffer > 0) {
+			portIn.setReceiveBufferSize(receiveBuffer);
+		}
+		final LoadSink sink = new LoadSink();
+		portIn.addListener(TrafficMix.ADDRESS_PREFIX + '*', sink);
+
+		final long start = System.nanoTime();
+		final AtomicBoolean summarized = new AtomicBoolean(false);
+		final Thread summary = new Thread() {
+			@Override
+			public void run() {
+				if (summarized.compareAndSet(false, true)) {
+					printSinkSummary(sink, portIn.getStatistics(), start);
+				}
+			}
+		};
+		Runtime.getRuntime().addShutdownHook(summary);
+
+		System.out.println("Listening on port " + port
+				+ ", receive buffer " + portIn.getReceiveBufferSize() + " bytes");
+		System.out.println("   time[s]  messages/s    received        lost"
+				+ "     p50[us]     p90[us]     p99[us]   p99.9[us]     max[us]");
+		portIn.startListening();
+		final long deadline = (durationSeconds > 0.0)
+				? (start + (long) (durationSeconds * TimeUnit.SECONDS.toNanos(1)))
+				: Long.MAX_VALUE;
+		long lastReceived = 0;
+		long lastReport = start;
+		while (System.nanoTime() < deadline) {
+			Thread.sleep(Math.min(reportMillis,
+					Math.max(1L, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()))));
+			final long now = System.nanoTime();
+			final long received = sink.getReceived();
+			final double seconds = (now - lastReport) / (double) TimeUnit.SECONDS.toNanos(1);
+			final OSCLatencyHistogram latencies = sink.getIntervalLatencies();
+			System.out.println(String.format("%10.1f %11.0f %11d %11d%s",
+					(now - start) / (double) TimeUnit.SECONDS.toNanos(1),
+					(received - lastReceived) / seconds,
+					received,
+					sink.getLost(),
+					formatLatencies(latencies)));
+			sink.resetInterval();
+			lastReceived = received;
+			lastReport = now;
+		}
+		portIn.stopListening();
+		portIn.close();
+		if (summarized.compareAndSet(false, true)) {
+			Runtime.getRuntime().removeShutdownHook(summary);
+			printSinkSummary(sink, portIn.getStatistics(), start);
+		}
+	}
+
+	private static String formatLatencies(final OSCLatencyHistogram latencies) {
+
+		final StringBuilder line = new StringBuilder();
+		for (final double percentile : PERCENTILES) {
+			line.append(String.format(" %11d", latencies.getValueAtPercentile(percentile)));
+		}
+		line.append(String.format(" %11d", latencies.getMax()));
+		return line.toString();
+	}
+
+	private static void printSinkSummary(
+			final LoadSink sink,
+			final OSCReceiveStatistics statistics,
+			final long start)
+	{
+		final double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+		final long received = sink.getReceived();
+		final long lost = sink.getLost();
+		final OSCLatencyHistogram latencies = sink.getTotalLatencies();
+		System.out.println(String.format(
+				"Received %d messages from %d sender(s) in %.1f s, %.0f messages/s",
+				received, sink.getSenderCount(), seconds, received / seconds));
+		System.out.println(String.format(
+				"Lost %d messages (%.3f%%), %d reordered, %d foreign; %d packets truncated, %d malformed",
+				lost,
+				((received + lost) == 0) ? 0.0 : ((lost * 100.0) / (received + lost)),
+				sink.getReordered(),
+				sink.getForeign(),
+				statistics.getPacketsTruncated(),
+				statistics.getParseErrors()));
+		System.out.println(String.format("Latency [us]: mean %.1f", latencies.getMean()));
+		for (final double percentile : PERCENTILES) {
+			System.out.println(String.format("  %6.2f%% %11d",
+					percentile, latencies.getValueAtPercentile(percentile)));
+		}
+		System.out.println(String.format("  %7s %11d", "max", latencies.getMax()));
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.loadgen;
+
+import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCPacket;
+import java.util.Date;
+
+/**
+ * Describes the shape of the generated traffic, and creates its packets.
+ * Each message is sent to one address out of a set of
+ * <code>/load/0</code> to <code>/load/(addresses - 1)</code>, in turn,
+ * and starts with three arguments the sink evaluates:
+ * the senders ID (<code>i</code>),
+ * the messages sequence number within that sender (<code>h</code>),
+ * and the time it was sent, in micro-seconds since the Java epoch
+ * (<code>h</code>, see {@link WallClock}).
+ * These are followed by the payload arguments, given as type tags.
+ * With a bundle depth above 0, messages are sent in bundles,
+ * time-tagged with their sending time,
+ * and nested in as many levels of bundles.
+ */
+public class TrafficMix {
+
+	/** The common prefix of all generated addresses. */
+	public static final String ADDRESS_PREFIX = "/load/";
+	/** The payload type tags this mix is able to generate. */
+	public static final String SUPPORTED_TYPES = "ifhdsb";
+	/** The number of arguments preceding the payload. */
+	public static final int HEADER_ARGUMENTS = 3;
+
+	private static final String PAYLOAD_STRING = "load generator payload";
+
+	private final String[] addresses;
+	private final String payloadTypes;
+	private final int bundleDepth;
+	private final int bundleSize;
+	private final byte[] blob;
+
+	/**
+	 * Creates a traffic mix.
+	 * @param addresses size of the address set
+	 * @param payloadTypes type tags of the payload arguments,
+	 *   out of {@link #SUPPORTED_TYPES}
+	 * @param bundleDepth 0 to send plain messages,
+	 *   or the nesting depth of the bundles
+	 * @param bundleSize messages per bundle; ignored for a depth of 0
+	 * @param blobSize size of each blob (<code>b</code>) payload argument
+	 */
+	public TrafficMix(
+			int addresses,
+			String payloadTypes,
+			int bundleDepth,
+			int bundleSize,
+			int blobSize)
+	{
+		if (addresses < 1) {
+			throw new IllegalArgumentException("There has to be at least one address");
+		}
+		for (int ti = 0; ti < payloadTypes.length(); ti++) {
+			if (SUPPORTED_TYPES.indexOf(payloadTypes.charAt(ti)) < 0) {
+				throw new IllegalArgumentException("Unsupported payload type '"
+						+ payloadTypes.charAt(ti) + "', use any of: " + SUPPORTED_TYPES);
+			}
+		}
+		if (bundleDepth < 0) {
+			throw new IllegalArgumentException("The bundle depth may not be negative");
+		}
+		if ((bundleDepth > 0) && (bundleSize < 1)) {
+			throw new IllegalArgumentException("A bundle has to hold at least one message");
+		}
+		if (blobSize < 0) {
+			throw new IllegalArgumentException("The blob size may not be negative");
+		}
+
+		this.addresses = new String[addresses];
+		for (int ai = 0; ai < addresses; ai++) {
+			this.addresses[ai] = ADDRESS_PREFIX + ai;
+		}
+		this.payloadTypes = payloadTypes;
+		this.bundleDepth = bundleDepth;
+		this.bundleSize = bundleSize;
+		this.blob = new byte[blobSize];
+	}
+
+	/**
+	 * Returns how many messages each packet created by this mix contains.
+	 * @return 1 for plain messages, or the bundle size
+	 */
+	public int getMessagesPerPacket() {
+		return (bundleDepth == 0) ? 1 : bundleSize;
+	}
+
+	public int getBundleDepth() {
+		return bundleDepth;
+	}
+
+	/**
+	 * Creates the next packet to send, stamped with the current time.
+	 * @param senderId of the sending thread
+	 * @param firstSequence the sequence number of the first message;
+	 *   the following ones are numbered consecutively
+	 * @return a message, or a bundle of
+	 *   {@link #getMessagesPerPacket()} messages
+	 */
+	public OSCPacket createPacket(int senderId, long firstSequence) {
+
+		final long sendMicros = WallClock.currentTimeMicros();
+		if (bundleDepth == 0) {
+			return createMessage(senderId, firstSequence, sendMicros);
+		}
+
+		final Date timestamp = new Date(sendMicros / 1000L);
+		OSCBundle bundle = new OSCBundle(timestamp);
+		for (int mi = 0; mi < bundleSize; mi++) {
+			bundle.addPacket(createMessage(senderId, firstSequence + mi, sendMicros));
+		}
+		for (int di = 1; di < bundleDepth; di++) {
+			final OSCBundle outer = new OSCBundle(timestamp);
+			outer.addPacket(bundle);
+			bundle = outer;
+		}
+		return bundle;
+	}
+
+	private OSCMessage createMessage(
+			final int senderId,
+			final long sequence,
+			final long sendMicros)
+	{
+		final OSCMessage message
+				= new OSCMessage(addresses[(int) (sequence % addresses.length)]);
+		message.addInt(senderId);
+		message.addLong(sequence);
+		message.addLong(sendMicros);
+		for (int ti = 0; ti < payloadTypes.length(); ti++) {
+			switch (payloadTypes.charAt(ti)) {
+				case 'i' :
+					message.addInt((int) sequence);
+					break;
+				case 'f' :
+					message.addFloat(0.5f);
+					break;
+				case 'h' :
+					message.addLong(sequence);
+					break;
+				case 'd' :
+					message.addDouble(0.25);
+					break;
+				case 's' :
+					message.addArgument(PAYLOAD_STRING);
+					break;
+				case 'b' :
+					message.addArgument(blob);
+					break;
+				default:
+					throw new IllegalStateException();
+			}
+		}
+		return message;
+	}
+}
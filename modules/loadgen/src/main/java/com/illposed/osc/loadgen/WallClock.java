@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.loadgen;
+
+/**
+ * A wall clock with micro-second resolution,
+ * used to stamp messages on the sender and compare on the receiver.
+ * It is anchored to {@link System#currentTimeMillis()} once,
+ * and then advances with {@link System#nanoTime()}.
+ * Within one JVM, this makes it exact;
+ * between JVMs on the same host, the anchors may differ by up to a milli-second;
+ * between hosts, the accuracy depends on how well their clocks are synchronized.
+ */
+public final class WallClock {
+
+	private static final long ANCHOR_MICROS = System.currentTimeMillis() * 1000L;
+	private static final long ANCHOR_NANOS = System.nanoTime();
+
+	private WallClock() {
+		// utility class
+	}
+
+	/**
+	 * Returns the current time.
+	 * @return micro-seconds since the Java epoch
+	 */
+	public static long currentTimeMicros() {
+		return ANCHOR_MICROS + ((System.nanoTime() - ANCHOR_NANOS) / 1000L);
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.loadgen;
+
+import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.OSCPacket;
+import com.illposed.osc.utility.OSCByteArrayToJavaConverter;
+import com.illposed.osc.utility.OSCPacketDispatcher;
+import com.illposed.osc.utility.OSCPatternAddressSelector;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @see LoadSink
+ * @see TrafficMix
+ */
+public class LoadSinkTest {
+
+	private LoadSink sink;
+	private OSCPacketDispatcher dispatcher;
+	private OSCByteArrayToJavaConverter converter;
+
+	@Before
+	public void setUp() {
+
+		sink = new LoadSink();
+		dispatcher = new OSCPacketDispatcher();
+		dispatcher.addListener(
+				new OSCPatternAddressSelector(TrafficMix.ADDRESS_PREFIX + '*'), sink);
+		converter = new OSCByteArrayToJavaConverter();
+	}
+
+	private void receive(final OSCPacket packet) {
+
+		final byte[] bytes = packet.getByteArray();
+		dispatcher.dispatchPacket(converter.convert(bytes, bytes.length));
+	}
+
+	@Test
+	public void testMessages() {
+
+		final TrafficMix mix = new TrafficMix(4, TrafficMix.SUPPORTED_TYPES, 0, 0, 16);
+		Assert.assertEquals(1, mix.getMessagesPerPacket());
+		for (long sequence = 0; sequence < 10; sequence++) {
+			final OSCMessage message = (OSCMessage) mix.createPacket(7, sequence);
+			Assert.assertEquals("/load/" + (sequence % 4), message.getAddress());
+			Assert.assertEquals(
+					TrafficMix.HEADER_ARGUMENTS + TrafficMix.SUPPORTED_TYPES.length(),
+					message.getArgumentCount());
+			receive(message);
+		}
+
+		Assert.assertEquals(10, sink.getReceived());
+		Assert.assertEquals(0, sink.getLost());
+		Assert.assertEquals(0, sink.getReordered());
+		Assert.assertEquals(1, sink.getSenderCount());
+		Assert.assertEquals(10, sink.getTotalLatencies().getCount());
+	}
+
+	@Test
+	public void testLossAndReordering() {
+
+		final TrafficMix mix = new TrafficMix(1, "", 0, 0, 0);
+		receive(mix.createPacket(1, 0));
+		receive(mix.createPacket(1, 3));
+		receive(mix.createPacket(1, 2));
+		receive(mix.createPacket(2, 1));
+
+		Assert.assertEquals(4, sink.getReceived());
+		// sender 1 misses 1, sender 2 misses 0
+		Assert.assertEquals(2, sink.getLost());
+		Assert.assertEquals(1, sink.getReordered());
+		Assert.assertEquals(2, sink.getSenderCount());
+	}
+
+	@Test
+	public void testNestedBundles() {
+
+		final TrafficMix mix = new TrafficMix(2, "f", 3, 5, 0);
+		Assert.assertEquals(5, mix.getMessagesPerPacket());
+		final OSCPacket packet = mix.createPacket(3, 0);
+		OSCPacket inner = packet;
+		for (int di = 0; di < 3; di++) {
+			Assert.assertTrue(inner instanceof OSCBundle);
+			inner = ((OSCBundle) inner).getPackets().get(0);
+		}
+		Assert.assertTrue(inner instanceof OSCMessage);
+
+		receive(packet);
+		receive(mix.createPacket(3, 5));
+		Assert.assertEquals(10, sink.getReceived());
+		Assert.assertEquals(0, sink.getLost());
+	}
+
+	@Test
+	public void testForeignMessage() {
+
+		final OSCMessage message = new OSCMessage("/load/0");
+		message.addFloat(1.0f);
+		receive(message);
+
+		Assert.assertEquals(0, sink.getReceived());
+		Assert.assertEquals(1, sink.getForeign());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedType() {
+		new TrafficMix(1, "x", 0, 0, 0);
+	}
+}
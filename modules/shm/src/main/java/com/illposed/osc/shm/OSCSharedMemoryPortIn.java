@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.shm;
+
+import com.illposed.osc.OSCPacket;
+import com.illposed.osc.OSCPortIn;
+import com.illposed.osc.OSCReceiver;
+import com.illposed.osc.utility.OSCParseException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * OSCSharedMemoryPortIn receives OSC packets through a ring buffer
+ * in a memory mapped file, written to by an {@link OSCSharedMemoryPortOut}
+ * in an other process on the same host.
+ *
+ * This is the fastest way to exchange packets between two JVMs,
+ * as neither sending nor receiving involves system calls.
+ * Packets are decoded in place, right out of the mapped file,
+ * and dispatched to the listeners from a single thread,
+ * just as with {@link OSCPortIn}.
+ * While there is nothing to receive, this thread either spins,
+ * or parks itself for short periods of time.
+ * All the settings should be made before calling {@link #startListening()};
+ * the error handler is passed no sender address with parse errors.
+ *
+ * The file is created (or replaced) when constructing the port,
+ * so the receiver has to be created before the sender;
+ * it is deleted again when the port is closed.
+ * A file system in memory, like <code>/dev/shm</code> on Linux,
+ * is the best place for it.
+ *
+ * An example:<br>
+ * <blockquote><pre>{@code
+ * receiver = new OSCSharedMemoryPortIn(Path.of("/dev/shm/engine.osc"));
+ * receiver.addListener("/message/receiving", listener);
+ * receiver.startListening();
+ * }</pre></blockquote>
+ */
+public class OSCSharedMemoryPortIn extends OSCReceiver implements Runnable {
+
+	/**
+	 * The default capacity of the ring, in bytes.
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 20;
+
+	private final Path path;
+	private final OSCSharedMemoryRing ring;
+	/** Our own view of the shared buffer, to decode packets from. */
+	private final ByteBuffer view;
+	private final boolean busySpin;
+	/** state for listening */
+	private final AtomicBoolean listening;
+
+	/**
+	 * Create a port receiving through a new ring buffer.
+	 * @param path where to create the file backing the ring
+	 * @param capacity of the ring in bytes; a power of two of at least 1024,
+	 *   which limits the size of the largest packet
+	 * @param busySpin whether to spin instead of parking the thread,
+	 *   while waiting for packets; this minimizes latency,
+	 *   at the cost of keeping a CPU core busy
+	 * @throws IOException if the file can not be created or mapped
+	 */
+	public OSCSharedMemoryPortIn(Path path, int capacity, boolean busySpin) throws IOException {
+
+		this.path = path;
+		this.ring = OSCSharedMemoryRing.create(path, capacity);
+		this.view = ring.getBuffer().duplicate();
+		this.busySpin = busySpin;
+		this.listening = new AtomicBoolean(false);
+	}
+
+	/**
+	 * Create a port receiving through a new ring buffer
+	 * of {@link #DEFAULT_CAPACITY} bytes,
+	 * parking the thread while waiting for packets.
+	 * @param path where to create the file backing the ring
+	 * @throws IOException if the file can not be created or mapped
+	 */
+	public OSCSharedMemoryPortIn(Path path) throws IOException {
+		this(path, DEFAULT_CAPACITY, false);
+	}
+
+	/**
+	 * Returns the file backing the ring buffer.
+	 * @return the path senders have to attach to
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Run the loop that receives packets until
+	 * {@link #isListening()} becomes false.
+	 * If the loop ends for any other reason,
+	 * for example because the ring is corrupt,
+	 * the ring is marked as closed,
+	 * so senders waiting for free space give up.
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+
+		long readPosition = ring.getReadPosition();
+		int idleCount = 0;
+		boolean corrupt = false;
+		try {
+			while (!corrupt && listening.get()) {
+				final long writePosition = ring.getWritePosition();
+				if (readPosition == writePosition) {
+					OSCSharedMemoryRing.idle(idleCount++, busySpin);
+				} else {
+					idleCount = 0;
+					while (!corrupt && (readPosition != writePosition)) {
+						final long nextPosition = receive(readPosition);
+						corrupt = (nextPosition < 0);
+						if (!corrupt) {
+							readPosition = nextPosition;
+						}
+					}
+					// free all the records handled, in one go
+					ring.setReadPosition(readPosition);
+				}
+			}
+			if (corrupt) {
+				// there is no telling where the next record starts
+				getErrorHandler().handleReceiveError(new IOException(
+						"Corrupt record in ring buffer " + path));
+			}
+		} finally {
+			ring.setReadPosition(readPosition);
+			if (listening.getAndSet(false)) {
+				// we were not asked to stop, so nobody frees space in the ring anymore
+				ring.markClosed();
+			}
+		}
+	}
+
+	/**
+	 * Decodes and dispatches the record at the given position.
+	 * @return the position of the next record,
+	 *   or <code>-1</code>, if the record is corrupt
+	 */
+	private long receive(final long readPosition) {
+
+		final int offset = ring.offsetOf(readPosition);
+		final int length = view.getInt(offset);
+		long nextPosition;
+		if (length == OSCSharedMemoryRing.PADDING) {
+			nextPosition = readPosition + ring.remainingUntilWrap(readPosition);
+		} else if ((length < 0)
+				|| (OSCSharedMemoryRing.recordSize(length) > ring.remainingUntilWrap(readPosition)))
+		{
+			nextPosition = -1;
+		} else {
+			nextPosition = readPosition + OSCSharedMemoryRing.recordSize(length);
+			final int packetStart = offset + OSCSharedMemoryRing.RECORD_HEADER_SIZE;
+			view.limit(packetStart + length);
+			view.position(packetStart);
+			OSCPacket oscPacket = null;
+			try {
+				oscPacket = getConverter().convert(view);
+			} catch (OSCParseException ex) {
+				// the record boundaries are still intact, so we go on
+				getErrorHandler().handleParseError(ex, null);
+			} finally {
+				view.clear();
+			}
+			if (oscPacket != null) {
+				// a failing listener is reported, and does not end the loop
+				dispatch(oscPacket, path);
+			}
+		}
+		return nextPosition;
+	}
+
+	/**
+	 * Start listening for incoming OSCPackets.
+	 */
+	public void startListening() {
+		listening.set(true);
+		final Thread thread = new Thread(this);
+		// The JVM exits when the only threads running are all daemon threads.
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stop listening for incoming OSCPackets.
+	 * Packets sent in the mean time stay in the ring,
+	 * and are received after listening is started again.
+	 */
+	public void stopListening() {
+		listening.set(false);
+	}
+
+	/**
+	 * Am I listening for packets?
+	 * @return true if this port is in listening mode
+	 */
+	public boolean isListening() {
+		return listening.get();
+	}
+
+	/**
+	 * Stops listening, tells the sender that nobody is receiving anymore,
+	 * and deletes the file backing the ring buffer.
+	 * @throws IOException if closing or deleting the file fails
+	 */
+	public void close() throws IOException {
+
+		listening.set(false);
+		ring.markClosed();
+		ring.close();
+		Files.deleteIfExists(path);
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.shm;
+
+import com.illposed.osc.OSCImmutableBundle;
+import com.illposed.osc.OSCImmutableMessage;
+import com.illposed.osc.OSCMessageTemplate;
+import com.illposed.osc.OSCPacket;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * OSCSharedMemoryPortOut writes OSC packets into a ring buffer
+ * shared with an {@link OSCSharedMemoryPortIn} in an other process
+ * on the same host.
+ *
+ * Sending a packet involves no system calls at all;
+ * it is copied into the memory mapped file, and published to the receiver.
+ * If the ring is full, {@link #send(OSCPacket)} waits for the receiver
+ * to catch up, while {@link #offer(OSCPacket)} gives up right away.
+ *
+ * Only a single sender may be attached to a ring at any time.
+ * Within one process, this class is thread-safe.
+ *
+ * An example:<br>
+ * <blockquote><pre>{@code
+ * OSCSharedMemoryPortOut sender = new OSCSharedMemoryPortOut(Path.of("/dev/shm/engine.osc"));
+ * sender.send(new OSCMessage("/cue/go"));
+ * sender.close();
+ * }</pre></blockquote>
+ */
+public class OSCSharedMemoryPortOut {
+
+	private final OSCSharedMemoryRing ring;
+	/** Our own view of the shared buffer, to copy packets into. */
+	private final ByteBuffer view;
+	private final boolean busySpin;
+	/** Only ever changed by this sender. */
+	private long writePosition;
+	/** The last known read position, to avoid looking it up for each packet. */
+	private long readPositionCache;
+
+	/**
+	 * Attaches to the ring buffer of a receiver.
+	 * @param path of the file backing the ring,
+	 *   as created by {@link OSCSharedMemoryPortIn}
+	 * @param busySpin whether to spin instead of parking the thread,
+	 *   while waiting for free space; this minimizes latency,
+	 *   at the cost of keeping a CPU core busy
+	 * @throws IOException if the file can not be mapped,
+	 *   or does not contain a ring buffer
+	 */
+	public OSCSharedMemoryPortOut(Path path, boolean busySpin) throws IOException {
+
+		this.ring = OSCSharedMemoryRing.open(path);
+		this.view = ring.getBuffer().duplicate();
+		this.busySpin = busySpin;
+		this.writePosition = ring.getWritePosition();
+		this.readPositionCache = ring.getReadPosition();
+	}
+
+	/**
+	 * Attaches to the ring buffer of a receiver,
+	 * parking the thread while waiting for free space.
+	 * @param path of the file backing the ring,
+	 *   as created by {@link OSCSharedMemoryPortIn}
+	 * @throws IOException if the file can not be mapped,
+	 *   or does not contain a ring buffer
+	 */
+	public OSCSharedMemoryPortOut(Path path) throws IOException {
+		this(path, false);
+	}
+
+	/**
+	 * Send an OSC packet (message or bundle) to the receiver,
+	 * waiting for free space in the ring, if required.
+	 * @param aPacket the bundle or message to send
+	 * @throws IOException if the packet is larger than the ring can ever hold,
+	 *   or the receiver was closed
+	 */
+	public synchronized void send(OSCPacket aPacket) throws IOException {
+
+		final ByteBuffer packet = encode(aPacket);
+		int idleCount = 0;
+		while (!write(packet)) {
+			if (ring.isClosed()) {
+				throw new IOException("The receiver was closed");
+			}
+			OSCSharedMemoryRing.idle(idleCount++, busySpin);
+		}
+	}
+
+	/**
+	 * Send an OSC packet (message or bundle) to the receiver,
+	 * if there is enough free space in the ring.
+	 * @param aPacket the bundle or message to send
+	 * @return <code>true</code> if the packet was sent,
+	 *   <code>false</code> if the ring is currently full
+	 * @throws IOException if the packet is larger than the ring can ever hold,
+	 *   or the receiver was closed
+	 */
+	public synchronized boolean offer(OSCPacket aPacket) throws IOException {
+
+		if (ring.isClosed()) {
+			throw new IOException("The receiver was closed");
+		}
+		return write(encode(aPacket));
+	}
+
+	/**
+	 * Returns the encoded form of a packet,
+	 * without copying it, if the packet is immutable or a template.
+	 */
+	private static ByteBuffer encode(final OSCPacket packet) {
+
+		final ByteBuffer bytes;
+		if (packet instanceof OSCImmutableMessage) {
+			bytes = ((OSCImmutableMessage) packet).getByteBuffer();
+		} else if (packet instanceof OSCImmutableBundle) {
+			bytes = ((OSCImmutableBundle) packet).getByteBuffer();
+		} else if (packet instanceof OSCMessageTemplate) {
+			bytes = ((OSCMessageTemplate) packet).getBuffer();
+		} else {
+			bytes = ByteBuffer.wrap(packet.getByteArray());
+		}
+		return bytes;
+	}
+
+	/**
+	 * Copies a packet into the ring, and publishes it.
+	 * @return <code>false</code> if there is not enough free space
+	 */
+	private boolean write(final ByteBuffer packet) throws IOException {
+
+		final int length = packet.remaining();
+		final int recordSize = OSCSharedMemoryRing.recordSize(length);
+		if (recordSize > ring.getCapacity()) {
+			throw new IOException("Packet of " + length
+					+ " bytes does not fit into a ring of " + ring.getCapacity() + " bytes");
+		}
+		final int remaining = ring.remainingUntilWrap(writePosition);
+		final int padding = (recordSize > remaining) ? remaining : 0;
+		final long required = writePosition + padding + recordSize;
+		if ((required - readPositionCache) > ring.getCapacity()) {
+			readPositionCache = ring.getReadPosition();
+			if ((required - readPositionCache) > ring.getCapacity()) {
+				return false;
+			}
+		}
+
+		if (padding > 0) {
+			view.putInt(ring.offsetOf(writePosition), OSCSharedMemoryRing.PADDING);
+			writePosition += padding;
+		}
+		final int offset = ring.offsetOf(writePosition);
+		view.putInt(offset, length);
+		view.position(offset + OSCSharedMemoryRing.RECORD_HEADER_SIZE);
+		view.put(packet);
+		writePosition += recordSize;
+		ring.setWritePosition(writePosition);
+		return true;
+	}
+
+	/**
+	 * Detaches from the ring buffer.
+	 * Packets already sent are still received.
+	 * @throws IOException if closing the file fails
+	 */
+	public void close() throws IOException {
+		ring.close();
+	}
+}
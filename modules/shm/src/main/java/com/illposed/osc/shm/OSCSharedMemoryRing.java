@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.shm;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single-producer/single-consumer ring buffer of OSC packets,
+ * in a memory mapped file shared between two processes.
+ *
+ * The file starts with a header, followed by the ring itself:
+ * <pre>
+ *   0: magic (int), version (int), capacity (int), closed flag (int)
+ *  64: write position (long), only changed by the producer
+ * 128: read position (long), only changed by the consumer
+ * 192: the ring, <code>capacity</code> bytes
+ * </pre>
+ * The positions are counted in bytes since the creation of the ring,
+ * and never wrap; each lives on a cache line of its own.
+ * Each record in the ring consists of its length (int),
+ * followed by the packet, padded to a multiple of 4 bytes.
+ * Records are never split at the end of the ring;
+ * if one does not fit, the rest of the ring is skipped,
+ * marked with a length of {@link #PADDING}.
+ *
+ * The contents of a record are published by writing the write position
+ * with release semantics, after the record itself;
+ * records are freed by writing the read position the same way.
+ */
+final class OSCSharedMemoryRing {
+
+	private static final int MAGIC = 0x4F534352; // "OSCR"
+	private static final int VERSION = 1;
+	private static final int MAGIC_OFFSET = 0;
+	private static final int VERSION_OFFSET = 4;
+	private static final int CAPACITY_OFFSET = 8;
+	private static final int CLOSED_OFFSET = 12;
+	private static final int WRITE_POSITION_OFFSET = 64;
+	private static final int READ_POSITION_OFFSET = 128;
+	static final int HEADER_SIZE = 192;
+	/** The size of the length in front of each record. */
+	static final int RECORD_HEADER_SIZE = 4;
+	/** Marks the skipped rest of the ring, in place of a record length. */
+	static final int PADDING = -1;
+	/** The smallest allowed capacity, in bytes. */
+	static final int MIN_CAPACITY = 1 << 10;
+	/** How often to spin before yielding or parking, while waiting. */
+	private static final int SPINS_BEFORE_PARKING = 100;
+	private static final long PARK_NANOS = 50000L;
+
+	private static final VarHandle INT_HANDLE
+			= MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+	private static final VarHandle LONG_HANDLE
+			= MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final int capacity;
+	private final int mask;
+
+	private OSCSharedMemoryRing(final FileChannel channel, final MappedByteBuffer buffer,
+			final int capacity)
+	{
+		this.channel = channel;
+		this.buffer = buffer;
+		this.capacity = capacity;
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Creates the file and an empty ring in it,
+	 * replacing any previous contents.
+	 * @param path of the file backing the ring
+	 * @param capacity of the ring in bytes; a power of two,
+	 *   and at least {@link #MIN_CAPACITY}
+	 * @return the newly created ring
+	 * @throws IOException if the file can not be created or mapped
+	 */
+	static OSCSharedMemoryRing create(final Path path, final int capacity) throws IOException {
+
+		if ((capacity < MIN_CAPACITY) || (Integer.bitCount(capacity) != 1)) {
+			throw new IllegalArgumentException(
+					"The capacity has to be a power of two of at least " + MIN_CAPACITY
+					+ " bytes, not " + capacity);
+		}
+		final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			final MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity);
+			buffer.putInt(VERSION_OFFSET, VERSION);
+			buffer.putInt(CAPACITY_OFFSET, capacity);
+			INT_HANDLE.setRelease(buffer, CLOSED_OFFSET, 0);
+			LONG_HANDLE.setRelease(buffer, WRITE_POSITION_OFFSET, 0L);
+			LONG_HANDLE.setRelease(buffer, READ_POSITION_OFFSET, 0L);
+			// written last, so producers only ever see a complete header
+			INT_HANDLE.setRelease(buffer, MAGIC_OFFSET, MAGIC);
+			return new OSCSharedMemoryRing(channel, buffer, capacity);
+		} catch (IOException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Maps a ring previously created with {@link #create(Path, int)}.
+	 * @param path of the file backing the ring
+	 * @return the existing ring
+	 * @throws IOException if the file can not be mapped,
+	 *   or does not contain a ring
+	 */
+	static OSCSharedMemoryRing open(final Path path) throws IOException {
+
+		final FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			final long fileSize = channel.size();
+			if (fileSize < HEADER_SIZE) {
+				throw new IOException("Not an OSC ring buffer: " + path);
+			}
+			final MappedByteBuffer header = channel.map(
+					FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+			if (((int) INT_HANDLE.getAcquire(header, MAGIC_OFFSET) != MAGIC)
+					|| (header.getInt(VERSION_OFFSET) != VERSION))
+			{
+				throw new IOException("Not an OSC ring buffer, or not initialized yet: " + path);
+			}
+			final int capacity = header.getInt(CAPACITY_OFFSET);
+			if ((capacity < MIN_CAPACITY) || (Integer.bitCount(capacity) != 1)
+					|| (fileSize < (HEADER_SIZE + (long) capacity)))
+			{
+				throw new IOException("Corrupt OSC ring buffer header: " + path);
+			}
+			final MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity);
+			return new OSCSharedMemoryRing(channel, buffer, capacity);
+		} catch (IOException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Returns the number of bytes a packet occupies in the ring.
+	 * @param packetLength the size of the packet in bytes
+	 * @return the size of the record holding the packet
+	 */
+	static int recordSize(final int packetLength) {
+		return RECORD_HEADER_SIZE + ((packetLength + 3) & ~3);
+	}
+
+	/**
+	 * Waits a little, spinning at first, and then either yielding
+	 * or parking the current thread.
+	 * Yielding now and then keeps a busy spinning thread
+	 * from starving its peer when there are fewer cores than threads.
+	 * @param idleCount how often in a row the caller found nothing to do
+	 * @param busySpin whether to keep the thread runnable all the time
+	 */
+	static void idle(final int idleCount, final boolean busySpin) {
+
+		if (idleCount < SPINS_BEFORE_PARKING) {
+			Thread.onSpinWait();
+		} else if (busySpin) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(PARK_NANOS);
+		}
+	}
+
+	ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+	int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns where the record at the given position starts in the buffer.
+	 */
+	int offsetOf(final long position) {
+		return HEADER_SIZE + (int) (position & mask);
+	}
+
+	/**
+	 * Returns how many bytes are left until the end of the ring,
+	 * starting at the given position.
+	 */
+	int remainingUntilWrap(final long position) {
+		return capacity - (int) (position & mask);
+	}
+
+	long getWritePosition() {
+		return (long) LONG_HANDLE.getAcquire(buffer, WRITE_POSITION_OFFSET);
+	}
+
+	void setWritePosition(final long position) {
+		LONG_HANDLE.setRelease(buffer, WRITE_POSITION_OFFSET, position);
+	}
+
+	long getReadPosition() {
+		return (long) LONG_HANDLE.getAcquire(buffer, READ_POSITION_OFFSET);
+	}
+
+	void setReadPosition(final long position) {
+		LONG_HANDLE.setRelease(buffer, READ_POSITION_OFFSET, position);
+	}
+
+	boolean isClosed() {
+		return (int) INT_HANDLE.getAcquire(buffer, CLOSED_OFFSET) != 0;
+	}
+
+	/**
+	 * Marks the ring as abandoned by the consumer,
+	 * so the producer stops waiting for free space.
+	 */
+	void markClosed() {
+		INT_HANDLE.setRelease(buffer, CLOSED_OFFSET, 1);
+	}
+
+	void close() throws IOException {
+		channel.close();
+	}
+}
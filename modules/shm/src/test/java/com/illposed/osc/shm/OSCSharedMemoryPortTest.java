@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.shm;
+
+import com.illposed.osc.OSCErrorHandler;
+import com.illposed.osc.OSCListener;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.utility.OSCParseException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @see OSCSharedMemoryPortIn
+ * @see OSCSharedMemoryPortOut
+ */
+public class OSCSharedMemoryPortTest {
+
+	private static final long TIMEOUT_MILLIS = 5000;
+	/** Small enough to wrap around many times. */
+	private static final int SMALL_CAPACITY = 1024;
+
+	/**
+	 * Records the first argument of each message received.
+	 */
+	private static class RecordingListener implements OSCListener {
+
+		private final List<Integer> values = Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public void acceptMessage(Date time, OSCMessage message) {
+			values.add(message.getInt(0));
+		}
+
+		public List<Integer> getValues() {
+			return values;
+		}
+	}
+
+	private Path directory;
+	private Path path;
+	private OSCSharedMemoryPortIn receiver;
+	private OSCSharedMemoryPortOut sender;
+
+	@Before
+	public void setUp() throws IOException {
+
+		directory = Files.createTempDirectory("javaosc");
+		path = directory.resolve("test.osc");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+
+		if (sender != null) {
+			sender.close();
+		}
+		if (receiver != null) {
+			receiver.close();
+		}
+		Files.deleteIfExists(path);
+		Files.delete(directory);
+	}
+
+	private static void waitFor(final RecordingListener listener, final int count)
+			throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while ((listener.getValues().size() < count)
+				&& (System.currentTimeMillis() < deadline))
+		{
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(count, listener.getValues().size());
+	}
+
+	private static OSCMessage createMessage(final int value, final int padding) {
+
+		final OSCMessage message = new OSCMessage("/ring");
+		message.addInt(value);
+		message.addArgument(new byte[padding]);
+		return message;
+	}
+
+	private void checkInOrder(final boolean busySpin) throws Exception {
+
+		receiver = new OSCSharedMemoryPortIn(path, SMALL_CAPACITY, busySpin);
+		final RecordingListener listener = new RecordingListener();
+		receiver.addListener("/ring", listener);
+		receiver.startListening();
+		sender = new OSCSharedMemoryPortOut(path, busySpin);
+
+		// odd sizes, so the records end at all kinds of places in the ring
+		final int numMessages = 10000;
+		for (int mi = 0; mi < numMessages; mi++) {
+			sender.send(createMessage(mi, mi % 97));
+		}
+		waitFor(listener, numMessages);
+		for (int mi = 0; mi < numMessages; mi++) {
+			Assert.assertEquals(Integer.valueOf(mi), listener.getValues().get(mi));
+		}
+	}
+
+	@Test
+	public void testInOrderParking() throws Exception {
+		checkInOrder(false);
+	}
+
+	@Test
+	public void testInOrderBusySpinning() throws Exception {
+		checkInOrder(true);
+	}
+
+	@Test
+	public void testOfferWhenFull() throws Exception {
+
+		receiver = new OSCSharedMemoryPortIn(path, SMALL_CAPACITY, false);
+		final RecordingListener listener = new RecordingListener();
+		receiver.addListener("/ring", listener);
+		sender = new OSCSharedMemoryPortOut(path);
+
+		int sent = 0;
+		while (sender.offer(createMessage(sent, 100))) {
+			sent++;
+		}
+		Assert.assertTrue(sent > 0);
+		Assert.assertTrue(sent < SMALL_CAPACITY / 100);
+
+		// everything offered so far is received once listening
+		receiver.startListening();
+		waitFor(listener, sent);
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (!sender.offer(createMessage(sent, 100)) && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(10);
+		}
+		waitFor(listener, sent + 1);
+	}
+
+	@Test
+	public void testFailingListenerKeepsReceiving() throws Exception {
+
+		receiver = new OSCSharedMemoryPortIn(path, SMALL_CAPACITY, false);
+		final List<IOException> receiveErrors = Collections.synchronizedList(new ArrayList<>());
+		receiver.setErrorHandler(new OSCErrorHandler() {
+			@Override
+			public void handleParseError(OSCParseException exception, SocketAddress sender) {
+				Assert.fail("Unexpected parse error: " + exception);
+			}
+
+			@Override
+			public void handleReceiveError(IOException exception) {
+				receiveErrors.add(exception);
+			}
+		});
+		receiver.addListener("/fail", new OSCListener() {
+			@Override
+			public void acceptMessage(Date time, OSCMessage message) {
+				throw new IllegalStateException("failing on purpose");
+			}
+		});
+		final RecordingListener listener = new RecordingListener();
+		receiver.addListener("/ring", listener);
+		receiver.startListening();
+		sender = new OSCSharedMemoryPortOut(path);
+
+		// more than fit into the ring at once, so the sender relies on the receiver
+		final int numMessages = 100;
+		for (int mi = 0; mi < numMessages; mi++) {
+			sender.send(new OSCMessage("/fail"));
+			sender.send(createMessage(mi, 100));
+		}
+		waitFor(listener, numMessages);
+		Assert.assertEquals(numMessages, receiveErrors.size());
+		Assert.assertTrue(receiveErrors.get(0).getCause() instanceof IllegalStateException);
+		Assert.assertTrue(receiver.isListening());
+	}
+
+	@Test(expected = IOException.class)
+	public void testPacketTooLarge() throws Exception {
+
+		receiver = new OSCSharedMemoryPortIn(path, SMALL_CAPACITY, false);
+		sender = new OSCSharedMemoryPortOut(path);
+		sender.send(createMessage(0, SMALL_CAPACITY));
+	}
+
+	@Test(expected = IOException.class)
+	public void testSendAfterReceiverClosed() throws Exception {
+
+		receiver = new OSCSharedMemoryPortIn(path, SMALL_CAPACITY, false);
+		sender = new OSCSharedMemoryPortOut(path);
+		receiver.close();
+		receiver = null;
+		// fill the ring, so the sender has to notice
+		while (true) {
+			sender.send(createMessage(0, 100));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testAttachToNonRing() throws Exception {
+
+		Files.write(path, new byte[1000]);
+		sender = new OSCSharedMemoryPortOut(path);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCapacityNotPowerOfTwo() throws Exception {
+		receiver = new OSCSharedMemoryPortIn(path, 3000, false);
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.unix;
+
+import com.illposed.osc.AbstractOSCStreamPortIn;
+import com.illposed.osc.OSCPortIn;
+import com.illposed.osc.utility.AbstractOSCStreamFramer;
+import com.illposed.osc.utility.OSCSlipFramer;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * OSCUnixPortIn listens for OSC packets sent over Unix domain socket connections,
+ * from other processes on the same host.
+ *
+ * Compared to UDP over the loopback interface,
+ * this skips most of the network stack,
+ * which lowers the latency and the CPU time spent per packet.
+ * Like with TCP, packets of any size arrive completely and in order,
+ * and need to be framed; by default with SLIP (OSC 1.1),
+ * see {@link OSCSlipFramer}.
+ *
+ * Each connection is served by its own thread,
+ * but listeners are never called concurrently,
+ * just as with {@link OSCPortIn}.
+ * The error handler is passed no sender address with parse errors,
+ * as the peers of Unix domain sockets are usually unnamed.
+ *
+ * The socket file is created when constructing the port,
+ * and deleted again when it is closed.
+ * If the file already exists, for example because a previous process
+ * did not shut down cleanly, construction fails;
+ * it is up to the caller to decide whether the file may be deleted.
+ *
+ * An example:<br>
+ * <blockquote><pre>{@code
+ * receiver = new OSCUnixPortIn(Path.of("/run/user/1000/sequencer.osc"));
+ * receiver.addListener("/message/receiving", listener);
+ * receiver.startListening();
+ * }</pre></blockquote>
+ */
+public class OSCUnixPortIn extends AbstractOSCStreamPortIn {
+
+	private final Path path;
+
+	/**
+	 * Create a port that accepts connections on a new socket file,
+	 * and reads packets framed in the given way.
+	 * @param path where to create the socket file
+	 * @param framer how packets are framed on the connections;
+	 *   each connection uses its own {@link AbstractOSCStreamFramer#newFramer()}
+	 * @throws IOException if the socket file already exists,
+	 *   or can not be created
+	 */
+	public OSCUnixPortIn(Path path, AbstractOSCStreamFramer framer) throws IOException {
+		super(bind(path), framer);
+
+		this.path = path;
+	}
+
+	/**
+	 * Create a port that accepts connections on a new socket file,
+	 * and reads SLIP framed packets (OSC 1.1).
+	 * @param path where to create the socket file
+	 * @throws IOException if the socket file already exists,
+	 *   or can not be created
+	 */
+	public OSCUnixPortIn(Path path) throws IOException {
+		this(path, new OSCSlipFramer());
+	}
+
+	private static ServerSocketChannel bind(final Path path) throws IOException {
+
+		final ServerSocketChannel serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		try {
+			serverChannel.bind(UnixDomainSocketAddress.of(path));
+		} catch (IOException ex) {
+			serverChannel.close();
+			throw ex;
+		}
+		return serverChannel;
+	}
+
+	/**
+	 * Returns the socket file connections are accepted on.
+	 * @return the path of this ports socket file
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Returns no address, as the peers of Unix domain sockets
+	 * are usually unnamed.
+	 * @param channel a newly accepted connection
+	 * @return <code>null</code>
+	 */
+	@Override
+	protected SocketAddress getRemoteAddress(final SocketChannel channel) {
+		return null;
+	}
+
+	/**
+	 * Stops listening, closes the server socket and all connections,
+	 * and deletes the socket file.
+	 * @throws IOException if closing the server socket
+	 *   or deleting the socket file fails
+	 */
+	@Override
+	public void close() throws IOException {
+
+		super.close();
+		Files.deleteIfExists(path);
+	}
+}
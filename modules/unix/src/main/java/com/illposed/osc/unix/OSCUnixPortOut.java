@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.unix;
+
+import com.illposed.osc.AbstractOSCStreamPortOut;
+import com.illposed.osc.utility.AbstractOSCStreamFramer;
+import com.illposed.osc.utility.OSCSlipFramer;
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * OSCUnixPortOut sends OSC packets over a Unix domain socket connection,
+ * to an other process on the same host.
+ *
+ * Packets of any size are delivered completely and in order,
+ * or sending fails with an exception.
+ * By default, packets are SLIP framed (OSC 1.1),
+ * see {@link OSCSlipFramer};
+ * the receiver has to use the same framing.
+ *
+ * An example:<br>
+ * <blockquote><pre>{@code
+ * OSCUnixPortOut sender = new OSCUnixPortOut(Path.of("/run/user/1000/sequencer.osc"));
+ * sender.send(new OSCMessage("/cue/go"));
+ * sender.close();
+ * }</pre></blockquote>
+ *
+ * Immutable packets are sent without copying them first.
+ * This class is thread-safe.
+ */
+public class OSCUnixPortOut extends AbstractOSCStreamPortOut {
+
+	private final SocketChannel channel;
+
+	/**
+	 * Create a port that sends over an already connected channel.
+	 * @param channel the connected, blocking channel to send over
+	 * @param framer how packets are framed on the connection
+	 */
+	public OSCUnixPortOut(SocketChannel channel, AbstractOSCStreamFramer framer) {
+		super(Channels.newOutputStream(channel), framer);
+
+		this.channel = channel;
+	}
+
+	/**
+	 * Connect to the socket file at the given path,
+	 * and send packets framed in the given way.
+	 * @param path of the socket file the receiver listens on
+	 * @param framer how packets are framed on the connection
+	 * @throws IOException if the connection can not be established
+	 */
+	public OSCUnixPortOut(Path path, AbstractOSCStreamFramer framer) throws IOException {
+		this(SocketChannel.open(UnixDomainSocketAddress.of(path)), framer);
+	}
+
+	/**
+	 * Connect to the socket file at the given path,
+	 * and send SLIP framed packets (OSC 1.1).
+	 * @param path of the socket file the receiver listens on
+	 * @throws IOException if the connection can not be established
+	 */
+	public OSCUnixPortOut(Path path) throws IOException {
+		this(path, new OSCSlipFramer());
+	}
+
+	/**
+	 * Returns the channel associated with this port.
+	 * @return this ports channel
+	 */
+	protected SocketChannel getChannel() {
+		return channel;
+	}
+
+	/**
+	 * Close the connection and free-up resources.
+	 * @throws IOException if closing the channel fails
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
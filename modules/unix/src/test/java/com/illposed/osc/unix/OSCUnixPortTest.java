@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2014, C. Ramakrishnan / Illposed Software.
+ * All rights reserved.
+ *
+ * This code is licensed under the BSD 3-Clause license.
+ * See file LICENSE (or LICENSE.html) for more information.
+ */
+
+package com.illposed.osc.unix;
+
+import com.illposed.osc.OSCBundle;
+import com.illposed.osc.OSCListener;
+import com.illposed.osc.OSCMessage;
+import com.illposed.osc.utility.OSCLengthPrefixFramer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @see OSCUnixPortIn
+ * @see OSCUnixPortOut
+ */
+public class OSCUnixPortTest {
+
+	private static final long TIMEOUT_MILLIS = 5000;
+
+	/**
+	 * Counts the messages received, from any thread.
+	 */
+	private static class CountingListener implements OSCListener {
+
+		private final AtomicInteger messageCount = new AtomicInteger();
+
+		@Override
+		public void acceptMessage(Date time, OSCMessage message) {
+			messageCount.incrementAndGet();
+		}
+
+		public int getMessageCount() {
+			return messageCount.get();
+		}
+	}
+
+	private Path directory;
+	private Path path;
+	private OSCUnixPortIn receiver;
+	private OSCUnixPortOut sender;
+
+	@Before
+	public void setUp() throws IOException {
+
+		directory = Files.createTempDirectory("javaosc");
+		path = directory.resolve("test.osc");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+
+		if (sender != null) {
+			sender.close();
+		}
+		if (receiver != null) {
+			receiver.close();
+		}
+		Files.deleteIfExists(path);
+		Files.delete(directory);
+	}
+
+	private static void waitFor(final CountingListener listener, final int count)
+			throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while ((listener.getMessageCount() < count)
+				&& (System.currentTimeMillis() < deadline))
+		{
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(count, listener.getMessageCount());
+	}
+
+	@Test
+	public void testManySmallMessages() throws Exception {
+
+		receiver = new OSCUnixPortIn(path);
+		final CountingListener listener = new CountingListener();
+		receiver.addListener("/small", listener);
+		receiver.startListening();
+		sender = new OSCUnixPortOut(path);
+
+		final OSCMessage message = new OSCMessage("/small");
+		message.addFloat(0.5f);
+		for (int mi = 0; mi < 1000; mi++) {
+			sender.send(message);
+		}
+		waitFor(listener, 1000);
+	}
+
+	@Test
+	public void testLargeBundle() throws Exception {
+
+		receiver = new OSCUnixPortIn(path, new OSCLengthPrefixFramer());
+		final CountingListener listener = new CountingListener();
+		receiver.addListener("/large/bundle", listener);
+		receiver.startListening();
+		sender = new OSCUnixPortOut(path, new OSCLengthPrefixFramer());
+
+		final OSCBundle bundle = new OSCBundle();
+		for (int mi = 0; mi < 100; mi++) {
+			final OSCMessage message = new OSCMessage("/large/bundle");
+			message.addArgument(new byte[1000]);
+			bundle.addPacket(message);
+		}
+		sender.send(bundle);
+		waitFor(listener, 100);
+	}
+
+	@Test
+	public void testCloseDeletesSocketFile() throws Exception {
+
+		receiver = new OSCUnixPortIn(path);
+		Assert.assertTrue(Files.exists(path));
+		receiver.close();
+		Assert.assertFalse(Files.exists(path));
+	}
+
+	@Test(expected = IOException.class)
+	public void testSocketFileInUse() throws Exception {
+
+		receiver = new OSCUnixPortIn(path);
+		new OSCUnixPortIn(path);
+	}
+}